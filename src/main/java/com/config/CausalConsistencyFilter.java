@@ -0,0 +1,72 @@
+package com.config;
+
+import com.exception.InvalidRequestException;
+import com.util.CausalContext;
+import com.util.CausalToken;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.io.IOException;
+
+/**
+ * Binds a {@link CausalContext} to every request. An {@code X-Causal-Token} request header makes
+ * the request's reads causally consistent with the write that produced the token; a request that
+ * writes gets the token of its last write back in the same header ({@link CausalTokenAdvice} for
+ * responses with a body, here for the rest).
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+public class CausalConsistencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Causal-Token";
+
+    private final boolean enabled;
+    // filters run before the DispatcherServlet; this hands errors to GlobalExceptionHandler anyway
+    private final HandlerExceptionResolver exceptionResolver;
+
+    public CausalConsistencyFilter(@Value("${bank.read-routing.enabled:true}") boolean enabled,
+                                   @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver) {
+        this.enabled = enabled;
+        this.exceptionResolver = exceptionResolver;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        CausalToken requested = null;
+        String header = request.getHeader(HEADER);
+        if (header != null && !header.isBlank()) {
+            try {
+                requested = CausalToken.decode(header);
+            } catch (IllegalArgumentException ex) {
+                exceptionResolver.resolveException(request, response, null,
+                        new InvalidRequestException("Malformed " + HEADER + " header"));
+                return;
+            }
+        }
+        CausalContext context = CausalContext.begin(requested);
+        try {
+            chain.doFilter(request, response);
+            CausalToken observed = context.getObserved();
+            if (observed != null && !response.isCommitted() && !response.containsHeader(HEADER)) {
+                response.setHeader(HEADER, observed.encode());
+            }
+        } finally {
+            CausalContext.end();
+        }
+    }
+}
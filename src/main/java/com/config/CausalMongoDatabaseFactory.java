@@ -0,0 +1,101 @@
+package com.config;
+
+import com.exception.InvalidRequestException;
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoDatabase;
+import com.util.CausalContext;
+import com.util.CausalToken;
+import com.util.ClusterTime;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.support.PersistenceExceptionTranslator;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+
+/**
+ * Hands out databases bound to a causally consistent session while the current request carries a
+ * {@link CausalToken}, and plain ones otherwise. The session is opened on first use, advanced to
+ * the token's operation time and closed with the request's {@link CausalContext}.
+ * Because every template and repository call goes through here, reads routed to a secondary wait
+ * ({@code afterClusterTime}) until that secondary has the client's last write, without any
+ * service having to pass a session around. Tokens ahead of any cluster time the servers have sent
+ * this process are rejected as a bad request ({@link ClusterTime}).
+ */
+public class CausalMongoDatabaseFactory implements MongoDatabaseFactory {
+
+    private static final ClientSessionOptions CAUSAL = ClientSessionOptions.builder().causallyConsistent(true).build();
+
+    private final MongoDatabaseFactory delegate;
+
+    public CausalMongoDatabaseFactory(MongoDatabaseFactory delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public MongoDatabase getMongoDatabase() throws DataAccessException {
+        return current().getMongoDatabase();
+    }
+
+    @Override
+    public MongoDatabase getMongoDatabase(String dbName) throws DataAccessException {
+        return current().getMongoDatabase(dbName);
+    }
+
+    private MongoDatabaseFactory current() {
+        CausalContext context = CausalContext.current();
+        if (context == null || context.getRequested() == null) {
+            return delegate;
+        }
+        ClientSession session = context.getSession();
+        if (session == null) {
+            CausalToken token = context.getRequested();
+            BsonDocument clusterTime = admissibleClusterTime(token);
+            session = delegate.getSession(CAUSAL);
+            session.advanceClusterTime(clusterTime);
+            session.advanceOperationTime(token.getOperationTime());
+            context.setSession(session);
+        }
+        return delegate.withSession(session);
+    }
+
+    // The token comes from the client. A far-future operation time would make every read of the
+    // request wait on afterClusterTime, so it is only honoured up to a cluster time the servers have
+    // sent this process; a token written through another instance may be a little ahead, which one
+    // ping catches up with. The session gets the servers' signed $clusterTime, never the client's.
+    private BsonDocument admissibleClusterTime(CausalToken token) {
+        if (!ClusterTime.covers(token.getOperationTime())) {
+            delegate.getMongoDatabase().runCommand(new Document("ping", 1));
+        }
+        if (!ClusterTime.covers(token.getOperationTime())) {
+            throw new InvalidRequestException("X-Causal-Token is ahead of the cluster time");
+        }
+        return ClusterTime.latest();
+    }
+
+    @Override
+    public PersistenceExceptionTranslator getExceptionTranslator() {
+        return delegate.getExceptionTranslator();
+    }
+
+    @Override
+    public CodecRegistry getCodecRegistry() {
+        return delegate.getCodecRegistry();
+    }
+
+    @Override
+    public ClientSession getSession(ClientSessionOptions options) {
+        return delegate.getSession(options);
+    }
+
+    @Override
+    public MongoDatabaseFactory withSession(ClientSession session) {
+        return delegate.withSession(session);
+    }
+
+    @Override
+    public boolean isTransactionActive() {
+        return delegate.isTransactionActive();
+    }
+}
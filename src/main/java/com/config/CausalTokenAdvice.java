@@ -0,0 +1,36 @@
+package com.config;
+
+import com.util.CausalContext;
+import com.util.CausalToken;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Adds the {@code X-Causal-Token} of the request's last write right before the response body is
+ * serialized, the last moment a header can still be added.
+ */
+@ControllerAdvice
+public class CausalTokenAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        CausalContext context = CausalContext.current();
+        CausalToken observed = context == null ? null : context.getObserved();
+        if (observed != null && !response.getHeaders().containsKey(CausalConsistencyFilter.HEADER)) {
+            response.getHeaders().set(CausalConsistencyFilter.HEADER, observed.encode());
+        }
+        return body;
+    }
+}
@@ -0,0 +1,45 @@
+package com.config;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+import com.util.CausalContext;
+import com.util.ClusterTime;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+import java.util.Set;
+
+/**
+ * Records the {@code operationTime} and {@code $clusterTime} of every write acknowledged on a
+ * request thread in that request's {@link CausalContext}, so the response can hand the client a
+ * token for reading its own writes. Like {@link RequestTimingCommandListener} it relies on the
+ * synchronous driver publishing events on the calling thread. Standalone servers send no
+ * operationTime and produce no token. The {@code $clusterTime} of every reply also goes to
+ * {@link ClusterTime}, which bounds the tokens this process accepts.
+ */
+public class CausalTokenCommandListener implements CommandListener {
+
+    private static final Set<String> WRITE_COMMANDS = Set.of("insert", "update", "delete", "findAndModify");
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        BsonDocument response = event.getResponse();
+        // every reply, on any thread, bounds the tokens this process will honour
+        BsonValue gossip = response.get("$clusterTime");
+        if (gossip != null && gossip.isDocument()) {
+            ClusterTime.observe(gossip.asDocument());
+        }
+        CausalContext context = CausalContext.current();
+        if (context == null || !WRITE_COMMANDS.contains(event.getCommandName())) {
+            return;
+        }
+        BsonValue operationTime = response.get("operationTime");
+        if (operationTime == null || !operationTime.isTimestamp()) {
+            return;
+        }
+        // the reply is only valid during this callback
+        BsonValue clusterTime = response.get("$clusterTime");
+        context.observe(operationTime.asTimestamp(),
+                clusterTime != null && clusterTime.isDocument() ? clusterTime.asDocument().clone() : null);
+    }
+}
@@ -0,0 +1,39 @@
+package com.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * With the fast-startup profile every bean is lazy except the ones the first request or the
+ * schedulers need: controllers (and, through them, the services they call), MVC interceptors,
+ * and beans with @Scheduled methods, which are only registered once the bean exists.
+ */
+@Configuration
+@Profile("fast-startup")
+public class FastStartupConfig {
+
+    @Bean
+    public static LazyInitializationExcludeFilter eagerRequestPathBeans() {
+        return (beanName, beanDefinition, beanType) ->
+                AnnotatedElementUtils.hasAnnotation(beanType, Controller.class)
+                        || HandlerInterceptor.class.isAssignableFrom(beanType)
+                        || hasScheduledMethods(beanType);
+    }
+
+    private static boolean hasScheduledMethods(Class<?> beanType) {
+        AtomicBoolean found = new AtomicBoolean();
+        ReflectionUtils.doWithMethods(beanType,
+                method -> found.set(true),
+                method -> !found.get() && AnnotatedElementUtils.hasAnnotation(method, Scheduled.class));
+        return found.get();
+    }
+}
@@ -0,0 +1,96 @@
+package com.config;
+
+import com.exception.ServiceOverloadedException;
+import com.util.AdaptiveConcurrencyLimiter;
+import com.util.RequestTiming;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Separate adaptive concurrency limits for read and write traffic to MongoDB, so a burst of
+ * slow history scans cannot take the connections deposits and withdrawals need.
+ * Calls over the limit fail fast with {@link ServiceOverloadedException} (503). Every service
+ * call goes through here, so this is also where the request's {@code svc} timing is taken.
+ */
+@Component
+public class MongoBulkheads {
+
+    private final AdaptiveConcurrencyLimiter reads;
+    private final AdaptiveConcurrencyLimiter writes;
+    private final Counter rejectedReads;
+    private final Counter rejectedWrites;
+
+    public MongoBulkheads(MeterRegistry registry,
+                          @Value("${bank.bulkhead.read.initial-limit:32}") int readInitial,
+                          @Value("${bank.bulkhead.read.min-limit:4}") int readMin,
+                          @Value("${bank.bulkhead.read.max-limit:48}") int readMax,
+                          @Value("${bank.bulkhead.read.target-latency-ms:50}") long readTargetMs,
+                          @Value("${bank.bulkhead.write.initial-limit:32}") int writeInitial,
+                          @Value("${bank.bulkhead.write.min-limit:4}") int writeMin,
+                          @Value("${bank.bulkhead.write.max-limit:32}") int writeMax,
+                          @Value("${bank.bulkhead.write.target-latency-ms:30}") long writeTargetMs) {
+        this.reads = new AdaptiveConcurrencyLimiter(readInitial, readMin, readMax, readTargetMs * 1_000_000);
+        this.writes = new AdaptiveConcurrencyLimiter(writeInitial, writeMin, writeMax, writeTargetMs * 1_000_000);
+        this.rejectedReads = register(registry, "read", reads);
+        this.rejectedWrites = register(registry, "write", writes);
+    }
+
+    private static Counter register(MeterRegistry registry, String pool, AdaptiveConcurrencyLimiter limiter) {
+        Gauge.builder("bank.bulkhead.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("pool", pool).register(registry);
+        Gauge.builder("bank.bulkhead.in-flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .tag("pool", pool).register(registry);
+        return Counter.builder("bank.bulkhead.rejected").tag("pool", pool).register(registry);
+    }
+
+    public <T> T read(Supplier<T> call) {
+        return run(reads, rejectedReads, "read", call);
+    }
+
+    public <T> T write(Supplier<T> call) {
+        return run(writes, rejectedWrites, "write", call);
+    }
+
+    public void write(Runnable call) {
+        run(writes, rejectedWrites, "write", () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /** Share of the write limit in use, for background jobs that should yield to foreground writes. */
+    public double writeLoad() {
+        return (double) writes.getInFlight() / writes.getLimit();
+    }
+
+    private static <T> T run(AdaptiveConcurrencyLimiter limiter, Counter rejected, String pool, Supplier<T> call) {
+        if (!limiter.tryAcquire()) {
+            rejected.increment();
+            throw new ServiceOverloadedException("Too many concurrent " + pool + " operations, retry shortly");
+        }
+        RequestTiming timing = RequestTiming.current();
+        if (timing != null) {
+            timing.enterService();
+        }
+        long started = System.nanoTime();
+        boolean overloaded = false;
+        try {
+            return call.get();
+        } catch (QueryTimeoutException | DataAccessResourceFailureException ex) {
+            overloaded = true;
+            throw ex;
+        } finally {
+            limiter.release(System.nanoTime() - started, overloaded);
+            if (timing != null) {
+                timing.exitService();
+            }
+        }
+    }
+}
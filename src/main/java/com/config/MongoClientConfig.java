@@ -0,0 +1,110 @@
+package com.config;
+
+import com.mongodb.MongoCompressor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class MongoClientConfig {
+
+    // Driver defaults wait up to 30s for a server or a pooled connection; fail fast instead so the
+    // bulkheads see the slowdown and requests are answered with 503/504 rather than piling up.
+    // There is deliberately no socket read timeout: it would also cut off exports, migrations and
+    // the reconciliation aggregations. Request-path queries carry their own maxTimeMS instead.
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoTimeouts(
+            @Value("${bank.mongo.connect-timeout-ms:2000}") int connectTimeoutMs,
+            @Value("${bank.mongo.server-selection-timeout-ms:2000}") int serverSelectionTimeoutMs,
+            @Value("${bank.mongo.pool-max-wait-ms:1000}") int poolMaxWaitMs,
+            @Value("${bank.mongo.max-pool-size:100}") int maxPoolSize,
+            @Value("${bank.bulkhead.read.max-limit:48}") int readMax,
+            @Value("${bank.bulkhead.write.max-limit:32}") int writeMax) {
+        checkPoolFitsBulkheads(maxPoolSize, readMax, writeMax);
+        return builder -> builder
+                .applyToClusterSettings(cluster -> cluster
+                        .serverSelectionTimeout(serverSelectionTimeoutMs, TimeUnit.MILLISECONDS))
+                .applyToSocketSettings(socket -> socket
+                        .connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS))
+                .applyToConnectionPoolSettings(pool -> pool
+                        .maxSize(maxPoolSize)
+                        .maxWaitTime(poolMaxWaitMs, TimeUnit.MILLISECONDS));
+    }
+
+    // The bulkheads only isolate readers from writers if both can be at their limit at once;
+    // what the pool has beyond that is left to background jobs and the change stream.
+    static void checkPoolFitsBulkheads(int maxPoolSize, int readMax, int writeMax) {
+        if (readMax + writeMax > maxPoolSize) {
+            throw new IllegalStateException("bank.bulkhead.read.max-limit (" + readMax + ") + bank.bulkhead.write.max-limit ("
+                    + writeMax + ") exceeds bank.mongo.max-pool-size (" + maxPoolSize + ")");
+        }
+    }
+
+    // per-request database time for the Server-Timing header; a no-op on threads without a request
+    @Bean
+    public MongoClientSettingsBuilderCustomizer requestTimingListener(
+            @Value("${bank.timing.enabled:true}") boolean enabled) {
+        return builder -> {
+            if (enabled) {
+                builder.addCommandListener(new RequestTimingCommandListener());
+            }
+        };
+    }
+
+    // operation time of each write a request makes, handed back to the client as X-Causal-Token
+    @Bean
+    public MongoClientSettingsBuilderCustomizer causalTokenListener(
+            @Value("${bank.read-routing.enabled:true}") boolean enabled) {
+        return builder -> {
+            if (enabled) {
+                builder.addCommandListener(new CausalTokenCommandListener());
+            }
+        };
+    }
+
+    // Wraps Boot's factory in one that puts requests carrying a causal token into a causally
+    // consistent session. Wrapped rather than replaced: declaring a MongoDatabaseFactory bean would
+    // make Boot's Mongo auto-configuration, and with it the MongoClient, back off.
+    @Bean
+    public static BeanPostProcessor causalMongoDatabaseFactory() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof MongoDatabaseFactory factory && !(bean instanceof CausalMongoDatabaseFactory)) {
+                    return new CausalMongoDatabaseFactory(factory);
+                }
+                return bean;
+            }
+        };
+    }
+
+    // compressors offered to the server in order of preference; it uses the first one it also has enabled
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoCompression(
+            @Value("${bank.mongo.compressors:zstd,snappy,zlib}") String[] compressors) {
+        List<MongoCompressor> offered = compressors(compressors);
+        return builder -> builder.compressorList(offered);
+    }
+
+    static List<MongoCompressor> compressors(String[] names) {
+        List<MongoCompressor> compressors = new ArrayList<>();
+        for (String name : names) {
+            switch (name.trim().toLowerCase(Locale.ROOT)) {
+                case "zstd" -> compressors.add(MongoCompressor.createZstdCompressor());
+                case "snappy" -> compressors.add(MongoCompressor.createSnappyCompressor());
+                case "zlib" -> compressors.add(MongoCompressor.createZlibCompressor());
+                case "", "none" -> { }
+                default -> throw new IllegalArgumentException("Unknown MongoDB compressor: " + name);
+            }
+        }
+        return compressors;
+    }
+}
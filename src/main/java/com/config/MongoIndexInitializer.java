@@ -0,0 +1,73 @@
+package com.config;
+
+import com.model.Account;
+import com.model.BalanceCheckpoint;
+import com.model.StandingOrder;
+import com.model.Transaction;
+import com.service.TransactionArchiveService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Creates the indexes declared on the mapped documents once the application is up
+ * (and the time-series transactions collection, when that mode is enabled).
+ * Runs on a background thread so that startup does not block (or fail) when MongoDB is unreachable.
+ */
+@Component
+public class MongoIndexInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexInitializer.class);
+
+    static final List<Class<?>> INDEXED_DOCUMENTS = List.of(Account.class, Transaction.class, StandingOrder.class,
+            BalanceCheckpoint.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final TransactionTimeSeriesConfig timeSeries;
+
+    public MongoIndexInitializer(MongoTemplate mongoTemplate, TransactionTimeSeriesConfig timeSeries) {
+        this.mongoTemplate = mongoTemplate;
+        this.timeSeries = timeSeries;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        Thread worker = new Thread(this::ensureIndexes, "mongo-index-init");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public void ensureIndexes() {
+        try {
+            // must happen before the first index build, which would create a regular collection
+            timeSeries.ensureCollection(mongoTemplate);
+        } catch (DataAccessException ex) {
+            log.error("Could not prepare the transactions collection: {}", ex.getMessage());
+        }
+
+        IndexResolver resolver = IndexResolver.create(mongoTemplate.getConverter().getMappingContext());
+        for (Class<?> type : INDEXED_DOCUMENTS) {
+            ensureIndexes(resolver, type, mongoTemplate.getCollectionName(type));
+        }
+        // the archive tier is queried with the same shapes as the hot collection
+        ensureIndexes(resolver, Transaction.class, TransactionArchiveService.ARCHIVE_COLLECTION);
+    }
+
+    private void ensureIndexes(IndexResolver resolver, Class<?> type, String collection) {
+        try {
+            IndexOperations indexOps = mongoTemplate.indexOps(collection);
+            resolver.resolveIndexFor(type).forEach(indexOps::ensureIndex);
+            log.info("Indexes ensured for {}", collection);
+        } catch (DataAccessException ex) {
+            log.error("Could not create indexes for {}: {}", collection, ex.getMessage());
+        }
+    }
+}
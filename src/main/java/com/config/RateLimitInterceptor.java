@@ -0,0 +1,164 @@
+package com.config;
+
+import com.util.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Admission control in front of the account and transaction endpoints: a request needs a permit
+ * from its client's bucket, from the global bucket and, when the path names an account, from that
+ * account's bucket, taken in that order. Permits taken before a later bucket rejects the request
+ * are given back. Rejections are answered with 429 and a Retry-After header, without touching
+ * the service layer.
+ * <p>
+ * Clients are keyed by {@code getRemoteAddr()}. {@code X-Forwarded-For} is never read here: anyone
+ * can send it, and rotating values would both dodge the client limit and fill the bucket map until
+ * everyone shares the overflow bucket. Behind a proxy, Tomcat's remote-IP handling
+ * ({@code server.forward-headers-strategy=native}) puts the forwarded client into the remote
+ * address, but only for requests from the trusted proxies in {@code server.tomcat.remoteip.internal-proxies}.
+ */
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitInterceptor.class);
+
+    private final boolean enabled;
+    private final double accountRate;
+    private final int accountBurst;
+    private final double clientRate;
+    private final int clientBurst;
+    private final int maxTrackedKeys;
+
+    private final TokenBucket global;
+    // new keys beyond maxTrackedKeys share this bucket so the maps cannot grow without bound
+    private final TokenBucket overflow;
+    private final Map<String, TokenBucket> accountBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> clientBuckets = new ConcurrentHashMap<>();
+
+    private final Counter rejectedAccount;
+    private final Counter rejectedClient;
+    private final Counter rejectedGlobal;
+
+    public RateLimitInterceptor(MeterRegistry registry,
+                                @Value("${bank.ratelimit.enabled:true}") boolean enabled,
+                                @Value("${bank.ratelimit.account.rate:20}") double accountRate,
+                                @Value("${bank.ratelimit.account.burst:40}") int accountBurst,
+                                @Value("${bank.ratelimit.client.rate:100}") double clientRate,
+                                @Value("${bank.ratelimit.client.burst:200}") int clientBurst,
+                                @Value("${bank.ratelimit.global.rate:5000}") double globalRate,
+                                @Value("${bank.ratelimit.global.burst:10000}") int globalBurst,
+                                @Value("${bank.ratelimit.max-tracked-keys:100000}") int maxTrackedKeys) {
+        this.enabled = enabled;
+        this.accountRate = accountRate;
+        this.accountBurst = accountBurst;
+        this.clientRate = clientRate;
+        this.clientBurst = clientBurst;
+        this.maxTrackedKeys = maxTrackedKeys;
+
+        long now = System.nanoTime();
+        this.global = new TokenBucket(globalRate, globalBurst, now);
+        this.overflow = new TokenBucket(clientRate, clientBurst, now);
+
+        this.rejectedAccount = rejectedCounter(registry, "account");
+        this.rejectedClient = rejectedCounter(registry, "client");
+        this.rejectedGlobal = rejectedCounter(registry, "global");
+    }
+
+    private static Counter rejectedCounter(MeterRegistry registry, String scope) {
+        return Counter.builder("bank.ratelimit.rejected")
+                .description("Requests rejected by admission control")
+                .tag("scope", scope)
+                .register(registry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (!enabled) {
+            return true;
+        }
+        long now = System.nanoTime();
+
+        // the caller's own bucket first: a client over its limit must not drain an account's
+        // bucket, and it is shared with every other caller of that account
+        TokenBucket client = bucket(clientBuckets, request.getRemoteAddr(), clientRate, clientBurst, now);
+        long wait = client.tryAcquire(now);
+        if (wait > 0) {
+            rejectedClient.increment();
+            return reject(response, wait);
+        }
+
+        wait = global.tryAcquire(now);
+        if (wait > 0) {
+            client.release();
+            rejectedGlobal.increment();
+            return reject(response, wait);
+        }
+
+        String account = accountOf(request);
+        if (account != null) {
+            wait = bucket(accountBuckets, account, accountRate, accountBurst, now).tryAcquire(now);
+            if (wait > 0) {
+                client.release();
+                global.release();
+                rejectedAccount.increment();
+                return reject(response, wait);
+            }
+        }
+        return true;
+    }
+
+    private TokenBucket bucket(Map<String, TokenBucket> buckets, String key, double rate, int burst, long now) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxTrackedKeys) {
+            return overflow;
+        }
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(rate, burst, now));
+    }
+
+    private static boolean reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long seconds = Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+        response.getWriter().write("Too many requests");
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String accountOf(HttpServletRequest request) {
+        Object attribute = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (!(attribute instanceof Map)) {
+            return null;
+        }
+        Map<String, String> variables = (Map<String, String>) attribute;
+        String account = variables.get("accNo");
+        return account != null ? account : variables.get("accountNumber");
+    }
+
+    // Full buckets are indistinguishable from new ones, so dropping them frees memory without changing behaviour
+    @Scheduled(fixedDelayString = "${bank.ratelimit.eviction-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        int before = accountBuckets.size() + clientBuckets.size();
+        accountBuckets.values().removeIf(bucket -> bucket.isFull(now));
+        clientBuckets.values().removeIf(bucket -> bucket.isFull(now));
+        log.debug("Evicted {} idle rate-limit buckets", before - accountBuckets.size() - clientBuckets.size());
+    }
+}
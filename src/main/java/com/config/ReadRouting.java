@@ -0,0 +1,45 @@
+package com.config;
+
+import com.mongodb.ReadPreference;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-query read routing. Reads that tolerate a little lag (history, listing, statements,
+ * search) mark their query with {@link #secondary(Query)} and are served by a secondary no more
+ * than {@code max-staleness-seconds} behind the primary, or by the primary when no such secondary
+ * is up. Everything else, in particular the balance checks inside deposits, withdrawals and
+ * transfers, keeps the client's default primary read preference.
+ * <p>
+ * A client that needs to see its own write sends back the {@code X-Causal-Token} of that write
+ * ({@link CausalConsistencyFilter}); the request's reads then run in a causally consistent
+ * session and a lagging secondary waits for the write before answering.
+ */
+@Component
+public class ReadRouting {
+
+    // the smallest maxStalenessSeconds the server accepts
+    static final long MIN_STALENESS_SECONDS = 90;
+
+    private final boolean enabled;
+    private final ReadPreference secondary;
+
+    public ReadRouting(@Value("${bank.read-routing.enabled:true}") boolean enabled,
+                       @Value("${bank.read-routing.max-staleness-seconds:90}") long maxStalenessSeconds) {
+        this.enabled = enabled;
+        this.secondary = ReadPreference.secondaryPreferred(
+                Math.max(maxStalenessSeconds, MIN_STALENESS_SECONDS), TimeUnit.SECONDS);
+    }
+
+    /** Marks {@code query} to be read from a secondary; returns it unchanged when routing is off. */
+    public Query secondary(Query query) {
+        return enabled ? query.withReadPreference(secondary) : query;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
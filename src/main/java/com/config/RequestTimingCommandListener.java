@@ -0,0 +1,113 @@
+package com.config;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import com.util.RequestTiming;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds the round trip of every MongoDB command issued on a request thread to that request's
+ * {@link RequestTiming}. The synchronous driver publishes command events on the calling thread,
+ * so the thread-local lookup finds the right request. For sampled requests the command's shape
+ * (command, collection and filter keys, never values) is kept for the slow-request log.
+ */
+public class RequestTimingCommandListener implements CommandListener {
+
+    private static final int MAX_SHAPE_DEPTH = 4;
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        RequestTiming timing = RequestTiming.current();
+        if (timing != null && timing.isSampled()) {
+            // the command document is only valid during this callback, so the shape is built now
+            timing.queryShape(shapeOf(event.getCommandName(), event.getCommand()));
+        }
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        RequestTiming timing = RequestTiming.current();
+        if (timing != null) {
+            timing.dbCommand(event.getElapsedTime(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        RequestTiming timing = RequestTiming.current();
+        if (timing != null) {
+            timing.dbCommand(event.getElapsedTime(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    static String shapeOf(String commandName, BsonDocument command) {
+        StringBuilder shape = new StringBuilder(commandName);
+        BsonValue target = command.get(commandName);
+        if (target != null && target.isString()) {
+            shape.append(' ').append(target.asString().getValue());
+        } else if (command.isString("collection")) {
+            shape.append(' ').append(command.getString("collection").getValue());
+        }
+        BsonValue filter = switch (commandName) {
+            case "find" -> command.get("filter");
+            case "count", "distinct", "findAndModify" -> command.get("query");
+            case "update" -> first(command.get("updates"), "q");
+            case "delete" -> first(command.get("deletes"), "q");
+            case "aggregate" -> command.get("pipeline");
+            default -> null;
+        };
+        if (filter != null) {
+            shape.append(' ');
+            appendShape(shape, filter, 0);
+        }
+        return shape.toString();
+    }
+
+    private static BsonValue first(BsonValue statements, String key) {
+        if (statements == null || !statements.isArray() || statements.asArray().isEmpty()) {
+            return null;
+        }
+        BsonValue statement = statements.asArray().get(0);
+        return statement.isDocument() ? statement.asDocument().get(key) : null;
+    }
+
+    private static void appendShape(StringBuilder shape, BsonValue value, int depth) {
+        if (value.isDocument() && depth < MAX_SHAPE_DEPTH) {
+            shape.append('{');
+            boolean first = true;
+            for (Map.Entry<String, BsonValue> entry : value.asDocument().entrySet()) {
+                if (!first) {
+                    shape.append(", ");
+                }
+                first = false;
+                shape.append(entry.getKey()).append(": ");
+                appendShape(shape, entry.getValue(), depth + 1);
+            }
+            shape.append('}');
+        } else if (value.isArray() && depth < MAX_SHAPE_DEPTH && isDocumentArray(value.asArray())) {
+            // $and/$or branches and pipeline stages keep their structure, value lists do not
+            shape.append('[');
+            BsonArray array = value.asArray();
+            for (int i = 0; i < array.size(); i++) {
+                if (i > 0) {
+                    shape.append(", ");
+                }
+                appendShape(shape, array.get(i), depth + 1);
+            }
+            shape.append(']');
+        } else {
+            shape.append('?');
+        }
+    }
+
+    private static boolean isDocumentArray(BsonArray array) {
+        return !array.isEmpty() && array.get(0).isDocument();
+    }
+}
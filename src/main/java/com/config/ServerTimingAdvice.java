@@ -0,0 +1,72 @@
+package com.config;
+
+import com.util.RequestTiming;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.lang.reflect.Type;
+
+/**
+ * Times request-body deserialization and writes the {@code Server-Timing} header right before the
+ * response body is serialized, which is the last moment a header can still be added.
+ */
+@ControllerAdvice
+public class ServerTimingAdvice extends RequestBodyAdviceAdapter implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                           Class<? extends HttpMessageConverter<?>> converterType) {
+        RequestTiming timing = RequestTiming.current();
+        if (timing != null) {
+            timing.bodyReadStarted();
+        }
+        return inputMessage;
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter,
+                                Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+        RequestTiming timing = RequestTiming.current();
+        if (timing != null) {
+            timing.bodyReadFinished();
+        }
+        return body;
+    }
+
+    @Override
+    public Object handleEmptyBody(Object body, HttpInputMessage inputMessage, MethodParameter parameter,
+                                  Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return afterBodyRead(body, inputMessage, parameter, targetType, converterType);
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        RequestTiming timing = RequestTiming.current();
+        if (timing != null && !response.getHeaders().containsKey(ServerTimingFilter.HEADER)) {
+            long now = System.nanoTime();
+            timing.responseStarted(now);
+            response.getHeaders().add(ServerTimingFilter.HEADER, timing.headerValue(now));
+        }
+        return body;
+    }
+}
@@ -0,0 +1,75 @@
+package com.config;
+
+import com.util.RequestTiming;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Binds a {@link RequestTiming} to every request and writes its breakdown as a
+ * {@code Server-Timing} header. Responses with a body get the header from
+ * {@link ServerTimingAdvice} just before the body is written; responses without one get it here.
+ * <p>
+ * A sampled fraction of the requests also records its MongoDB query shapes; a sampled request
+ * slower than {@code bank.timing.slow-request-ms} is logged with its full breakdown, including
+ * the serialization time that the header cannot carry.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Server-Timing";
+
+    private static final Logger log = LoggerFactory.getLogger(ServerTimingFilter.class);
+
+    private final boolean enabled;
+    private final long slowRequestNanos;
+    private final double sampleRate;
+    private final int maxQueryShapes;
+
+    public ServerTimingFilter(@Value("${bank.timing.enabled:true}") boolean enabled,
+                              @Value("${bank.timing.slow-request-ms:500}") long slowRequestMs,
+                              @Value("${bank.timing.sample-rate:0.05}") double sampleRate,
+                              @Value("${bank.timing.max-query-shapes:20}") int maxQueryShapes) {
+        this.enabled = enabled;
+        this.slowRequestNanos = slowRequestMs * 1_000_000;
+        this.sampleRate = sampleRate;
+        this.maxQueryShapes = maxQueryShapes;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean sampled = sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+        RequestTiming timing = RequestTiming.begin(sampled, maxQueryShapes);
+        try {
+            chain.doFilter(request, response);
+            if (!response.isCommitted() && !response.containsHeader(HEADER)) {
+                response.addHeader(HEADER, timing.headerValue(System.nanoTime()));
+            }
+        } finally {
+            RequestTiming.end();
+            long now = System.nanoTime();
+            if (sampled && now - timing.getStarted() >= slowRequestNanos) {
+                log.warn("Slow request {} {} -> {} in {} ms: {}", request.getMethod(), request.getRequestURI(),
+                        response.getStatus(), (now - timing.getStarted()) / 1_000_000, timing.describe(now));
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.config;
+
+import com.model.Transaction;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+import org.springframework.stereotype.Component;
+
+/**
+ * Optional storage mode where {@code transactions} is a MongoDB time-series collection:
+ * the timestamp is the timeField and the source account is the metaField, so history
+ * queries (account + time range) only open the buckets of that account and period.
+ * The destination is not part of the metaField: a {src, dst} meta document would give every
+ * account pair its own buckets, and most pairs see a handful of transfers, so buckets would hold
+ * a few measurements each and lose most of the compression. Incoming-side queries use the
+ * {@code dst_ts} secondary index instead.
+ */
+@Component
+public class TransactionTimeSeriesConfig {
+
+    public static final String TIME_FIELD = Transaction.Fields.TIMESTAMP;
+    public static final String META_FIELD = Transaction.Fields.SOURCE_ACCOUNT;
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionTimeSeriesConfig.class);
+
+    private final boolean enabled;
+    private final Granularity granularity;
+
+    public TransactionTimeSeriesConfig(@Value("${bank.transactions.time-series:false}") boolean enabled,
+                                       @Value("${bank.transactions.time-series-granularity:SECONDS}") Granularity granularity) {
+        this.enabled = enabled;
+        this.granularity = granularity;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public CollectionOptions collectionOptions() {
+        return CollectionOptions.empty().timeSeries(
+                CollectionOptions.TimeSeriesOptions.timeSeries(TIME_FIELD)
+                        .metaField(META_FIELD)
+                        .granularity(granularity));
+    }
+
+    /**
+     * Creates the transactions collection as time-series when the mode is on. An existing regular
+     * collection is left alone; it has to be converted with the time-series migration job.
+     */
+    public void ensureCollection(MongoTemplate mongoTemplate) {
+        if (!enabled) {
+            return;
+        }
+        String name = mongoTemplate.getCollectionName(Transaction.class);
+        if (!mongoTemplate.collectionExists(name)) {
+            mongoTemplate.createCollection(name, collectionOptions());
+            log.info("Created {} as a time-series collection", name);
+        } else if (!isTimeSeries(mongoTemplate, name)) {
+            log.warn("Time-series mode is on but {} is a regular collection; run the time-series migration", name);
+        }
+    }
+
+    public static boolean isTimeSeries(MongoTemplate mongoTemplate, String collection) {
+        Document info = mongoTemplate.getDb().listCollections().filter(new Document("name", collection)).first();
+        return info != null && "timeseries".equals(info.getString("type"));
+    }
+}
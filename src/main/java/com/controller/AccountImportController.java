@@ -0,0 +1,33 @@
+package com.controller;
+
+import com.dto.ImportReport;
+import com.service.AccountImportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/accounts")
+public class AccountImportController {
+
+    private final AccountImportService importService;
+
+    private static final Logger log = LoggerFactory.getLogger(AccountImportController.class);
+
+    public AccountImportController(AccountImportService importService) {
+        this.importService = importService;
+    }
+
+    // POST /api/accounts/import  → streams a CSV or NDJSON body straight into bulk inserts
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ImportReport importAccounts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+        log.info("Bulk account import started ({})", contentType);
+        return importService.importAccounts(body, AccountImportService.Format.fromContentType(contentType));
+    }
+}
@@ -0,0 +1,25 @@
+package com.controller;
+
+import com.model.Account;
+import com.service.AccountSearchService;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/accounts")
+public class AccountSearchController {
+
+    private final AccountSearchService searchService;
+
+    public AccountSearchController(AccountSearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    // GET /api/accounts/search?name=ali&limit=20  → case-insensitive holder-name prefix match
+    @GetMapping("/search")
+    public List<Account> search(@RequestParam String name,
+                                @RequestParam(required = false) Integer limit) {
+        return searchService.search(name, limit);
+    }
+}
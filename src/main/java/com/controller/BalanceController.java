@@ -0,0 +1,27 @@
+package com.controller;
+
+import com.dto.BalanceAsOf;
+import com.service.BalanceCheckpointService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Date;
+
+@RestController
+@RequestMapping("/api/accounts")
+public class BalanceController {
+
+    private final BalanceCheckpointService checkpoints;
+
+    public BalanceController(BalanceCheckpointService checkpoints) {
+        this.checkpoints = checkpoints;
+    }
+
+    // GET /api/accounts/{accNo}/balance?asOf=  → balance at that instant: nearest daily checkpoint + that day's rows
+    @GetMapping("/{accNo}/balance")
+    public BalanceAsOf balance(
+            @PathVariable String accNo,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date asOf) {
+        return checkpoints.balanceAt(accNo, asOf);
+    }
+}
@@ -0,0 +1,127 @@
+package com.controller;
+
+import com.dto.ExportRequest;
+import com.dto.ExportStatus;
+import com.dto.InterestRunRequest;
+import com.dto.InterestRunStatus;
+import com.dto.ReconciliationStatus;
+import com.service.AccountPurgeService;
+import com.service.BalanceCheckpointService;
+import com.service.CompactSchemaMigration;
+import com.service.InterestAccrualService;
+import com.service.LedgerReconciliationService;
+import com.service.TransactionArchiveService;
+import com.service.TransactionExportService;
+import com.service.TransactionTimeSeriesMigration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/jobs")
+public class JobController {
+
+    private final TransactionExportService exportService;
+    private final TransactionArchiveService archiveService;
+    private final TransactionTimeSeriesMigration timeSeriesMigration;
+    private final InterestAccrualService interestService;
+    private final LedgerReconciliationService reconciliationService;
+    private final CompactSchemaMigration compactSchemaMigration;
+    private final AccountPurgeService purgeService;
+    private final BalanceCheckpointService checkpointService;
+
+    private static final Logger log = LoggerFactory.getLogger(JobController.class);
+
+    public JobController(TransactionExportService exportService,
+                         TransactionArchiveService archiveService,
+                         TransactionTimeSeriesMigration timeSeriesMigration,
+                         InterestAccrualService interestService,
+                         LedgerReconciliationService reconciliationService,
+                         CompactSchemaMigration compactSchemaMigration,
+                         AccountPurgeService purgeService,
+                         BalanceCheckpointService checkpointService) {
+        this.exportService = exportService;
+        this.archiveService = archiveService;
+        this.timeSeriesMigration = timeSeriesMigration;
+        this.interestService = interestService;
+        this.reconciliationService = reconciliationService;
+        this.compactSchemaMigration = compactSchemaMigration;
+        this.purgeService = purgeService;
+        this.checkpointService = checkpointService;
+    }
+
+    // POST /api/admin/jobs/transaction-export  → starts (or resumes) an export in the background
+    @PostMapping("/transaction-export")
+    public ResponseEntity<ExportStatus> startExport(@RequestBody ExportRequest request) {
+        log.info("Transaction export requested from {} to {}", request.getFrom(), request.getTo());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(exportService.start(request));
+    }
+
+    @GetMapping("/transaction-export/{jobId}")
+    public ExportStatus exportStatus(@PathVariable String jobId) {
+        return exportService.status(jobId);
+    }
+
+    // POST /api/admin/jobs/archive  → runs the hot → archive move now instead of waiting for the schedule
+    @PostMapping("/archive")
+    public Map<String, Long> archive() {
+        log.info("Manual transaction archival requested");
+        return Map.of("archived", archiveService.archiveOlderThan(archiveService.horizon()));
+    }
+
+    // POST /api/admin/jobs/account-purge  → purges soft-deleted accounts now instead of waiting for the schedule
+    @PostMapping("/account-purge")
+    public Map<String, Object> purgeAccounts() {
+        log.info("Manual purge of deleted accounts requested");
+        return purgeService.purgeDue();
+    }
+
+    // POST /api/admin/jobs/balance-checkpoints  → closes the days since the last checkpoint run now
+    @PostMapping("/balance-checkpoints")
+    public Map<String, Object> writeBalanceCheckpoints() {
+        log.info("Balance checkpoint run requested");
+        return checkpointService.writeCheckpoints();
+    }
+
+    // POST /api/admin/jobs/time-series-migration  → converts transactions to a time-series collection (writes paused)
+    @PostMapping("/time-series-migration")
+    public Map<String, Object> migrateToTimeSeries() {
+        log.info("Time-series migration of transactions requested");
+        return timeSeriesMigration.migrate();
+    }
+
+    // POST /api/admin/jobs/compact-schema-migration  → rewrites documents in the short-field layout (writes paused)
+    @PostMapping("/compact-schema-migration")
+    public Map<String, Object> migrateToCompactSchema() {
+        log.info("Compact schema migration requested");
+        return compactSchemaMigration.migrate();
+    }
+
+    // POST /api/admin/jobs/interest-accrual  → credits interest to all ACTIVE accounts (same runId resumes)
+    @PostMapping("/interest-accrual")
+    public ResponseEntity<InterestRunStatus> startInterestRun(@RequestBody InterestRunRequest request) {
+        log.info("Interest run {} requested at {}%", request.getRunId(), request.getRatePercent());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(interestService.start(request));
+    }
+
+    @GetMapping("/interest-accrual/{runId}")
+    public InterestRunStatus interestRunStatus(@PathVariable String runId) {
+        return interestService.status(runId);
+    }
+
+    // POST /api/admin/jobs/reconciliation?full=false  → balance vs ledger check, incremental since the last run
+    @PostMapping("/reconciliation")
+    public ResponseEntity<ReconciliationStatus> startReconciliation(@RequestParam(defaultValue = "false") boolean full) {
+        log.info("Ledger reconciliation requested (full={})", full);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(reconciliationService.start(full));
+    }
+
+    @GetMapping("/reconciliation/{runId}")
+    public ReconciliationStatus reconciliationStatus(@PathVariable String runId) {
+        return reconciliationService.status(runId);
+    }
+}
@@ -0,0 +1,43 @@
+package com.controller;
+
+import com.dto.StandingOrderRequest;
+import com.model.StandingOrder;
+import com.service.StandingOrderService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/standing-orders")
+public class StandingOrderController {
+
+    private final StandingOrderService standingOrderService;
+
+    public StandingOrderController(StandingOrderService standingOrderService) {
+        this.standingOrderService = standingOrderService;
+    }
+
+    // POST /api/standing-orders  → a transfer that runs once at firstRunAt, or DAILY / WEEKLY / MONTHLY from then on
+    @PostMapping
+    public ResponseEntity<StandingOrder> create(@RequestBody StandingOrderRequest request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(standingOrderService.create(request));
+    }
+
+    @GetMapping("/{id}")
+    public StandingOrder get(@PathVariable String id) {
+        return standingOrderService.get(id);
+    }
+
+    // GET /api/standing-orders?account=ACC123  → the orders paying out of that account, newest first
+    @GetMapping
+    public List<StandingOrder> forAccount(@RequestParam String account) {
+        return standingOrderService.forAccount(account);
+    }
+
+    @DeleteMapping("/{id}")
+    public StandingOrder cancel(@PathVariable String id) {
+        return standingOrderService.cancel(id);
+    }
+}
@@ -0,0 +1,25 @@
+package com.controller;
+
+import com.dto.TopAccount;
+import com.service.TopAccountsService;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/accounts")
+public class TopAccountsController {
+
+    private final TopAccountsService topAccountsService;
+
+    public TopAccountsController(TopAccountsService topAccountsService) {
+        this.topAccountsService = topAccountsService;
+    }
+
+    // GET /api/accounts/top?by=balance&k=10  → largest balances (or by=activity: most deposits/withdrawals), from memory
+    @GetMapping("/top")
+    public List<TopAccount> top(@RequestParam(defaultValue = "balance") String by,
+                                @RequestParam(required = false) Integer k) {
+        return topAccountsService.top(by, k);
+    }
+}
@@ -1,23 +1,42 @@
 package com.controller;
 
-import com.repository.TransactionRepository;
 import com.model.Transaction;
+import com.service.TransactionFeed;
+import com.service.TransactionHistoryService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.Date;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/accounts")
 public class TransactionController {
 
-    private final TransactionRepository repo;
+    private final TransactionHistoryService history;
+    private final TransactionFeed feed;
 
-    public TransactionController(TransactionRepository repo) {
-        this.repo = repo;
+    public TransactionController(TransactionHistoryService history, TransactionFeed feed) {
+        this.history = history;
+        this.feed = feed;
     }
 
+    // GET /api/accounts/{accNo}/transactions?from=&to=  → hot tier first, archive only for older ranges
     @GetMapping("/{accNo}/transactions")
-    public List<Transaction> getTxns(@PathVariable String accNo) {
-        return repo.findBySourceAccountOrDestinationAccount(accNo, accNo);
+    public List<Transaction> getTxns(
+            @PathVariable String accNo,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date to) {
+        return history.history(accNo, from, to);
+    }
+
+    // GET /api/accounts/{accNo}/transactions/stream  → Server-Sent Events, one "transaction" event per new transaction
+    @GetMapping(path = "/{accNo}/transactions/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTxns(
+            @PathVariable String accNo,
+            @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        return feed.subscribe(accNo, lastEventId);
     }
 }
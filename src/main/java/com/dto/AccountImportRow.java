@@ -0,0 +1,20 @@
+package com.dto;
+
+public class AccountImportRow {
+    private String holderName;
+    private double balance;
+
+    public AccountImportRow() {
+    }
+
+    public AccountImportRow(String holderName, double balance) {
+        this.holderName = holderName;
+        this.balance = balance;
+    }
+
+    public String getHolderName() { return holderName; }
+    public void setHolderName(String holderName) { this.holderName = holderName; }
+
+    public double getBalance() { return balance; }
+    public void setBalance(double balance) { this.balance = balance; }
+}
@@ -0,0 +1,33 @@
+package com.dto;
+
+import java.util.Date;
+
+/**
+ * An account's balance at a point in time: the nearest earlier checkpoint ({@code checkpointAt},
+ * null when there was none) plus the ledger rows between it and {@code asOf}.
+ */
+public class BalanceAsOf {
+    private final String accountNumber;
+    private final Date asOf;
+    private final double balance;
+    private final Date checkpointAt;
+    private final int transactionsApplied;
+
+    public BalanceAsOf(String accountNumber, Date asOf, double balance, Date checkpointAt, int transactionsApplied) {
+        this.accountNumber = accountNumber;
+        this.asOf = asOf;
+        this.balance = balance;
+        this.checkpointAt = checkpointAt;
+        this.transactionsApplied = transactionsApplied;
+    }
+
+    public String getAccountNumber() { return accountNumber; }
+
+    public Date getAsOf() { return asOf; }
+
+    public double getBalance() { return balance; }
+
+    public Date getCheckpointAt() { return checkpointAt; }
+
+    public int getTransactionsApplied() { return transactionsApplied; }
+}
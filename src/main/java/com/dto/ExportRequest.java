@@ -0,0 +1,26 @@
+package com.dto;
+
+import java.time.Instant;
+
+public class ExportRequest {
+    private String jobId;
+    private Instant from;
+    private Instant to;
+    private String format = "ndjson";
+    private String compression = "gzip";
+
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+
+    public Instant getFrom() { return from; }
+    public void setFrom(Instant from) { this.from = from; }
+
+    public Instant getTo() { return to; }
+    public void setTo(Instant to) { this.to = to; }
+
+    public String getFormat() { return format; }
+    public void setFormat(String format) { this.format = format; }
+
+    public String getCompression() { return compression; }
+    public void setCompression(String compression) { this.compression = compression; }
+}
@@ -0,0 +1,39 @@
+package com.dto;
+
+/**
+ * Progress of a transaction export job. Updated by the export worker, read by the status endpoint.
+ */
+public class ExportStatus {
+    public enum State { RUNNING, COMPLETED, FAILED }
+
+    private final String jobId;
+    private volatile State state = State.RUNNING;
+    private volatile long rowsWritten;
+    private volatile int partsWritten;
+    private volatile String error;
+
+    public ExportStatus(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public void progress(long rowsWritten, int partsWritten) {
+        this.rowsWritten = rowsWritten;
+        this.partsWritten = partsWritten;
+    }
+
+    public void completed(long rowsWritten, int partsWritten) {
+        progress(rowsWritten, partsWritten);
+        this.state = State.COMPLETED;
+    }
+
+    public void failed(String error) {
+        this.error = error;
+        this.state = State.FAILED;
+    }
+
+    public String getJobId() { return jobId; }
+    public State getState() { return state; }
+    public long getRowsWritten() { return rowsWritten; }
+    public int getPartsWritten() { return partsWritten; }
+    public String getError() { return error; }
+}
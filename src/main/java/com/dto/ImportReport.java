@@ -0,0 +1,57 @@
+package com.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk account import. Only the first {@code maxErrors} row errors are kept
+ * so that a badly formatted upload cannot blow up the report.
+ */
+public class ImportReport {
+    private long totalRows;
+    private long imported;
+    private long failed;
+    private boolean errorsTruncated;
+    private final List<RowError> errors = new ArrayList<>();
+    private final int maxErrors;
+
+    public ImportReport(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    public void rowRead() {
+        totalRows++;
+    }
+
+    public void imported(long count) {
+        imported += count;
+    }
+
+    public void rejected(long line, String message) {
+        failed++;
+        if (errors.size() < maxErrors) {
+            errors.add(new RowError(line, message));
+        } else {
+            errorsTruncated = true;
+        }
+    }
+
+    public long getTotalRows() { return totalRows; }
+    public long getImported() { return imported; }
+    public long getFailed() { return failed; }
+    public boolean isErrorsTruncated() { return errorsTruncated; }
+    public List<RowError> getErrors() { return errors; }
+
+    public static class RowError {
+        private final long line;
+        private final String message;
+
+        public RowError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine() { return line; }
+        public String getMessage() { return message; }
+    }
+}
@@ -0,0 +1,14 @@
+package com.dto;
+
+import java.math.BigDecimal;
+
+public class InterestRunRequest {
+    private String runId;
+    private BigDecimal ratePercent;
+
+    public String getRunId() { return runId; }
+    public void setRunId(String runId) { this.runId = runId; }
+
+    public BigDecimal getRatePercent() { return ratePercent; }
+    public void setRatePercent(BigDecimal ratePercent) { this.ratePercent = ratePercent; }
+}
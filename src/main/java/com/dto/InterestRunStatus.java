@@ -0,0 +1,59 @@
+package com.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Progress and throughput of an interest accrual run. Updated by the chunk workers, read by the status endpoint.
+ */
+public class InterestRunStatus {
+    public enum State { RUNNING, COMPLETED, FAILED }
+
+    private final String runId;
+    private final BigDecimal ratePercent;
+    private final int chunksTotal;
+    private final long startedNanos = System.nanoTime();
+    private volatile State state = State.RUNNING;
+    private int chunksDone;
+    private long accountsCredited;
+    private BigDecimal totalInterest = BigDecimal.ZERO.setScale(2);
+    private volatile long elapsedMs;
+    private volatile String error;
+
+    public InterestRunStatus(String runId, BigDecimal ratePercent, int chunksTotal) {
+        this.runId = runId;
+        this.ratePercent = ratePercent;
+        this.chunksTotal = chunksTotal;
+    }
+
+    public synchronized void chunkDone(long credited, BigDecimal interest) {
+        chunksDone++;
+        accountsCredited += credited;
+        totalInterest = totalInterest.add(interest);
+        elapsedMs = (System.nanoTime() - startedNanos) / 1_000_000;
+    }
+
+    public void completed() {
+        elapsedMs = (System.nanoTime() - startedNanos) / 1_000_000;
+        this.state = State.COMPLETED;
+    }
+
+    public void failed(String error) {
+        elapsedMs = (System.nanoTime() - startedNanos) / 1_000_000;
+        this.error = error;
+        this.state = State.FAILED;
+    }
+
+    public String getRunId() { return runId; }
+    public BigDecimal getRatePercent() { return ratePercent; }
+    public State getState() { return state; }
+    public int getChunksTotal() { return chunksTotal; }
+    public synchronized int getChunksDone() { return chunksDone; }
+    public synchronized long getAccountsCredited() { return accountsCredited; }
+    public synchronized BigDecimal getTotalInterest() { return totalInterest; }
+    public long getElapsedMs() { return elapsedMs; }
+    public String getError() { return error; }
+
+    public synchronized long getAccountsPerSecond() {
+        return elapsedMs == 0 ? 0 : accountsCredited * 1000 / elapsedMs;
+    }
+}
@@ -0,0 +1,55 @@
+package com.dto;
+
+import java.util.Date;
+
+/**
+ * Progress of a ledger reconciliation run. Updated by the reconciliation workers, read by the status endpoint.
+ */
+public class ReconciliationStatus {
+    public enum State { RUNNING, COMPLETED, FAILED }
+    public enum Mode { FULL, INCREMENTAL }
+
+    private final String runId;
+    private final Mode mode;
+    private final Date since;
+    private final long startedNanos = System.nanoTime();
+    private volatile State state = State.RUNNING;
+    private long accountsChecked;
+    private long mismatches;
+    private volatile long elapsedMs;
+    private volatile String error;
+
+    public ReconciliationStatus(String runId, Mode mode, Date since) {
+        this.runId = runId;
+        this.mode = mode;
+        this.since = since;
+    }
+
+    public synchronized void checked(long accounts) {
+        accountsChecked += accounts;
+        elapsedMs = (System.nanoTime() - startedNanos) / 1_000_000;
+    }
+
+    public void completed(long mismatches) {
+        synchronized (this) {
+            this.mismatches = mismatches;
+        }
+        elapsedMs = (System.nanoTime() - startedNanos) / 1_000_000;
+        this.state = State.COMPLETED;
+    }
+
+    public void failed(String error) {
+        elapsedMs = (System.nanoTime() - startedNanos) / 1_000_000;
+        this.error = error;
+        this.state = State.FAILED;
+    }
+
+    public String getRunId() { return runId; }
+    public Mode getMode() { return mode; }
+    public Date getSince() { return since; }
+    public State getState() { return state; }
+    public synchronized long getAccountsChecked() { return accountsChecked; }
+    public synchronized long getMismatches() { return mismatches; }
+    public long getElapsedMs() { return elapsedMs; }
+    public String getError() { return error; }
+}
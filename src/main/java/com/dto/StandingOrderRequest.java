@@ -0,0 +1,30 @@
+package com.dto;
+
+import java.time.Instant;
+
+public class StandingOrderRequest {
+    private String fromAccount;
+    private String toAccount;
+    private double amount;
+    private String frequency = "ONCE";
+    private Instant firstRunAt;
+    private Instant endsAt;
+
+    public String getFromAccount() { return fromAccount; }
+    public void setFromAccount(String fromAccount) { this.fromAccount = fromAccount; }
+
+    public String getToAccount() { return toAccount; }
+    public void setToAccount(String toAccount) { this.toAccount = toAccount; }
+
+    public double getAmount() { return amount; }
+    public void setAmount(double amount) { this.amount = amount; }
+
+    public String getFrequency() { return frequency; }
+    public void setFrequency(String frequency) { this.frequency = frequency; }
+
+    public Instant getFirstRunAt() { return firstRunAt; }
+    public void setFirstRunAt(Instant firstRunAt) { this.firstRunAt = firstRunAt; }
+
+    public Instant getEndsAt() { return endsAt; }
+    public void setEndsAt(Instant endsAt) { this.endsAt = endsAt; }
+}
@@ -0,0 +1,22 @@
+package com.dto;
+
+/**
+ * One row of a top-K ranking: the account and its balance or activity count, depending on the ranking.
+ */
+public class TopAccount {
+    private final int rank;
+    private final String accountNumber;
+    private final double value;
+
+    public TopAccount(int rank, String accountNumber, double value) {
+        this.rank = rank;
+        this.accountNumber = accountNumber;
+        this.value = value;
+    }
+
+    public int getRank() { return rank; }
+
+    public String getAccountNumber() { return accountNumber; }
+
+    public double getValue() { return value; }
+}
@@ -1,5 +1,5 @@
 package com.exception;
 
 public class AccountNotFoundException extends RuntimeException {
-    public AccountNotFoundException(String msg) { super(msg); }
+    public AccountNotFoundException(String msg) { super(msg, null, false, false); }
 }
@@ -1,5 +1,5 @@
 package com.exception;
 
 public class InsufficientBalanceException extends RuntimeException {
-    public InsufficientBalanceException(String msg) { super(msg); }
+    public InsufficientBalanceException(String msg) { super(msg, null, false, false); }
 }
@@ -1,5 +1,5 @@
 package com.exception;
 
 public class InvalidAmountException extends RuntimeException {
-    public InvalidAmountException(String msg) { super(msg); }
+    public InvalidAmountException(String msg) { super(msg, null, false, false); }
 }
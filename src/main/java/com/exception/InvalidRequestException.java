@@ -0,0 +1,5 @@
+package com.exception;
+
+public class InvalidRequestException extends RuntimeException {
+    public InvalidRequestException(String msg) { super(msg, null, false, false); }
+}
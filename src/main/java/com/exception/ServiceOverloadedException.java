@@ -0,0 +1,5 @@
+package com.exception;
+
+public class ServiceOverloadedException extends RuntimeException {
+    public ServiceOverloadedException(String msg) { super(msg, null, false, false); }
+}
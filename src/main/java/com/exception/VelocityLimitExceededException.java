@@ -0,0 +1,12 @@
+package com.exception;
+
+public class VelocityLimitExceededException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public VelocityLimitExceededException(String msg, long retryAfterSeconds) {
+        super(msg, null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() { return retryAfterSeconds; }
+}
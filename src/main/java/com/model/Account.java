@@ -1,34 +1,99 @@
 package com.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.util.HolderNames;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.convert.ValueConverter;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.IndexDirection;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
 
 import java.util.Date;
 
 @Document(collection = "accounts")
+@CompoundIndex(name = "hnn_an", def = "{'" + Account.Fields.HOLDER_NAME_NORMALIZED + "': 1, '" + Account.Fields.ACCOUNT_NUMBER + "': 1}")
 public class Account {
 
+    /** Stored field names; queries built on the Java property names are translated by the mapping. */
+    public static final class Fields {
+        public static final String ACCOUNT_NUMBER = "an";
+        public static final String HOLDER_NAME = "hn";
+        public static final String HOLDER_NAME_NORMALIZED = "hnn";
+        public static final String BALANCE = "b";
+        public static final String BALANCE_UPDATED_AT = "bu";
+        public static final String STATUS = "s";
+        public static final String CREATED_AT = "c";
+        public static final String LAST_INTEREST_RUN = "ir";
+        public static final String ACTIVITY = "n";
+        public static final String DELETED_AT = "d";
+
+        private Fields() {
+        }
+    }
+
+    /** Values of {@code status}. A deleted account is hidden from reads until its purge removes it. */
+    public static final String ACTIVE = "ACTIVE";
+    public static final String DELETED = "DELETED";
+
     @Id
     private String id;
 
+    @Indexed(unique = true)
+    @Field(Fields.ACCOUNT_NUMBER)
     private String accountNumber;
 
     @NotBlank(message = "Name is required")
+    @Field(Fields.HOLDER_NAME)
     private String holderName;
 
+    // lower-cased, accent-free copy of holderName for prefix search; kept in sync by setHolderName
+    @JsonIgnore
+    @Field(Fields.HOLDER_NAME_NORMALIZED)
+    private String holderNameNormalized;
 
+    // descending indexes on balance and activity let the top-K rankings reload with one short scan
+    @Indexed(direction = IndexDirection.DESCENDING)
+    @Field(Fields.BALANCE)
     private double balance;
 
+    // when the balance last changed; incremental reconciliation re-checks accounts changed since its checkpoint
+    @JsonIgnore
+    @Indexed
+    @Field(Fields.BALANCE_UPDATED_AT)
+    private Date balanceUpdatedAt;
+
+    @Field(Fields.STATUS)
+    @ValueConverter(StorageCodes.AccountStatusConverter.class)
     private String status;
 
+    @Field(Fields.CREATED_AT)
     private Date createdAt;
 
+    // id of the last interest run that credited this account; makes a resumed run skip it
+    @JsonIgnore
+    @Field(Fields.LAST_INTEREST_RUN)
+    private String lastInterestRun;
+
+    // deposits and withdrawals so far (a transfer is one of each); ranks the most active accounts
+    @JsonIgnore
+    @Indexed(direction = IndexDirection.DESCENDING)
+    @Field(Fields.ACTIVITY)
+    private long activity;
+
+    // set with status DELETED; the sparse index lists the accounts whose transactions are still to be purged
+    @JsonIgnore
+    @Indexed(sparse = true)
+    @Field(Fields.DELETED_AT)
+    private Date deletedAt;
+
     public Account() {
         this.balance = 0;
-        this.status = "ACTIVE";
+        this.status = ACTIVE;
         this.createdAt = new Date();
     }
 
@@ -56,6 +121,11 @@ public class Account {
 
     public void setHolderName(String holderName) {
         this.holderName = holderName;
+        this.holderNameNormalized = HolderNames.normalize(holderName);
+    }
+
+    public String getHolderNameNormalized() {
+        return holderNameNormalized;
     }
 
     public double getBalance() {
@@ -64,6 +134,11 @@ public class Account {
 
     public void setBalance(double balance) {
         this.balance = balance;
+        this.balanceUpdatedAt = new Date();
+    }
+
+    public Date getBalanceUpdatedAt() {
+        return balanceUpdatedAt;
     }
 
     public String getStatus() {
@@ -81,4 +156,36 @@ public class Account {
     public void setCreatedAt(Date createdAt) {
         this.createdAt = createdAt;
     }
+
+    public String getLastInterestRun() {
+        return lastInterestRun;
+    }
+
+    public void setLastInterestRun(String lastInterestRun) {
+        this.lastInterestRun = lastInterestRun;
+    }
+
+    public long getActivity() {
+        return activity;
+    }
+
+    public void setActivity(long activity) {
+        this.activity = activity;
+    }
+
+    public void recordActivity() {
+        this.activity++;
+    }
+
+    public Date getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(Date deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+
+    public boolean isDeleted() {
+        return DELETED.equals(status);
+    }
 }
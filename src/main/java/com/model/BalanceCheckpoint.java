@@ -0,0 +1,59 @@
+package com.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * An account's closing balance at {@code closedAt} (a UTC midnight), after every ledger row
+ * timestamped before it. Written by the nightly checkpoint job for each day the account had
+ * ledger activity; the id is {@code <accountNumber>:<yyyy-MM-dd>} of the day closed, so a job
+ * that runs twice writes the same documents.
+ */
+@Document(collection = "balance_checkpoints")
+@CompoundIndex(name = "account_closed", def = "{'accountNumber': 1, 'closedAt': -1}")
+public class BalanceCheckpoint {
+
+    @Id
+    private String id;
+
+    private String accountNumber;
+
+    private Date closedAt;
+
+    private double balance;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+
+    public Date getClosedAt() {
+        return closedAt;
+    }
+
+    public void setClosedAt(Date closedAt) {
+        this.closedAt = closedAt;
+    }
+
+    public double getBalance() {
+        return balance;
+    }
+
+    public void setBalance(double balance) {
+        this.balance = balance;
+    }
+}
@@ -0,0 +1,210 @@
+package com.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Date;
+
+/**
+ * A future-dated ({@link Frequency#ONCE}) or recurring transfer. {@code nextRunAt} is the due time
+ * of the next occurrence; {@code inFlightSince} and {@code claim} are set while an instance is
+ * executing it.
+ */
+@Document(collection = "standing_orders")
+@CompoundIndexes({
+        @CompoundIndex(name = "status_next_run", def = "{'status': 1, 'nextRunAt': 1}"),
+        @CompoundIndex(name = "from_account", def = "{'fromAccount': 1, 'status': 1}")
+})
+public class StandingOrder {
+
+    public enum Frequency {
+        ONCE, DAILY, WEEKLY, MONTHLY;
+
+        /**
+         * Due time of occurrence {@code n} (0 = the first). Counted from the first run rather than
+         * the previous one, so a monthly order on the 31st returns to the 31st after a short month.
+         */
+        public Date occurrence(Date firstRunAt, long n) {
+            ZonedDateTime first = firstRunAt.toInstant().atZone(ZoneOffset.UTC);
+            ZonedDateTime due = switch (this) {
+                case ONCE -> first;
+                case DAILY -> first.plusDays(n);
+                case WEEKLY -> first.plusWeeks(n);
+                case MONTHLY -> first.plusMonths(n);
+            };
+            return Date.from(due.toInstant());
+        }
+    }
+
+    public enum Status { ACTIVE, COMPLETED, CANCELLED, FAILED }
+
+    @Id
+    private String id;
+
+    private String fromAccount;
+
+    private String toAccount;
+
+    private double amount;
+
+    private Frequency frequency;
+
+    private Date firstRunAt;
+
+    // optional; no occurrence is due after it
+    private Date endsAt;
+
+    private Date nextRunAt;
+
+    // occurrences handled so far, successful or not; the next one is occurrence(firstRunAt, occurrences)
+    private long occurrences;
+
+    private long failures;
+
+    private Date lastRunAt;
+
+    private String lastError;
+
+    private Status status = Status.ACTIVE;
+
+    @Indexed(sparse = true)
+    private Date inFlightSince;
+
+    @Indexed(sparse = true)
+    private String claim;
+
+    private Date createdAt = new Date();
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getFromAccount() {
+        return fromAccount;
+    }
+
+    public void setFromAccount(String fromAccount) {
+        this.fromAccount = fromAccount;
+    }
+
+    public String getToAccount() {
+        return toAccount;
+    }
+
+    public void setToAccount(String toAccount) {
+        this.toAccount = toAccount;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public void setAmount(double amount) {
+        this.amount = amount;
+    }
+
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    public void setFrequency(Frequency frequency) {
+        this.frequency = frequency;
+    }
+
+    public Date getFirstRunAt() {
+        return firstRunAt;
+    }
+
+    public void setFirstRunAt(Date firstRunAt) {
+        this.firstRunAt = firstRunAt;
+    }
+
+    public Date getEndsAt() {
+        return endsAt;
+    }
+
+    public void setEndsAt(Date endsAt) {
+        this.endsAt = endsAt;
+    }
+
+    public Date getNextRunAt() {
+        return nextRunAt;
+    }
+
+    public void setNextRunAt(Date nextRunAt) {
+        this.nextRunAt = nextRunAt;
+    }
+
+    public long getOccurrences() {
+        return occurrences;
+    }
+
+    public void setOccurrences(long occurrences) {
+        this.occurrences = occurrences;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    public void setFailures(long failures) {
+        this.failures = failures;
+    }
+
+    public Date getLastRunAt() {
+        return lastRunAt;
+    }
+
+    public void setLastRunAt(Date lastRunAt) {
+        this.lastRunAt = lastRunAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Date getInFlightSince() {
+        return inFlightSince;
+    }
+
+    public void setInFlightSince(Date inFlightSince) {
+        this.inFlightSince = inFlightSince;
+    }
+
+    public String getClaim() {
+        return claim;
+    }
+
+    public void setClaim(String claim) {
+        this.claim = claim;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,102 @@
+package com.model;
+
+import org.springframework.data.mongodb.core.convert.MongoConversionContext;
+import org.springframework.data.mongodb.core.convert.MongoValueConverter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Small integer codes stored in place of the string enums of {@link Account} and
+ * {@link Transaction}; the Java properties and the API keep the names. A code is a name's
+ * position in its list plus one, so names may only ever be appended.
+ * <p>
+ * Names without a code are stored as they are, and stored strings are read back unchanged, so
+ * neither an unexpected value nor a document written before the compact layout is lost.
+ */
+public final class StorageCodes {
+
+    public static final StorageCodes TRANSACTION_TYPE = new StorageCodes("DEPOSIT", "WITHDRAW", "TRANSFER", "INTEREST");
+    public static final StorageCodes TRANSACTION_STATUS = new StorageCodes("SUCCESS", "FAILED");
+    public static final StorageCodes ACCOUNT_STATUS = new StorageCodes("ACTIVE", "DELETED");
+
+    private final List<String> names;
+    private final Map<String, Integer> codes = new HashMap<>();
+
+    private StorageCodes(String... names) {
+        this.names = List.of(names);
+        for (int i = 0; i < names.length; i++) {
+            codes.put(names[i], i + 1);
+        }
+    }
+
+    /** The code of a name; throws for names without one, which only a programming error produces. */
+    public int code(String name) {
+        Integer code = codes.get(name);
+        if (code == null) {
+            throw new IllegalArgumentException("No storage code for " + name);
+        }
+        return code;
+    }
+
+    public List<Integer> codes(List<String> names) {
+        return names.stream().map(this::code).toList();
+    }
+
+    /** Stored form of a value: the code for a known name, anything else unchanged. */
+    public Object toStored(Object value) {
+        if (value instanceof String name) {
+            Integer code = codes.get(name);
+            return code != null ? code : name;
+        }
+        // query values may already be codes
+        return value;
+    }
+
+    /** Name for a stored code; strings (unknown names, legacy documents) come back as they are. */
+    public Object fromStored(Object value) {
+        if (value instanceof Number number) {
+            int index = number.intValue() - 1;
+            return index >= 0 && index < names.size() ? names.get(index) : number.toString();
+        }
+        return value.toString();
+    }
+
+    abstract static class CodeConverter implements MongoValueConverter<Object, Object> {
+
+        private final StorageCodes codes;
+
+        CodeConverter(StorageCodes codes) {
+            this.codes = codes;
+        }
+
+        @Override
+        public Object read(Object value, MongoConversionContext context) {
+            return codes.fromStored(value);
+        }
+
+        @Override
+        public Object write(Object value, MongoConversionContext context) {
+            return codes.toStored(value);
+        }
+    }
+
+    public static class TransactionTypeConverter extends CodeConverter {
+        public TransactionTypeConverter() {
+            super(TRANSACTION_TYPE);
+        }
+    }
+
+    public static class TransactionStatusConverter extends CodeConverter {
+        public TransactionStatusConverter() {
+            super(TRANSACTION_STATUS);
+        }
+    }
+
+    public static class AccountStatusConverter extends CodeConverter {
+        public AccountStatusConverter() {
+            super(ACCOUNT_STATUS);
+        }
+    }
+}
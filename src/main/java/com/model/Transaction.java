@@ -3,31 +3,68 @@ package com.model;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.convert.ValueConverter;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
 import java.util.Date;
 
 @Document(collection = "transactions")
+@CompoundIndexes({
+        @CompoundIndex(name = "ts_id", def = "{'" + Transaction.Fields.TIMESTAMP + "': 1, '_id': 1}"),
+        @CompoundIndex(name = "src_ts", def = "{'" + Transaction.Fields.SOURCE_ACCOUNT + "': 1, '" + Transaction.Fields.TIMESTAMP + "': 1}"),
+        @CompoundIndex(name = "dst_ts", def = "{'" + Transaction.Fields.DESTINATION_ACCOUNT + "': 1, '" + Transaction.Fields.TIMESTAMP + "': 1}")
+})
 public class Transaction {
 
+    /**
+     * Stored field names, kept to a few bytes because every journal row repeats them. Queries
+     * built on the Java property names are translated by the mapping; raw pipelines use these.
+     */
+    public static final class Fields {
+        public static final String TRANSACTION_ID = "tid";
+        public static final String TYPE = "ty";
+        public static final String AMOUNT = "a";
+        public static final String TIMESTAMP = "ts";
+        public static final String STATUS = "s";
+        public static final String SOURCE_ACCOUNT = "src";
+        public static final String DESTINATION_ACCOUNT = "dst";
+
+        private Fields() {
+        }
+    }
+
     @Id
     private String id;
 
+    @Indexed
+    @Field(Fields.TRANSACTION_ID)
     private String transactionId;
 
     @NotNull(message = "Transaction type is required")
+    @Field(Fields.TYPE)
+    @ValueConverter(StorageCodes.TransactionTypeConverter.class)
     private String type;
 
     @Positive(message = "Amount must be greater than 0")
+    @Field(Fields.AMOUNT)
     private double amount;
 
+    @Field(Fields.TIMESTAMP)
     private Date timestamp;
 
+    @Field(Fields.STATUS)
+    @ValueConverter(StorageCodes.TransactionStatusConverter.class)
     private String status;
 
     @NotNull(message = "Source account is required")
+    @Field(Fields.SOURCE_ACCOUNT)
     private String sourceAccount;
 
     @NotNull(message = "Destination account is required")
+    @Field(Fields.DESTINATION_ACCOUNT)
     private String destinationAccount;
 
     public String getId() {
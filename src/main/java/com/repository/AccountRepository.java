@@ -2,7 +2,15 @@ package com.repository;
 
 import com.model.Account;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface AccountRepository extends MongoRepository<Account, String> {
     Account findByAccountNumber(String accountNumber);
+
+    // Only the account number is projected, used to detect collisions when allocating numbers in bulk
+    @Query(value = "{ 'accountNumber': { $in: ?0 } }", fields = "{ 'accountNumber': 1 }")
+    List<Account> findAccountNumbersIn(Collection<String> accountNumbers);
 }
@@ -1,10 +1,22 @@
 package com.repository;
 
 import com.model.Transaction;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
+import java.util.Date;
 import java.util.List;
 
 public interface TransactionRepository extends MongoRepository<Transaction, String> {
+    long HISTORY_MAX_TIME_MS = 5000;
+
+    // History scans are the long-running reads; maxTimeMS lets the server abort them (→ 504)
+    @Meta(maxExecutionTimeMs = HISTORY_MAX_TIME_MS)
     List<Transaction> findBySourceAccountOrDestinationAccount(String src, String dest);
+
+    // Served by the (sourceAccount, timestamp) and (destinationAccount, timestamp) indexes
+    @Meta(maxExecutionTimeMs = HISTORY_MAX_TIME_MS)
+    @Query("{ $or: [ { 'sourceAccount': ?0 }, { 'destinationAccount': ?0 } ], 'timestamp': { $gte: ?1, $lt: ?2 } }")
+    List<Transaction> findByAccountBetween(String accountNumber, Date from, Date to);
 }
@@ -0,0 +1,69 @@
+package com.service;
+
+import com.model.Account;
+
+/**
+ * Published (synchronously, through the application event publisher) after an account change has
+ * been written. In-memory indexes such as the holder-name search trie keep themselves in sync
+ * by listening to it.
+ */
+public class AccountEvent {
+
+    public enum Kind { CREATED, RENAMED, DELETED, BALANCE_CHANGED }
+
+    private final Kind kind;
+    private final String accountNumber;
+    private final String holderName;
+    private final String previousHolderName;
+    private final double balance;
+    private final long activity;
+
+    private AccountEvent(Kind kind, Account account, String previousHolderName) {
+        this.kind = kind;
+        this.accountNumber = account.getAccountNumber();
+        this.holderName = account.getHolderName();
+        this.previousHolderName = previousHolderName;
+        this.balance = account.getBalance();
+        this.activity = account.getActivity();
+    }
+
+    public static AccountEvent created(Account account) {
+        return new AccountEvent(Kind.CREATED, account, null);
+    }
+
+    public static AccountEvent renamed(Account account, String previousHolderName) {
+        return new AccountEvent(Kind.RENAMED, account, previousHolderName);
+    }
+
+    public static AccountEvent deleted(Account account) {
+        return new AccountEvent(Kind.DELETED, account, null);
+    }
+
+    public static AccountEvent balanceChanged(Account account) {
+        return new AccountEvent(Kind.BALANCE_CHANGED, account, null);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public String getHolderName() {
+        return holderName;
+    }
+
+    public String getPreviousHolderName() {
+        return previousHolderName;
+    }
+
+    public double getBalance() {
+        return balance;
+    }
+
+    public long getActivity() {
+        return activity;
+    }
+}
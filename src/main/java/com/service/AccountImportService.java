@@ -0,0 +1,318 @@
+package com.service;
+
+import com.dto.AccountImportRow;
+import com.dto.ImportReport;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.model.Account;
+import com.model.Transaction;
+import com.mongodb.bulk.BulkWriteError;
+import com.repository.AccountRepository;
+import com.util.AccountNumbers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Streams CSV or NDJSON account rows from an upload and inserts them in unordered bulk batches.
+ * Only one batch is held in memory at a time, so memory stays bounded regardless of upload size.
+ */
+@Service
+public class AccountImportService {
+
+    public enum Format {
+        CSV, NDJSON;
+
+        public static Format fromContentType(String contentType) {
+            if (contentType != null && contentType.toLowerCase().startsWith("text/csv")) {
+                return CSV;
+            }
+            return NDJSON;
+        }
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(AccountImportService.class);
+
+    private static final int MAX_ALLOCATION_ROUNDS = 5;
+    // rows still unplaced after these rounds draw 6-digit suffixes, so a crowded prefix cannot run dry
+    private static final int NARROW_ALLOCATION_ROUNDS = 3;
+    private static final int MAX_CANDIDATES_PER_ROW = 20;
+
+    private final MongoTemplate mongoTemplate;
+    private final AccountRepository accountRepo;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher events;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    public AccountImportService(MongoTemplate mongoTemplate,
+                                AccountRepository accountRepo,
+                                ObjectMapper objectMapper,
+                                ApplicationEventPublisher events,
+                                @Value("${bank.import.batch-size:1000}") int batchSize,
+                                @Value("${bank.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.mongoTemplate = mongoTemplate;
+        this.accountRepo = accountRepo;
+        this.objectMapper = objectMapper;
+        this.events = events;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public ImportReport importAccounts(InputStream in, Format format) throws IOException {
+        ImportReport report = new ImportReport(maxReportedErrors);
+        List<PendingRow> batch = new ArrayList<>(batchSize);
+        long started = System.nanoTime();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        String line;
+        long lineNo = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank() || (lineNo == 1 && format == Format.CSV && isCsvHeader(line))) {
+                continue;
+            }
+            report.rowRead();
+            try {
+                AccountImportRow row = format == Format.CSV ? parseCsv(line) : parseJson(line);
+                validate(row);
+                batch.add(new PendingRow(lineNo, row));
+            } catch (IllegalArgumentException ex) {
+                report.rejected(lineNo, ex.getMessage());
+                continue;
+            }
+            if (batch.size() >= batchSize) {
+                flush(batch, report);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(batch, report);
+        }
+
+        log.info("Import finished: {} rows, {} imported, {} failed in {} ms",
+                report.getTotalRows(), report.getImported(), report.getFailed(),
+                (System.nanoTime() - started) / 1_000_000);
+        return report;
+    }
+
+    private void flush(List<PendingRow> batch, ImportReport report) {
+        String[] numbers = allocateAccountNumbers(batch);
+
+        List<PendingRow> rows = new ArrayList<>(batch.size());
+        List<Account> accounts = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            PendingRow pending = batch.get(i);
+            if (numbers[i] == null) {
+                report.rejected(pending.line, "Could not allocate a unique account number");
+                continue;
+            }
+            Account account = new Account();
+            account.setHolderName(pending.row.getHolderName().trim());
+            account.setAccountNumber(numbers[i]);
+            account.setBalance(pending.row.getBalance());
+            rows.add(pending);
+            accounts.add(account);
+        }
+        if (accounts.isEmpty()) {
+            return;
+        }
+
+        Set<Integer> failed = new HashSet<>();
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Account.class);
+        ops.insert(accounts);
+        try {
+            ops.execute();
+        } catch (BulkOperationException ex) {
+            for (BulkWriteError error : ex.getErrors()) {
+                failed.add(error.getIndex());
+                report.rejected(rows.get(error.getIndex()).line, error.getMessage());
+            }
+        }
+        report.imported(accounts.size() - failed.size());
+        for (int i = 0; i < accounts.size(); i++) {
+            if (!failed.contains(i)) {
+                events.publishEvent(AccountEvent.created(accounts.get(i)));
+            }
+        }
+
+        journalOpeningBalances(accounts, failed);
+    }
+
+    // Opening balances are journaled as deposits so the ledger still adds up for imported accounts
+    private void journalOpeningBalances(List<Account> accounts, Set<Integer> failed) {
+        List<Transaction> deposits = new ArrayList<>();
+        for (int i = 0; i < accounts.size(); i++) {
+            Account account = accounts.get(i);
+            if (failed.contains(i) || account.getBalance() <= 0) {
+                continue;
+            }
+            Transaction t = new Transaction();
+            t.setTransactionId("TXN-" + System.currentTimeMillis());
+            t.setType("DEPOSIT");
+            t.setAmount(account.getBalance());
+            t.setStatus("SUCCESS");
+            t.setSourceAccount(account.getAccountNumber());
+            deposits.add(t);
+        }
+        if (deposits.isEmpty()) {
+            return;
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Transaction.class)
+                    .insert(deposits)
+                    .execute();
+        } catch (BulkOperationException ex) {
+            log.error("{} opening balance transactions could not be journaled", ex.getErrors().size());
+        }
+    }
+
+    /**
+     * Picks a unique account number for every row of the batch: candidates are deduplicated in memory
+     * and checked against the collection with a single $in query per round. The last rounds use the
+     * wide suffix, as a popular prefix can fill its 9000 four-digit numbers in a large import.
+     */
+    private String[] allocateAccountNumbers(List<PendingRow> batch) {
+        String[] numbers = new String[batch.size()];
+        Set<String> taken = new HashSet<>();
+        List<Integer> pending = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            pending.add(i);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int round = 0; round < MAX_ALLOCATION_ROUNDS && !pending.isEmpty(); round++) {
+            Map<String, Integer> candidates = new HashMap<>();
+            int digits = round < NARROW_ALLOCATION_ROUNDS ? AccountNumbers.DIGITS : AccountNumbers.WIDE_DIGITS;
+            for (int i : pending) {
+                String prefix = AccountNumbers.prefix(batch.get(i).row.getHolderName());
+                for (int attempt = 0; attempt < MAX_CANDIDATES_PER_ROW; attempt++) {
+                    String candidate = AccountNumbers.random(prefix, digits, random);
+                    if (!taken.contains(candidate) && !candidates.containsKey(candidate)) {
+                        candidates.put(candidate, i);
+                        break;
+                    }
+                }
+            }
+            if (candidates.isEmpty()) {
+                break;
+            }
+
+            for (Account existing : accountRepo.findAccountNumbersIn(candidates.keySet())) {
+                taken.add(existing.getAccountNumber());
+            }
+
+            Set<Integer> assigned = new HashSet<>();
+            for (Map.Entry<String, Integer> candidate : candidates.entrySet()) {
+                if (!taken.contains(candidate.getKey())) {
+                    numbers[candidate.getValue()] = candidate.getKey();
+                    taken.add(candidate.getKey());
+                    assigned.add(candidate.getValue());
+                }
+            }
+            pending.removeAll(assigned);
+        }
+        return numbers;
+    }
+
+    private void validate(AccountImportRow row) {
+        String name = row.getHolderName() == null ? "" : row.getHolderName().trim();
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("holderName must not be blank");
+        }
+        if (name.length() < 3 || !name.substring(0, 3).chars().allMatch(Character::isLetter)) {
+            throw new IllegalArgumentException("holderName must start with at least 3 letters");
+        }
+        if (row.getBalance() < 0 || Double.isNaN(row.getBalance()) || Double.isInfinite(row.getBalance())) {
+            throw new IllegalArgumentException("balance must not be negative");
+        }
+    }
+
+    private AccountImportRow parseJson(String line) {
+        try {
+            return objectMapper.readValue(line, AccountImportRow.class);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Malformed JSON row: " + ex.getOriginalMessage());
+        }
+    }
+
+    private AccountImportRow parseCsv(String line) {
+        List<String> fields = splitCsv(line);
+        if (fields.size() > 2) {
+            throw new IllegalArgumentException("Expected holderName[,balance] but got " + fields.size() + " columns");
+        }
+        double balance = 0;
+        if (fields.size() == 2 && !fields.get(1).isBlank()) {
+            try {
+                balance = Double.parseDouble(fields.get(1).trim());
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("balance is not a number: " + fields.get(1));
+            }
+        }
+        return new AccountImportRow(fields.get(0), balance);
+    }
+
+    private static boolean isCsvHeader(String line) {
+        return line.trim().toLowerCase().startsWith("holdername");
+    }
+
+    // Minimal RFC 4180 splitting: quoted fields and doubled quotes, no embedded line breaks
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private static final class PendingRow {
+        private final long line;
+        private final AccountImportRow row;
+
+        private PendingRow(long line, AccountImportRow row) {
+            this.line = line;
+            this.row = row;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.service;
+
+import com.model.Account;
+import com.model.StorageCodes;
+import com.util.CountingBloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.stream.Stream;
+
+/**
+ * In-memory Bloom filter of the existing account numbers, so that lookups of numbers that were
+ * never issued (typos, scanners) are answered without a query. Built from the accounts collection
+ * at startup and kept current through {@link AccountEvent}s; until it is built every number is
+ * treated as possibly existing.
+ * <p>
+ * Only writes made through this instance reach the filter, so an account created by another instance
+ * would get a false 404 here. It is therefore off by default ({@code bank.bloom.enabled}); enable it
+ * only when a single instance creates accounts.
+ */
+@Component
+public class AccountNumberFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountNumberFilter.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final CountingBloomFilter filter;
+    private final Counter shortCircuited;
+    private volatile boolean ready;
+    // deletes seen before the filter is built are skipped: the scan may not have added that number yet
+    private volatile boolean building = true;
+
+    public AccountNumberFilter(MongoTemplate mongoTemplate,
+                               MeterRegistry registry,
+                               @Value("${bank.bloom.enabled:false}") boolean enabled,
+                               @Value("${bank.bloom.expected-accounts:1000000}") long expectedAccounts,
+                               @Value("${bank.bloom.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.filter = new CountingBloomFilter(expectedAccounts, falsePositiveRate);
+        this.shortCircuited = Counter.builder("bank.bloom.negative")
+                .description("Account lookups answered as missing without a database query")
+                .register(registry);
+    }
+
+    /** False only when the account number certainly does not exist. */
+    public boolean mightExist(String accountNumber) {
+        if (!ready || accountNumber == null) {
+            return true;
+        }
+        if (filter.mightContain(accountNumber)) {
+            return true;
+        }
+        shortCircuited.increment();
+        return false;
+    }
+
+    @EventListener
+    public void onAccountEvent(AccountEvent event) {
+        if (!enabled || event.getAccountNumber() == null) {
+            return;
+        }
+        switch (event.getKind()) {
+            case CREATED -> filter.add(event.getAccountNumber());
+            case DELETED -> {
+                if (!building) {
+                    filter.remove(event.getAccountNumber());
+                }
+            }
+            default -> { }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        Thread worker = new Thread(this::build, "account-number-filter");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    void build() {
+        long started = System.nanoTime();
+        try {
+            // deleted accounts count as missing
+            Query all = new Query(Criteria.where("status").ne(StorageCodes.ACCOUNT_STATUS.code(Account.DELETED)))
+                    .cursorBatchSize(5000);
+            all.fields().include("accountNumber");
+            long count = 0;
+            try (Stream<Account> accounts = mongoTemplate.stream(all, Account.class)) {
+                for (Account account : (Iterable<Account>) accounts::iterator) {
+                    if (account.getAccountNumber() != null) {
+                        filter.add(account.getAccountNumber());
+                        count++;
+                    }
+                }
+            }
+            ready = true;
+            log.info("Account number filter built with {} accounts in {} ms ({} counters, {} hashes)", count,
+                    (System.nanoTime() - started) / 1_000_000, filter.counterCount(), filter.hashCount());
+        } catch (DataAccessException ex) {
+            log.error("Could not build the account number filter, lookups always query: {}", ex.getMessage());
+        } finally {
+            building = false;
+        }
+    }
+}
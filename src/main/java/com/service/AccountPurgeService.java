@@ -0,0 +1,217 @@
+package com.service;
+
+import com.config.MongoBulkheads;
+import com.model.Account;
+import com.model.BalanceCheckpoint;
+import com.model.StorageCodes;
+import com.model.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Removes soft-deleted accounts for good: first their transactions, in batches of
+ * {@code batch-size} ids deleted with one {@code deleteMany} each, then their balance checkpoints
+ * and the account document.
+ * With {@code bank.purge.archive} the transactions are copied to {@code transactions_archive}
+ * first; otherwise they are deleted from both tiers.
+ * <p>
+ * Only rows the account owns ({@code sourceAccount}) go: the incoming leg of a transfer is part
+ * of the sender's history too and stays. Between batches the job sleeps long enough to keep its
+ * share of wall time at {@code duty-percent}, and backs off further while the write bulkhead is
+ * at least {@code max-write-load} full, so foreground writes keep their latency. Runs on its own
+ * thread; an interrupted run leaves the account DELETED and the next run carries on where it stopped.
+ */
+@Service
+public class AccountPurgeService {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountPurgeService.class);
+    private static final int DELETED = StorageCodes.ACCOUNT_STATUS.code(Account.DELETED);
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoBulkheads bulkheads;
+    private final TransactionArchiveService archiveService;
+    private final boolean enabled;
+    private final boolean archive;
+    private final long graceHours;
+    private final int accountsPerRun;
+    private final int batchSize;
+    private final long pauseMs;
+    private final int dutyPercent;
+    private final double maxWriteLoad;
+    private final long maxPauseMs;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // the throttled loop sleeps a lot, so it gets its own thread rather than the shared scheduler's
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "account-purge");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public AccountPurgeService(MongoTemplate mongoTemplate,
+                               MongoBulkheads bulkheads,
+                               TransactionArchiveService archiveService,
+                               @Value("${bank.purge.enabled:true}") boolean enabled,
+                               @Value("${bank.purge.archive:false}") boolean archive,
+                               @Value("${bank.purge.grace-hours:0}") long graceHours,
+                               @Value("${bank.purge.accounts-per-run:100}") int accountsPerRun,
+                               @Value("${bank.purge.batch-size:500}") int batchSize,
+                               @Value("${bank.purge.pause-ms:20}") long pauseMs,
+                               @Value("${bank.purge.duty-percent:25}") int dutyPercent,
+                               @Value("${bank.purge.max-write-load:0.5}") double maxWriteLoad,
+                               @Value("${bank.purge.max-pause-ms:5000}") long maxPauseMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.bulkheads = bulkheads;
+        this.archiveService = archiveService;
+        this.enabled = enabled;
+        this.archive = archive;
+        this.graceHours = graceHours;
+        this.accountsPerRun = accountsPerRun;
+        this.batchSize = batchSize;
+        this.pauseMs = pauseMs;
+        this.dutyPercent = Math.min(Math.max(dutyPercent, 1), 100);
+        this.maxWriteLoad = maxWriteLoad;
+        this.maxPauseMs = Math.max(maxPauseMs, pauseMs);
+    }
+
+    @Scheduled(fixedDelayString = "${bank.purge.interval-ms:300000}", initialDelayString = "${bank.purge.interval-ms:300000}")
+    public void scheduledPurge() {
+        if (enabled && !running.get()) {
+            worker.submit(this::purgeDue);
+        }
+    }
+
+    /**
+     * Purges accounts deleted more than {@code grace-hours} ago, at most {@code accounts-per-run}
+     * of them. Returns what was done; {@code running} is true when another run was already busy.
+     */
+    public Map<String, Object> purgeDue() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (!running.compareAndSet(false, true)) {
+            result.put("running", true);
+            return result;
+        }
+        long started = System.nanoTime();
+        long accounts = 0;
+        long transactions = 0;
+        try {
+            Date cutoff = Date.from(Instant.now().minus(graceHours, ChronoUnit.HOURS));
+            // the sparse deletedAt index holds only deleted accounts
+            Query due = query(where("deletedAt").lte(cutoff).and("status").is(DELETED))
+                    .with(Sort.by("deletedAt"))
+                    .limit(accountsPerRun);
+            due.fields().include("accountNumber");
+            for (Account account : mongoTemplate.find(due, Account.class)) {
+                long purged = purgeTransactions(account.getAccountNumber());
+                if (purged < 0) {
+                    break;
+                }
+                transactions += purged;
+                mongoTemplate.remove(query(where("accountNumber").is(account.getAccountNumber())), BalanceCheckpoint.class);
+                // the status filter keeps a re-created account of the same number
+                mongoTemplate.remove(query(where("accountNumber").is(account.getAccountNumber()).and("status").is(DELETED)),
+                        Account.class);
+                accounts++;
+            }
+        } finally {
+            running.set(false);
+        }
+        long ms = (System.nanoTime() - started) / 1_000_000;
+        if (accounts > 0) {
+            log.info("Purged {} deleted accounts and {} of their transactions in {} ms", accounts, transactions, ms);
+        }
+        result.put("running", false);
+        result.put("accounts", accounts);
+        result.put("transactions", transactions);
+        result.put("millis", ms);
+        return result;
+    }
+
+    // Returns the number of rows removed from the hot collection, or -1 when interrupted
+    long purgeTransactions(String accountNumber) {
+        long removed = 0;
+        while (true) {
+            long batchStarted = System.nanoTime();
+            Query batchQuery = query(where("sourceAccount").is(accountNumber)).limit(batchSize);
+            if (!archive) {
+                batchQuery.fields().include("_id");
+            }
+            List<Transaction> batch = mongoTemplate.find(batchQuery, Transaction.class);
+            if (!batch.isEmpty()) {
+                if (archive) {
+                    archiveService.copyToArchive(batch);
+                }
+                List<String> ids = batch.stream().map(Transaction::getId).toList();
+                removed += mongoTemplate.remove(query(where("_id").in(ids)), Transaction.class).getDeletedCount();
+            }
+            // also after the last, short batch: most accounts have less than one batch, and
+            // without it they would be purged back to back
+            if (!pause(System.nanoTime() - batchStarted)) {
+                return -1;
+            }
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+        if (!archive && mongoTemplate.collectionExists(TransactionArchiveService.ARCHIVE_COLLECTION)) {
+            // archived rows are few per account and cold, so one delete is enough there
+            mongoTemplate.remove(query(where("sourceAccount").is(accountNumber)), Transaction.class,
+                    TransactionArchiveService.ARCHIVE_COLLECTION);
+        }
+        return removed;
+    }
+
+    /**
+     * How long to wait after a batch that took {@code batchNanos}: enough to hold the duty cycle,
+     * never less than {@code pause-ms}, doubled (up to {@code max-pause-ms}) for every check that
+     * finds the write bulkhead busy.
+     */
+    long pauseAfter(long batchNanos, int busyChecks) {
+        long batchMs = batchNanos / 1_000_000;
+        long pause = Math.max(pauseMs, batchMs * (100 - dutyPercent) / dutyPercent);
+        for (int i = 0; i < busyChecks && pause < maxPauseMs; i++) {
+            pause = Math.max(pause * 2, 1);
+        }
+        return Math.min(pause, maxPauseMs);
+    }
+
+    // returns false when the job should stop
+    private boolean pause(long batchNanos) {
+        try {
+            int busyChecks = 0;
+            while (true) {
+                long pause = pauseAfter(batchNanos, busyChecks);
+                if (pause > 0) {
+                    Thread.sleep(pause);
+                }
+                if (bulkheads.writeLoad() < maxWriteLoad) {
+                    return true;
+                }
+                // past max-pause-ms the job keeps waiting in steps of max-pause-ms
+                busyChecks++;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
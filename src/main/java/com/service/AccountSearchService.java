@@ -0,0 +1,241 @@
+package com.service;
+
+import com.config.MongoBulkheads;
+import com.config.ReadRouting;
+import com.exception.InvalidRequestException;
+import com.model.Account;
+import com.model.StorageCodes;
+import com.util.HolderNames;
+import com.util.RadixTrie;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Case- and accent-insensitive prefix search on holder names.
+ * <p>
+ * By default a search is one range scan {@code [prefix, nextPrefix)} over the
+ * {@code holder_name_prefix} index, limited to the requested number of rows. With
+ * {@code bank.search.trie.enabled} the account numbers are also kept in an in-memory radix trie,
+ * built at startup and kept in sync through {@link AccountEvent}s; the trie answers which
+ * accounts match and Mongo is only asked for those documents by account number.
+ */
+@Service
+public class AccountSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountSearchService.class);
+
+    private static final long SEARCH_MAX_TIME_MS = 2000;
+    private static final int BACKFILL_BATCH = 1000;
+    private static final int DELETED = StorageCodes.ACCOUNT_STATUS.code(Account.DELETED);
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoBulkheads bulkheads;
+    private final ReadRouting routing;
+    private final boolean trieEnabled;
+    private final int defaultLimit;
+    private final int maxLimit;
+    private final int minPrefixLength;
+
+    private final RadixTrie trie = new RadixTrie();
+    private final ReadWriteLock trieLock = new ReentrantReadWriteLock();
+    private volatile boolean trieReady;
+
+    public AccountSearchService(MongoTemplate mongoTemplate,
+                                MongoBulkheads bulkheads,
+                                ReadRouting routing,
+                                @Value("${bank.search.trie.enabled:false}") boolean trieEnabled,
+                                @Value("${bank.search.default-limit:20}") int defaultLimit,
+                                @Value("${bank.search.max-limit:100}") int maxLimit,
+                                @Value("${bank.search.min-prefix-length:2}") int minPrefixLength) {
+        this.mongoTemplate = mongoTemplate;
+        this.bulkheads = bulkheads;
+        this.routing = routing;
+        this.trieEnabled = trieEnabled;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+        this.minPrefixLength = minPrefixLength;
+    }
+
+    public List<Account> search(String name, Integer limit) {
+        String prefix = HolderNames.normalize(name);
+        if (prefix == null || prefix.length() < minPrefixLength) {
+            throw new InvalidRequestException("name must have at least " + minPrefixLength + " characters");
+        }
+        int max = limit == null ? defaultLimit : Math.min(Math.max(limit, 1), maxLimit);
+        if (trieReady) {
+            return bulkheads.read(() -> fromTrie(prefix, max));
+        }
+        return bulkheads.read(() -> fromIndex(prefix, max));
+    }
+
+    private List<Account> fromIndex(String prefix, int limit) {
+        Criteria range = Criteria.where("holderNameNormalized").gte(prefix);
+        String upper = HolderNames.prefixUpperBound(prefix);
+        if (upper != null) {
+            range = range.lt(upper);
+        }
+        Query query = Query.query(range.and("status").ne(DELETED))
+                .with(Sort.by("holderNameNormalized", "accountNumber"))
+                .limit(limit)
+                .maxTimeMsec(SEARCH_MAX_TIME_MS);
+        return mongoTemplate.find(routing.secondary(query), Account.class);
+    }
+
+    private List<Account> fromTrie(String prefix, int limit) {
+        List<String> numbers;
+        trieLock.readLock().lock();
+        try {
+            numbers = trie.valuesWithPrefix(prefix, limit);
+        } finally {
+            trieLock.readLock().unlock();
+        }
+        if (numbers.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Integer> order = new HashMap<>();
+        for (int i = 0; i < numbers.size(); i++) {
+            order.put(numbers.get(i), i);
+        }
+        // an entry left behind by a delete that raced the initial build simply finds no document
+        List<Account> accounts = new ArrayList<>(mongoTemplate.find(
+                routing.secondary(Query.query(Criteria.where("accountNumber").in(numbers).and("status").ne(DELETED))
+                        .maxTimeMsec(SEARCH_MAX_TIME_MS)),
+                Account.class));
+        accounts.sort(Comparator.comparing(a -> order.get(a.getAccountNumber())));
+        return accounts;
+    }
+
+    @EventListener
+    public void onAccountEvent(AccountEvent event) {
+        if (!trieEnabled) {
+            return;
+        }
+        switch (event.getKind()) {
+            case CREATED -> updateTrie(null, event.getHolderName(), event.getAccountNumber());
+            case RENAMED -> updateTrie(event.getPreviousHolderName(), event.getHolderName(), event.getAccountNumber());
+            case DELETED -> updateTrie(event.getHolderName(), null, event.getAccountNumber());
+            default -> { }
+        }
+    }
+
+    private void updateTrie(String oldName, String newName, String accountNumber) {
+        String oldKey = HolderNames.normalize(oldName);
+        String newKey = HolderNames.normalize(newName);
+        if (Objects.equals(oldKey, newKey) || accountNumber == null) {
+            return;
+        }
+        trieLock.writeLock().lock();
+        try {
+            if (oldKey != null) {
+                trie.remove(oldKey, accountNumber);
+            }
+            if (newKey != null) {
+                trie.add(newKey, accountNumber);
+            }
+        } finally {
+            trieLock.writeLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        Thread worker = new Thread(this::initialize, "account-search-init");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    void initialize() {
+        try {
+            backfillNormalizedNames();
+            if (trieEnabled) {
+                buildTrie();
+            }
+        } catch (DataAccessException ex) {
+            log.error("Holder-name search initialization failed, using the index only: {}", ex.getMessage());
+        }
+    }
+
+    // accounts written before the normalized field existed
+    private void backfillNormalizedNames() {
+        Query missing = Query.query(Criteria.where("holderNameNormalized").exists(false)
+                .and("holderName").exists(true));
+        missing.fields().include("holderName");
+        long updated = 0;
+        List<Account> batch = new ArrayList<>(BACKFILL_BATCH);
+        try (Stream<Account> accounts = mongoTemplate.stream(missing, Account.class)) {
+            for (Account account : (Iterable<Account>) accounts::iterator) {
+                batch.add(account);
+                if (batch.size() == BACKFILL_BATCH) {
+                    updated += writeNormalized(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            updated += writeNormalized(batch);
+        }
+        if (updated > 0) {
+            log.info("Backfilled the normalized holder name of {} accounts", updated);
+        }
+    }
+
+    private int writeNormalized(List<Account> accounts) {
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Account.class);
+        for (Account account : accounts) {
+            ops.updateOne(Query.query(Criteria.where("_id").is(account.getId())),
+                    Update.update("holderNameNormalized", HolderNames.normalize(account.getHolderName())));
+        }
+        return ops.execute().getModifiedCount();
+    }
+
+    private void buildTrie() {
+        long started = System.nanoTime();
+        Query all = new Query(Criteria.where("status").ne(DELETED));
+        all.fields().include("accountNumber").include("holderNameNormalized");
+        try (Stream<Account> accounts = mongoTemplate.stream(all, Account.class)) {
+            accounts.forEach(account -> {
+                if (account.getHolderNameNormalized() == null || account.getAccountNumber() == null) {
+                    return;
+                }
+                trieLock.writeLock().lock();
+                try {
+                    trie.add(account.getHolderNameNormalized(), account.getAccountNumber());
+                } finally {
+                    trieLock.writeLock().unlock();
+                }
+            });
+        }
+        trieReady = true;
+        log.info("Holder-name trie built with {} entries in {} ms", trieSize(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    int trieSize() {
+        trieLock.readLock().lock();
+        try {
+            return trie.size();
+        } finally {
+            trieLock.readLock().unlock();
+        }
+    }
+}
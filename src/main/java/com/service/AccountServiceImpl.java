@@ -1,6 +1,8 @@
 package com.service;
 
+import com.config.ReadRouting;
 import com.model.Account;
+import com.model.StorageCodes;
 import com.model.Transaction;
 
 import com.exception.AccountNotFoundException;
@@ -8,44 +10,100 @@ import com.exception.InsufficientBalanceException;
 import com.exception.InvalidAmountException;
 import com.repository.AccountRepository;
 import com.repository.TransactionRepository;
+import com.util.AccountNumbers;
+import com.util.HolderNames;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Date;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Service
 public class AccountServiceImpl implements AccountService {
 
     private final AccountRepository accountRepo;
     private final TransactionRepository txnRepo;
+    private final ApplicationEventPublisher events;
+    private final MongoTemplate mongoTemplate;
+    private final ReadRouting routing;
     private static final Logger log = LoggerFactory.getLogger(AccountServiceImpl.class);
-
-    public AccountServiceImpl(AccountRepository accountRepo, TransactionRepository txnRepo) {
+    private static final int DELETED = StorageCodes.ACCOUNT_STATUS.code(Account.DELETED);
+    // the listing is the only unbounded read on the request path; the server aborts it past this (→ 504)
+    private static final long LISTING_MAX_TIME_MS = 5000;
+    private static final int MAX_CREATE_ATTEMPTS = 6;
+    private static final int NARROW_ATTEMPTS = 3;
+
+    public AccountServiceImpl(AccountRepository accountRepo, TransactionRepository txnRepo,
+                              ApplicationEventPublisher events, MongoTemplate mongoTemplate, ReadRouting routing) {
         this.accountRepo = accountRepo;
         this.txnRepo = txnRepo;
+        this.events = events;
+        this.mongoTemplate = mongoTemplate;
+        this.routing = routing;
     }
 
-    private String generateAccNo(String name) {
-        String initials = name.substring(0, 3).toUpperCase();
-        int random = new Random().nextInt(9000) + 1000;
-        log.info("Account number generated: {}", initials + random);
-        return initials + random;
+    private String generateAccNo(String name, int attempt) {
+        int digits = attempt < NARROW_ATTEMPTS ? AccountNumbers.DIGITS : AccountNumbers.WIDE_DIGITS;
+        String accNo = AccountNumbers.random(AccountNumbers.prefix(name), digits, ThreadLocalRandom.current());
+        log.info("Account number generated: {}", accNo);
+        return accNo;
     }
 
+    // the unique index on the account number is the arbiter: a duplicate key means the number was
+    // taken, so another one is drawn, wider once the prefix's 4-digit space looks crowded
     @Override
     public Account createAccount(String name) {
         Account account = new Account();
         account.setHolderName(name);
-        account.setAccountNumber(generateAccNo(name));
-        log.info("Account created: {}", account);
-        return accountRepo.save(account);
+        for (int attempt = 0; ; attempt++) {
+            account.setAccountNumber(generateAccNo(name, attempt));
+            try {
+                Account saved = accountRepo.save(account);
+                log.info("Account created: {}", saved);
+                events.publishEvent(AccountEvent.created(saved));
+                return saved;
+            } catch (DuplicateKeyException ex) {
+                if (attempt + 1 >= MAX_CREATE_ATTEMPTS) {
+                    throw ex;
+                }
+                account.setId(null);
+            }
+        }
+    }
+
+    // soft-deleted accounts are treated as missing by every read and mutation
+    private Account findLive(String accNo) {
+        Account acc = accountRepo.findByAccountNumber(accNo);
+        return acc == null || acc.isDeleted() ? null : acc;
+    }
+
+    // Every write to an existing account is conditional on it still being live and only sets the
+    // fields it changes, so a write racing the soft delete cannot bring the account back, and the
+    // delete cannot overwrite a balance written concurrently.
+    private static Query live(String accNo) {
+        return Query.query(Criteria.where("accountNumber").is(accNo).and("status").ne(DELETED));
+    }
+
+    private Account modifyLive(Query query, Update update) {
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Account.class);
+    }
+
+    private static Update balanceChange(double delta) {
+        return new Update().inc("balance", delta).inc("activity", 1).set("balanceUpdatedAt", new Date());
     }
 
     @Override
     public Account getAccount(String accNo) {
-        Account acc = accountRepo.findByAccountNumber(accNo);
+        Account acc = findLive(accNo);
         log.info("Account found: {}", acc);
         if (acc == null)
             throw new AccountNotFoundException("Account does not exist");
@@ -56,10 +114,11 @@ public class AccountServiceImpl implements AccountService {
     public Account deposit(String accNo, double amount) {
         if (amount <= 0) throw new InvalidAmountException("Amount must be positive");
 
-        Account acc = getAccount(accNo);
-        acc.setBalance(acc.getBalance() + amount);
-        accountRepo.save(acc);
+        Account acc = modifyLive(live(accNo), balanceChange(amount));
+        if (acc == null)
+            throw new AccountNotFoundException("Account does not exist");
         log.info("Amount deposited to account {} is Rs {}", acc, amount);
+        events.publishEvent(AccountEvent.balanceChanged(acc));
 
         createTxn("DEPOSIT", amount, accNo, null);
 
@@ -70,13 +129,14 @@ public class AccountServiceImpl implements AccountService {
     public Account withdraw(String accNo, double amount) {
         if (amount <= 0) throw new InvalidAmountException("Amount must be positive");
 
-        Account acc = getAccount(accNo);
-        if (acc.getBalance() < amount)
+        // the balance check is part of the update, so two withdrawals cannot both pass it
+        Account acc = modifyLive(live(accNo).addCriteria(Criteria.where("balance").gte(amount)), balanceChange(-amount));
+        if (acc == null) {
+            getAccount(accNo);
             throw new InsufficientBalanceException("Low balance!");
-
-        acc.setBalance(acc.getBalance() - amount);
-        accountRepo.save(acc);
+        }
         log.info("Amount withdraw from account {} is Rs {}", acc, amount);
+        events.publishEvent(AccountEvent.balanceChanged(acc));
 
         createTxn("WITHDRAW", amount, accNo, null);
 
@@ -107,14 +167,16 @@ public class AccountServiceImpl implements AccountService {
 
     @Override
     public void deleteAccount(String accountNumber) {
-        Account account = accountRepo.findByAccountNumber(accountNumber);
+        // the document and its transactions are removed later by the AccountPurgeService
+        Account account = modifyLive(live(accountNumber),
+                new Update().set("status", Account.DELETED).set("deletedAt", new Date()));
 
         if (account == null) {
             log.error("Account does not exist");
             throw new AccountNotFoundException("Account does not exist");
         }
         log.info("Account deleted: {}", account);
-        accountRepo.delete(account);
+        events.publishEvent(AccountEvent.deleted(account));
     }
 
     @Override
@@ -124,18 +186,25 @@ public class AccountServiceImpl implements AccountService {
             throw new InvalidAmountException("holderName must not be blank"); // or create a BadRequestException
         }
 
-        Account acc = accountRepo.findByAccountNumber(accountNumber);
+        Account acc = findLive(accountNumber);
         if (acc == null) throw new AccountNotFoundException("Account does not exist");
 
-        acc.setHolderName(newHolderName.trim());
-        log.info("Account {} updated with new holder name {}", acc, newHolderName);
-        return accountRepo.save(acc);
+        String previousHolderName = acc.getHolderName();
+        String holderName = newHolderName.trim();
+        Account saved = modifyLive(live(accountNumber), new Update().set("holderName", holderName)
+                .set("holderNameNormalized", HolderNames.normalize(holderName)));
+        if (saved == null) throw new AccountNotFoundException("Account does not exist");
+        log.info("Account {} updated with new holder name {}", saved, newHolderName);
+        events.publishEvent(AccountEvent.renamed(saved, previousHolderName));
+        return saved;
     }
 
 
     @Override
     public List<Account> getAllAccounts() {
         log.info("All accounts found");
-        return accountRepo.findAll();
+        // the listing may lag a little; lookups and the balance checks of mutations stay on the primary
+        return mongoTemplate.find(routing.secondary(Query.query(Criteria.where("status").ne(DELETED))
+                .maxTimeMsec(LISTING_MAX_TIME_MS)), Account.class);
     }
 }
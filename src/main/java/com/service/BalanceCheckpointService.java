@@ -0,0 +1,345 @@
+package com.service;
+
+import com.config.MongoBulkheads;
+import com.config.ReadRouting;
+import com.dto.BalanceAsOf;
+import com.exception.InvalidRequestException;
+import com.model.Account;
+import com.model.BalanceCheckpoint;
+import com.model.StorageCodes;
+import com.model.Transaction;
+import com.repository.TransactionRepository;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Point-in-time balances. A nightly job writes a {@link BalanceCheckpoint} with the closing
+ * balance of every account for every day it had ledger activity (DEPOSIT, WITHDRAW and INTEREST
+ * rows, as in {@link LedgerReconciliationService}). "Balance at T" is then the latest checkpoint
+ * at or before T plus the ledger rows from it up to T: one index lookup and one
+ * {@code (sourceAccount, timestamp)} range scan that covers at most the days since the last run,
+ * however old the account is.
+ * <p>
+ * A run closes every day from the previous run's cutoff to today's UTC midnight: it groups the
+ * rows of those days by account and day in batches of accounts, starting from each account's
+ * latest checkpoint. The first run backfills {@code backfill-days} and first writes an opening
+ * checkpoint at its start for every live account, so accounts quiet since then never replay from
+ * the beginning; only points in time before it are answered that way.
+ * Like other statement reads the replay runs on a secondary ({@link ReadRouting}).
+ */
+@Service
+public class BalanceCheckpointService {
+
+    static final String RUN_COLLECTION = "balance_checkpoint_runs";
+    private static final String RUN_ID = "daily";
+    private static final Date BEGINNING = new Date(0);
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceCheckpointService.class);
+    private static final List<Integer> LEDGER_CODES =
+            StorageCodes.TRANSACTION_TYPE.codes(LedgerReconciliationService.LEDGER_TYPES);
+    private static final int DELETED = StorageCodes.ACCOUNT_STATUS.code(Account.DELETED);
+
+    private final MongoTemplate mongoTemplate;
+    private final AccountService accountService;
+    private final TransactionArchiveService archive;
+    private final MongoBulkheads bulkheads;
+    private final ReadRouting routing;
+    private final boolean enabled;
+    private final int backfillDays;
+    private final int batchSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public BalanceCheckpointService(MongoTemplate mongoTemplate,
+                                    AccountService accountService,
+                                    TransactionArchiveService archive,
+                                    MongoBulkheads bulkheads,
+                                    ReadRouting routing,
+                                    @Value("${bank.checkpoints.enabled:true}") boolean enabled,
+                                    @Value("${bank.checkpoints.backfill-days:90}") int backfillDays,
+                                    @Value("${bank.checkpoints.batch-size:1000}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.accountService = accountService;
+        this.archive = archive;
+        this.bulkheads = bulkheads;
+        this.routing = routing;
+        this.enabled = enabled;
+        this.backfillDays = backfillDays;
+        this.batchSize = batchSize;
+    }
+
+    public BalanceAsOf balanceAt(String accNo, Date asOf) {
+        // unknown and deleted accounts are a 404, as for every other read
+        Account account = accountService.getAccount(accNo);
+        Date now = new Date();
+        if (asOf == null) {
+            return new BalanceAsOf(accNo, now, account.getBalance(), null, 0);
+        }
+        if (asOf.after(now)) {
+            throw new InvalidRequestException("asOf must not be in the future");
+        }
+        return bulkheads.read(() -> replay(accNo, asOf));
+    }
+
+    BalanceAsOf replay(String accNo, Date asOf) {
+        BalanceCheckpoint checkpoint = mongoTemplate.findOne(
+                routing.secondary(query(where("accountNumber").is(accNo).and("closedAt").lte(asOf))
+                        .with(Sort.by(Sort.Direction.DESC, "closedAt"))),
+                BalanceCheckpoint.class);
+        Date from = checkpoint == null ? null : checkpoint.getClosedAt();
+
+        // a row being archived can briefly exist in both tiers, so collect by id
+        Map<String, Transaction> rows = new LinkedHashMap<>();
+        for (Transaction t : mongoTemplate.find(ledgerRows(accNo, from, asOf), Transaction.class)) {
+            rows.put(t.getId(), t);
+        }
+        if (archive.isEnabled() && (from == null || from.before(archive.horizon()))) {
+            for (Transaction t : mongoTemplate.find(ledgerRows(accNo, from, asOf), Transaction.class,
+                    TransactionArchiveService.ARCHIVE_COLLECTION)) {
+                rows.putIfAbsent(t.getId(), t);
+            }
+        }
+
+        double balance = checkpoint == null ? 0 : checkpoint.getBalance();
+        for (Transaction t : rows.values()) {
+            balance += "WITHDRAW".equals(t.getType()) ? -t.getAmount() : t.getAmount();
+        }
+        return new BalanceAsOf(accNo, asOf, balance, from, rows.size());
+    }
+
+    // rows at closedAt itself come after the checkpoint; rows at asOf count towards it
+    private Query ledgerRows(String accNo, Date from, Date asOf) {
+        Query rows = query(where("sourceAccount").is(accNo).and("type").in(LEDGER_CODES)
+                .and("timestamp").gte(from == null ? BEGINNING : from).lte(asOf))
+                .maxTimeMsec(TransactionRepository.HISTORY_MAX_TIME_MS);
+        rows.fields().include("type").include("amount");
+        return routing.secondary(rows);
+    }
+
+    @Scheduled(cron = "${bank.checkpoints.cron:0 15 0 * * *}", zone = "UTC")
+    public void scheduledCheckpoints() {
+        if (enabled) {
+            writeCheckpoints();
+        }
+    }
+
+    /**
+     * Closes every day up to today's UTC midnight not closed yet. Returns what was done;
+     * {@code running} is true when another run was already busy.
+     */
+    public Map<String, Object> writeCheckpoints() {
+        return writeCheckpoints(Date.from(LocalDate.now(ZoneOffset.UTC).atStartOfDay(ZoneOffset.UTC).toInstant()));
+    }
+
+    Map<String, Object> writeCheckpoints(Date cutoff) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (!running.compareAndSet(false, true)) {
+            result.put("running", true);
+            return result;
+        }
+        long started = System.nanoTime();
+        long written = 0;
+        Date since;
+        try {
+            Date through = closedThrough();
+            since = through != null ? through
+                    : Date.from(cutoff.toInstant().atZone(ZoneOffset.UTC).minusDays(backfillDays).toInstant());
+            if (since.before(cutoff)) {
+                boolean includeArchive = mongoTemplate.collectionExists(TransactionArchiveService.ARCHIVE_COLLECTION);
+                if (through == null) {
+                    written += openCheckpoints(since, includeArchive);
+                }
+                Iterator<String> touched = touched(since, cutoff, includeArchive).iterator();
+                while (touched.hasNext()) {
+                    List<String> batch = new ArrayList<>(batchSize);
+                    while (touched.hasNext() && batch.size() < batchSize) {
+                        batch.add(touched.next());
+                    }
+                    written += closeDays(batch, since, cutoff, includeArchive);
+                }
+                mongoTemplate.upsert(query(where("_id").is(RUN_ID)),
+                        new Update().set("through", cutoff).set("completedAt", new Date()), RUN_COLLECTION);
+            }
+        } finally {
+            running.set(false);
+        }
+        long ms = (System.nanoTime() - started) / 1_000_000;
+        log.info("Wrote {} balance checkpoints for {} to {} in {} ms", written, since, cutoff, ms);
+        result.put("running", false);
+        result.put("from", since);
+        result.put("through", cutoff);
+        result.put("checkpoints", written);
+        result.put("millis", ms);
+        return result;
+    }
+
+    // the cutoff of the last completed run, null before the first one
+    private Date closedThrough() {
+        Document run = mongoTemplate.findById(RUN_ID, Document.class, RUN_COLLECTION);
+        return run == null ? null : run.getDate("through");
+    }
+
+    /**
+     * Writes a checkpoint closing at {@code since} for every live account, from its ledger net
+     * before it. Without one, an account with no activity since then would replay its whole
+     * history for every later instant.
+     */
+    private long openCheckpoints(Date since, boolean includeArchive) {
+        Query live = query(where("status").ne(DELETED));
+        live.fields().include("accountNumber");
+        long written = 0;
+        try (Stream<Account> accounts = mongoTemplate.stream(live, Account.class)) {
+            Iterator<Account> it = accounts.iterator();
+            while (it.hasNext()) {
+                List<String> batch = new ArrayList<>(batchSize);
+                while (it.hasNext() && batch.size() < batchSize) {
+                    batch.add(it.next().getAccountNumber());
+                }
+                written += openCheckpoints(batch, since, includeArchive);
+            }
+        }
+        return written;
+    }
+
+    private long openCheckpoints(List<String> accounts, Date since, boolean includeArchive) {
+        Map<String, Double> nets = new HashMap<>();
+        for (Document row : aggregate(LedgerReconciliationService.netPerAccount(accounts, since), includeArchive)) {
+            nets.merge(row.getString("_id"), ((Number) row.get("net")).doubleValue(), Double::sum);
+        }
+        // the checkpoint of the day before since, which closes at since
+        LocalDate day = LocalDate.ofInstant(since.toInstant(), ZoneOffset.UTC).minusDays(1);
+        BulkOperations upserts = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, BalanceCheckpoint.class);
+        for (String accNo : accounts) {
+            upserts.upsert(query(where("_id").is(accNo + ":" + day)),
+                    new Update().set("accountNumber", accNo)
+                            .set("closedAt", since)
+                            .set("balance", nets.getOrDefault(accNo, 0.0)));
+        }
+        upserts.execute();
+        return accounts.size();
+    }
+
+    private Set<String> touched(Date since, Date cutoff, boolean includeArchive) {
+        // a cursor, not distinct: distinct returns one document and fails past 16 MB of account numbers
+        Aggregation rows = LedgerReconciliationService.sourceAccounts(Criteria.where(Transaction.Fields.TIMESTAMP)
+                .gte(since).lt(cutoff).and(Transaction.Fields.TYPE).in(LEDGER_CODES));
+        Set<String> touched = new TreeSet<>();
+        addAccounts(touched, rows, mongoTemplate.getCollectionName(Transaction.class));
+        if (includeArchive) {
+            addAccounts(touched, rows, TransactionArchiveService.ARCHIVE_COLLECTION);
+        }
+        return touched;
+    }
+
+    private void addAccounts(Set<String> touched, Aggregation rows, String collection) {
+        try (Stream<Document> accounts = mongoTemplate.aggregateStream(rows, collection, Document.class)) {
+            accounts.forEach(row -> {
+                String accNo = row.getString("_id");
+                if (accNo != null) {
+                    touched.add(accNo);
+                }
+            });
+        }
+    }
+
+    private long closeDays(List<String> accounts, Date since, Date cutoff, boolean includeArchive) {
+        Map<String, TreeMap<LocalDate, Double>> days = new HashMap<>();
+        for (Document row : aggregate(dailyNets(accounts, since, cutoff), includeArchive)) {
+            Document key = row.get("_id", Document.class);
+            days.computeIfAbsent(key.getString(Transaction.Fields.SOURCE_ACCOUNT), k -> new TreeMap<>())
+                    .merge(LocalDate.parse(key.getString("day")), ((Number) row.get("net")).doubleValue(), Double::sum);
+        }
+
+        Map<String, Double> opening = latestCheckpoints(accounts, since);
+        List<String> unseen = accounts.stream().filter(a -> !opening.containsKey(a)).toList();
+        if (!unseen.isEmpty()) {
+            for (Document row : aggregate(LedgerReconciliationService.netPerAccount(unseen, since), includeArchive)) {
+                opening.merge(row.getString("_id"), ((Number) row.get("net")).doubleValue(), Double::sum);
+            }
+        }
+
+        BulkOperations upserts = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, BalanceCheckpoint.class);
+        long written = 0;
+        for (Map.Entry<String, TreeMap<LocalDate, Double>> account : days.entrySet()) {
+            double balance = opening.getOrDefault(account.getKey(), 0.0);
+            for (Map.Entry<LocalDate, Double> day : account.getValue().entrySet()) {
+                balance += day.getValue();
+                Date closedAt = Date.from(day.getKey().plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant());
+                upserts.upsert(query(where("_id").is(account.getKey() + ":" + day.getKey())),
+                        new Update().set("accountNumber", account.getKey())
+                                .set("closedAt", closedAt)
+                                .set("balance", balance));
+                written++;
+            }
+        }
+        if (written > 0) {
+            upserts.execute();
+        }
+        return written;
+    }
+
+    private List<Document> aggregate(Aggregation pipeline, boolean includeArchive) {
+        List<Document> rows = new ArrayList<>(mongoTemplate.aggregate(pipeline,
+                mongoTemplate.getCollectionName(Transaction.class), Document.class).getMappedResults());
+        if (includeArchive) {
+            rows.addAll(mongoTemplate.aggregate(pipeline, TransactionArchiveService.ARCHIVE_COLLECTION, Document.class)
+                    .getMappedResults());
+        }
+        return rows;
+    }
+
+    // the latest checkpoint at or before since; later days are the ones this run closes
+    private Map<String, Double> latestCheckpoints(Collection<String> accounts, Date since) {
+        Aggregation latest = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("accountNumber").in(accounts).and("closedAt").lte(since)),
+                Aggregation.sort(Sort.Direction.DESC, "closedAt"),
+                Aggregation.group("accountNumber").first("balance").as("balance"));
+        Map<String, Double> balances = new HashMap<>();
+        for (Document row : mongoTemplate.aggregate(latest, BalanceCheckpoint.class, Document.class).getMappedResults()) {
+            balances.put(row.getString("_id"), ((Number) row.get("balance")).doubleValue());
+        }
+        return balances;
+    }
+
+    /** Ledger net per account and UTC day over {@code [since, cutoff)}, on the stored field names. */
+    static Aggregation dailyNets(Collection<String> accounts, Date since, Date cutoff) {
+        return Aggregation.newAggregation(
+                Aggregation.match(Criteria.where(Transaction.Fields.SOURCE_ACCOUNT).in(accounts)
+                        .and(Transaction.Fields.TIMESTAMP).gte(since).lt(cutoff)
+                        .and(Transaction.Fields.TYPE).in(LEDGER_CODES)),
+                Aggregation.project(Transaction.Fields.SOURCE_ACCOUNT)
+                        .and(DateOperators.dateOf(Transaction.Fields.TIMESTAMP).toString("%Y-%m-%d")).as("day")
+                        .and(LedgerReconciliationService.signedAmount()).as("net"),
+                Aggregation.group(Transaction.Fields.SOURCE_ACCOUNT, "day").sum("net").as("net"));
+    }
+}
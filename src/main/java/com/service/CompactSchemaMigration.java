@@ -0,0 +1,185 @@
+package com.service;
+
+import com.config.MongoIndexInitializer;
+import com.config.TransactionTimeSeriesConfig;
+import com.model.Account;
+import com.model.StorageCodes;
+import com.model.Transaction;
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Rewrites accounts and transactions (hot and archive tier) written before the compact layout:
+ * long field names become the short names of {@link Account.Fields} and {@link Transaction.Fields},
+ * type and status strings become {@link StorageCodes}, and the {@code _class} hint is dropped.
+ * <p>
+ * Like {@link TransactionTimeSeriesMigration}, the original of each collection is kept as
+ * {@code <name>_legacy_<millis>} and the rewritten documents are copied in batches into a collection
+ * created under the final name (time-series again if the original is). A regular original is moved
+ * aside by rename; a time-series one cannot be renamed, so it is copied aside and dropped. On failure
+ * the original is put back. Writes must be paused while it runs.
+ * Documents already in the compact layout are copied unchanged, so it can be run again.
+ */
+@Service
+public class CompactSchemaMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(CompactSchemaMigration.class);
+
+    static final Map<String, String> ACCOUNT_FIELDS = Map.of(
+            "accountNumber", Account.Fields.ACCOUNT_NUMBER,
+            "holderName", Account.Fields.HOLDER_NAME,
+            "holderNameNormalized", Account.Fields.HOLDER_NAME_NORMALIZED,
+            "balance", Account.Fields.BALANCE,
+            "balanceUpdatedAt", Account.Fields.BALANCE_UPDATED_AT,
+            "status", Account.Fields.STATUS,
+            "createdAt", Account.Fields.CREATED_AT,
+            "lastInterestRun", Account.Fields.LAST_INTEREST_RUN);
+
+    static final Map<String, String> TRANSACTION_FIELDS = Map.of(
+            "transactionId", Transaction.Fields.TRANSACTION_ID,
+            "type", Transaction.Fields.TYPE,
+            "amount", Transaction.Fields.AMOUNT,
+            "timestamp", Transaction.Fields.TIMESTAMP,
+            "status", Transaction.Fields.STATUS,
+            "sourceAccount", Transaction.Fields.SOURCE_ACCOUNT,
+            "destinationAccount", Transaction.Fields.DESTINATION_ACCOUNT);
+
+    private static final Map<String, StorageCodes> ACCOUNT_CODES = Map.of(
+            Account.Fields.STATUS, StorageCodes.ACCOUNT_STATUS);
+
+    private static final Map<String, StorageCodes> TRANSACTION_CODES = Map.of(
+            Transaction.Fields.TYPE, StorageCodes.TRANSACTION_TYPE,
+            Transaction.Fields.STATUS, StorageCodes.TRANSACTION_STATUS);
+
+    private final MongoTemplate mongoTemplate;
+    private final TransactionTimeSeriesConfig timeSeries;
+    private final MongoIndexInitializer indexes;
+    private final int batchSize;
+
+    public CompactSchemaMigration(MongoTemplate mongoTemplate,
+                                  TransactionTimeSeriesConfig timeSeries,
+                                  MongoIndexInitializer indexes,
+                                  @Value("${bank.transactions.migration-batch-size:5000}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.timeSeries = timeSeries;
+        this.indexes = indexes;
+        this.batchSize = batchSize;
+    }
+
+    public Map<String, Object> migrate() {
+        long started = System.nanoTime();
+        Map<String, Object> result = new LinkedHashMap<>();
+        String accounts = mongoTemplate.getCollectionName(Account.class);
+        String transactions = mongoTemplate.getCollectionName(Transaction.class);
+        result.put(accounts, migrate(accounts, ACCOUNT_FIELDS, ACCOUNT_CODES));
+        result.put(transactions, migrate(transactions, TRANSACTION_FIELDS, TRANSACTION_CODES));
+        result.put(TransactionArchiveService.ARCHIVE_COLLECTION,
+                migrate(TransactionArchiveService.ARCHIVE_COLLECTION, TRANSACTION_FIELDS, TRANSACTION_CODES));
+        // the recreated collections start without indexes
+        indexes.ensureIndexes();
+
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        result.put("elapsedMs", elapsedMs);
+        log.info("Compact schema migration finished in {} ms: {}", elapsedMs, result);
+        return result;
+    }
+
+    private Map<String, Object> migrate(String source, Map<String, String> fields, Map<String, StorageCodes> codes) {
+        if (!mongoTemplate.collectionExists(source)) {
+            return Map.of("migrated", 0L);
+        }
+        String database = mongoTemplate.getDb().getName();
+        String legacy = source + "_legacy_" + System.currentTimeMillis();
+        boolean timeSeriesSource = TransactionTimeSeriesConfig.isTimeSeries(mongoTemplate, source);
+        if (timeSeriesSource) {
+            // time-series collections cannot be renamed: keep a copy of the originals, then drop
+            mongoTemplate.createCollection(legacy);
+            copy(mongoTemplate.getCollection(source), mongoTemplate.getCollection(legacy), doc -> doc);
+            mongoTemplate.dropCollection(source);
+        } else {
+            mongoTemplate.getCollection(source).renameCollection(new MongoNamespace(database, legacy));
+        }
+
+        long copied;
+        try {
+            createLike(source, timeSeriesSource);
+            copied = copy(mongoTemplate.getCollection(legacy), mongoTemplate.getCollection(source),
+                    doc -> compact(doc, fields, codes));
+        } catch (RuntimeException ex) {
+            log.error("Compact schema migration of {} failed, restoring it from {}", source, legacy, ex);
+            mongoTemplate.dropCollection(source);
+            if (timeSeriesSource) {
+                createLike(source, true);
+                copy(mongoTemplate.getCollection(legacy), mongoTemplate.getCollection(source), doc -> doc);
+            } else {
+                mongoTemplate.getCollection(legacy).renameCollection(new MongoNamespace(database, source));
+            }
+            throw ex;
+        }
+        log.info("Rewrote {} documents of {} in the compact layout, original kept as {}", copied, source, legacy);
+        return Map.of("migrated", copied, "legacyCollection", legacy);
+    }
+
+    private void createLike(String name, boolean timeSeriesCollection) {
+        if (timeSeriesCollection) {
+            mongoTemplate.createCollection(name, timeSeries.collectionOptions());
+        } else {
+            mongoTemplate.createCollection(name);
+        }
+    }
+
+    private long copy(MongoCollection<Document> from, MongoCollection<Document> to, UnaryOperator<Document> rewrite) {
+        long copied = 0;
+        List<Document> batch = new ArrayList<>(batchSize);
+        try (MongoCursor<Document> cursor = from.find().sort(Sorts.ascending("_id")).batchSize(batchSize).iterator()) {
+            while (cursor.hasNext()) {
+                batch.add(rewrite.apply(cursor.next()));
+                if (batch.size() == batchSize) {
+                    to.insertMany(batch, new InsertManyOptions().ordered(false));
+                    copied += batch.size();
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            to.insertMany(batch, new InsertManyOptions().ordered(false));
+            copied += batch.size();
+        }
+
+        long sourceCount = from.countDocuments();
+        if (sourceCount != copied) {
+            throw new IllegalStateException("Copied " + copied + " of " + sourceCount + " documents of "
+                    + from.getNamespace().getCollectionName() + "; were writes running during the migration?");
+        }
+        return copied;
+    }
+
+    static Document compact(Document doc, Map<String, String> fields, Map<String, StorageCodes> codes) {
+        Document compact = new Document();
+        for (Map.Entry<String, Object> entry : doc.entrySet()) {
+            if (entry.getKey().equals("_class")) {
+                continue;
+            }
+            String name = fields.getOrDefault(entry.getKey(), entry.getKey());
+            StorageCodes coded = codes.get(name);
+            Object value = entry.getValue();
+            compact.put(name, coded != null && value != null ? coded.toStored(value) : value);
+        }
+        return compact;
+    }
+}
@@ -0,0 +1,107 @@
+package com.service;
+
+import com.config.MongoBulkheads;
+import com.exception.AccountNotFoundException;
+import com.exception.InsufficientBalanceException;
+import com.exception.InvalidAmountException;
+import com.exception.ServiceOverloadedException;
+import com.model.Account;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * The AccountService the controllers see: runs every call of {@link AccountServiceImpl} inside the
+ * read or write bulkhead so that each kind of traffic is limited on its own. Account numbers that
+ * the {@link AccountNumberFilter} knows do not exist are rejected before taking a permit, and so
+ * are withdrawals and transfers over the account's {@link VelocityLimits}.
+ */
+@Service
+@Primary
+public class GuardedAccountService implements AccountService {
+
+    private final AccountServiceImpl delegate;
+    private final MongoBulkheads bulkheads;
+    private final AccountNumberFilter accountNumbers;
+    private final VelocityLimits velocityLimits;
+
+    public GuardedAccountService(AccountServiceImpl delegate, MongoBulkheads bulkheads, AccountNumberFilter accountNumbers,
+                                 VelocityLimits velocityLimits) {
+        this.delegate = delegate;
+        this.bulkheads = bulkheads;
+        this.accountNumbers = accountNumbers;
+        this.velocityLimits = velocityLimits;
+    }
+
+    private void requireKnown(String accountNumber) {
+        if (!accountNumbers.mightExist(accountNumber)) {
+            throw new AccountNotFoundException("Account does not exist");
+        }
+    }
+
+    @Override
+    public Account createAccount(String name) {
+        return bulkheads.write(() -> delegate.createAccount(name));
+    }
+
+    @Override
+    public void deleteAccount(String accountNumber) {
+        requireKnown(accountNumber);
+        bulkheads.write(() -> delegate.deleteAccount(accountNumber));
+    }
+
+    @Override
+    public Account updateHolderName(String accountNumber, String newHolderName) {
+        requireKnown(accountNumber);
+        return bulkheads.write(() -> delegate.updateHolderName(accountNumber, newHolderName));
+    }
+
+    @Override
+    public Account getAccount(String accountNumber) {
+        requireKnown(accountNumber);
+        return bulkheads.read(() -> delegate.getAccount(accountNumber));
+    }
+
+    @Override
+    public Account deposit(String accountNumber, double amount) {
+        requireKnown(accountNumber);
+        return bulkheads.write(() -> delegate.deposit(accountNumber, amount));
+    }
+
+    @Override
+    public Account withdraw(String accountNumber, double amount) {
+        requireKnown(accountNumber);
+        VelocityLimits.Reservation debit = velocityLimits.admit(accountNumber, amount);
+        try {
+            return bulkheads.write(() -> delegate.withdraw(accountNumber, amount));
+        } catch (InsufficientBalanceException | InvalidAmountException | AccountNotFoundException
+                 | ServiceOverloadedException ex) {
+            // rejected before any money moved
+            velocityLimits.refund(debit);
+            throw ex;
+        }
+    }
+
+    @Override
+    public void transfer(String fromAcc, String toAcc, double amount) {
+        requireKnown(fromAcc);
+        requireKnown(toAcc);
+        // a missing or deleted source is rejected before anything is reserved; the delegate's
+        // AccountNotFoundException cannot be refunded, as a missing destination surfaces only
+        // after the withdrawal
+        bulkheads.read(() -> delegate.getAccount(fromAcc));
+        VelocityLimits.Reservation debit = velocityLimits.admit(fromAcc, amount);
+        try {
+            bulkheads.write(() -> delegate.transfer(fromAcc, toAcc, amount));
+        } catch (InsufficientBalanceException | InvalidAmountException | ServiceOverloadedException ex) {
+            velocityLimits.refund(debit);
+            throw ex;
+        }
+    }
+
+    @Override
+    public List<Account> getAllAccounts() {
+        return bulkheads.read(delegate::getAllAccounts);
+    }
+}
@@ -0,0 +1,379 @@
+package com.service;
+
+import com.dto.InterestRunRequest;
+import com.dto.InterestRunStatus;
+import com.exception.InvalidRequestException;
+import com.model.Account;
+import com.model.StorageCodes;
+import com.model.Transaction;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Credits periodic interest to every ACTIVE account.
+ * <p>
+ * The accounts collection is split into {@code _id} ranges with {@code $bucketAuto}; the ranges
+ * are processed by a pool of workers, each walking its range in batches. Interest is computed with
+ * BigDecimal (2 decimals, HALF_EVEN), journaled with one insertMany per batch and applied with one
+ * unordered bulk of {@code $inc} updates. The run and its ranges are checkpointed in
+ * {@code interest_runs}; re-submitting the same run id resumes with the ranges not yet done.
+ * <p>
+ * Each account is guarded by {@code lastInterestRun} and each journal entry has the deterministic
+ * id {@code INT-<runId>-<accountNumber>}, so a batch interrupted between journaling and crediting
+ * is credited exactly once when resumed. Accounts opened after the run was partitioned are left
+ * for the next run.
+ */
+@Service
+public class InterestAccrualService {
+
+    private static final Logger log = LoggerFactory.getLogger(InterestAccrualService.class);
+
+    static final String RUNS_COLLECTION = "interest_runs";
+    static final String TRANSACTION_TYPE = "INTEREST";
+    private static final int ACTIVE = StorageCodes.ACCOUNT_STATUS.code("ACTIVE");
+
+    private static final Pattern RUN_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher events;
+    private final int partitions;
+    private final int batchSize;
+    private final Map<String, InterestRunStatus> running = new ConcurrentHashMap<>();
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "interest-accrual");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ExecutorService workers;
+
+    public InterestAccrualService(MongoTemplate mongoTemplate,
+                                  ApplicationEventPublisher events,
+                                  @Value("${bank.interest.partitions:64}") int partitions,
+                                  @Value("${bank.interest.workers:4}") int workerThreads,
+                                  @Value("${bank.interest.batch-size:1000}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.events = events;
+        this.partitions = partitions;
+        this.batchSize = batchSize;
+        AtomicInteger threadNo = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerThreads, r -> {
+            Thread t = new Thread(r, "interest-accrual-worker-" + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public InterestRunStatus start(InterestRunRequest request) {
+        String runId = request.getRunId();
+        if (runId == null || !RUN_ID.matcher(runId).matches()) {
+            throw new InvalidRequestException("runId may only contain letters, digits, '-' and '_'");
+        }
+        if (running.containsKey(runId)) {
+            throw new InvalidRequestException("Interest run " + runId + " is already running");
+        }
+
+        Document run = mongoTemplate.findById(runId, Document.class, RUNS_COLLECTION);
+        if (run == null) {
+            run = newRun(runId, validRate(request.getRatePercent()));
+            mongoTemplate.insert(run, RUNS_COLLECTION);
+        } else if (request.getRatePercent() != null && rateOf(run).compareTo(request.getRatePercent()) != 0) {
+            throw new InvalidRequestException("Interest run " + runId + " was started with rate " + rateOf(run) + "%");
+        }
+
+        List<Chunk> chunks = chunksOf(run);
+        InterestRunStatus status = new InterestRunStatus(runId, rateOf(run), chunks.size());
+        if (run.getBoolean("completed", false)) {
+            status.completed();
+            return status;
+        }
+        if (running.putIfAbsent(runId, status) != null) {
+            throw new InvalidRequestException("Interest run " + runId + " is already running");
+        }
+        BigDecimal rate = rateOf(run);
+        coordinator.submit(() -> run(runId, rate, chunks, status));
+        return status;
+    }
+
+    public InterestRunStatus status(String runId) {
+        InterestRunStatus status = running.get(runId);
+        if (status != null) {
+            return status;
+        }
+        Document run = mongoTemplate.findById(runId, Document.class, RUNS_COLLECTION);
+        if (run == null) {
+            throw new InvalidRequestException("Unknown interest run " + runId);
+        }
+        List<Chunk> chunks = chunksOf(run);
+        status = new InterestRunStatus(runId, rateOf(run), chunks.size());
+        for (Chunk chunk : chunks) {
+            if (chunk.done) {
+                status.chunkDone(chunk.credited, chunk.interest);
+            }
+        }
+        if (run.getBoolean("completed", false)) {
+            status.completed();
+        } else {
+            status.failed("Interrupted, submit the run again to resume");
+        }
+        return status;
+    }
+
+    private static BigDecimal validRate(BigDecimal ratePercent) {
+        if (ratePercent == null || ratePercent.signum() <= 0 || ratePercent.compareTo(HUNDRED) > 0) {
+            throw new InvalidRequestException("ratePercent must be greater than 0 and at most 100");
+        }
+        return ratePercent;
+    }
+
+    // $bucketAuto picks boundaries so that every range holds about the same number of accounts
+    private Document newRun(String runId, BigDecimal ratePercent) {
+        List<Document> buckets = mongoTemplate.aggregate(Aggregation.newAggregation(
+                        Aggregation.match(Criteria.where("status").is(ACTIVE)),
+                        Aggregation.bucketAuto("_id", partitions)),
+                Account.class, Document.class).getMappedResults();
+
+        List<Document> chunks = new ArrayList<>(buckets.size());
+        for (int i = 0; i < buckets.size(); i++) {
+            Document bounds = (Document) buckets.get(i).get("_id");
+            chunks.add(new Document("min", bounds.get("min"))
+                    .append("max", bounds.get("max"))
+                    // $bucketAuto upper bounds are exclusive except for the last bucket
+                    .append("last", i == buckets.size() - 1)
+                    .append("done", false));
+        }
+        return new Document("_id", runId)
+                .append("ratePercent", ratePercent.toPlainString())
+                .append("startedAt", new Date())
+                .append("completed", false)
+                .append("chunks", chunks);
+    }
+
+    private static BigDecimal rateOf(Document run) {
+        return new BigDecimal(run.getString("ratePercent"));
+    }
+
+    private static List<Chunk> chunksOf(Document run) {
+        List<Document> stored = run.getList("chunks", Document.class);
+        List<Chunk> chunks = new ArrayList<>(stored.size());
+        for (int i = 0; i < stored.size(); i++) {
+            Document d = stored.get(i);
+            chunks.add(new Chunk(i, d.get("min"), d.get("max"), d.getBoolean("last", false),
+                    d.getBoolean("done", false), ((Number) d.get("credited", 0L)).longValue(),
+                    new BigDecimal(d.get("interest", "0.00"))));
+        }
+        return chunks;
+    }
+
+    void run(String runId, BigDecimal rate, List<Chunk> chunks, InterestRunStatus status) {
+        try {
+            List<CompletableFuture<Void>> pending = new ArrayList<>();
+            for (Chunk chunk : chunks) {
+                if (chunk.done) {
+                    status.chunkDone(chunk.credited, chunk.interest);
+                    continue;
+                }
+                pending.add(CompletableFuture.runAsync(() -> {
+                    ChunkResult result = processChunk(runId, rate, chunk);
+                    markChunkDone(runId, chunk, result);
+                    status.chunkDone(result.credited, result.interest);
+                }, workers));
+            }
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(runId)),
+                    new Update().set("completed", true).set("finishedAt", new Date()), RUNS_COLLECTION);
+            status.completed();
+            log.info("Interest run {} completed: {} accounts credited {} in {} ms ({} accounts/s)", runId,
+                    status.getAccountsCredited(), status.getTotalInterest(), status.getElapsedMs(),
+                    status.getAccountsPerSecond());
+        } catch (Exception ex) {
+            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+            log.error("Interest run {} failed after {} of {} chunks", runId, status.getChunksDone(), chunks.size(), cause);
+            status.failed(cause.getMessage());
+        } finally {
+            running.remove(runId);
+        }
+    }
+
+    ChunkResult processChunk(String runId, BigDecimal rate, Chunk chunk) {
+        long credited = 0;
+        BigDecimal interest = BigDecimal.ZERO.setScale(2);
+        Object after = null;
+        while (true) {
+            Criteria range = after == null ? Criteria.where("_id").gte(chunk.min) : Criteria.where("_id").gt(after);
+            range = chunk.last ? range.lte(chunk.max) : range.lt(chunk.max);
+            Query query = Query.query(range.and("status").is(ACTIVE).and("lastInterestRun").ne(runId))
+                    .with(Sort.by("id"))
+                    .limit(batchSize);
+            // activity only rides along so the balance-changed events carry the account's real count
+            query.fields().include("accountNumber").include("balance").include("activity");
+            List<Account> accounts = mongoTemplate.find(query, Account.class);
+            if (accounts.isEmpty()) {
+                break;
+            }
+            ChunkResult batch = creditBatch(runId, rate, accounts);
+            credited += batch.credited;
+            interest = interest.add(batch.interest);
+            if (accounts.size() < batchSize) {
+                break;
+            }
+            after = new ObjectId(accounts.get(accounts.size() - 1).getId());
+        }
+        return new ChunkResult(credited, interest);
+    }
+
+    private ChunkResult creditBatch(String runId, BigDecimal rate, List<Account> accounts) {
+        Map<String, BigDecimal> amounts = new HashMap<>();
+        for (Account account : accounts) {
+            BigDecimal amount = interestOn(account.getBalance(), rate);
+            if (amount.signum() > 0) {
+                amounts.put(account.getAccountNumber(), amount);
+            }
+        }
+        if (amounts.isEmpty()) {
+            return new ChunkResult(0, BigDecimal.ZERO);
+        }
+
+        // entries journaled by an interrupted attempt are credited with their journaled amount, not re-inserted
+        Map<String, BigDecimal> journaled = journaledAmounts(runId, amounts.keySet());
+        List<Transaction> journal = new ArrayList<>(amounts.size());
+        for (Map.Entry<String, BigDecimal> entry : amounts.entrySet()) {
+            BigDecimal previous = journaled.get(entry.getKey());
+            if (previous != null) {
+                entry.setValue(previous);
+            } else {
+                journal.add(journalEntry(runId, entry.getKey(), entry.getValue()));
+            }
+        }
+        if (!journal.isEmpty()) {
+            mongoTemplate.insert(journal, Transaction.class);
+        }
+
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Account.class);
+        List<Account> creditedAccounts = new ArrayList<>(amounts.size());
+        for (Account account : accounts) {
+            BigDecimal amount = amounts.get(account.getAccountNumber());
+            if (amount == null) {
+                continue;
+            }
+            ops.updateOne(Query.query(Criteria.where("_id").is(account.getId()).and("lastInterestRun").ne(runId)),
+                    new Update().inc("balance", amount.doubleValue())
+                            .set("lastInterestRun", runId)
+                            .set("balanceUpdatedAt", new Date()));
+            creditedAccounts.add(account);
+        }
+        int modified = ops.execute().getModifiedCount();
+
+        BigDecimal total = BigDecimal.ZERO.setScale(2);
+        for (Account account : creditedAccounts) {
+            BigDecimal amount = amounts.get(account.getAccountNumber());
+            total = total.add(amount);
+            account.setBalance(BigDecimal.valueOf(account.getBalance()).add(amount).doubleValue());
+            events.publishEvent(AccountEvent.balanceChanged(account));
+        }
+        return new ChunkResult(modified, total);
+    }
+
+    private Map<String, BigDecimal> journaledAmounts(String runId, Set<String> accountNumbers) {
+        List<String> ids = new ArrayList<>(accountNumbers.size());
+        accountNumbers.forEach(accNo -> ids.add(transactionId(runId, accNo)));
+        Query query = Query.query(Criteria.where("transactionId").in(ids));
+        query.fields().include("transactionId").include("sourceAccount").include("amount");
+        Map<String, BigDecimal> journaled = new HashMap<>();
+        for (Transaction t : mongoTemplate.find(query, Transaction.class)) {
+            journaled.put(t.getSourceAccount(), BigDecimal.valueOf(t.getAmount()).setScale(2, RoundingMode.HALF_EVEN));
+        }
+        return journaled;
+    }
+
+    private void markChunkDone(String runId, Chunk chunk, ChunkResult result) {
+        String prefix = "chunks." + chunk.index + ".";
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(runId)),
+                new Update().set(prefix + "done", true)
+                        .set(prefix + "credited", result.credited)
+                        .set(prefix + "interest", result.interest.toPlainString()),
+                RUNS_COLLECTION);
+    }
+
+    static String transactionId(String runId, String accountNumber) {
+        return "INT-" + runId + "-" + accountNumber;
+    }
+
+    private static Transaction journalEntry(String runId, String accountNumber, BigDecimal amount) {
+        Transaction t = new Transaction();
+        t.setTransactionId(transactionId(runId, accountNumber));
+        t.setType(TRANSACTION_TYPE);
+        t.setAmount(amount.doubleValue());
+        t.setStatus("SUCCESS");
+        t.setSourceAccount(accountNumber);
+        return t;
+    }
+
+    /** Interest on {@code balance} at {@code ratePercent}, in exact decimal arithmetic rounded to cents. */
+    static BigDecimal interestOn(double balance, BigDecimal ratePercent) {
+        if (balance <= 0) {
+            return BigDecimal.ZERO.setScale(2);
+        }
+        return BigDecimal.valueOf(balance)
+                .multiply(ratePercent)
+                .divide(HUNDRED, 2, RoundingMode.HALF_EVEN);
+    }
+
+    static final class Chunk {
+        final int index;
+        final Object min;
+        final Object max;
+        final boolean last;
+        final boolean done;
+        final long credited;
+        final BigDecimal interest;
+
+        Chunk(int index, Object min, Object max, boolean last, boolean done, long credited, BigDecimal interest) {
+            this.index = index;
+            this.min = min;
+            this.max = max;
+            this.last = last;
+            this.done = done;
+            this.credited = credited;
+            this.interest = interest;
+        }
+    }
+
+    static final class ChunkResult {
+        final long credited;
+        final BigDecimal interest;
+
+        ChunkResult(long credited, BigDecimal interest) {
+            this.credited = credited;
+            this.interest = interest;
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.service;
+
+import com.dto.ReconciliationStatus;
+import com.exception.InvalidRequestException;
+import com.model.Account;
+import com.model.StorageCodes;
+import com.model.Transaction;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Checks that every account's balance equals the net of its ledger: DEPOSIT and INTEREST rows add,
+ * WITHDRAW rows subtract (a transfer writes a WITHDRAW and a DEPOSIT row; its TRANSFER row is
+ * informational). Both the hot and the archive tier are summed.
+ * <p>
+ * Accounts are read from one cursor and handed out in batches to a worker pool; each batch is one
+ * {@code $group} aggregation over the batch's account numbers. Differences are re-checked once after
+ * a short delay, so transfers that were in flight are not reported; the rest are written to
+ * {@code reconciliation_mismatches}. A completed run stores its start time as the checkpoint, and
+ * later incremental runs only re-check accounts with transactions or balance changes since then.
+ */
+@Service
+public class LedgerReconciliationService {
+
+    private static final int DELETED = StorageCodes.ACCOUNT_STATUS.code(Account.DELETED);
+    private static final Logger log = LoggerFactory.getLogger(LedgerReconciliationService.class);
+
+    static final String MISMATCH_COLLECTION = "reconciliation_mismatches";
+    static final String CHECKPOINT_COLLECTION = "reconciliation_checkpoints";
+    private static final String CHECKPOINT_ID = "ledger";
+    static final List<String> LEDGER_TYPES = List.of("DEPOSIT", "WITHDRAW", "INTEREST");
+    private static final double TOLERANCE = 0.005;
+    private static final int KEPT_STATUSES = 20;
+
+    private final MongoTemplate mongoTemplate;
+    private final int batchSize;
+    private final int workerThreads;
+    private final long recheckDelayMs;
+    private final long overlapMs;
+    private final Map<String, ReconciliationStatus> statuses = Collections.synchronizedMap(
+            new LinkedHashMap<>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ReconciliationStatus> eldest) {
+                    return size() > KEPT_STATUSES;
+                }
+            });
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "ledger-reconciliation");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ExecutorService workers;
+    private volatile ReconciliationStatus current;
+
+    public LedgerReconciliationService(MongoTemplate mongoTemplate,
+                                       @Value("${bank.reconciliation.batch-size:1000}") int batchSize,
+                                       @Value("${bank.reconciliation.workers:4}") int workerThreads,
+                                       @Value("${bank.reconciliation.recheck-delay-ms:2000}") long recheckDelayMs,
+                                       @Value("${bank.reconciliation.checkpoint-overlap-ms:300000}") long overlapMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.batchSize = batchSize;
+        this.workerThreads = workerThreads;
+        this.recheckDelayMs = recheckDelayMs;
+        this.overlapMs = overlapMs;
+        AtomicInteger threadNo = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerThreads, r -> {
+            Thread t = new Thread(r, "ledger-reconciliation-worker-" + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public synchronized ReconciliationStatus start(boolean full) {
+        if (current != null && current.getState() == ReconciliationStatus.State.RUNNING) {
+            throw new InvalidRequestException("Reconciliation " + current.getRunId() + " is still running");
+        }
+        Date since = full ? null : nextSince();
+        String runId = "recon-" + System.currentTimeMillis();
+        ReconciliationStatus status = new ReconciliationStatus(runId,
+                since == null ? ReconciliationStatus.Mode.FULL : ReconciliationStatus.Mode.INCREMENTAL, since);
+        statuses.put(runId, status);
+        current = status;
+        Date startedAt = new Date();
+        coordinator.submit(() -> run(status, since, startedAt));
+        return status;
+    }
+
+    public ReconciliationStatus status(String runId) {
+        ReconciliationStatus status = statuses.get(runId);
+        if (status == null) {
+            throw new InvalidRequestException("Unknown reconciliation run " + runId);
+        }
+        return status;
+    }
+
+    // the overlap covers writes that were in flight when the previous run started
+    Date nextSince() {
+        Document checkpoint = mongoTemplate.findById(CHECKPOINT_ID, Document.class, CHECKPOINT_COLLECTION);
+        if (checkpoint == null || checkpoint.getDate("startedAt") == null) {
+            return null;
+        }
+        return new Date(checkpoint.getDate("startedAt").getTime() - overlapMs);
+    }
+
+    void run(ReconciliationStatus status, Date since, Date startedAt) {
+        try {
+            boolean includeArchive = mongoTemplate.collectionExists(TransactionArchiveService.ARCHIVE_COLLECTION);
+            List<Mismatch> suspects = Collections.synchronizedList(new ArrayList<>());
+            List<CompletableFuture<Void>> batches = new ArrayList<>();
+            // bounds the batches held in memory while the workers catch up with the cursor
+            Semaphore inFlight = new Semaphore(workerThreads * 2);
+
+            forEachBatch(since, balances -> {
+                inFlight.acquireUninterruptibly();
+                batches.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        suspects.addAll(check(balances, includeArchive));
+                        status.checked(balances.size());
+                    } finally {
+                        inFlight.release();
+                    }
+                }, workers));
+            });
+            CompletableFuture.allOf(batches.toArray(new CompletableFuture[0])).join();
+
+            List<Mismatch> confirmed = recheck(suspects, includeArchive);
+            if (!confirmed.isEmpty()) {
+                List<Document> report = new ArrayList<>(confirmed.size());
+                Date detectedAt = new Date();
+                for (Mismatch m : confirmed) {
+                    report.add(new Document("runId", status.getRunId())
+                            .append("accountNumber", m.accountNumber)
+                            .append("balance", m.balance)
+                            .append("ledgerNet", m.ledgerNet)
+                            .append("difference", m.balance - m.ledgerNet)
+                            .append("detectedAt", detectedAt));
+                }
+                mongoTemplate.insert(report, MISMATCH_COLLECTION);
+            }
+
+            mongoTemplate.upsert(Query.query(Criteria.where("_id").is(CHECKPOINT_ID)),
+                    new Update().set("startedAt", startedAt).set("runId", status.getRunId()),
+                    CHECKPOINT_COLLECTION);
+            status.completed(confirmed.size());
+            log.info("Reconciliation {} ({}) checked {} accounts in {} ms, {} mismatches", status.getRunId(),
+                    status.getMode(), status.getAccountsChecked(), status.getElapsedMs(), confirmed.size());
+        } catch (Exception ex) {
+            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+            log.error("Reconciliation {} failed after {} accounts", status.getRunId(), status.getAccountsChecked(), cause);
+            status.failed(cause.getMessage());
+        }
+    }
+
+    // A deleted account's rows are purged before its document, so during the purge (or after an
+    // interrupted one) its balance no longer matches its ledger; it is not a mismatch.
+    private static Criteria live() {
+        return Criteria.where("status").ne(DELETED);
+    }
+
+    private interface BatchConsumer {
+        void accept(Map<String, Double> balances);
+    }
+
+    private void forEachBatch(Date since, BatchConsumer consumer) {
+        if (since == null) {
+            Query all = new Query(live()).with(Sort.by("id")).cursorBatchSize(batchSize);
+            all.fields().include("accountNumber").include("balance");
+            streamBalances(all, consumer);
+            return;
+        }
+        Iterator<String> touched = touchedSince(since).iterator();
+        while (touched.hasNext()) {
+            List<String> numbers = new ArrayList<>(batchSize);
+            while (touched.hasNext() && numbers.size() < batchSize) {
+                numbers.add(touched.next());
+            }
+            Query query = Query.query(live().and("accountNumber").in(numbers));
+            query.fields().include("accountNumber").include("balance");
+            streamBalances(query, consumer);
+        }
+    }
+
+    private void streamBalances(Query query, BatchConsumer consumer) {
+        Map<String, Double> balances = new HashMap<>();
+        try (Stream<Account> accounts = mongoTemplate.stream(query, Account.class)) {
+            Iterator<Account> it = accounts.iterator();
+            while (it.hasNext()) {
+                Account account = it.next();
+                balances.put(account.getAccountNumber(), account.getBalance());
+                if (balances.size() == batchSize) {
+                    consumer.accept(balances);
+                    balances = new HashMap<>();
+                }
+            }
+        }
+        if (!balances.isEmpty()) {
+            consumer.accept(balances);
+        }
+    }
+
+    Set<String> touchedSince(Date since) {
+        Set<String> touched = new TreeSet<>();
+        // a cursor, not distinct: distinct returns one document and fails past 16 MB of account numbers
+        try (Stream<Document> rows = mongoTemplate.aggregateStream(
+                sourceAccounts(Criteria.where(Transaction.Fields.TIMESTAMP).gte(since)),
+                mongoTemplate.getCollectionName(Transaction.class), Document.class)) {
+            rows.forEach(row -> {
+                String accNo = row.getString("_id");
+                if (accNo != null) {
+                    touched.add(accNo);
+                }
+            });
+        }
+        Query changed = Query.query(Criteria.where("balanceUpdatedAt").gte(since));
+        changed.fields().include("accountNumber");
+        try (Stream<Account> accounts = mongoTemplate.stream(changed, Account.class)) {
+            accounts.forEach(account -> touched.add(account.getAccountNumber()));
+        }
+        return touched;
+    }
+
+    List<Mismatch> check(Map<String, Double> balances, boolean includeArchive) {
+        Map<String, Double> nets = ledgerNets(balances.keySet(), includeArchive);
+        List<Mismatch> mismatches = new ArrayList<>();
+        balances.forEach((accNo, balance) -> {
+            double net = nets.getOrDefault(accNo, 0.0);
+            if (Math.abs(balance - net) > TOLERANCE) {
+                mismatches.add(new Mismatch(accNo, balance, net));
+            }
+        });
+        return mismatches;
+    }
+
+    private List<Mismatch> recheck(List<Mismatch> suspects, boolean includeArchive) throws InterruptedException {
+        if (suspects.isEmpty()) {
+            return List.of();
+        }
+        Thread.sleep(recheckDelayMs);
+        List<Mismatch> confirmed = new ArrayList<>();
+        for (int from = 0; from < suspects.size(); from += batchSize) {
+            List<String> numbers = new ArrayList<>();
+            suspects.subList(from, Math.min(from + batchSize, suspects.size()))
+                    .forEach(m -> numbers.add(m.accountNumber));
+            Query query = Query.query(live().and("accountNumber").in(numbers));
+            query.fields().include("accountNumber").include("balance");
+            Map<String, Double> balances = new HashMap<>();
+            mongoTemplate.find(query, Account.class).forEach(a -> balances.put(a.getAccountNumber(), a.getBalance()));
+            confirmed.addAll(check(balances, includeArchive));
+        }
+        return confirmed;
+    }
+
+    private Map<String, Double> ledgerNets(Collection<String> accounts, boolean includeArchive) {
+        Aggregation pipeline = netPerAccount(accounts);
+        Map<String, Double> nets = new HashMap<>();
+        addNets(nets, mongoTemplate.aggregate(pipeline, mongoTemplate.getCollectionName(Transaction.class), Document.class)
+                .getMappedResults());
+        if (includeArchive) {
+            addNets(nets, mongoTemplate.aggregate(pipeline, TransactionArchiveService.ARCHIVE_COLLECTION, Document.class)
+                    .getMappedResults());
+        }
+        return nets;
+    }
+
+    private static void addNets(Map<String, Double> nets, List<Document> rows) {
+        for (Document row : rows) {
+            nets.merge(row.getString("_id"), ((Number) row.get("net")).doubleValue(), Double::sum);
+        }
+    }
+
+    /** The source accounts of the matching rows, one per result document, on the stored field names. */
+    static Aggregation sourceAccounts(Criteria rows) {
+        return Aggregation.newAggregation(
+                        Aggregation.match(rows),
+                        Aggregation.group(Transaction.Fields.SOURCE_ACCOUNT))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+    }
+
+    static Aggregation netPerAccount(Collection<String> accounts) {
+        return netPerAccount(accounts, null);
+    }
+
+    /** Ledger net per account over the rows strictly before {@code before}, or all rows when it is null. */
+    static Aggregation netPerAccount(Collection<String> accounts, Date before) {
+        Criteria rows = Criteria.where(Transaction.Fields.SOURCE_ACCOUNT).in(accounts)
+                .and(Transaction.Fields.TYPE).in(StorageCodes.TRANSACTION_TYPE.codes(LEDGER_TYPES));
+        if (before != null) {
+            rows = rows.and(Transaction.Fields.TIMESTAMP).lt(before);
+        }
+        return Aggregation.newAggregation(
+                Aggregation.match(rows),
+                Aggregation.group(Transaction.Fields.SOURCE_ACCOUNT).sum(signedAmount()).as("net"));
+    }
+
+    // a ledger row's effect on the balance, on the stored field names
+    static ConditionalOperators.Cond signedAmount() {
+        return ConditionalOperators.when(Criteria.where(Transaction.Fields.TYPE)
+                        .is(StorageCodes.TRANSACTION_TYPE.code("WITHDRAW")))
+                .thenValueOf(ArithmeticOperators.valueOf(Transaction.Fields.AMOUNT).multiplyBy(-1))
+                .otherwiseValueOf(Transaction.Fields.AMOUNT);
+    }
+
+    static final class Mismatch {
+        final String accountNumber;
+        final double balance;
+        final double ledgerNet;
+
+        Mismatch(String accountNumber, double balance, double ledgerNet) {
+            this.accountNumber = accountNumber;
+            this.balance = balance;
+            this.ledgerNet = ledgerNet;
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package com.service;
+
+import com.dto.StandingOrderRequest;
+import com.exception.InvalidRequestException;
+import com.exception.ServiceOverloadedException;
+import com.model.StandingOrder;
+import com.model.StandingOrder.Frequency;
+import com.model.StandingOrder.Status;
+import com.util.TimingWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Runs standing orders: future-dated and recurring transfers kept in {@code standing_orders}.
+ * <p>
+ * Only the orders due within {@code bank.standing-orders.horizon-ms} are held in memory, in a
+ * {@link TimingWheel} keyed by due time. A loader brings in the next stretch every
+ * {@code load-interval-ms} by a range scan of the {@code (status, nextRunAt)} index, continuing
+ * from where the previous load stopped, so a tick costs nothing however many orders are stored.
+ * Each tick hands the orders that came due to the workers in batches: a batch is claimed with one
+ * updateMany, every order is executed through {@link AccountService#transfer} and the outcomes are
+ * written back with one bulk.
+ * <p>
+ * An order still claimed after {@code lease-ms} belonged to an instance that stopped during the
+ * transfer. Whether the money moved is unknown, so that occurrence is recorded as interrupted and
+ * not repeated: an occurrence runs at most once. Only an overload rejection, which happens before
+ * any money moves, is retried after {@code retry-delay-ms}.
+ */
+@Service
+public class StandingOrderService {
+
+    private static final Logger log = LoggerFactory.getLogger(StandingOrderService.class);
+
+    static final String INTERRUPTED = "Interrupted during execution; check the transaction history";
+    private static final int LOAD_PAGE = 1000;
+    private static final int LIST_LIMIT = 100;
+
+    record Slot(String id, long dueAt) {
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final AccountService accountService;
+    private final long tickMs;
+    private final long horizonMs;
+    private final long leaseMs;
+    private final long retryDelayMs;
+    private final int batchSize;
+    private final int maxScheduled;
+
+    // guarded by itself
+    private final TimingWheel<Slot> wheel;
+    // orders in the wheel or waiting for a worker, so that loads do not add them twice
+    private final Map<String, Long> scheduled = new ConcurrentHashMap<>();
+    // where the last load of upcoming orders stopped, in (nextRunAt, _id) order; guarded by this
+    private Date loadedThrough = new Date(0);
+    private String loadedThroughId;
+
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "standing-orders-tick");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ExecutorService workers;
+
+    public StandingOrderService(MongoTemplate mongoTemplate,
+                                AccountService accountService,
+                                @Value("${bank.standing-orders.tick-ms:1000}") long tickMs,
+                                @Value("${bank.standing-orders.wheel-size:64}") int wheelSize,
+                                @Value("${bank.standing-orders.horizon-ms:300000}") long horizonMs,
+                                @Value("${bank.standing-orders.batch-size:100}") int batchSize,
+                                @Value("${bank.standing-orders.workers:4}") int workerThreads,
+                                @Value("${bank.standing-orders.max-scheduled:1000000}") int maxScheduled,
+                                @Value("${bank.standing-orders.lease-ms:300000}") long leaseMs,
+                                @Value("${bank.standing-orders.retry-delay-ms:5000}") long retryDelayMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.accountService = accountService;
+        this.tickMs = tickMs;
+        this.horizonMs = horizonMs;
+        this.batchSize = batchSize;
+        this.maxScheduled = maxScheduled;
+        this.leaseMs = leaseMs;
+        this.retryDelayMs = retryDelayMs;
+        this.wheel = new TimingWheel<>(tickMs, wheelSize, System.currentTimeMillis() - tickMs);
+        AtomicInteger threadNo = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerThreads, r -> {
+            Thread t = new Thread(r, "standing-orders-worker-" + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public StandingOrder create(StandingOrderRequest request) {
+        String from = request.getFromAccount();
+        String to = request.getToAccount();
+        if (from == null || from.isBlank() || to == null || to.isBlank()) {
+            throw new InvalidRequestException("fromAccount and toAccount are required");
+        }
+        if (from.equals(to)) {
+            throw new InvalidRequestException("fromAccount and toAccount must differ");
+        }
+        if (!(request.getAmount() > 0)) {
+            throw new InvalidRequestException("amount must be positive");
+        }
+        Frequency frequency = parseFrequency(request.getFrequency());
+        Instant firstRunAt = request.getFirstRunAt() == null ? Instant.now() : request.getFirstRunAt();
+        if (request.getEndsAt() != null && request.getEndsAt().isBefore(firstRunAt)) {
+            throw new InvalidRequestException("endsAt must not be before firstRunAt");
+        }
+        // unknown accounts are rejected now rather than at the first run
+        accountService.getAccount(from);
+        accountService.getAccount(to);
+
+        StandingOrder order = new StandingOrder();
+        order.setFromAccount(from);
+        order.setToAccount(to);
+        order.setAmount(request.getAmount());
+        order.setFrequency(frequency);
+        order.setFirstRunAt(Date.from(firstRunAt));
+        order.setEndsAt(request.getEndsAt() == null ? null : Date.from(request.getEndsAt()));
+        order.setNextRunAt(order.getFirstRunAt());
+        mongoTemplate.insert(order);
+        log.info("Standing order {} created: {} {} -> {}, first run {}", order.getId(), frequency, from, to, firstRunAt);
+
+        // loads only look ahead of where they stopped, so an order due soon goes into the wheel here
+        if (order.getNextRunAt().getTime() < System.currentTimeMillis() + horizonMs) {
+            schedule(List.of(new Slot(order.getId(), order.getNextRunAt().getTime())));
+        }
+        return order;
+    }
+
+    private static Frequency parseFrequency(String frequency) {
+        try {
+            return Frequency.valueOf(frequency.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException ex) {
+            throw new InvalidRequestException("frequency must be ONCE, DAILY, WEEKLY or MONTHLY");
+        }
+    }
+
+    public StandingOrder get(String id) {
+        StandingOrder order = mongoTemplate.findById(id, StandingOrder.class);
+        if (order == null) {
+            throw new InvalidRequestException("Unknown standing order " + id);
+        }
+        return order;
+    }
+
+    public List<StandingOrder> forAccount(String accountNumber) {
+        Query query = query(where("fromAccount").is(accountNumber))
+                .with(Sort.by(Sort.Direction.DESC, "createdAt"))
+                .limit(LIST_LIMIT);
+        return mongoTemplate.find(query, StandingOrder.class);
+    }
+
+    /** An occurrence already executing completes; later ones do not run. */
+    public StandingOrder cancel(String id) {
+        long cancelled = mongoTemplate.updateFirst(
+                query(where("id").is(id).and("status").is(Status.ACTIVE)),
+                new Update().set("status", Status.CANCELLED).unset("nextRunAt"),
+                StandingOrder.class).getModifiedCount();
+        StandingOrder order = get(id);
+        if (cancelled == 0 && order.getStatus() != Status.CANCELLED) {
+            throw new InvalidRequestException("Standing order " + id + " is " + order.getStatus());
+        }
+        log.info("Standing order {} cancelled", id);
+        return order;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            ticker.execute(this::refresh);
+            ticker.scheduleAtFixedRate(() -> tick(System.currentTimeMillis()), tickMs, tickMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            log.debug("Standing order scheduler already stopped");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bank.standing-orders.load-interval-ms:60000}",
+            initialDelayString = "${bank.standing-orders.load-interval-ms:60000}")
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        try {
+            recoverInterrupted(now);
+            loadOverdue(now);
+            loadUpcoming(now);
+        } catch (DataAccessException ex) {
+            log.error("Could not load standing orders: {}", ex.getMessage());
+        }
+    }
+
+    void tick(long now) {
+        List<Slot> due = new ArrayList<>();
+        synchronized (wheel) {
+            // a wheel expires items up to one tick early; one tick behind, nothing runs before its time
+            wheel.advance(now - tickMs, due::add);
+        }
+        dispatch(due);
+    }
+
+    private void schedule(List<Slot> slots) {
+        List<Slot> due = new ArrayList<>();
+        synchronized (wheel) {
+            for (Slot slot : slots) {
+                if (scheduled.putIfAbsent(slot.id(), slot.dueAt()) == null && !wheel.add(slot, slot.dueAt())) {
+                    due.add(slot);
+                }
+            }
+        }
+        dispatch(due);
+    }
+
+    private void dispatch(List<Slot> due) {
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<Slot> batch = new ArrayList<>(due.subList(from, Math.min(due.size(), from + batchSize)));
+            try {
+                workers.execute(() -> execute(batch, System.currentTimeMillis()));
+            } catch (RejectedExecutionException ex) {
+                // shutting down; the orders are picked up again from the collection
+                batch.forEach(slot -> scheduled.remove(slot.id()));
+            }
+        }
+    }
+
+    void execute(List<Slot> batch, long now) {
+        List<String> ids = new ArrayList<>(batch.size());
+        for (Slot slot : batch) {
+            ids.add(slot.id());
+            scheduled.remove(slot.id());
+        }
+        String claim = UUID.randomUUID().toString();
+        List<StandingOrder> claimed;
+        try {
+            // an order rescheduled or cancelled since it was loaded is not matched
+            mongoTemplate.updateMulti(
+                    query(where("id").in(ids).and("status").is(Status.ACTIVE)
+                            .and("nextRunAt").lte(new Date(now)).and("inFlightSince").exists(false)),
+                    new Update().set("inFlightSince", new Date(now)).set("claim", claim),
+                    StandingOrder.class);
+            claimed = mongoTemplate.find(query(where("claim").is(claim)), StandingOrder.class);
+        } catch (DataAccessException ex) {
+            log.error("Could not claim {} standing orders: {}", ids.size(), ex.getMessage());
+            return;
+        }
+        if (claimed.isEmpty()) {
+            return;
+        }
+
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StandingOrder.class);
+        List<Slot> next = new ArrayList<>();
+        int failed = 0;
+        for (StandingOrder order : claimed) {
+            Update update = new Update().unset("inFlightSince").unset("claim");
+            try {
+                accountService.transfer(order.getFromAccount(), order.getToAccount(), order.getAmount());
+                complete(order, update, null, now);
+            } catch (ServiceOverloadedException ex) {
+                // rejected before any money moved; the occurrence stays due
+                ops.updateOne(query(where("id").is(order.getId()).and("claim").is(claim)), update);
+                next.add(new Slot(order.getId(), now + retryDelayMs));
+                continue;
+            } catch (RuntimeException ex) {
+                failed++;
+                log.warn("Standing order {} failed: {}", order.getId(), ex.getMessage());
+                complete(order, update, ex.getMessage(), now);
+            }
+            ops.updateOne(query(where("id").is(order.getId()).and("claim").is(claim)), update);
+            if (order.getStatus() == Status.ACTIVE && order.getNextRunAt().getTime() < now + horizonMs) {
+                next.add(new Slot(order.getId(), order.getNextRunAt().getTime()));
+            }
+        }
+        try {
+            ops.execute();
+        } catch (DataAccessException ex) {
+            // the claims expire after the lease and the occurrences are recorded as interrupted
+            log.error("Could not record {} standing order runs: {}", claimed.size(), ex.getMessage());
+            return;
+        }
+        log.info("Ran {} standing orders ({} failed)", claimed.size(), failed);
+        schedule(next);
+    }
+
+    /**
+     * Records the outcome of the current occurrence on {@code update} and moves the order to its next
+     * occurrence, or ends it. {@code order} is changed to match.
+     */
+    static void complete(StandingOrder order, Update update, String error, long now) {
+        long occurrences = order.getOccurrences() + 1;
+        Date next = order.getFrequency() == Frequency.ONCE
+                ? null
+                : order.getFrequency().occurrence(order.getFirstRunAt(), occurrences);
+        update.set("occurrences", occurrences).set("lastRunAt", new Date(now)).set("lastError", error);
+        if (error != null) {
+            update.inc("failures", 1);
+        }
+        order.setOccurrences(occurrences);
+        order.setLastError(error);
+        if (next == null || (order.getEndsAt() != null && next.after(order.getEndsAt()))) {
+            Status status = order.getFrequency() == Frequency.ONCE && error != null ? Status.FAILED : Status.COMPLETED;
+            update.set("status", status).unset("nextRunAt");
+            order.setStatus(status);
+            order.setNextRunAt(null);
+        } else {
+            update.set("nextRunAt", next);
+            order.setNextRunAt(next);
+        }
+    }
+
+    void recoverInterrupted(long now) {
+        List<StandingOrder> stale = mongoTemplate.find(
+                query(where("inFlightSince").lt(new Date(now - leaseMs))).limit(LOAD_PAGE), StandingOrder.class);
+        if (stale.isEmpty()) {
+            return;
+        }
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StandingOrder.class);
+        for (StandingOrder order : stale) {
+            log.warn("Standing order {} was interrupted at {}; skipping that occurrence", order.getId(), order.getInFlightSince());
+            Update update = new Update().unset("inFlightSince").unset("claim");
+            complete(order, update, INTERRUPTED, now);
+            ops.updateOne(query(where("id").is(order.getId()).and("claim").is(order.getClaim())), update);
+        }
+        ops.execute();
+    }
+
+    // orders behind the loaded range: created or released by other instances, or left by a failed claim
+    private void loadOverdue(long now) {
+        Query query = query(where("status").is(Status.ACTIVE).and("nextRunAt").lt(new Date(now - tickMs))
+                .and("inFlightSince").exists(false))
+                .with(Sort.by("nextRunAt"))
+                .limit(LOAD_PAGE);
+        query.fields().include("nextRunAt");
+        schedule(slotsOf(mongoTemplate.find(query, StandingOrder.class)));
+    }
+
+    synchronized void loadUpcoming(long now) {
+        Date until = new Date(now + horizonMs);
+        int loaded = 0;
+        while (scheduled.size() < maxScheduled) {
+            Criteria criteria = where("status").is(Status.ACTIVE);
+            if (loadedThroughId == null) {
+                criteria = criteria.and("nextRunAt").gte(loadedThrough).lt(until);
+            } else {
+                criteria = criteria.and("nextRunAt").lt(until).orOperator(
+                        where("nextRunAt").gt(loadedThrough),
+                        where("nextRunAt").is(loadedThrough).and("id").gt(loadedThroughId));
+            }
+            Query query = query(criteria).with(Sort.by("nextRunAt", "id")).limit(LOAD_PAGE);
+            query.fields().include("nextRunAt");
+            List<StandingOrder> page = mongoTemplate.find(query, StandingOrder.class);
+            schedule(slotsOf(page));
+            loaded += page.size();
+            if (page.size() < LOAD_PAGE) {
+                loadedThrough = until;
+                loadedThroughId = null;
+                break;
+            }
+            // the wheel may fill up before the range is done; the next load continues from here
+            StandingOrder last = page.get(page.size() - 1);
+            loadedThrough = last.getNextRunAt();
+            loadedThroughId = last.getId();
+        }
+        if (loaded > 0) {
+            log.info("Loaded {} standing orders due before {}", loaded, loadedThrough.toInstant());
+        }
+    }
+
+    private static List<Slot> slotsOf(List<StandingOrder> orders) {
+        List<Slot> slots = new ArrayList<>(orders.size());
+        for (StandingOrder order : orders) {
+            slots.add(new Slot(order.getId(), order.getNextRunAt().getTime()));
+        }
+        return slots;
+    }
+
+    int scheduledCount() {
+        return scheduled.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+        workers.shutdown();
+        try {
+            // a transfer cut short is only recorded as interrupted
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
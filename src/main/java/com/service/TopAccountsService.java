@@ -0,0 +1,258 @@
+package com.service;
+
+import com.config.MongoBulkheads;
+import com.dto.TopAccount;
+import com.exception.InvalidRequestException;
+import com.model.Account;
+import com.model.StorageCodes;
+import com.util.TopK;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The accounts with the largest balances and the most deposits and withdrawals, answered from
+ * memory. Each ranking is a {@link TopK} of {@code bank.top.capacity} accounts, loaded at startup
+ * by a scan of the ranking's descending index and then kept current through {@link AccountEvent}s.
+ * <p>
+ * Because balances also go down, a ranking can lose track of which accounts lead; a read that
+ * finds its answer uncertain schedules a reload, and every ranking is reloaded every
+ * {@code bank.top.rebuild-interval-ms}, which also picks up writes made by other instances.
+ * Until the first load finishes, reads are answered by an indexed query.
+ */
+@Service
+public class TopAccountsService {
+
+    public enum Ranking {
+        BALANCE("balance"), ACTIVITY("activity");
+
+        private final String property;
+
+        Ranking(String property) {
+            this.property = property;
+        }
+
+        static Ranking parse(String by) {
+            try {
+                return Ranking.valueOf(by.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException | NullPointerException ex) {
+                throw new InvalidRequestException("by must be balance or activity");
+            }
+        }
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(TopAccountsService.class);
+    private static final int DELETED = StorageCodes.ACCOUNT_STATUS.code(Account.DELETED);
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoBulkheads bulkheads;
+    private final int defaultK;
+    private final int maxK;
+    private final int capacity;
+    private final Map<Ranking, Board> boards = new EnumMap<>(Ranking.class);
+
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "top-accounts-rebuild");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public TopAccountsService(MongoTemplate mongoTemplate,
+                              MongoBulkheads bulkheads,
+                              @Value("${bank.top.default-k:10}") int defaultK,
+                              @Value("${bank.top.max-k:100}") int maxK,
+                              @Value("${bank.top.capacity:1000}") int capacity) {
+        this.mongoTemplate = mongoTemplate;
+        this.bulkheads = bulkheads;
+        this.defaultK = defaultK;
+        this.maxK = maxK;
+        this.capacity = Math.max(capacity, maxK);
+        for (Ranking ranking : Ranking.values()) {
+            boards.put(ranking, new Board());
+        }
+    }
+
+    public List<TopAccount> top(String by, Integer k) {
+        Ranking ranking = Ranking.parse(by);
+        int limit = k == null ? defaultK : Math.min(Math.max(k, 1), maxK);
+        Board board = boards.get(ranking);
+        List<TopK.Entry> entries;
+        boolean exact;
+        synchronized (board) {
+            if (board.topK == null) {
+                entries = null;
+                exact = true;
+            } else {
+                entries = board.topK.top(limit);
+                exact = board.topK.isExact(limit);
+            }
+        }
+        if (entries == null) {
+            return bulkheads.read(() -> fromIndex(ranking, limit));
+        }
+        if (!exact) {
+            scheduleRebuild(ranking);
+        }
+        return toRows(entries);
+    }
+
+    private List<TopAccount> fromIndex(Ranking ranking, int limit) {
+        List<TopK.Entry> entries = new ArrayList<>(limit);
+        for (Account account : scan(ranking, limit)) {
+            entries.add(new TopK.Entry(account.getAccountNumber(), score(ranking, account)));
+        }
+        return toRows(entries);
+    }
+
+    private static List<TopAccount> toRows(List<TopK.Entry> entries) {
+        List<TopAccount> rows = new ArrayList<>(entries.size());
+        for (TopK.Entry entry : entries) {
+            rows.add(new TopAccount(rows.size() + 1, entry.key(), entry.score()));
+        }
+        return rows;
+    }
+
+    @EventListener
+    public void onAccountEvent(AccountEvent event) {
+        if (event.getAccountNumber() == null) {
+            return;
+        }
+        switch (event.getKind()) {
+            case CREATED, BALANCE_CHANGED -> {
+                apply(Ranking.BALANCE, event, event.getBalance());
+                apply(Ranking.ACTIVITY, event, event.getActivity());
+            }
+            case DELETED -> {
+                apply(Ranking.BALANCE, event, Double.NaN);
+                apply(Ranking.ACTIVITY, event, Double.NaN);
+            }
+            default -> { }
+        }
+    }
+
+    // NaN removes the account
+    private void apply(Ranking ranking, AccountEvent event, double score) {
+        Board board = boards.get(ranking);
+        synchronized (board) {
+            if (board.topK != null) {
+                update(board.topK, event.getAccountNumber(), score);
+            }
+            if (board.pending != null) {
+                board.pending.add(new TopK.Entry(event.getAccountNumber(), score));
+            }
+        }
+    }
+
+    private static void update(TopK topK, String accountNumber, double score) {
+        if (Double.isNaN(score)) {
+            topK.remove(accountNumber);
+        } else {
+            topK.update(accountNumber, score);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        for (Ranking ranking : Ranking.values()) {
+            scheduleRebuild(ranking);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bank.top.rebuild-interval-ms:300000}",
+            initialDelayString = "${bank.top.rebuild-interval-ms:300000}")
+    public void refresh() {
+        onApplicationReady();
+    }
+
+    private void scheduleRebuild(Ranking ranking) {
+        Board board = boards.get(ranking);
+        synchronized (board) {
+            // events arriving while the scan runs are collected here and replayed onto its result
+            if (board.pending != null) {
+                return;
+            }
+            board.pending = new ArrayList<>();
+        }
+        try {
+            rebuilder.execute(() -> rebuild(ranking));
+        } catch (RejectedExecutionException ex) {
+            synchronized (board) {
+                board.pending = null;
+            }
+        }
+    }
+
+    void rebuild(Ranking ranking) {
+        Board board = boards.get(ranking);
+        long started = System.nanoTime();
+        try {
+            // one row past the capacity tells whether anything was left out, and its score bounds what was
+            List<Account> leaders = scan(ranking, capacity + 1);
+            double leftOutCeiling = leaders.size() > capacity
+                    ? score(ranking, leaders.get(capacity))
+                    : Double.NEGATIVE_INFINITY;
+            TopK fresh = new TopK(capacity, leftOutCeiling);
+            for (int i = 0; i < Math.min(capacity, leaders.size()); i++) {
+                fresh.update(leaders.get(i).getAccountNumber(), score(ranking, leaders.get(i)));
+            }
+            synchronized (board) {
+                // null when the rebuild was started directly rather than through a scheduled reload
+                if (board.pending != null) {
+                    for (TopK.Entry change : board.pending) {
+                        update(fresh, change.key(), change.score());
+                    }
+                }
+                board.topK = fresh;
+                board.pending = null;
+            }
+            log.info("Top accounts by {} loaded with {} entries in {} ms", ranking.property, fresh.size(),
+                    (System.nanoTime() - started) / 1_000_000);
+        } catch (DataAccessException ex) {
+            synchronized (board) {
+                board.pending = null;
+            }
+            log.error("Could not load the top accounts by {}: {}", ranking.property, ex.getMessage());
+        }
+    }
+
+    private List<Account> scan(Ranking ranking, int limit) {
+        Query query = new Query(Criteria.where("status").ne(DELETED))
+                .with(Sort.by(Sort.Direction.DESC, ranking.property))
+                .limit(limit);
+        query.fields().include("accountNumber").include(ranking.property);
+        return mongoTemplate.find(query, Account.class);
+    }
+
+    private static double score(Ranking ranking, Account account) {
+        return ranking == Ranking.BALANCE ? account.getBalance() : account.getActivity();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    private static final class Board {
+        TopK topK;
+        List<TopK.Entry> pending;
+    }
+}
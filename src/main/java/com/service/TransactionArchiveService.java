@@ -0,0 +1,125 @@
+package com.service;
+
+import com.model.Transaction;
+import com.mongodb.bulk.BulkWriteError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Moves transactions older than the configured horizon from the hot {@code transactions}
+ * collection into {@code transactions_archive}, one bounded batch at a time.
+ * Documents keep their _id, so a batch interrupted between copy and delete is simply copied again.
+ */
+@Service
+public class TransactionArchiveService {
+
+    public static final String ARCHIVE_COLLECTION = "transactions_archive";
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionArchiveService.class);
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final int horizonDays;
+    private final int batchSize;
+    private final long pauseMs;
+
+    public TransactionArchiveService(MongoTemplate mongoTemplate,
+                                     @Value("${bank.archive.enabled:true}") boolean enabled,
+                                     @Value("${bank.archive.horizon-days:365}") int horizonDays,
+                                     @Value("${bank.archive.batch-size:1000}") int batchSize,
+                                     @Value("${bank.archive.pause-ms:50}") long pauseMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.horizonDays = horizonDays;
+        this.batchSize = batchSize;
+        this.pauseMs = pauseMs;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Everything strictly older than this instant may live in the archive tier. */
+    public Date horizon() {
+        return Date.from(Instant.now().minus(horizonDays, ChronoUnit.DAYS));
+    }
+
+    @Scheduled(cron = "${bank.archive.cron:0 30 2 * * *}")
+    public void scheduledArchive() {
+        if (enabled) {
+            archiveOlderThan(horizon());
+        }
+    }
+
+    public long archiveOlderThan(Date cutoff) {
+        long started = System.nanoTime();
+        long moved = 0;
+        while (true) {
+            Query batchQuery = query(where("timestamp").lt(cutoff))
+                    .with(Sort.by(Sort.Direction.ASC, "timestamp"))
+                    .limit(batchSize);
+            List<Transaction> batch = mongoTemplate.find(batchQuery, Transaction.class);
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            copyToArchive(batch);
+            List<String> ids = batch.stream().map(Transaction::getId).toList();
+            mongoTemplate.remove(query(where("_id").in(ids)), Transaction.class);
+            moved += batch.size();
+
+            if (batch.size() < batchSize || !pause()) {
+                break;
+            }
+        }
+        log.info("Archived {} transactions older than {} in {} ms", moved, cutoff,
+                (System.nanoTime() - started) / 1_000_000);
+        return moved;
+    }
+
+    void copyToArchive(List<Transaction> batch) {
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Transaction.class, ARCHIVE_COLLECTION)
+                    .insert(batch)
+                    .execute();
+        } catch (BulkOperationException ex) {
+            // duplicates are rows copied by an earlier run that stopped before deleting them
+            for (BulkWriteError error : ex.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    // Gives foreground traffic room between batches; returns false when the job should stop
+    private boolean pause() {
+        if (pauseMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
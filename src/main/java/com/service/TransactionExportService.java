@@ -0,0 +1,456 @@
+package com.service;
+
+import com.dto.ExportRequest;
+import com.dto.ExportStatus;
+import com.exception.InvalidRequestException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.model.Transaction;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Dumps the transactions of a date range to local part files (NDJSON or CSV, optionally gzip).
+ * Rows are streamed from a cursor sorted on (timestamp, _id) so memory stays constant. After every
+ * completed part the position is checkpointed, and re-submitting the same job id resumes from there.
+ * A range reaching past the archive horizon is read from both tiers at once, merged on the same
+ * order; a row caught in both while it is being archived is written once.
+ */
+@Service
+public class TransactionExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionExportService.class);
+
+    private static final Pattern JOB_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final String CHECKPOINT_FILE = "checkpoint.properties";
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private static final Comparator<Transaction> POSITION = Comparator
+            .comparing(Transaction::getTimestamp, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Transaction::getId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final MongoTemplate mongoTemplate;
+    private final TransactionArchiveService archive;
+    private final ObjectMapper objectMapper;
+    private final Path exportDir;
+    private final long rowsPerPart;
+    private final Map<String, ExportStatus> running = new ConcurrentHashMap<>();
+    private final Executor executor;
+
+    @Autowired
+    public TransactionExportService(MongoTemplate mongoTemplate,
+                                    TransactionArchiveService archive,
+                                    ObjectMapper objectMapper,
+                                    @Value("${bank.export.dir:exports}") String exportDir,
+                                    @Value("${bank.export.rows-per-part:1000000}") long rowsPerPart) {
+        this(mongoTemplate, archive, objectMapper, exportDir, rowsPerPart, Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "transaction-export");
+            t.setDaemon(true);
+            return t;
+        }));
+    }
+
+    // tests run jobs on the calling thread
+    TransactionExportService(MongoTemplate mongoTemplate, TransactionArchiveService archive, ObjectMapper objectMapper,
+                             String exportDir, long rowsPerPart, Executor executor) {
+        this.mongoTemplate = mongoTemplate;
+        this.archive = archive;
+        this.objectMapper = objectMapper;
+        this.exportDir = Paths.get(exportDir);
+        this.rowsPerPart = rowsPerPart;
+        this.executor = executor;
+    }
+
+    public ExportStatus start(ExportRequest request) {
+        String jobId = request.getJobId() == null ? "txn-" + System.currentTimeMillis() : request.getJobId();
+        Path jobDir = jobDir(jobId);
+
+        ExportCheckpoint checkpoint;
+        try {
+            checkpoint = ExportCheckpoint.load(jobDir);
+            if (checkpoint == null) {
+                checkpoint = ExportCheckpoint.from(request);
+                Files.createDirectories(jobDir);
+                checkpoint.store(jobDir);
+            } else {
+                log.info("Resuming export {} after {} rows", jobId, checkpoint.rows);
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot prepare export directory " + jobDir, ex);
+        }
+
+        ExportStatus status = new ExportStatus(jobId);
+        if (checkpoint.completed) {
+            status.completed(checkpoint.rows, checkpoint.nextPart);
+            return status;
+        }
+        if (running.putIfAbsent(jobId, status) != null) {
+            throw new InvalidRequestException("Export " + jobId + " is already running");
+        }
+        status.progress(checkpoint.rows, checkpoint.nextPart);
+        ExportCheckpoint resumeFrom = checkpoint;
+        executor.execute(() -> run(jobDir, resumeFrom, status));
+        return status;
+    }
+
+    public ExportStatus status(String jobId) {
+        ExportStatus status = running.get(jobId);
+        if (status != null) {
+            return status;
+        }
+        try {
+            ExportCheckpoint checkpoint = ExportCheckpoint.load(jobDir(jobId));
+            if (checkpoint == null) {
+                throw new InvalidRequestException("Unknown export " + jobId);
+            }
+            status = new ExportStatus(jobId);
+            if (checkpoint.completed) {
+                status.completed(checkpoint.rows, checkpoint.nextPart);
+            } else {
+                status.progress(checkpoint.rows, checkpoint.nextPart);
+                status.failed("Interrupted, submit the job again to resume");
+            }
+            return status;
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot read checkpoint of export " + jobId, ex);
+        }
+    }
+
+    void run(Path jobDir, ExportCheckpoint checkpoint, ExportStatus status) {
+        long started = System.nanoTime();
+        long startRows = checkpoint.rows;
+        PartWriter part = null;
+        try {
+            deletePartialParts(jobDir, checkpoint.nextPart);
+
+            long rowsInPart = 0;
+            try (Stream<Transaction> hot = mongoTemplate.stream(buildQuery(checkpoint), Transaction.class);
+                 Stream<Transaction> archived = readsArchive(checkpoint)
+                         ? mongoTemplate.stream(buildQuery(checkpoint), Transaction.class,
+                                 TransactionArchiveService.ARCHIVE_COLLECTION)
+                         : Stream.empty()) {
+                Iterator<Transaction> it = new MergedRows(hot.iterator(), archived.iterator());
+                while (it.hasNext()) {
+                    Transaction t = it.next();
+                    if (part == null) {
+                        part = new PartWriter(jobDir.resolve(partName(checkpoint)), checkpoint.gzip());
+                        if (checkpoint.csv()) {
+                            part.writeLine(CSV_HEADER);
+                        }
+                    }
+                    part.writeLine(checkpoint.csv() ? toCsv(t) : objectMapper.writeValueAsString(t));
+                    checkpoint.advance(t);
+
+                    if (++rowsInPart == rowsPerPart) {
+                        part.close();
+                        part = null;
+                        rowsInPart = 0;
+                        checkpoint.nextPart++;
+                        checkpoint.store(jobDir);
+                        status.progress(checkpoint.rows, checkpoint.nextPart);
+                    }
+                }
+            }
+            if (part != null) {
+                part.close();
+                part = null;
+                checkpoint.nextPart++;
+            }
+            checkpoint.completed = true;
+            checkpoint.store(jobDir);
+            status.completed(checkpoint.rows, checkpoint.nextPart);
+
+            double seconds = Math.max((System.nanoTime() - started) / 1e9, 1e-3);
+            log.info("Export {} completed: {} rows in {} parts ({} rows/s)", status.getJobId(),
+                    checkpoint.rows, checkpoint.nextPart, (long) ((checkpoint.rows - startRows) / seconds));
+        } catch (Exception ex) {
+            log.error("Export {} failed after {} rows", status.getJobId(), checkpoint.rows, ex);
+            closeQuietly(part);
+            status.failed(ex.getMessage());
+        } finally {
+            running.remove(status.getJobId());
+        }
+    }
+
+    private boolean readsArchive(ExportCheckpoint checkpoint) {
+        return archive.isEnabled() && checkpoint.from.before(archive.horizon());
+    }
+
+    private Query buildQuery(ExportCheckpoint checkpoint) {
+        Criteria range = Criteria.where("timestamp").gte(checkpoint.from).lt(checkpoint.to);
+        Query query = new Query();
+        if (checkpoint.lastTimestamp == null) {
+            query.addCriteria(range);
+        } else {
+            // keyset pagination on (timestamp, _id) so a resumed export continues exactly after the last checkpoint
+            query.addCriteria(new Criteria().andOperator(range, new Criteria().orOperator(
+                    Criteria.where("timestamp").gt(checkpoint.lastTimestamp),
+                    Criteria.where("timestamp").is(checkpoint.lastTimestamp)
+                            .and("_id").gt(new ObjectId(checkpoint.lastId)))));
+        }
+        query.with(Sort.by(Sort.Direction.ASC, "timestamp", "id"));
+        query.cursorBatchSize(5000);
+        return query;
+    }
+
+    private Path jobDir(String jobId) {
+        if (!JOB_ID.matcher(jobId).matches()) {
+            throw new InvalidRequestException("jobId may only contain letters, digits, '-' and '_'");
+        }
+        return exportDir.resolve(jobId);
+    }
+
+    private static String partName(ExportCheckpoint checkpoint) {
+        return String.format("part-%05d.%s%s", checkpoint.nextPart,
+                checkpoint.csv() ? "csv" : "ndjson", checkpoint.gzip() ? ".gz" : "");
+    }
+
+    // Parts at or after the checkpointed index were being written when the previous run stopped
+    private static void deletePartialParts(Path jobDir, int nextPart) throws IOException {
+        try (DirectoryStream<Path> parts = Files.newDirectoryStream(jobDir, "part-*")) {
+            for (Path part : parts) {
+                String name = part.getFileName().toString();
+                int index = Integer.parseInt(name.substring(5, 10));
+                if (index >= nextPart) {
+                    Files.delete(part);
+                }
+            }
+        }
+    }
+
+    private static final String CSV_HEADER =
+            "id,transactionId,type,amount,timestamp,status,sourceAccount,destinationAccount";
+
+    private static String toCsv(Transaction t) {
+        return csv(t.getId()) + ',' + csv(t.getTransactionId()) + ',' + csv(t.getType()) + ','
+                + t.getAmount() + ',' + (t.getTimestamp() == null ? "" : t.getTimestamp().toInstant()) + ','
+                + csv(t.getStatus()) + ',' + csv(t.getSourceAccount()) + ',' + csv(t.getDestinationAccount());
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+            // the partial part is deleted when the job resumes
+        }
+    }
+
+    /**
+     * Writes one part file through a FileChannel with large buffers; on close the compressed
+     * stream is finished and the channel forced to disk before the checkpoint moves past it.
+     */
+    private static final class PartWriter implements Closeable {
+        private final FileChannel channel;
+        private final GZIPOutputStream gzip;
+        private final Writer writer;
+
+        PartWriter(Path file, boolean compress) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            OutputStream out = Channels.newOutputStream(channel);
+            gzip = compress ? new GZIPOutputStream(out, BUFFER_SIZE) : null;
+            writer = new BufferedWriter(new OutputStreamWriter(gzip != null ? gzip : out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        }
+
+        void writeLine(String line) throws IOException {
+            writer.write(line);
+            writer.write('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+            if (gzip != null) {
+                gzip.finish();
+            }
+            channel.force(true);
+            writer.close();
+        }
+    }
+
+    /**
+     * Merges two cursors sorted on (timestamp, _id) into one in that order. A row present in both
+     * tiers has the same position in each, so the copy that comes second is skipped.
+     */
+    static final class MergedRows implements Iterator<Transaction> {
+        private final Iterator<Transaction> left;
+        private final Iterator<Transaction> right;
+        private Transaction nextLeft;
+        private Transaction nextRight;
+        private Transaction last;
+
+        MergedRows(Iterator<Transaction> left, Iterator<Transaction> right) {
+            this.left = left;
+            this.right = right;
+            this.nextLeft = left.hasNext() ? left.next() : null;
+            this.nextRight = right.hasNext() ? right.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (last != null && nextLeft != null && POSITION.compare(nextLeft, last) == 0) {
+                nextLeft = left.hasNext() ? left.next() : null;
+            }
+            while (last != null && nextRight != null && POSITION.compare(nextRight, last) == 0) {
+                nextRight = right.hasNext() ? right.next() : null;
+            }
+            return nextLeft != null || nextRight != null;
+        }
+
+        @Override
+        public Transaction next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (nextRight == null || (nextLeft != null && POSITION.compare(nextLeft, nextRight) <= 0)) {
+                last = nextLeft;
+                nextLeft = left.hasNext() ? left.next() : null;
+            } else {
+                last = nextRight;
+                nextRight = right.hasNext() ? right.next() : null;
+            }
+            return last;
+        }
+    }
+
+    static final class ExportCheckpoint {
+        Date from;
+        Date to;
+        String format;
+        String compression;
+        Date lastTimestamp;
+        String lastId;
+        long rows;
+        int nextPart;
+        boolean completed;
+
+        static ExportCheckpoint from(ExportRequest request) {
+            if (request.getFrom() == null || request.getTo() == null || !request.getFrom().isBefore(request.getTo())) {
+                throw new InvalidRequestException("from must be before to");
+            }
+            String format = request.getFormat() == null ? "ndjson" : request.getFormat().toLowerCase();
+            String compression = request.getCompression() == null ? "gzip" : request.getCompression().toLowerCase();
+            if (!format.equals("ndjson") && !format.equals("csv")) {
+                throw new InvalidRequestException("format must be ndjson or csv");
+            }
+            if (!compression.equals("gzip") && !compression.equals("none")) {
+                throw new InvalidRequestException("compression must be gzip or none");
+            }
+            ExportCheckpoint checkpoint = new ExportCheckpoint();
+            checkpoint.from = Date.from(request.getFrom());
+            checkpoint.to = Date.from(request.getTo());
+            checkpoint.format = format;
+            checkpoint.compression = compression;
+            return checkpoint;
+        }
+
+        boolean csv() {
+            return "csv".equals(format);
+        }
+
+        boolean gzip() {
+            return "gzip".equals(compression);
+        }
+
+        void advance(Transaction t) {
+            lastTimestamp = t.getTimestamp();
+            lastId = t.getId();
+            rows++;
+        }
+
+        static ExportCheckpoint load(Path jobDir) throws IOException {
+            Path file = jobDir.resolve(CHECKPOINT_FILE);
+            if (!Files.exists(file)) {
+                return null;
+            }
+            Properties props = new Properties();
+            try (InputStream in = Files.newInputStream(file)) {
+                props.load(in);
+            }
+            ExportCheckpoint checkpoint = new ExportCheckpoint();
+            checkpoint.from = new Date(Long.parseLong(props.getProperty("from")));
+            checkpoint.to = new Date(Long.parseLong(props.getProperty("to")));
+            checkpoint.format = props.getProperty("format");
+            checkpoint.compression = props.getProperty("compression");
+            if (props.getProperty("lastTimestamp") != null) {
+                checkpoint.lastTimestamp = new Date(Long.parseLong(props.getProperty("lastTimestamp")));
+                checkpoint.lastId = props.getProperty("lastId");
+            }
+            checkpoint.rows = Long.parseLong(props.getProperty("rows", "0"));
+            checkpoint.nextPart = Integer.parseInt(props.getProperty("nextPart", "0"));
+            checkpoint.completed = Boolean.parseBoolean(props.getProperty("completed"));
+            return checkpoint;
+        }
+
+        // Written to a temp file and moved into place so a crash never leaves a torn checkpoint
+        void store(Path jobDir) throws IOException {
+            Properties props = new Properties();
+            props.setProperty("from", Long.toString(from.getTime()));
+            props.setProperty("to", Long.toString(to.getTime()));
+            props.setProperty("format", format);
+            props.setProperty("compression", compression);
+            if (lastTimestamp != null) {
+                props.setProperty("lastTimestamp", Long.toString(lastTimestamp.getTime()));
+                props.setProperty("lastId", lastId);
+            }
+            props.setProperty("rows", Long.toString(rows));
+            props.setProperty("nextPart", Integer.toString(nextPart));
+            props.setProperty("completed", Boolean.toString(completed));
+
+            Path tmp = jobDir.resolve(CHECKPOINT_FILE + ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                props.store(out, "transaction export checkpoint");
+            }
+            Files.move(tmp, jobDir.resolve(CHECKPOINT_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
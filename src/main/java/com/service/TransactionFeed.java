@@ -0,0 +1,432 @@
+package com.service;
+
+import com.config.TransactionTimeSeriesConfig;
+import com.exception.ServiceOverloadedException;
+import com.model.Transaction;
+import com.repository.TransactionRepository;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live feed of new transactions, pushed to Server-Sent Events subscribers per account.
+ * <p>
+ * One shared change stream on {@code transactions} feeds every subscriber. When change streams
+ * are unavailable (standalone server, time-series collection) {@link TransactionFeedPublisher}
+ * publishes this instance's own saves instead. The SSE id of an event is the transaction's own
+ * position, {@code <timestamp millis>-<_id>}, so it means the same on every instance and after a
+ * restart: a client reconnecting with {@code Last-Event-ID}, to whichever instance, gets the
+ * account's transactions after that position read back from the collection (at most
+ * {@code replay-size}, in (timestamp, _id) order). Each subscriber has a bounded queue drained by a
+ * small sender pool; a subscriber that falls too far behind is disconnected and catches up the
+ * same way when it reconnects.
+ */
+@Service
+public class TransactionFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionFeed.class);
+
+    // "The $changeStream stage is only supported on replica sets"
+    private static final int CHANGE_STREAMS_UNSUPPORTED = 40573;
+    private static final long MAX_BACKOFF_MS = 30_000;
+    // a write can reach the feed twice (in-process and on the reopened stream) only moments apart
+    private static final int DEDUPE_WINDOW = 10_000;
+
+    private final MongoTemplate mongoTemplate;
+    private final TransactionTimeSeriesConfig timeSeries;
+    private final boolean changeStreamEnabled;
+    private final int replaySize;
+    private final int subscriberBuffer;
+    private final int maxSubscribers;
+    private final long emitterTimeoutMs;
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService senders;
+
+    // guarded by this
+    private final String[] recentIds = new String[DEDUPE_WINDOW];
+    private final Set<String> recent = new HashSet<>();
+    private int nextRecent;
+
+    private volatile boolean changeStreamActive;
+    private volatile boolean running = true;
+    private volatile BsonDocument resumeToken;
+
+    public TransactionFeed(MongoTemplate mongoTemplate,
+                           TransactionTimeSeriesConfig timeSeries,
+                           @Value("${bank.feed.change-stream:true}") boolean changeStreamEnabled,
+                           @Value("${bank.feed.replay-size:200}") int replaySize,
+                           @Value("${bank.feed.subscriber-buffer:256}") int subscriberBuffer,
+                           @Value("${bank.feed.max-subscribers:10000}") int maxSubscribers,
+                           @Value("${bank.feed.sender-threads:4}") int senderThreads,
+                           @Value("${bank.feed.emitter-timeout-ms:1800000}") long emitterTimeoutMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.timeSeries = timeSeries;
+        this.changeStreamEnabled = changeStreamEnabled;
+        this.replaySize = replaySize;
+        this.subscriberBuffer = subscriberBuffer;
+        this.maxSubscribers = maxSubscribers;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        AtomicInteger threadNo = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(senderThreads, r -> {
+            Thread t = new Thread(r, "transaction-feed-sender-" + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!changeStreamEnabled) {
+            log.info("Transaction feed uses in-process events (change stream disabled)");
+            return;
+        }
+        if (timeSeries.isEnabled()) {
+            log.info("Transaction feed uses in-process events (time-series collections have no change streams)");
+            return;
+        }
+        Thread watcher = new Thread(this::watch, "transaction-feed-watch");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    public boolean isChangeStreamActive() {
+        return changeStreamActive;
+    }
+
+    private void watch() {
+        String collection = mongoTemplate.getCollectionName(Transaction.class);
+        long backoffMs = 1_000;
+        while (running) {
+            try {
+                ChangeStreamIterable<Document> stream = mongoTemplate.getCollection(collection)
+                        .watch(List.of(Aggregates.match(Filters.eq("operationType", "insert"))));
+                if (resumeToken != null) {
+                    stream = stream.resumeAfter(resumeToken);
+                }
+                try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+                    changeStreamActive = true;
+                    backoffMs = 1_000;
+                    log.info("Transaction feed is following the {} change stream", collection);
+                    while (running) {
+                        ChangeStreamDocument<Document> change = cursor.tryNext();
+                        if (change == null) {
+                            continue;
+                        }
+                        resumeToken = change.getResumeToken();
+                        if (change.getFullDocument() != null) {
+                            publish(mongoTemplate.getConverter().read(Transaction.class, change.getFullDocument()));
+                        }
+                    }
+                }
+            } catch (MongoCommandException ex) {
+                if (ex.getErrorCode() == CHANGE_STREAMS_UNSUPPORTED) {
+                    changeStreamActive = false;
+                    log.info("Change streams are not available, transaction feed uses in-process events");
+                    return;
+                }
+                backoffMs = pauseAfterFailure(ex, backoffMs);
+            } catch (MongoException | IllegalStateException ex) {
+                backoffMs = pauseAfterFailure(ex, backoffMs);
+            }
+        }
+    }
+
+    // in-process events cover this instance's own writes while the stream is being reopened
+    private long pauseAfterFailure(RuntimeException ex, long backoffMs) {
+        changeStreamActive = false;
+        log.warn("Transaction change stream failed, retrying in {} ms: {}", backoffMs, ex.getMessage());
+        try {
+            Thread.sleep(backoffMs);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+        return Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+    }
+
+    /**
+     * Fans the transaction out to the subscribers of both accounts. Returns false when it was
+     * already published (a write seen both in-process and on the change stream after a reconnect).
+     */
+    public synchronized boolean publish(Transaction txn) {
+        if (txn.getId() != null) {
+            if (!recent.add(txn.getId())) {
+                return false;
+            }
+            String evicted = recentIds[nextRecent];
+            if (evicted != null) {
+                recent.remove(evicted);
+            }
+            recentIds[nextRecent] = txn.getId();
+            nextRecent = (nextRecent + 1) % DEDUPE_WINDOW;
+        }
+        FeedEvent event = new FeedEvent(txn);
+
+        // offers never block, so fanning out under the lock keeps every queue in publish order
+        deliver(txn.getSourceAccount(), event);
+        if (txn.getDestinationAccount() != null && !txn.getDestinationAccount().equals(txn.getSourceAccount())) {
+            deliver(txn.getDestinationAccount(), event);
+        }
+        return true;
+    }
+
+    private void deliver(String account, FeedEvent event) {
+        if (account == null) {
+            return;
+        }
+        Set<Subscriber> targets = subscribers.get(account);
+        if (targets != null) {
+            targets.forEach(subscriber -> subscriber.offer(event));
+        }
+    }
+
+    public SseEmitter subscribe(String accNo, String lastEventId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new ServiceOverloadedException("Too many live transaction feed subscribers");
+        }
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(accNo, emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(ex -> subscriber.close());
+
+        Position after = Position.parse(lastEventId);
+        if (after != null) {
+            // live events are held back until the missed ones are queued ahead of them
+            subscriber.holdLive();
+        }
+        subscribers.compute(accNo, (k, set) -> {
+            Set<Subscriber> target = set != null ? set : ConcurrentHashMap.newKeySet();
+            target.add(subscriber);
+            return target;
+        });
+        if (after != null) {
+            try {
+                subscriber.replay(missedSince(accNo, after));
+            } catch (RuntimeException ex) {
+                log.warn("Cannot replay the live feed of {} after {}: {}", accNo, lastEventId, ex.getMessage());
+                subscriber.replay(List.of());
+            }
+        }
+        return emitter;
+    }
+
+    /**
+     * The account's transactions after {@code after} in (timestamp, _id) order, at most replay-size
+     * and never more than a subscriber buffer holds.
+     */
+    List<Transaction> missedSince(String accNo, Position after) {
+        Object id = ObjectId.isValid(after.id()) ? new ObjectId(after.id()) : after.id();
+        Date at = new Date(after.millis());
+        Query query = Query.query(new Criteria().andOperator(
+                        new Criteria().orOperator(
+                                Criteria.where("sourceAccount").is(accNo),
+                                Criteria.where("destinationAccount").is(accNo)),
+                        new Criteria().orOperator(
+                                Criteria.where("timestamp").gt(at),
+                                Criteria.where("timestamp").is(at).and("_id").gt(id))))
+                .with(Sort.by("timestamp", "_id"))
+                .limit(Math.min(replaySize, subscriberBuffer))
+                .maxTimeMsec(TransactionRepository.HISTORY_MAX_TIME_MS);
+        return mongoTemplate.find(query, Transaction.class);
+    }
+
+    /** The SSE id of a transaction: its position in (timestamp, _id) order. */
+    static String eventId(Transaction txn) {
+        long millis = txn.getTimestamp() == null ? 0 : txn.getTimestamp().getTime();
+        return millis + "-" + txn.getId();
+    }
+
+    record Position(long millis, String id) {
+
+        // anything that is not an id we issued means "no replay", as a missing header does
+        static Position parse(String eventId) {
+            if (eventId == null) {
+                return null;
+            }
+            String trimmed = eventId.trim();
+            int dash = trimmed.indexOf('-');
+            if (dash <= 0 || dash == trimmed.length() - 1) {
+                return null;
+            }
+            try {
+                return new Position(Long.parseLong(trimmed.substring(0, dash)), trimmed.substring(dash + 1));
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+        }
+    }
+
+    int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    // keeps idle connections from being cut by proxies and detects clients that went away
+    @Scheduled(fixedDelayString = "${bank.feed.heartbeat-ms:15000}")
+    public void heartbeat() {
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.offer(FeedEvent.HEARTBEAT)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.emitter.complete()));
+        senders.shutdownNow();
+    }
+
+    static final class FeedEvent {
+
+        static final FeedEvent HEARTBEAT = new FeedEvent(null);
+
+        final Transaction transaction;
+
+        FeedEvent(Transaction transaction) {
+            this.transaction = transaction;
+        }
+    }
+
+    private final class Subscriber {
+
+        private final String account;
+        private final SseEmitter emitter;
+        private final BlockingQueue<FeedEvent> queue;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        // live events that arrive while the missed ones are read back; null once live
+        private List<FeedEvent> held;
+
+        Subscriber(String account, SseEmitter emitter) {
+            this.account = account;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(subscriberBuffer);
+        }
+
+        synchronized void holdLive() {
+            held = new ArrayList<>();
+        }
+
+        synchronized void replay(List<Transaction> missed) {
+            Set<String> replayed = new HashSet<>();
+            for (Transaction txn : missed) {
+                replayed.add(txn.getId());
+                enqueue(new FeedEvent(txn));
+            }
+            List<FeedEvent> live = held;
+            held = null;
+            for (FeedEvent event : live) {
+                if (event == FeedEvent.HEARTBEAT || !replayed.contains(event.transaction.getId())) {
+                    enqueue(event);
+                }
+            }
+        }
+
+        synchronized void offer(FeedEvent event) {
+            if (held != null) {
+                if (event == FeedEvent.HEARTBEAT || closed.get()) {
+                    return;
+                }
+                if (held.size() >= subscriberBuffer) {
+                    log.debug("Live feed subscriber for {} fell behind while replaying, disconnecting", account);
+                    emitter.complete();
+                    close();
+                    return;
+                }
+                held.add(event);
+                return;
+            }
+            enqueue(event);
+        }
+
+        private void enqueue(FeedEvent event) {
+            if (closed.get()) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                if (event == FeedEvent.HEARTBEAT) {
+                    return;
+                }
+                log.debug("Live feed subscriber for {} fell behind, disconnecting", account);
+                emitter.complete();
+                close();
+                return;
+            }
+            if (scheduled.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                FeedEvent event;
+                while (!closed.get() && (event = queue.poll()) != null) {
+                    if (event == FeedEvent.HEARTBEAT) {
+                        emitter.send(SseEmitter.event().comment("keepalive"));
+                    } else {
+                        emitter.send(SseEmitter.event()
+                                .id(eventId(event.transaction))
+                                .name("transaction")
+                                .data(event.transaction, MediaType.APPLICATION_JSON));
+                    }
+                }
+            } catch (IOException | IllegalStateException ex) {
+                close();
+            } finally {
+                scheduled.set(false);
+            }
+            if (!closed.get() && !queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            queue.clear();
+            subscriberCount.decrementAndGet();
+            subscribers.computeIfPresent(account, (k, set) -> {
+                set.remove(this);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+}
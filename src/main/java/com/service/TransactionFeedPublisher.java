@@ -0,0 +1,28 @@
+package com.service;
+
+import com.model.Transaction;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fallback source for the live transaction feed: publishes transactions saved by this instance
+ * while the shared change stream is not running. Writes made by other instances are only seen
+ * through the change stream.
+ */
+@Component
+public class TransactionFeedPublisher extends AbstractMongoEventListener<Transaction> {
+
+    private final TransactionFeed feed;
+
+    public TransactionFeedPublisher(TransactionFeed feed) {
+        this.feed = feed;
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Transaction> event) {
+        if (!feed.isChangeStreamActive() && "transactions".equals(event.getCollectionName())) {
+            feed.publish(event.getSource());
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.service;
+
+import com.config.MongoBulkheads;
+import com.config.ReadRouting;
+import com.model.Transaction;
+import com.repository.TransactionRepository;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads an account's transaction history across the hot and archive tiers.
+ * The archive is only consulted when the requested range reaches past the archive horizon,
+ * and neither tier is queried for account numbers the {@link AccountNumberFilter} rules out.
+ * Both tiers are read from a secondary ({@link ReadRouting}).
+ */
+@Service
+public class TransactionHistoryService {
+
+    private static final Date BEGINNING = new Date(0);
+    private static final Date END_OF_TIME = new Date(Long.MAX_VALUE);
+
+    private final MongoTemplate mongoTemplate;
+    private final TransactionArchiveService archive;
+    private final MongoBulkheads bulkheads;
+    private final AccountNumberFilter accountNumbers;
+
+    private final ReadRouting routing;
+
+    public TransactionHistoryService(MongoTemplate mongoTemplate,
+                                     TransactionArchiveService archive,
+                                     MongoBulkheads bulkheads,
+                                     AccountNumberFilter accountNumbers,
+                                     ReadRouting routing) {
+        this.mongoTemplate = mongoTemplate;
+        this.archive = archive;
+        this.bulkheads = bulkheads;
+        this.accountNumbers = accountNumbers;
+        this.routing = routing;
+    }
+
+    public List<Transaction> history(String accNo, Date from, Date to) {
+        if (!accountNumbers.mightExist(accNo)) {
+            return List.of();
+        }
+        return bulkheads.read(() -> readTiers(accNo, from, to));
+    }
+
+    private List<Transaction> readTiers(String accNo, Date from, Date to) {
+        // same shapes as TransactionRepository's history finders, which always read from the primary
+        List<Transaction> hot = mongoTemplate.find(historyQuery(accNo, from, to), Transaction.class);
+
+        if (!archive.isEnabled()) {
+            return hot;
+        }
+        Date horizon = archive.horizon();
+        if (from != null && !from.before(horizon)) {
+            return hot;
+        }
+
+        Date archiveTo = to == null || to.after(horizon) ? horizon : to;
+        List<Transaction> archived = mongoTemplate.find(historyQuery(accNo, from, archiveTo),
+                Transaction.class, TransactionArchiveService.ARCHIVE_COLLECTION);
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        return merge(archived, hot);
+    }
+
+    // Without bounds there is no timestamp condition at all, as in findBySourceAccountOrDestinationAccount
+    private Query historyQuery(String accNo, Date from, Date to) {
+        Criteria criteria = new Criteria().orOperator(
+                Criteria.where("sourceAccount").is(accNo),
+                Criteria.where("destinationAccount").is(accNo));
+        if (from != null || to != null) {
+            criteria = criteria.and("timestamp").gte(from == null ? BEGINNING : from).lt(to == null ? END_OF_TIME : to);
+        }
+        return routing.secondary(Query.query(criteria).maxTimeMsec(TransactionRepository.HISTORY_MAX_TIME_MS));
+    }
+
+    // A row being archived can briefly exist in both tiers, so merge by id
+    private static List<Transaction> merge(List<Transaction> archived, List<Transaction> hot) {
+        Map<String, Transaction> byId = new LinkedHashMap<>();
+        archived.forEach(t -> byId.put(t.getId(), t));
+        hot.forEach(t -> byId.putIfAbsent(t.getId(), t));
+        List<Transaction> merged = new ArrayList<>(byId.values());
+        merged.sort(Comparator.comparing(Transaction::getTimestamp, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return merged;
+    }
+}
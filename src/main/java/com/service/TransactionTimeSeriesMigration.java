@@ -0,0 +1,115 @@
+package com.service;
+
+import com.config.MongoIndexInitializer;
+import com.config.TransactionTimeSeriesConfig;
+import com.exception.InvalidRequestException;
+import com.model.Transaction;
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts an existing regular {@code transactions} collection into a time-series collection.
+ * Time-series collections are views over {@code system.buckets.*} and cannot be renamed, so the
+ * original is renamed aside to {@code transactions_legacy_<millis>} first and its documents are
+ * copied in batches into a new time-series collection created under the final name.
+ * It only runs with {@code bank.transactions.time-series} on, so the rest of the application
+ * already treats the collection as time-series. Writes must be paused while it runs; a failed run drops the partial copy and renames the
+ * original back, so it can simply be started again.
+ */
+@Service
+public class TransactionTimeSeriesMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionTimeSeriesMigration.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final TransactionTimeSeriesConfig timeSeries;
+    private final MongoIndexInitializer indexes;
+    private final int batchSize;
+
+    public TransactionTimeSeriesMigration(MongoTemplate mongoTemplate,
+                                          TransactionTimeSeriesConfig timeSeries,
+                                          MongoIndexInitializer indexes,
+                                          @Value("${bank.transactions.migration-batch-size:5000}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.timeSeries = timeSeries;
+        this.indexes = indexes;
+        this.batchSize = batchSize;
+    }
+
+    public Map<String, Object> migrate() {
+        if (!timeSeries.isEnabled()) {
+            // with the mode off, the change-stream feed would try to watch the converted collection
+            throw new InvalidRequestException("Enable bank.transactions.time-series before migrating");
+        }
+        String source = mongoTemplate.getCollectionName(Transaction.class);
+        if (TransactionTimeSeriesConfig.isTimeSeries(mongoTemplate, source)) {
+            throw new InvalidRequestException(source + " is already a time-series collection");
+        }
+
+        long started = System.nanoTime();
+        String database = mongoTemplate.getDb().getName();
+        String legacy = source + "_legacy_" + System.currentTimeMillis();
+        // a regular collection can be renamed; the time-series one is then created in its place
+        mongoTemplate.getCollection(source).renameCollection(new MongoNamespace(database, legacy));
+        long copied;
+        try {
+            mongoTemplate.createCollection(source, timeSeries.collectionOptions());
+            copied = copy(mongoTemplate.getCollection(legacy), mongoTemplate.getCollection(source));
+        } catch (RuntimeException ex) {
+            log.error("Time-series migration failed, restoring {} from {}", source, legacy, ex);
+            mongoTemplate.dropCollection(source);
+            mongoTemplate.getCollection(legacy).renameCollection(new MongoNamespace(database, source));
+            throw ex;
+        }
+        indexes.ensureIndexes();
+
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        log.info("Migrated {} transactions to a time-series collection in {} ms, original kept as {}",
+                copied, elapsedMs, legacy);
+        return Map.of("migrated", copied, "legacyCollection", legacy, "elapsedMs", elapsedMs);
+    }
+
+    private long copy(MongoCollection<Document> from, MongoCollection<Document> to) {
+        long copied = 0;
+        List<Document> batch = new ArrayList<>(batchSize);
+        try (MongoCursor<Document> cursor = from.find().sort(Sorts.ascending("_id")).batchSize(batchSize).iterator()) {
+            while (cursor.hasNext()) {
+                Document doc = cursor.next();
+                if (doc.get(TransactionTimeSeriesConfig.TIME_FIELD) == null) {
+                    // every measurement needs a timeField value; fall back to the ObjectId creation time
+                    doc.put(TransactionTimeSeriesConfig.TIME_FIELD, doc.getObjectId("_id").getDate());
+                }
+                batch.add(doc);
+                if (batch.size() == batchSize) {
+                    to.insertMany(batch, new InsertManyOptions().ordered(false));
+                    copied += batch.size();
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            to.insertMany(batch, new InsertManyOptions().ordered(false));
+            copied += batch.size();
+        }
+
+        long sourceCount = from.countDocuments();
+        if (sourceCount != copied) {
+            throw new IllegalStateException("Copied " + copied + " of " + sourceCount
+                    + " transactions; were writes running during the migration?");
+        }
+        return copied;
+    }
+}
@@ -0,0 +1,199 @@
+package com.service;
+
+import com.exception.VelocityLimitExceededException;
+import com.util.SlidingWindow;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-account velocity rules on money leaving an account (withdrawals and outgoing transfers),
+ * checked in memory: at most {@code max-count} debits and {@code max-amount} in total per rolling
+ * window, for a short and a daily window. Each tracked account holds one {@link SlidingWindow} per
+ * rule, so a check is a few array scans under the account's lock and never a query.
+ * <p>
+ * A debit is counted when admitted and taken back when the operation fails without moving money.
+ * The counters only see this instance's traffic. Accounts with nothing left in any window are
+ * dropped every {@code bank.velocity.eviction-interval-ms}; past {@code max-tracked-accounts},
+ * new accounts are let through unchecked (counted as {@code bank.velocity.untracked}) rather than
+ * sharing limits with each other.
+ */
+@Service
+public class VelocityLimits {
+
+    private static final Logger log = LoggerFactory.getLogger(VelocityLimits.class);
+
+    record Rule(String name, long windowMs, int maxCount, long maxAmountCents) {
+    }
+
+    /** An admitted debit, to be handed back to {@link #refund} if it did not go through. */
+    public record Reservation(String accountNumber, long at, long amountCents) {
+    }
+
+    private final boolean enabled;
+    private final int buckets;
+    private final int maxTrackedAccounts;
+    private final List<Rule> rules = new ArrayList<>();
+    private final Map<String, Tracker> trackers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejected = new ConcurrentHashMap<>();
+    private final MeterRegistry registry;
+    private final Counter untracked;
+
+    public VelocityLimits(MeterRegistry registry,
+                          @Value("${bank.velocity.enabled:true}") boolean enabled,
+                          @Value("${bank.velocity.buckets:12}") int buckets,
+                          @Value("${bank.velocity.max-tracked-accounts:100000}") int maxTrackedAccounts,
+                          @Value("${bank.velocity.short.window-ms:60000}") long shortWindowMs,
+                          @Value("${bank.velocity.short.max-count:10}") int shortMaxCount,
+                          @Value("${bank.velocity.short.max-amount:0}") double shortMaxAmount,
+                          @Value("${bank.velocity.daily.window-ms:86400000}") long dailyWindowMs,
+                          @Value("${bank.velocity.daily.max-count:100}") int dailyMaxCount,
+                          @Value("${bank.velocity.daily.max-amount:500000}") double dailyMaxAmount) {
+        this.registry = registry;
+        this.enabled = enabled;
+        this.buckets = buckets;
+        this.maxTrackedAccounts = maxTrackedAccounts;
+        addRule("short", shortWindowMs, shortMaxCount, shortMaxAmount);
+        addRule("daily", dailyWindowMs, dailyMaxCount, dailyMaxAmount);
+        this.untracked = Counter.builder("bank.velocity.untracked")
+                .description("Debits let through unchecked because too many accounts were tracked")
+                .register(registry);
+    }
+
+    // a limit of 0 means none; a rule without limits is not tracked at all
+    private void addRule(String name, long windowMs, int maxCount, double maxAmount) {
+        if (maxCount > 0 || maxAmount > 0) {
+            rules.add(new Rule(name, windowMs, maxCount, cents(maxAmount)));
+        }
+    }
+
+    private static long cents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    public Reservation admit(String accountNumber, double amount) {
+        return admit(accountNumber, amount, System.currentTimeMillis());
+    }
+
+    Reservation admit(String accountNumber, double amount, long now) {
+        if (!enabled || rules.isEmpty() || !(amount > 0)) {
+            return null;
+        }
+        long amountCents = cents(amount);
+        while (true) {
+            Tracker tracker = tracker(accountNumber);
+            if (tracker == null) {
+                untracked.increment();
+                return null;
+            }
+            synchronized (tracker) {
+                // evicted between the lookup and the lock; the next lookup creates a new one
+                if (!tracker.evicted) {
+                    check(tracker.windows, amountCents, now);
+                    for (SlidingWindow window : tracker.windows) {
+                        window.add(now, 1, amountCents);
+                    }
+                    return new Reservation(accountNumber, now, amountCents);
+                }
+            }
+        }
+    }
+
+    private void check(SlidingWindow[] windows, long amountCents, long now) {
+        for (int i = 0; i < windows.length; i++) {
+            Rule rule = rules.get(i);
+            SlidingWindow window = windows[i];
+            boolean tooMany = rule.maxCount() > 0 && window.count(now) + 1 > rule.maxCount();
+            boolean tooMuch = rule.maxAmountCents() > 0 && window.amount(now) + amountCents > rule.maxAmountCents();
+            if (tooMany || tooMuch) {
+                rejectedCounter(rule.name()).increment();
+                long retryAfterMs = window.millisUntilOldestExpires(now);
+                throw new VelocityLimitExceededException(
+                        "Velocity limit exceeded: " + (tooMany ? "too many debits" : "amount too large")
+                                + " in the " + rule.name() + " window",
+                        Math.max(1, (retryAfterMs + 999) / 1000));
+            }
+        }
+    }
+
+    /** Takes back a debit that did not happen; {@code null} is ignored. */
+    public void refund(Reservation reservation) {
+        if (reservation == null) {
+            return;
+        }
+        Tracker tracker = trackers.get(reservation.accountNumber());
+        if (tracker == null) {
+            return;
+        }
+        synchronized (tracker) {
+            for (SlidingWindow window : tracker.windows) {
+                window.add(reservation.at(), -1, -reservation.amountCents());
+            }
+        }
+    }
+
+    private Tracker tracker(String accountNumber) {
+        Tracker tracker = trackers.get(accountNumber);
+        if (tracker != null) {
+            return tracker;
+        }
+        if (trackers.size() >= maxTrackedAccounts) {
+            return null;
+        }
+        return trackers.computeIfAbsent(accountNumber, k -> new Tracker(rules, buckets));
+    }
+
+    private Counter rejectedCounter(String rule) {
+        return rejected.computeIfAbsent(rule, r -> Counter.builder("bank.velocity.rejected")
+                .description("Debits rejected by a velocity rule")
+                .tag("rule", r)
+                .register(registry));
+    }
+
+    int trackedAccounts() {
+        return trackers.size();
+    }
+
+    // An account with empty windows is indistinguishable from an untracked one
+    @Scheduled(fixedDelayString = "${bank.velocity.eviction-interval-ms:60000}")
+    public void evictIdle() {
+        evictIdle(System.currentTimeMillis());
+    }
+
+    void evictIdle(long now) {
+        int before = trackers.size();
+        trackers.values().removeIf(tracker -> {
+            synchronized (tracker) {
+                for (SlidingWindow window : tracker.windows) {
+                    if (!window.isEmpty(now)) {
+                        return false;
+                    }
+                }
+                tracker.evicted = true;
+                return true;
+            }
+        });
+        log.debug("Evicted {} idle velocity trackers", before - trackers.size());
+    }
+
+    private static final class Tracker {
+        final SlidingWindow[] windows;
+        boolean evicted;
+
+        Tracker(List<Rule> rules, int buckets) {
+            windows = new SlidingWindow[rules.size()];
+            for (int i = 0; i < windows.length; i++) {
+                windows[i] = new SlidingWindow(rules.get(i).windowMs(), buckets);
+            }
+        }
+    }
+}
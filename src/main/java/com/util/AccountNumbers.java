@@ -0,0 +1,31 @@
+package com.util;
+
+import java.util.Random;
+
+/**
+ * Account numbers are the holder's first three letters, upper-cased, followed by a random suffix.
+ * The usual 4-digit suffix leaves only 9000 numbers per prefix, so a caller whose candidates keep
+ * colliding falls back to the 6-digit suffix (900,000 per prefix) rather than failing.
+ */
+public final class AccountNumbers {
+
+    public static final int DIGITS = 4;
+    public static final int WIDE_DIGITS = 6;
+
+    private AccountNumbers() {
+    }
+
+    /** The prefix for {@code holderName}, which must start with three letters. */
+    public static String prefix(String holderName) {
+        return holderName.trim().substring(0, 3).toUpperCase();
+    }
+
+    /** A random number with a {@code digits}-long suffix (no leading zero). */
+    public static String random(String prefix, int digits, Random random) {
+        int low = 1;
+        for (int i = 1; i < digits; i++) {
+            low *= 10;
+        }
+        return prefix + (low + random.nextInt(9 * low));
+    }
+}
@@ -0,0 +1,79 @@
+package com.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Concurrency limit that adapts to observed latency (AIMD): every call that finishes under the
+ * target latency raises the limit by roughly one per "window" of calls, every slow or failed call
+ * cuts it by 10%. Acquiring is a single CAS and never blocks; callers over the limit are turned
+ * away immediately.
+ */
+public final class AdaptiveConcurrencyLimiter {
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // double stored as raw bits so it can be updated with CAS
+    private final AtomicLong limitBits;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long targetLatencyNanos) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("require 1 <= minLimit <= maxLimit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = targetLatencyNanos;
+        this.limitBits = new AtomicLong(Double.doubleToLongBits(Math.max(minLimit, Math.min(maxLimit, initialLimit))));
+    }
+
+    public boolean tryAcquire() {
+        int limit = getLimit();
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns the permit and feeds the sample into the limit.
+     *
+     * @param overloaded true when the call failed in a way that signals an overloaded backend (timeouts)
+     */
+    public void release(long latencyNanos, boolean overloaded) {
+        int wasInFlight = inFlight.getAndDecrement();
+        if (overloaded || latencyNanos > targetLatencyNanos) {
+            updateLimit(limit -> Math.max(minLimit, limit * BACKOFF_RATIO));
+        } else if (wasInFlight * 2 >= getLimit()) {
+            // only grow when the limit is actually being used
+            updateLimit(limit -> Math.min(maxLimit, limit + 1.0 / limit));
+        }
+    }
+
+    public int getLimit() {
+        return (int) Double.longBitsToDouble(limitBits.get());
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void updateLimit(DoubleUnaryOperator update) {
+        while (true) {
+            long bits = limitBits.get();
+            double next = update.applyAsDouble(Double.longBitsToDouble(bits));
+            if (limitBits.compareAndSet(bits, Double.doubleToLongBits(next))) {
+                return;
+            }
+        }
+    }
+}
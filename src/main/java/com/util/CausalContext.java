@@ -0,0 +1,67 @@
+package com.util;
+
+import com.mongodb.client.ClientSession;
+import org.bson.BsonDocument;
+import org.bson.BsonTimestamp;
+
+/**
+ * Causal-consistency state of one request, bound to the request thread like {@link RequestTiming}:
+ * the token the client sent (if any), the causally consistent session opened for it on first use,
+ * and the latest write the request itself made, which becomes the token of its response.
+ * Threads without a context (background jobs, tests) read and write without a session.
+ */
+public final class CausalContext {
+
+    private static final ThreadLocal<CausalContext> CURRENT = new ThreadLocal<>();
+
+    private final CausalToken requested;
+    private CausalToken observed;
+    private ClientSession session;
+
+    CausalContext(CausalToken requested) {
+        this.requested = requested;
+    }
+
+    public static CausalContext begin(CausalToken requested) {
+        CausalContext context = new CausalContext(requested);
+        CURRENT.set(context);
+        return context;
+    }
+
+    public static CausalContext current() {
+        return CURRENT.get();
+    }
+
+    /** Unbinds the context and closes its session, if one was opened. */
+    public static void end() {
+        CausalContext context = CURRENT.get();
+        CURRENT.remove();
+        if (context != null && context.session != null) {
+            context.session.close();
+        }
+    }
+
+    public CausalToken getRequested() {
+        return requested;
+    }
+
+    public ClientSession getSession() {
+        return session;
+    }
+
+    public void setSession(ClientSession session) {
+        this.session = session;
+    }
+
+    /** Records a write acknowledged at {@code operationTime}; the latest one wins. */
+    public void observe(BsonTimestamp operationTime, BsonDocument clusterTime) {
+        if (operationTime != null) {
+            observed = CausalToken.later(observed, new CausalToken(operationTime, clusterTime));
+        }
+    }
+
+    /** The latest write made by this request, or null when it made none. */
+    public CausalToken getObserved() {
+        return observed;
+    }
+}
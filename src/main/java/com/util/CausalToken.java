@@ -0,0 +1,93 @@
+package com.util;
+
+import org.bson.BSONException;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.BsonTimestamp;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * The point in a replica set's history a client has seen: the {@code operationTime} of its last
+ * write and the signed {@code $clusterTime} that came with it. Handed to clients as an opaque
+ * URL-safe string; a read that carries it back is run in a causally consistent session advanced
+ * to that point, so a secondary only answers once it has replicated the write.
+ */
+public final class CausalToken {
+
+    private static final BsonDocumentCodec CODEC = new BsonDocumentCodec();
+    private static final int MAX_ENCODED_LENGTH = 1024;
+
+    private final BsonTimestamp operationTime;
+    private final BsonDocument clusterTime;
+
+    public CausalToken(BsonTimestamp operationTime, BsonDocument clusterTime) {
+        if (operationTime == null) {
+            throw new IllegalArgumentException("operationTime is required");
+        }
+        this.operationTime = operationTime;
+        this.clusterTime = clusterTime;
+    }
+
+    public BsonTimestamp getOperationTime() {
+        return operationTime;
+    }
+
+    /** Null when the server did not send one (a standalone server, or a token from before it did). */
+    public BsonDocument getClusterTime() {
+        return clusterTime;
+    }
+
+    /** The later of two tokens; either may be null. */
+    public static CausalToken later(CausalToken a, CausalToken b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return a.operationTime.compareTo(b.operationTime) >= 0 ? a : b;
+    }
+
+    public String encode() {
+        BsonDocument doc = new BsonDocument("ot", operationTime);
+        if (clusterTime != null) {
+            doc.append("ct", clusterTime);
+        }
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            CODEC.encode(writer, doc, EncoderContext.builder().build());
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.toByteArray());
+    }
+
+    /** Parses a token from {@link #encode}; anything else is an {@link IllegalArgumentException}. */
+    public static CausalToken decode(String encoded) {
+        if (encoded == null || encoded.isBlank() || encoded.length() > MAX_ENCODED_LENGTH) {
+            throw new IllegalArgumentException("malformed causal token");
+        }
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(encoded.trim());
+            BsonDocument doc;
+            try (BsonBinaryReader reader = new BsonBinaryReader(ByteBuffer.wrap(bytes))) {
+                doc = CODEC.decode(reader, DecoderContext.builder().build());
+            }
+            BsonDocument clusterTime = doc.containsKey("ct") ? doc.getDocument("ct") : null;
+            return new CausalToken(doc.getTimestamp("ot"), clusterTime);
+        } catch (IllegalArgumentException | BSONException | BufferUnderflowException ex) {
+            throw new IllegalArgumentException("malformed causal token", ex);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CausalToken{" + operationTime + "}";
+    }
+}
@@ -0,0 +1,62 @@
+package com.util;
+
+import org.bson.BsonDocument;
+import org.bson.BsonTimestamp;
+import org.bson.BsonValue;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The latest signed {@code $clusterTime} this process has received from the replica set, fed by
+ * {@code CausalTokenCommandListener} from every command reply. A {@link CausalToken} comes from the
+ * client, so its operation time is only honoured up to this point, and the session is advanced
+ * with this document rather than the client's copy, whose signature could have been tampered with.
+ */
+public final class ClusterTime {
+
+    private static final AtomicReference<BsonDocument> LATEST = new AtomicReference<>();
+
+    private ClusterTime() {
+    }
+
+    /** Keeps {@code clusterTime} if it is later than the one held; it is copied only then. */
+    public static void observe(BsonDocument clusterTime) {
+        BsonTimestamp time = timeOf(clusterTime);
+        if (time == null) {
+            return;
+        }
+        BsonDocument copy = null;
+        while (true) {
+            BsonDocument current = LATEST.get();
+            if (current != null && timeOf(current).compareTo(time) >= 0) {
+                return;
+            }
+            if (copy == null) {
+                // the reply is only valid during the listener callback
+                copy = clusterTime.clone();
+            }
+            if (LATEST.compareAndSet(current, copy)) {
+                return;
+            }
+        }
+    }
+
+    /** The latest cluster time seen, or null before any reply carried one (e.g. a standalone server). */
+    public static BsonDocument latest() {
+        return LATEST.get();
+    }
+
+    /** Whether {@code operationTime} is at or before the latest cluster time seen. */
+    public static boolean covers(BsonTimestamp operationTime) {
+        BsonDocument latest = LATEST.get();
+        return latest != null && operationTime.compareTo(timeOf(latest)) <= 0;
+    }
+
+    private static BsonTimestamp timeOf(BsonDocument clusterTime) {
+        if (clusterTime == null) {
+            return null;
+        }
+        BsonValue time = clusterTime.get("clusterTime");
+        return time != null && time.isTimestamp() ? time.asTimestamp() : null;
+    }
+}
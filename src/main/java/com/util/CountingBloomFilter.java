@@ -0,0 +1,115 @@
+package com.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counting Bloom filter over strings with 4-bit counters, sixteen to a long, updated with CAS so
+ * lookups never lock. {@link #mightContain} has no false negatives as long as every
+ * {@link #remove} matches an earlier {@link #add} of the same key; a counter that reaches 15
+ * stays there, which can only cause false positives.
+ */
+public final class CountingBloomFilter {
+
+    private static final int COUNTER_BITS = 4;
+    private static final long COUNTER_MASK = 0xF;
+    private static final int COUNTERS_PER_WORD = Long.SIZE / COUNTER_BITS;
+
+    private final AtomicLongArray words;
+    private final long counters;
+    private final int hashes;
+
+    public CountingBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("expectedInsertions must be positive and falsePositiveRate in (0, 1)");
+        }
+        double ln2 = Math.log(2);
+        long optimalCounters = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (optimalCounters + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD);
+        this.words = new AtomicLongArray(words);
+        this.counters = (long) words * COUNTERS_PER_WORD;
+        this.hashes = Math.max(1, (int) Math.round((double) counters / expectedInsertions * ln2));
+    }
+
+    public int hashCount() {
+        return hashes;
+    }
+
+    public long counterCount() {
+        return counters;
+    }
+
+    public void add(String key) {
+        long hash = hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            update(index(h1, h2, i), +1);
+        }
+    }
+
+    public void remove(String key) {
+        long hash = hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            update(index(h1, h2, i), -1);
+        }
+    }
+
+    public boolean mightContain(String key) {
+        long hash = hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            long index = index(h1, h2, i);
+            long word = words.get((int) (index / COUNTERS_PER_WORD));
+            if (((word >>> shift(index)) & COUNTER_MASK) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void update(long index, int delta) {
+        int wordIndex = (int) (index / COUNTERS_PER_WORD);
+        int shift = shift(index);
+        while (true) {
+            long word = words.get(wordIndex);
+            long counter = (word >>> shift) & COUNTER_MASK;
+            // saturated counters no longer know their true count, so they are never decremented
+            if (counter == COUNTER_MASK || (delta < 0 && counter == 0)) {
+                return;
+            }
+            long updated = (word & ~(COUNTER_MASK << shift)) | ((counter + delta) << shift);
+            if (words.compareAndSet(wordIndex, word, updated)) {
+                return;
+            }
+        }
+    }
+
+    // Kirsch–Mitzenmacher: the i-th index is h1 + i * h2 over the counter space
+    private long index(int h1, int h2, int i) {
+        long combined = (h1 & 0xFFFFFFFFL) + (long) i * (h2 & 0xFFFFFFFFL);
+        return Math.floorMod(combined, counters);
+    }
+
+    private static int shift(long index) {
+        return (int) (index % COUNTERS_PER_WORD) * COUNTER_BITS;
+    }
+
+    // FNV-1a over the UTF-8 bytes followed by a murmur3 finalizer for better bit mixing
+    static long hash64(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
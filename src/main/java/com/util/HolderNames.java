@@ -0,0 +1,41 @@
+package com.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Search form of a holder name: lower case, accents removed, whitespace collapsed to single
+ * spaces. Stored next to the name so that prefix search is a plain index range scan.
+ */
+public final class HolderNames {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private HolderNames() {
+    }
+
+    public static String normalize(String name) {
+        if (name == null) {
+            return null;
+        }
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFKD);
+        String stripped = MARKS.matcher(decomposed).replaceAll("");
+        return SPACES.matcher(stripped.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Smallest string greater than every string starting with {@code prefix}, i.e. the exclusive
+     * upper bound of the range {@code [prefix, upperBound)}; null when there is none.
+     */
+    public static String prefixUpperBound(String prefix) {
+        for (int i = prefix.length() - 1; i >= 0; i--) {
+            char c = prefix.charAt(i);
+            if (c != Character.MAX_VALUE) {
+                return prefix.substring(0, i) + (char) (c + 1);
+            }
+        }
+        return null;
+    }
+}
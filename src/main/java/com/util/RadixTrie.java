@@ -0,0 +1,165 @@
+package com.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Compressed (radix) trie from string keys to sets of values. Edges carry whole key fragments, so
+ * a chain of single-child nodes is stored as one node. Prefix lookups return values in key order
+ * and stop after {@code limit} values. Not thread-safe; callers guard it with a lock.
+ */
+public final class RadixTrie {
+
+    private static final class Node {
+        String label;
+        final TreeMap<Character, Node> children = new TreeMap<>();
+        Set<String> values;
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    private final Node root = new Node("");
+    private int size;
+
+    /** Number of (key, value) pairs. */
+    public int size() {
+        return size;
+    }
+
+    public void add(String key, String value) {
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            char c = key.charAt(i);
+            Node child = node.children.get(c);
+            if (child == null) {
+                child = new Node(key.substring(i));
+                node.children.put(c, child);
+                node = child;
+                i = key.length();
+                break;
+            }
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                // split the edge: node -> middle(common part) -> child(rest of its label)
+                Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.children.put(child.label.charAt(0), child);
+                node.children.put(c, middle);
+                child = middle;
+            }
+            node = child;
+            i += common;
+        }
+        if (node.values == null) {
+            node.values = new TreeSet<>();
+        }
+        if (node.values.add(value)) {
+            size++;
+        }
+    }
+
+    public boolean remove(String key, String value) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null || !key.startsWith(child.label, i)) {
+                return false;
+            }
+            i += child.label.length();
+            node = child;
+            path.add(node);
+        }
+        if (node.values == null || !node.values.remove(value)) {
+            return false;
+        }
+        size--;
+        if (node.values.isEmpty()) {
+            node.values = null;
+        }
+        compact(path);
+        return true;
+    }
+
+    // drops emptied leaves and merges valueless single-child nodes back into their child
+    private static void compact(List<Node> path) {
+        for (int depth = path.size() - 1; depth > 0; depth--) {
+            Node node = path.get(depth);
+            Node parent = path.get(depth - 1);
+            if (node.values != null) {
+                return;
+            }
+            if (node.children.isEmpty()) {
+                parent.children.remove(node.label.charAt(0));
+                continue;
+            }
+            if (node.children.size() == 1) {
+                Node only = node.children.firstEntry().getValue();
+                only.label = node.label + only.label;
+                parent.children.put(only.label.charAt(0), only);
+            }
+            return;
+        }
+    }
+
+    /** Values of all keys starting with {@code prefix}, in key order, at most {@code limit}. */
+    public List<String> valuesWithPrefix(String prefix, int limit) {
+        List<String> result = new ArrayList<>(Math.min(limit, 64));
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            Node child = node.children.get(prefix.charAt(i));
+            if (child == null) {
+                return result;
+            }
+            int common = commonPrefix(child.label, prefix, i);
+            if (i + common == prefix.length()) {
+                // the prefix ends on or inside this edge: the whole subtree matches
+                node = child;
+                break;
+            }
+            if (common < child.label.length()) {
+                return result;
+            }
+            i += common;
+            node = child;
+        }
+        collect(node, result, limit);
+        return result;
+    }
+
+    private static void collect(Node node, List<String> out, int limit) {
+        if (node.values != null) {
+            for (String value : node.values) {
+                if (out.size() >= limit) {
+                    return;
+                }
+                out.add(value);
+            }
+        }
+        for (Map.Entry<Character, Node> entry : node.children.entrySet()) {
+            if (out.size() >= limit) {
+                return;
+            }
+            collect(entry.getValue(), out, limit);
+        }
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int n = 0;
+        while (n < max && label.charAt(n) == key.charAt(offset + n)) {
+            n++;
+        }
+        return n;
+    }
+}
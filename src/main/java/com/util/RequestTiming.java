@@ -0,0 +1,183 @@
+package com.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-request latency breakdown, bound to the request thread. The web layer starts one with
+ * {@link #begin} and ends it with {@link #end}; the service and driver hooks look it up with
+ * {@link #current()} and do nothing when there is none (background jobs, tests).
+ * <p>
+ * Phases, all in nanoseconds:
+ * <ul>
+ *     <li>{@code read}: reading and deserializing the request body</li>
+ *     <li>{@code valid}: from the body being read to the first service call (bean validation)</li>
+ *     <li>{@code svc}: time inside the service layer, without the database time spent there</li>
+ *     <li>{@code db}: MongoDB command round trips</li>
+ *     <li>{@code app}: everything else before the response body is written (routing, admission, controller)</li>
+ *     <li>{@code ser}: writing the response body, only known once the request has completed</li>
+ * </ul>
+ * Only the thread that owns the request touches an instance, so nothing is synchronized.
+ */
+public final class RequestTiming {
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private final long started;
+    private final boolean sampled;
+    private final int maxQueryShapes;
+
+    private long readStarted;
+    private long readNanos;
+    private long bodyReadAt;
+    private long firstServiceAt;
+    private int serviceDepth;
+    private long serviceEnteredAt;
+    private long serviceNanos;
+    private long dbNanos;
+    private long dbInServiceNanos;
+    private int dbCommands;
+    private long responseStartedAt;
+    private List<String> queryShapes;
+
+    RequestTiming(long started, boolean sampled, int maxQueryShapes) {
+        this.started = started;
+        this.sampled = sampled;
+        this.maxQueryShapes = maxQueryShapes;
+    }
+
+    /** Starts recording for the current thread; sampled requests also keep their query shapes. */
+    public static RequestTiming begin(boolean sampled, int maxQueryShapes) {
+        RequestTiming timing = new RequestTiming(System.nanoTime(), sampled, maxQueryShapes);
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    public static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    public long getStarted() {
+        return started;
+    }
+
+    public void bodyReadStarted() {
+        readStarted = System.nanoTime();
+    }
+
+    public void bodyReadFinished() {
+        bodyReadAt = System.nanoTime();
+        if (readStarted != 0) {
+            readNanos += bodyReadAt - readStarted;
+            readStarted = 0;
+        }
+    }
+
+    /** Nested calls (a service calling another guarded service) count once. */
+    public void enterService() {
+        enterService(System.nanoTime());
+    }
+
+    void enterService(long now) {
+        if (serviceDepth++ == 0) {
+            serviceEnteredAt = now;
+            if (firstServiceAt == 0) {
+                firstServiceAt = now;
+            }
+        }
+    }
+
+    public void exitService() {
+        exitService(System.nanoTime());
+    }
+
+    void exitService(long now) {
+        if (serviceDepth > 0 && --serviceDepth == 0) {
+            serviceNanos += now - serviceEnteredAt;
+        }
+    }
+
+    public void dbCommand(long elapsedNanos) {
+        dbNanos += elapsedNanos;
+        dbCommands++;
+        if (serviceDepth > 0) {
+            dbInServiceNanos += elapsedNanos;
+        }
+    }
+
+    public void queryShape(String shape) {
+        if (!sampled) {
+            return;
+        }
+        if (queryShapes == null) {
+            queryShapes = new ArrayList<>();
+        }
+        if (queryShapes.size() < maxQueryShapes) {
+            queryShapes.add(shape);
+        }
+    }
+
+    public List<String> getQueryShapes() {
+        return queryShapes == null ? List.of() : queryShapes;
+    }
+
+    /** Marks the point the response starts being written; everything after it is serialization. */
+    public void responseStarted(long now) {
+        if (responseStartedAt == 0) {
+            responseStartedAt = now;
+        }
+    }
+
+    /** {@code Server-Timing} value for the time up to {@code now}. */
+    public String headerValue(long now) {
+        long total = now - started;
+        long validation = validationNanos();
+        long service = Math.max(0, serviceNanos - dbInServiceNanos);
+        long app = Math.max(0, total - readNanos - validation - service - dbNanos);
+        StringBuilder header = new StringBuilder(112);
+        append(header, "db", dbNanos).append(";desc=\"").append(dbCommands).append(" cmd\"");
+        append(header.append(", "), "svc", service);
+        append(header.append(", "), "read", readNanos);
+        append(header.append(", "), "valid", validation);
+        append(header.append(", "), "app", app);
+        append(header.append(", "), "total", total);
+        return header.toString();
+    }
+
+    /** Full breakdown for the slow-request log, including serialization and the query shapes. */
+    public String describe(long now) {
+        long until = responseStartedAt != 0 ? responseStartedAt : now;
+        StringBuilder summary = new StringBuilder(headerValue(until));
+        append(summary.append(", "), "ser", now - until);
+        if (queryShapes != null) {
+            summary.append(", queries=").append(queryShapes);
+        }
+        return summary.toString();
+    }
+
+    private long validationNanos() {
+        return bodyReadAt != 0 && firstServiceAt > bodyReadAt ? firstServiceAt - bodyReadAt : 0;
+    }
+
+    // milliseconds with microsecond precision, without going through String.format
+    private static StringBuilder append(StringBuilder target, String name, long nanos) {
+        long micros = Math.max(0, nanos) / 1000;
+        target.append(name).append(";dur=").append(micros / 1000).append('.');
+        long fraction = micros % 1000;
+        if (fraction < 100) {
+            target.append('0');
+        }
+        if (fraction < 10) {
+            target.append('0');
+        }
+        return target.append(fraction);
+    }
+}
@@ -0,0 +1,99 @@
+package com.util;
+
+import java.util.Arrays;
+
+/**
+ * Event count and amount total over a rolling window, kept as a ring of {@code buckets} slots in
+ * primitive arrays: a fixed ~20 bytes per slot whatever the event rate. A slot holds one bucket of
+ * {@code windowMs / buckets} and is reused once its bucket has left the window, so the window
+ * actually covered is between one bucket short of {@code windowMs} and {@code windowMs}.
+ * Reading costs O(buckets). Not thread-safe.
+ */
+public final class SlidingWindow {
+
+    private final long bucketMs;
+    private final long[] bucketIds;
+    private final int[] counts;
+    private final long[] amounts;
+
+    public SlidingWindow(long windowMs, int buckets) {
+        if (buckets < 1 || windowMs < buckets) {
+            throw new IllegalArgumentException("need at least one bucket of at least 1 ms");
+        }
+        this.bucketMs = windowMs / buckets;
+        this.bucketIds = new long[buckets];
+        this.counts = new int[buckets];
+        this.amounts = new long[buckets];
+        Arrays.fill(bucketIds, Long.MIN_VALUE);
+    }
+
+    /** Adds events at {@code at}; negative values take back earlier ones, if they are still in the window. */
+    public void add(long at, int count, long amount) {
+        long bucket = Math.floorDiv(at, bucketMs);
+        int slot = slot(bucket);
+        if (bucketIds[slot] != bucket) {
+            if (bucketIds[slot] > bucket) {
+                // the slot already holds a later bucket, so this one has left the window
+                return;
+            }
+            bucketIds[slot] = bucket;
+            counts[slot] = 0;
+            amounts[slot] = 0;
+        }
+        counts[slot] += count;
+        amounts[slot] += amount;
+    }
+
+    public int count(long now) {
+        long oldest = oldestBucket(now);
+        int total = 0;
+        for (int i = 0; i < bucketIds.length; i++) {
+            if (bucketIds[i] >= oldest) {
+                total += counts[i];
+            }
+        }
+        return total;
+    }
+
+    public long amount(long now) {
+        long oldest = oldestBucket(now);
+        long total = 0;
+        for (int i = 0; i < bucketIds.length; i++) {
+            if (bucketIds[i] >= oldest) {
+                total += amounts[i];
+            }
+        }
+        return total;
+    }
+
+    /** Milliseconds until the oldest events in the window leave it; 0 when it is empty. */
+    public long millisUntilOldestExpires(long now) {
+        long oldest = oldestBucket(now);
+        long first = Long.MAX_VALUE;
+        for (int i = 0; i < bucketIds.length; i++) {
+            if (bucketIds[i] >= oldest && counts[i] != 0 && bucketIds[i] < first) {
+                first = bucketIds[i];
+            }
+        }
+        return first == Long.MAX_VALUE ? 0 : (first + bucketIds.length) * bucketMs - now;
+    }
+
+    /** Nothing left in the window: the state is the same as a new window's and can be dropped. */
+    public boolean isEmpty(long now) {
+        long oldest = oldestBucket(now);
+        for (int i = 0; i < bucketIds.length; i++) {
+            if (bucketIds[i] >= oldest && (counts[i] != 0 || amounts[i] != 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long oldestBucket(long now) {
+        return Math.floorDiv(now, bucketMs) - bucketIds.length + 1;
+    }
+
+    private int slot(long bucket) {
+        return (int) Math.floorMod(bucket, (long) bucketIds.length);
+    }
+}
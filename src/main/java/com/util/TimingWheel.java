@@ -0,0 +1,111 @@
+package com.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel. Each level is a ring of {@code wheelSize} buckets of {@code tickMs};
+ * an item due beyond the ring goes to a coarser overflow level (created on demand, tick = the
+ * ring's span), and moves down a level when the clock reaches its bucket. Adding an item and
+ * advancing by one tick are O(1) whatever the number of scheduled items.
+ * <p>
+ * An item expires once the clock is in its tick, so it can come out up to one tick before its
+ * due time; callers that must never fire early advance the wheel to {@code now - tickMs}.
+ * Not thread-safe.
+ */
+public final class TimingWheel<T> {
+
+    private record Timed<T>(T item, long dueAt) {
+    }
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final long spanMs;
+    private final ArrayDeque<Timed<T>>[] buckets;
+    private long currentTime;
+    private TimingWheel<T> overflow;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs < 1 || wheelSize < 2) {
+            throw new IllegalArgumentException("tickMs must be positive and wheelSize at least 2");
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.spanMs = tickMs * wheelSize;
+        this.buckets = new ArrayDeque[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.currentTime = startMs - Math.floorMod(startMs, tickMs);
+    }
+
+    /** Schedules the item; returns false, without keeping it, when it is already due. */
+    public boolean add(T item, long dueAt) {
+        if (!place(new Timed<>(item, dueAt))) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    private boolean place(Timed<T> timed) {
+        if (timed.dueAt() < currentTime + tickMs) {
+            return false;
+        }
+        if (timed.dueAt() < currentTime + spanMs) {
+            buckets[index(timed.dueAt())].add(timed);
+            return true;
+        }
+        if (overflow == null) {
+            overflow = new TimingWheel<>(spanMs, wheelSize, currentTime);
+        }
+        return overflow.place(timed);
+    }
+
+    /** Moves the clock to {@code now} and hands every item that became due to {@code expired}. */
+    public void advance(long now, Consumer<T> expired) {
+        List<Timed<T>> drained = new ArrayList<>();
+        advanceClock(now, drained);
+        for (Timed<T> timed : drained) {
+            // items from coarser levels land in a finer bucket unless they are due already
+            if (!place(timed)) {
+                size--;
+                expired.accept(timed.item());
+            }
+        }
+    }
+
+    private void advanceClock(long now, List<Timed<T>> drained) {
+        if (now < currentTime + tickMs) {
+            return;
+        }
+        long target = now - Math.floorMod(now, tickMs);
+        // after a full turn every bucket has been visited once
+        long steps = Math.min((target - currentTime) / tickMs, wheelSize);
+        for (long step = 1; step <= steps; step++) {
+            ArrayDeque<Timed<T>> bucket = buckets[index(target - (steps - step) * tickMs)];
+            drained.addAll(bucket);
+            bucket.clear();
+        }
+        currentTime = target;
+        if (overflow != null) {
+            overflow.advanceClock(currentTime, drained);
+        }
+    }
+
+    private int index(long time) {
+        return (int) Math.floorMod(Math.floorDiv(time, tickMs), (long) wheelSize);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getTickMs() {
+        return tickMs;
+    }
+}
@@ -0,0 +1,57 @@
+package com.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket implemented as the generic cell rate algorithm: the whole state is the
+ * "theoretical arrival time" of the next request, advanced with a single CAS per permit.
+ * Allows {@code burst} requests at once and {@code ratePerSecond} sustained.
+ */
+public final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(double ratePerSecond, int burst, long nowNanos) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("rate and burst must be positive");
+        }
+        this.intervalNanos = (long) (1_000_000_000L / ratePerSecond);
+        this.toleranceNanos = intervalNanos * (burst - 1L);
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes one permit if available.
+     *
+     * @return 0 when the permit was granted, otherwise the nanoseconds until one becomes available
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long allowedFrom = tat - toleranceNanos;
+            if (nowNanos - allowedFrom < 0) {
+                return allowedFrom - nowNanos;
+            }
+            long next = (nowNanos - tat > 0 ? nowNanos : tat) + intervalNanos;
+            if (theoreticalArrival.compareAndSet(tat, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Gives back a permit taken by {@link #tryAcquire} for a request that was then rejected
+     * elsewhere. A bucket never holds more than its burst: the next acquire starts from now at the
+     * earliest.
+     */
+    public void release() {
+        theoreticalArrival.addAndGet(-intervalNanos);
+    }
+
+    /** A bucket that has been idle long enough to be full again carries no state and can be dropped. */
+    public boolean isFull(long nowNanos) {
+        return nowNanos - theoreticalArrival.get() >= 0;
+    }
+}
@@ -0,0 +1,102 @@
+package com.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * The {@code capacity} highest-scoring keys, kept in score order with an index from key to entry,
+ * so that changing a key's score is O(log capacity) and reading the first k entries is O(k).
+ * A key that scores at or below the lowest tracked entry while the structure is full is not
+ * tracked, and an entry pushed out by a better one is dropped.
+ * <p>
+ * Scores can go down, so a key that was left out may end up ahead of tracked ones without the
+ * structure knowing. It therefore remembers the highest score it ever left out: entries above it
+ * are certainly in the true top ({@link #isExact}), and when too few are, the owner should
+ * rebuild it from the source. Not thread-safe.
+ */
+public final class TopK {
+
+    public record Entry(String key, double score) {
+    }
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingDouble(Entry::score).reversed()
+            .thenComparing(Entry::key);
+
+    private final int capacity;
+    private final TreeSet<Entry> ordered = new TreeSet<>(ORDER);
+    private final Map<String, Entry> index = new HashMap<>();
+    private double leftOutCeiling;
+
+    /** {@code leftOutCeiling} is the highest score of the keys not loaded (-Infinity when all were). */
+    public TopK(int capacity, double leftOutCeiling) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.leftOutCeiling = leftOutCeiling;
+    }
+
+    public void update(String key, double score) {
+        Entry current = index.remove(key);
+        if (current != null) {
+            ordered.remove(current);
+        } else if (ordered.size() >= capacity) {
+            Entry floor = ordered.last();
+            if (ORDER.compare(new Entry(key, score), floor) >= 0) {
+                leftOutCeiling = Math.max(leftOutCeiling, score);
+                return;
+            }
+            ordered.pollLast();
+            index.remove(floor.key());
+            leftOutCeiling = Math.max(leftOutCeiling, floor.score());
+        }
+        Entry entry = new Entry(key, score);
+        ordered.add(entry);
+        index.put(key, entry);
+    }
+
+    /** For keys that no longer exist; does not make the remaining entries less certain. */
+    public void remove(String key) {
+        Entry current = index.remove(key);
+        if (current != null) {
+            ordered.remove(current);
+        }
+    }
+
+    public List<Entry> top(int k) {
+        List<Entry> top = new ArrayList<>(Math.min(k, ordered.size()));
+        Iterator<Entry> entries = ordered.iterator();
+        while (top.size() < k && entries.hasNext()) {
+            top.add(entries.next());
+        }
+        return top;
+    }
+
+    /** Whether {@link #top}(k) is certainly the true top k; O(k). */
+    public boolean isExact(int k) {
+        if (ordered.size() < k) {
+            // nothing may have been left out, or one of those keys belongs in the first k
+            return leftOutCeiling == Double.NEGATIVE_INFINITY;
+        }
+        Iterator<Entry> entries = ordered.iterator();
+        for (int i = 0; i < k; i++) {
+            if (entries.next().score() < leftOutCeiling) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int size() {
+        return ordered.size();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,33 @@
+package com.bench;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Helpers shared by the benchmarks in this package. They only run with {@code -Pbenchmark};
+ * the ones needing a database are skipped unless {@code -Dbench.mongo.uri=...} is given.
+ */
+final class BenchSupport {
+
+    private BenchSupport() {
+    }
+
+    static String mongoUri() {
+        String uri = System.getProperty("bench.mongo.uri");
+        assumeTrue(uri != null && !uri.isBlank(), "set -Dbench.mongo.uri to run this benchmark");
+        return uri;
+    }
+
+    static int intProperty(String name, int defaultValue) {
+        return Integer.getInteger(name, defaultValue);
+    }
+
+    /** Returns the given percentile (0-100) of the samples, in microseconds. */
+    static double percentileMicros(long[] nanos, double percentile) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile / 100.0 * sorted.length) - 1);
+        return sorted[Math.max(index, 0)] / 1_000.0;
+    }
+}
@@ -0,0 +1,188 @@
+package com.bench;
+
+import com.config.CausalMongoDatabaseFactory;
+import com.config.CausalTokenCommandListener;
+import com.config.MongoBulkheads;
+import com.config.ReadRouting;
+import com.model.Account;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.repository.AccountRepository;
+import com.repository.TransactionRepository;
+import com.service.AccountNumberFilter;
+import com.service.AccountServiceImpl;
+import com.service.TransactionArchiveService;
+import com.service.TransactionHistoryService;
+import com.util.CausalContext;
+import com.util.CausalToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * How much read traffic {@link ReadRouting} takes off the primary, and whether causal tokens keep
+ * read-your-writes intact. The same mix of history and listing reads with some deposits runs with
+ * routing off and on; every read command is counted per server it went to. Then each of
+ * {@code bench.checks} fresh accounts gets a deposit and its history is read straight back through
+ * the deposit's token, which must always show the new row.
+ * <p>
+ * Needs a replica set. A single node (docker run -d -p 27017:27017 mongo:7 --replSet rs0, then
+ * rs.initiate()) exercises the sessions and tokens but has no secondary to offload to; the
+ * reduction shows with three members.
+ *
+ * mvn test -Pbenchmark -Dtest=ReadRoutingBenchmark -Dbench.mongo.uri=mongodb://localhost:27017/?replicaSet=rs0
+ *     [-Dbench.accounts=200] [-Dbench.ops=20000] [-Dbench.checks=500]
+ */
+@Tag("benchmark")
+class ReadRoutingBenchmark {
+
+    private static final String DATABASE = "bench_read_routing";
+    private static final Set<String> READ_COMMANDS = Set.of("find", "getMore", "aggregate", "count", "distinct");
+
+    @Test
+    void primaryReadShareWithAndWithoutRouting() {
+        String uri = BenchSupport.mongoUri();
+        int accounts = BenchSupport.intProperty("bench.accounts", 200);
+        int ops = BenchSupport.intProperty("bench.ops", 20_000);
+        int checks = BenchSupport.intProperty("bench.checks", 500);
+
+        Map<String, LongAdder> readsByServer = new ConcurrentHashMap<>();
+        CommandListener counter = new CommandListener() {
+            @Override
+            public void commandStarted(CommandStartedEvent event) {
+                if (DATABASE.equals(event.getDatabaseName()) && READ_COMMANDS.contains(event.getCommandName())) {
+                    readsByServer.computeIfAbsent(event.getConnectionDescription().getServerAddress().toString(),
+                            k -> new LongAdder()).increment();
+                }
+            }
+        };
+        MongoClientSettings settings = MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(uri))
+                .addCommandListener(counter)
+                .addCommandListener(new CausalTokenCommandListener())
+                .build();
+        try (MongoClient client = MongoClients.create(settings)) {
+            Document hello = client.getDatabase("admin").runCommand(new Document("hello", 1));
+            assumeTrue(hello.getString("setName") != null, "bench.mongo.uri must point at a replica set");
+            String primary = hello.getString("primary");
+            System.out.printf("replica set %s, primary %s, %d members%n", hello.getString("setName"), primary,
+                    hello.getList("hosts", String.class).size());
+
+            MongoTemplate template = new MongoTemplate(
+                    new CausalMongoDatabaseFactory(new SimpleMongoClientDatabaseFactory(client, DATABASE)));
+            template.getDb().drop();
+            MongoRepositoryFactory repositories = new MongoRepositoryFactory(template);
+            AccountRepository accountRepo = repositories.getRepository(AccountRepository.class);
+            TransactionRepository txnRepo = repositories.getRepository(TransactionRepository.class);
+            String[] numbers = seed(accountRepo, accounts);
+
+            System.out.printf("%10s %12s %12s %14s%n", "routing", "reads", "on primary", "primary share");
+            for (boolean enabled : new boolean[]{false, true}) {
+                Services services = services(template, accountRepo, txnRepo, enabled);
+                readsByServer.clear();
+                mix(services, numbers, ops);
+                long total = readsByServer.values().stream().mapToLong(LongAdder::sum).sum();
+                LongAdder onPrimary = readsByServer.get(primary);
+                long primaryReads = onPrimary == null ? 0 : onPrimary.sum();
+                System.out.printf("%10s %12d %12d %13.1f%%%n", enabled ? "on" : "off", total, primaryReads,
+                        total == 0 ? 0 : 100.0 * primaryReads / total);
+            }
+
+            Services routed = services(template, accountRepo, txnRepo, true);
+            int misses = 0;
+            int missesWithoutToken = 0;
+            for (int i = 0; i < checks; i++) {
+                String number = String.format("RYW%05d", i);
+                CausalToken token;
+                CausalContext write = CausalContext.begin(null);
+                try {
+                    accountRepo.save(account(number));
+                    routed.accounts().deposit(number, 10);
+                    token = write.getObserved();
+                } finally {
+                    CausalContext.end();
+                }
+                // without the token a lagging secondary may answer before it has the deposit
+                if (routed.history().history(number, null, null).isEmpty()) {
+                    missesWithoutToken++;
+                }
+                CausalContext.begin(token);
+                try {
+                    if (routed.history().history(number, null, null).isEmpty()) {
+                        misses++;
+                    }
+                } finally {
+                    CausalContext.end();
+                }
+            }
+            System.out.printf("read-your-writes over %d deposits: %d stale reads without token, %d with%n",
+                    checks, missesWithoutToken, misses);
+            template.getDb().drop();
+            assertEquals(0, misses, "history reads that missed the deposit despite its causal token");
+        }
+    }
+
+    private record Services(AccountServiceImpl accounts, TransactionHistoryService history) {
+    }
+
+    private static Services services(MongoTemplate template, AccountRepository accountRepo,
+                                     TransactionRepository txnRepo, boolean routingEnabled) {
+        ReadRouting routing = new ReadRouting(routingEnabled, 90);
+        MongoBulkheads bulkheads = new MongoBulkheads(new SimpleMeterRegistry(), 64, 1, 64, 10_000, 64, 1, 64, 10_000);
+        // disabled and never built, so it lets every number through
+        AccountNumberFilter filter = new AccountNumberFilter(template, new SimpleMeterRegistry(), false, 1_000, 0.01);
+        TransactionArchiveService archive = new TransactionArchiveService(template, false, 365, 1_000, 0);
+        return new Services(new AccountServiceImpl(accountRepo, txnRepo, event -> { }, template, routing),
+                new TransactionHistoryService(template, archive, bulkheads, filter, routing));
+    }
+
+    private static String[] seed(AccountRepository accountRepo, int accounts) {
+        String[] numbers = new String[accounts];
+        for (int i = 0; i < accounts; i++) {
+            numbers[i] = String.format("BEN%05d", i);
+            accountRepo.save(account(numbers[i]));
+        }
+        return numbers;
+    }
+
+    private static Account account(String number) {
+        Account account = new Account();
+        account.setAccountNumber(number);
+        account.setHolderName("Bench " + number);
+        account.setBalance(1_000);
+        return account;
+    }
+
+    // 70% history, 10% listing, 20% deposits (whose balance check reads the primary by design)
+    private static void mix(Services services, String[] numbers, int ops) {
+        Random random = new Random(42);
+        for (int i = 0; i < ops; i++) {
+            String number = numbers[random.nextInt(numbers.length)];
+            int kind = random.nextInt(10);
+            if (kind < 7) {
+                services.history().history(number, null, null);
+            } else if (kind < 8) {
+                services.accounts().getAllAccounts();
+            } else {
+                services.accounts().deposit(number, 1 + random.nextInt(100));
+            }
+        }
+    }
+}
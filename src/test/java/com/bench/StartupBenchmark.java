@@ -0,0 +1,134 @@
+package com.bench;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Measures time from JVM launch to the first successful {@code GET /api/accounts/{accNo}}.
+ * A warm-up run creates the account; the measured runs only poll for it.
+ *
+ * mvn -Pfast-startup package
+ * mvn test -Pbenchmark -Dbench.mongo.uri=mongodb://localhost:27017 \
+ *     -Dbench.jar=target/cds/SpringMiniProject1-0.0.1-SNAPSHOT.jar \
+ *     -Dbench.jvm-args="-XX:SharedArchiveFile=target/cds/application.jsa -Dspring.aot.enabled=true -Dspring.profiles.active=fast-startup"
+ */
+@Tag("benchmark")
+class StartupBenchmark {
+
+    private static final Pattern ACCOUNT_NUMBER = Pattern.compile("\"accountNumber\"\\s*:\\s*\"([^\"]+)\"");
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+    private final Map<Process, Integer> ports = new HashMap<>();
+
+    @Test
+    void timeToFirstSuccessfulAccountLookup() throws Exception {
+        String mongoUri = BenchSupport.mongoUri();
+        String jar = System.getProperty("bench.jar", "target/SpringMiniProject1-0.0.1-SNAPSHOT.jar");
+        assumeTrue(new File(jar).isFile(), "build the jar first (mvn package), or point -Dbench.jar at it");
+        String jvmArgs = System.getProperty("bench.jvm-args", "");
+        int runs = BenchSupport.intProperty("bench.runs", 5);
+
+        String accNo;
+        Process warmUp = launch(jar, jvmArgs, mongoUri, freePort());
+        try {
+            int port = portOf(warmUp);
+            awaitStatus(URI.create("http://localhost:" + port + "/api/accounts"), 200);
+            HttpResponse<String> created = http.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/accounts"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString("{\"holderName\":\"Bench Startup\"}")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            Matcher matcher = ACCOUNT_NUMBER.matcher(created.body());
+            assertTrue(matcher.find(), "account creation failed: " + created.body());
+            accNo = matcher.group(1);
+        } finally {
+            stop(warmUp);
+        }
+
+        long[] millis = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            int port = freePort();
+            long started = System.nanoTime();
+            Process app = launch(jar, jvmArgs, mongoUri, port);
+            try {
+                awaitStatus(URI.create("http://localhost:" + port + "/api/accounts/" + accNo), 200);
+                millis[i] = (System.nanoTime() - started) / 1_000_000;
+            } finally {
+                stop(app);
+            }
+            System.out.printf("run %d: first successful GET /api/accounts/%s after %d ms%n", i + 1, accNo, millis[i]);
+        }
+        Arrays.sort(millis);
+        System.out.printf("time to first request (jvm args: '%s'): median %d ms, min %d ms, max %d ms%n",
+                jvmArgs, millis[runs / 2], millis[0], millis[runs - 1]);
+    }
+
+
+    private Process launch(String jar, String jvmArgs, String mongoUri, int port) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        if (!jvmArgs.isBlank()) {
+            command.addAll(Arrays.asList(jvmArgs.trim().split("\\s+")));
+        }
+        command.addAll(List.of("-jar", jar,
+                "--server.port=" + port,
+                "--spring.data.mongodb.uri=" + mongoUri,
+                "--spring.data.mongodb.database=bench_startup",
+                "--bank.ratelimit.enabled=false"));
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        ports.put(process, port);
+        return process;
+    }
+
+    private int portOf(Process process) {
+        return ports.get(process);
+    }
+
+    private void awaitStatus(URI uri, int status) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(2)).GET().build();
+        long deadline = System.nanoTime() + Duration.ofSeconds(120).toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                if (http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == status) {
+                    return;
+                }
+            } catch (IOException notUpYet) {
+                // connection refused until the server is listening
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException("no " + status + " from " + uri + " within 120 s");
+    }
+
+    private static void stop(Process process) throws InterruptedException {
+        process.destroy();
+        process.waitFor();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.bench;
+
+import com.model.StorageCodes;
+import com.model.Transaction;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoCompressor;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.Document;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Before/after numbers for the compact document layout: the legacy layout (long field names,
+ * string enums, {@code _class}) against the short names and codes of {@link Transaction.Fields},
+ * for storage, index size and insert rate. Then the history read of the compact layout with each
+ * wire compressor, reporting throughput and the bytes the server sent.
+ *
+ * mvn test -Pbenchmark -Dbench.mongo.uri=mongodb://localhost:27017 [-Dbench.rows=500000]
+ */
+@Tag("benchmark")
+class StorageLayoutBenchmark {
+
+    private static final String[] TYPES = {"DEPOSIT", "WITHDRAW", "TRANSFER"};
+    private static final String DATABASE = "bench_storage_layout";
+    private static final Map<String, String> COMPACT = Map.of(
+            "transactionId", Transaction.Fields.TRANSACTION_ID,
+            "type", Transaction.Fields.TYPE,
+            "amount", Transaction.Fields.AMOUNT,
+            "timestamp", Transaction.Fields.TIMESTAMP,
+            "status", Transaction.Fields.STATUS,
+            "sourceAccount", Transaction.Fields.SOURCE_ACCOUNT,
+            "destinationAccount", Transaction.Fields.DESTINATION_ACCOUNT);
+
+    @Test
+    void compareLegacyAndCompactLayouts() {
+        int rows = BenchSupport.intProperty("bench.rows", 200_000);
+        int accounts = BenchSupport.intProperty("bench.accounts", 2_000);
+        int queries = BenchSupport.intProperty("bench.queries", 2_000);
+        String uri = BenchSupport.mongoUri();
+
+        try (MongoClient client = MongoClients.create(uri)) {
+            MongoDatabase db = client.getDatabase(DATABASE);
+            db.drop();
+
+            System.out.printf("%-8s %14s %14s %14s %14s%n", "layout", "inserts/s", "data bytes", "storage bytes", "index bytes");
+            for (boolean compact : new boolean[]{false, true}) {
+                String layout = compact ? "compact" : "legacy";
+                MongoCollection<Document> collection = db.getCollection(layout);
+                collection.createIndex(Indexes.ascending(field("sourceAccount", compact), field("timestamp", compact)));
+                double insertRate = load(collection, rows, accounts, compact);
+                Document stats = db.runCommand(new Document("collStats", layout));
+                System.out.printf("%-8s %14.0f %14d %14d %14d%n", layout, insertRate,
+                        ((Number) stats.get("size")).longValue(),
+                        ((Number) stats.get("storageSize")).longValue(),
+                        ((Number) stats.get("totalIndexSize")).longValue());
+            }
+        }
+
+        System.out.printf("%n%-8s %14s %16s%n", "wire", "queries/s", "bytes out/query");
+        for (String compressor : List.of("none", "zlib", "snappy", "zstd")) {
+            try (MongoClient client = MongoClients.create(settings(uri, compressor))) {
+                MongoDatabase db = client.getDatabase(DATABASE);
+                MongoCollection<Document> collection = db.getCollection("compact");
+                long bytesBefore = bytesOut(client);
+                long began = System.nanoTime();
+                accountQueries(collection, queries, accounts);
+                double rate = queries / ((System.nanoTime() - began) / 1e9);
+                long bytes = bytesOut(client) - bytesBefore;
+                System.out.printf("%-8s %14.0f %16d%n", compressor, rate, bytes / queries);
+            }
+        }
+
+        try (MongoClient client = MongoClients.create(uri)) {
+            client.getDatabase(DATABASE).drop();
+        }
+    }
+
+    private static MongoClientSettings settings(String uri, String compressor) {
+        List<MongoCompressor> compressors = switch (compressor) {
+            case "zlib" -> List.of(MongoCompressor.createZlibCompressor());
+            case "snappy" -> List.of(MongoCompressor.createSnappyCompressor());
+            case "zstd" -> List.of(MongoCompressor.createZstdCompressor());
+            default -> List.of();
+        };
+        return MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(uri))
+                .compressorList(compressors)
+                .build();
+    }
+
+    // physical bytes, i.e. after compression; includes the serverStatus replies, which are small next to the pages
+    private static long bytesOut(MongoClient client) {
+        Document network = (Document) client.getDatabase("admin").runCommand(new Document("serverStatus", 1)).get("network");
+        return ((Number) network.get("physicalBytesOut")).longValue();
+    }
+
+    private static String field(String name, boolean compact) {
+        return compact ? COMPACT.get(name) : name;
+    }
+
+    // Same seed for both layouts so they hold identical data
+    private static double load(MongoCollection<Document> collection, int rows, int accounts, boolean compact) {
+        Random random = new Random(42);
+        long start = System.currentTimeMillis() - rows * 1_000L;
+        List<Document> batch = new ArrayList<>(1_000);
+        long began = System.nanoTime();
+        for (int i = 0; i < rows; i++) {
+            String type = TYPES[random.nextInt(TYPES.length)];
+            Document doc = new Document(field("transactionId", compact), "TXN-" + (start + i * 1_000L))
+                    .append(field("type", compact), compact ? StorageCodes.TRANSACTION_TYPE.code(type) : type)
+                    .append(field("amount", compact), 1 + random.nextInt(10_000) / 100.0)
+                    .append(field("timestamp", compact), new Date(start + i * 1_000L))
+                    .append(field("status", compact), compact ? StorageCodes.TRANSACTION_STATUS.code("SUCCESS") : "SUCCESS")
+                    .append(field("sourceAccount", compact), account(random.nextInt(accounts)));
+            if (!compact) {
+                doc.append("_class", Transaction.class.getName());
+            }
+            batch.add(doc);
+            if (batch.size() == 1_000) {
+                collection.insertMany(batch, new InsertManyOptions().ordered(false));
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            collection.insertMany(batch, new InsertManyOptions().ordered(false));
+        }
+        return rows / ((System.nanoTime() - began) / 1e9);
+    }
+
+    // one account's full history per query, the shape of GET /api/accounts/{accNo}/transactions
+    private static void accountQueries(MongoCollection<Document> collection, int queries, int accounts) {
+        Random random = new Random(7);
+        for (int i = 0; i < queries; i++) {
+            collection.find(Filters.eq(Transaction.Fields.SOURCE_ACCOUNT, account(random.nextInt(accounts))))
+                    .into(new ArrayList<>());
+        }
+    }
+
+    private static String account(int n) {
+        return String.format("ACC%04d", n);
+    }
+}
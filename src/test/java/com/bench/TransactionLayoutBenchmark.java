@@ -0,0 +1,111 @@
+package com.bench;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.CreateCollectionOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.TimeSeriesGranularity;
+import com.mongodb.client.model.TimeSeriesOptions;
+import org.bson.Document;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the regular and the time-series layout of the transaction journal:
+ * storage size, insert rate and latency of an account + one-day range query.
+ *
+ * mvn test -Pbenchmark -Dbench.mongo.uri=mongodb://localhost:27017 [-Dbench.rows=500000]
+ */
+@Tag("benchmark")
+class TransactionLayoutBenchmark {
+
+    private static final String[] TYPES = {"DEPOSIT", "WITHDRAW", "TRANSFER"};
+    private static final long DAY = 24L * 3600 * 1000;
+
+    @Test
+    void compareRegularAndTimeSeriesLayouts() {
+        int rows = BenchSupport.intProperty("bench.rows", 200_000);
+        int accounts = BenchSupport.intProperty("bench.accounts", 2_000);
+        int queries = BenchSupport.intProperty("bench.queries", 2_000);
+
+        try (MongoClient client = MongoClients.create(BenchSupport.mongoUri())) {
+            MongoDatabase db = client.getDatabase("bench_transaction_layout");
+            db.drop();
+
+            db.createCollection("regular");
+            db.getCollection("regular").createIndex(Indexes.ascending("sourceAccount", "timestamp"));
+            db.createCollection("timeseries", new CreateCollectionOptions().timeSeriesOptions(
+                    new TimeSeriesOptions("timestamp").metaField("sourceAccount")
+                            .granularity(TimeSeriesGranularity.SECONDS)));
+            db.getCollection("timeseries").createIndex(Indexes.ascending("sourceAccount", "timestamp"));
+
+            System.out.printf("%-12s %14s %14s %14s %12s %12s%n",
+                    "layout", "inserts/s", "storage bytes", "index bytes", "p50 us", "p99 us");
+            for (String layout : List.of("regular", "timeseries")) {
+                MongoCollection<Document> collection = db.getCollection(layout);
+                double insertRate = load(collection, rows, accounts);
+                long[] latencies = rangeQueries(collection, queries, accounts, rows);
+                Document stats = db.runCommand(new Document("collStats", layout));
+                System.out.printf("%-12s %14.0f %14d %14d %12.1f %12.1f%n", layout, insertRate,
+                        ((Number) stats.get("storageSize")).longValue(),
+                        ((Number) stats.get("totalIndexSize")).longValue(),
+                        BenchSupport.percentileMicros(latencies, 50), BenchSupport.percentileMicros(latencies, 99));
+            }
+            db.drop();
+        }
+    }
+
+    // Same seed for both layouts so they hold identical data
+    private static double load(MongoCollection<Document> collection, int rows, int accounts) {
+        Random random = new Random(42);
+        long start = System.currentTimeMillis() - rows * 1_000L;
+        List<Document> batch = new ArrayList<>(1_000);
+        long began = System.nanoTime();
+        for (int i = 0; i < rows; i++) {
+            batch.add(new Document("transactionId", "TXN-" + (start + i * 1_000L))
+                    .append("type", TYPES[random.nextInt(TYPES.length)])
+                    .append("amount", 1 + random.nextInt(10_000) / 100.0)
+                    .append("timestamp", new Date(start + i * 1_000L))
+                    .append("status", "SUCCESS")
+                    .append("sourceAccount", account(random.nextInt(accounts))));
+            if (batch.size() == 1_000) {
+                collection.insertMany(batch, new InsertManyOptions().ordered(false));
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            collection.insertMany(batch, new InsertManyOptions().ordered(false));
+        }
+        return rows / ((System.nanoTime() - began) / 1e9);
+    }
+
+    private static long[] rangeQueries(MongoCollection<Document> collection, int queries, int accounts, int rows) {
+        Random random = new Random(7);
+        long start = System.currentTimeMillis() - rows * 1_000L;
+        long span = Math.max(rows * 1_000L - DAY, 1);
+        long[] latencies = new long[queries];
+        for (int i = 0; i < queries; i++) {
+            long from = start + (long) (random.nextDouble() * span);
+            long began = System.nanoTime();
+            collection.find(Filters.and(
+                    Filters.eq("sourceAccount", account(random.nextInt(accounts))),
+                    Filters.gte("timestamp", new Date(from)),
+                    Filters.lt("timestamp", new Date(from + DAY)))).into(new ArrayList<>());
+            latencies[i] = System.nanoTime() - began;
+        }
+        return latencies;
+    }
+
+    private static String account(int n) {
+        return String.format("ACC%04d", n);
+    }
+}
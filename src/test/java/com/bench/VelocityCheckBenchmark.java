@@ -0,0 +1,81 @@
+package com.bench;
+
+import com.exception.VelocityLimitExceededException;
+import com.service.VelocityLimits;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+/**
+ * Cost of the in-memory velocity check that withdrawals and transfers pay before reaching MongoDB:
+ * latency per check over many accounts, from several threads, and heap used per tracked account.
+ *
+ * mvn test -Pbenchmark -Dtest=VelocityCheckBenchmark [-Dbench.accounts=100000] [-Dbench.checks=2000000]
+ */
+@Tag("benchmark")
+class VelocityCheckBenchmark {
+
+    @Test
+    void measureCheckLatencyAndMemory() throws Exception {
+        int accounts = BenchSupport.intProperty("bench.accounts", 100_000);
+        int checks = BenchSupport.intProperty("bench.checks", 2_000_000);
+        int threads = BenchSupport.intProperty("bench.threads", 4);
+
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        // limits high enough that every check does the full work and passes
+        VelocityLimits limits = new VelocityLimits(new SimpleMeterRegistry(), true, 12, accounts,
+                60_000, 1_000_000, 0, 86_400_000, 1_000_000, 1e12);
+        for (int i = 0; i < accounts; i++) {
+            limits.admit(account(i), 1);
+        }
+        System.gc();
+        long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+        System.out.printf("tracked accounts %d, ~%d bytes each%n", accounts, (heapAfter - heapBefore) / accounts);
+
+        System.out.printf("%8s %14s %10s %10s%n", "threads", "checks/s", "p50 us", "p99 us");
+        for (int n : new int[]{1, threads}) {
+            long[][] samples = new long[n][];
+            Thread[] workers = new Thread[n];
+            long began = System.nanoTime();
+            for (int t = 0; t < n; t++) {
+                int worker = t;
+                workers[t] = new Thread(() -> samples[worker] = run(limits, checks / n, accounts, worker));
+                workers[t].start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            double rate = checks / ((System.nanoTime() - began) / 1e9);
+            long[] all = new long[checks / n * n];
+            for (int t = 0; t < n; t++) {
+                System.arraycopy(samples[t], 0, all, t * (checks / n), checks / n);
+            }
+            System.out.printf("%8d %14.0f %10.2f %10.2f%n", n, rate,
+                    BenchSupport.percentileMicros(all, 50), BenchSupport.percentileMicros(all, 99));
+        }
+    }
+
+    private static long[] run(VelocityLimits limits, int checks, int accounts, int seed) {
+        Random random = new Random(seed);
+        long[] nanos = new long[checks];
+        for (int i = 0; i < checks; i++) {
+            String account = account(random.nextInt(accounts));
+            long start = System.nanoTime();
+            try {
+                limits.admit(account, 1 + random.nextInt(100));
+            } catch (VelocityLimitExceededException ex) {
+                // not expected with these limits; timed all the same
+            }
+            nanos[i] = System.nanoTime() - start;
+        }
+        return nanos;
+    }
+
+    private static String account(int n) {
+        return String.format("ACC%06d", n);
+    }
+}
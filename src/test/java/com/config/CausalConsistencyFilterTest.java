@@ -0,0 +1,32 @@
+package com.config;
+
+import com.exception.InvalidRequestException;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+class CausalConsistencyFilterTest {
+
+    @Test
+    void malformedToken_isHandedToTheExceptionHandlers_withoutReachingTheController() throws Exception {
+        HandlerExceptionResolver resolver = mock(HandlerExceptionResolver.class);
+        FilterChain chain = mock(FilterChain.class);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/accounts/ACC1");
+        request.addHeader(CausalConsistencyFilter.HEADER, "not a token!");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new CausalConsistencyFilter(true, resolver).doFilter(request, response, chain);
+
+        verify(resolver).resolveException(eq(request), eq(response), isNull(),
+                argThat(ex -> ex instanceof InvalidRequestException));
+        verify(chain, never()).doFilter(any(), any());
+    }
+}
@@ -0,0 +1,91 @@
+package com.config;
+
+import com.exception.InvalidRequestException;
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoDatabase;
+import com.util.CausalContext;
+import com.util.CausalToken;
+import com.util.ClusterTime;
+import org.bson.BsonDocument;
+import org.bson.BsonTimestamp;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CausalMongoDatabaseFactoryTest {
+
+    @Mock
+    private MongoDatabaseFactory delegate;
+
+    @Mock
+    private MongoDatabaseFactory bound;
+
+    @Mock
+    private ClientSession session;
+
+    @Mock
+    private MongoDatabase database;
+
+    @AfterEach
+    void tearDown() {
+        CausalContext.end();
+    }
+
+    @Test
+    void withoutATokenTheDelegatesDatabaseIsUsed() {
+        when(delegate.getMongoDatabase()).thenReturn(database);
+        CausalContext.begin(null);
+
+        assertSame(database, new CausalMongoDatabaseFactory(delegate).getMongoDatabase());
+        verify(delegate, never()).getSession(any());
+    }
+
+    @Test
+    void aTokenOpensOneCausalSessionAdvancedToIt_reusedAndClosedWithTheRequest() {
+        BsonDocument seen = BsonDocument.parse("{clusterTime: {$timestamp: {t: 100, i: 2}}, signature: {keyId: 1}}");
+        ClusterTime.observe(seen);
+        // the client's copy of the cluster time is never used: its signature cannot be trusted
+        BsonDocument forged = BsonDocument.parse("{clusterTime: {$timestamp: {t: 100, i: 2}}, signature: {keyId: 666}}");
+        CausalToken token = new CausalToken(new BsonTimestamp(100, 2), forged);
+        when(delegate.getSession(any(ClientSessionOptions.class))).thenReturn(session);
+        when(delegate.withSession(session)).thenReturn(bound);
+        when(bound.getMongoDatabase()).thenReturn(database);
+        CausalMongoDatabaseFactory factory = new CausalMongoDatabaseFactory(delegate);
+        CausalContext.begin(token);
+
+        assertSame(database, factory.getMongoDatabase());
+        assertSame(database, factory.getMongoDatabase());
+
+        ArgumentCaptor<ClientSessionOptions> options = ArgumentCaptor.forClass(ClientSessionOptions.class);
+        verify(delegate).getSession(options.capture());
+        assertTrue(options.getValue().isCausallyConsistent());
+        verify(session).advanceClusterTime(ClusterTime.latest());
+        verify(session, never()).advanceClusterTime(forged);
+        verify(session).advanceOperationTime(new BsonTimestamp(100, 2));
+
+        CausalContext.end();
+        verify(session).close();
+    }
+
+    @Test
+    void aTokenAheadOfAnyClusterTimeSeen_isRejectedAfterOnePing() {
+        CausalToken future = new CausalToken(new BsonTimestamp(Integer.MAX_VALUE, 1), null);
+        when(delegate.getMongoDatabase()).thenReturn(database);
+        CausalContext.begin(future);
+
+        assertThrows(InvalidRequestException.class, () -> new CausalMongoDatabaseFactory(delegate).getMongoDatabase());
+        verify(database).runCommand(new Document("ping", 1));
+        verify(delegate, never()).getSession(any());
+    }
+}
@@ -0,0 +1,63 @@
+package com.config;
+
+import com.mongodb.event.CommandSucceededEvent;
+import com.util.CausalContext;
+import com.util.ClusterTime;
+import org.bson.BsonDocument;
+import org.bson.BsonTimestamp;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CausalTokenCommandListenerTest {
+
+    private final CausalTokenCommandListener listener = new CausalTokenCommandListener();
+
+    @AfterEach
+    void tearDown() {
+        CausalContext.end();
+    }
+
+    private static CommandSucceededEvent event(String command, String response) {
+        CommandSucceededEvent event = mock(CommandSucceededEvent.class);
+        when(event.getCommandName()).thenReturn(command);
+        when(event.getResponse()).thenReturn(BsonDocument.parse(response));
+        return event;
+    }
+
+    @Test
+    void writesLeaveTheLatestOperationTimeInTheContext() {
+        CausalContext context = CausalContext.begin(null);
+
+        listener.commandSucceeded(event("insert",
+                "{ok: 1, operationTime: {$timestamp: {t: 100, i: 2}}, $clusterTime: {clusterTime: {$timestamp: {t: 100, i: 2}}}}"));
+        listener.commandSucceeded(event("update", "{ok: 1, operationTime: {$timestamp: {t: 100, i: 1}}}"));
+
+        assertEquals(new BsonTimestamp(100, 2), context.getObserved().getOperationTime());
+        assertNotNull(context.getObserved().getClusterTime());
+    }
+
+    @Test
+    void readsAndStandaloneRepliesLeaveNoToken() {
+        CausalContext context = CausalContext.begin(null);
+
+        listener.commandSucceeded(event("find", "{ok: 1, operationTime: {$timestamp: {t: 100, i: 2}}}"));
+        listener.commandSucceeded(event("insert", "{ok: 1, n: 1}"));
+
+        assertNull(context.getObserved());
+    }
+
+    @Test
+    void everyReply_evenOutsideARequest_advancesTheClusterTimeSeen() {
+        listener.commandSucceeded(event("find",
+                "{ok: 1, $clusterTime: {clusterTime: {$timestamp: {t: 2000000000, i: 5}}}}"));
+        listener.commandSucceeded(event("find",
+                "{ok: 1, $clusterTime: {clusterTime: {$timestamp: {t: 1000, i: 1}}}}"));
+
+        assertTrue(ClusterTime.covers(new BsonTimestamp(2_000_000_000, 5)));
+        assertFalse(ClusterTime.covers(new BsonTimestamp(2_000_000_000, 6)));
+    }
+}
@@ -0,0 +1,18 @@
+package com.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MongoClientConfigTest {
+
+    @Test
+    void bulkheadsMustFitTheConnectionPoolTogether() {
+        assertDoesNotThrow(() -> MongoClientConfig.checkPoolFitsBulkheads(100, 48, 32));
+        assertDoesNotThrow(() -> MongoClientConfig.checkPoolFitsBulkheads(100, 60, 40));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> MongoClientConfig.checkPoolFitsBulkheads(100, 128, 128));
+        assertTrue(ex.getMessage().contains("bank.mongo.max-pool-size"));
+    }
+}
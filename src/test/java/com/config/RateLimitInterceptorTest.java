@@ -0,0 +1,106 @@
+package com.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitInterceptorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private RateLimitInterceptor interceptor(int accountBurst, int clientBurst, int globalBurst) {
+        return new RateLimitInterceptor(registry, true, 0.01, accountBurst, 0.01, clientBurst, 0.01, globalBurst, 100);
+    }
+
+    private static MockHttpServletRequest request(String accNo, String client) {
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/api/accounts/" + accNo + "/deposit");
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("accountNumber", accNo));
+        request.setRemoteAddr(client);
+        return request;
+    }
+
+    private double rejected(String scope) {
+        return registry.get("bank.ratelimit.rejected").tag("scope", scope).counter().count();
+    }
+
+    @Test
+    void hotAccountIsThrottled_otherAccountsAreNot() throws Exception {
+        RateLimitInterceptor interceptor = interceptor(1, 100, 100);
+
+        assertTrue(interceptor.preHandle(request("ACC0001", "10.0.0.1"), new MockHttpServletResponse(), null));
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(request("ACC0001", "10.0.0.1"), rejected, null));
+        assertTrue(interceptor.preHandle(request("ACC0002", "10.0.0.1"), new MockHttpServletResponse(), null));
+
+        assertEquals(429, rejected.getStatus());
+        assertNotNull(rejected.getHeader("Retry-After"));
+        assertTrue(Long.parseLong(rejected.getHeader("Retry-After")) >= 1);
+        assertEquals(1.0, rejected("account"));
+    }
+
+    @Test
+    void clientLimitKeysOnRemoteAddress_ignoringSpoofedForwardedFor() throws Exception {
+        RateLimitInterceptor interceptor = interceptor(100, 1, 100);
+        MockHttpServletRequest first = new MockHttpServletRequest("GET", "/api/accounts");
+        first.setRemoteAddr("203.0.113.7");
+        first.addHeader("X-Forwarded-For", "198.51.100.1");
+        MockHttpServletRequest second = new MockHttpServletRequest("GET", "/api/accounts");
+        second.setRemoteAddr("203.0.113.7");
+        second.addHeader("X-Forwarded-For", "198.51.100.2");
+
+        assertTrue(interceptor.preHandle(first, new MockHttpServletResponse(), null));
+        assertFalse(interceptor.preHandle(second, new MockHttpServletResponse(), null));
+        assertEquals(1.0, rejected("client"));
+    }
+
+    @Test
+    void clientOverItsLimit_doesNotDrainTheAccountBucket() throws Exception {
+        RateLimitInterceptor interceptor = interceptor(2, 1, 100);
+
+        assertTrue(interceptor.preHandle(request("ACC0001", "10.0.0.66"), new MockHttpServletResponse(), null));
+        for (int i = 0; i < 5; i++) {
+            assertFalse(interceptor.preHandle(request("ACC0001", "10.0.0.66"), new MockHttpServletResponse(), null));
+        }
+
+        // the account still has its second permit for everyone else
+        assertTrue(interceptor.preHandle(request("ACC0001", "10.0.0.2"), new MockHttpServletResponse(), null));
+        assertEquals(5.0, rejected("client"));
+        assertEquals(0.0, rejected("account"));
+    }
+
+    @Test
+    void accountRejection_givesTheClientAndGlobalPermitsBack() throws Exception {
+        RateLimitInterceptor interceptor = interceptor(1, 2, 2);
+
+        assertTrue(interceptor.preHandle(request("ACC0001", "10.0.0.1"), new MockHttpServletResponse(), null));
+        assertFalse(interceptor.preHandle(request("ACC0001", "10.0.0.1"), new MockHttpServletResponse(), null));
+
+        assertTrue(interceptor.preHandle(request("ACC0002", "10.0.0.1"), new MockHttpServletResponse(), null));
+        assertEquals(1.0, rejected("account"));
+    }
+
+    @Test
+    void globalLimitAppliesAcrossClients() throws Exception {
+        RateLimitInterceptor interceptor = interceptor(100, 100, 2);
+
+        assertTrue(interceptor.preHandle(request("A", "1.1.1.1"), new MockHttpServletResponse(), null));
+        assertTrue(interceptor.preHandle(request("B", "2.2.2.2"), new MockHttpServletResponse(), null));
+        assertFalse(interceptor.preHandle(request("C", "3.3.3.3"), new MockHttpServletResponse(), null));
+        assertEquals(1.0, rejected("global"));
+    }
+
+    @Test
+    void disabled_letsEverythingThrough() throws Exception {
+        RateLimitInterceptor interceptor =
+                new RateLimitInterceptor(registry, false, 0.01, 1, 0.01, 1, 0.01, 1, 100);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(interceptor.preHandle(request("A", "1.1.1.1"), new MockHttpServletResponse(), null));
+        }
+    }
+}
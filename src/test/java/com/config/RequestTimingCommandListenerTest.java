@@ -0,0 +1,42 @@
+package com.config;
+
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestTimingCommandListenerTest {
+
+    @Test
+    void findShapeKeepsKeysAndOperatorsButNotValues() {
+        BsonDocument command = BsonDocument.parse(
+                "{find: 'transactions', filter: {sourceAccount: 'ACC1', timestamp: {$gte: 1, $lt: 2}}, limit: 10}");
+
+        assertEquals("find transactions {sourceAccount: ?, timestamp: {$gte: ?, $lt: ?}}",
+                RequestTimingCommandListener.shapeOf("find", command));
+    }
+
+    @Test
+    void updateShapeUsesTheFirstStatementsFilter() {
+        BsonDocument command = BsonDocument.parse(
+                "{update: 'accounts', updates: [{q: {accountNumber: 'ACC1'}, u: {$inc: {balance: 5}}}]}");
+
+        assertEquals("update accounts {accountNumber: ?}", RequestTimingCommandListener.shapeOf("update", command));
+    }
+
+    @Test
+    void aggregateShapeListsStagesAndInValuesStayHidden() {
+        BsonDocument command = BsonDocument.parse(
+                "{aggregate: 'transactions', pipeline: [{$match: {sourceAccount: {$in: ['A', 'B']}}}, {$group: {_id: '$sourceAccount'}}]}");
+
+        assertEquals("aggregate transactions [{$match: {sourceAccount: {$in: ?}}}, {$group: {_id: ?}}]",
+                RequestTimingCommandListener.shapeOf("aggregate", command));
+    }
+
+    @Test
+    void getMoreNamesTheCollection() {
+        BsonDocument command = BsonDocument.parse("{getMore: {$numberLong: '42'}, collection: 'accounts'}");
+
+        assertEquals("getMore accounts", RequestTimingCommandListener.shapeOf("getMore", command));
+    }
+}
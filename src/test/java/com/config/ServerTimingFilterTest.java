@@ -0,0 +1,59 @@
+package com.config;
+
+import com.util.RequestTiming;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServerTimingFilterTest {
+
+    @Test
+    void responseWithoutBodyGetsTheHeader_andTheRecorderIsReleased() throws Exception {
+        ServerTimingFilter filter = new ServerTimingFilter(true, 500, 0, 20);
+        AtomicReference<RequestTiming> seen = new AtomicReference<>();
+        MockFilterChain chain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse res) {
+                seen.set(RequestTiming.current());
+                RequestTiming.current().dbCommand(2_000_000);
+                res.setStatus(204);
+            }
+        });
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("DELETE", "/api/accounts/ACC1"), response, chain);
+
+        assertNotNull(seen.get());
+        assertNull(RequestTiming.current());
+        String header = response.getHeader(ServerTimingFilter.HEADER);
+        assertNotNull(header);
+        assertTrue(header.startsWith("db;dur=2.000;desc=\"1 cmd\""));
+        assertTrue(header.contains("total;dur="));
+    }
+
+    @Test
+    void disabledFilterRecordsNothing() throws Exception {
+        ServerTimingFilter filter = new ServerTimingFilter(false, 500, 0, 20);
+        AtomicReference<RequestTiming> seen = new AtomicReference<>();
+        MockFilterChain chain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse res) {
+                seen.set(RequestTiming.current());
+            }
+        });
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/accounts"), response, chain);
+
+        assertNull(seen.get());
+        assertNull(response.getHeader(ServerTimingFilter.HEADER));
+    }
+}
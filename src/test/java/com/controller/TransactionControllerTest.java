@@ -1,14 +1,17 @@
 package com.controller;
 
 import com.model.Transaction;
-import com.repository.TransactionRepository;
+import com.service.TransactionFeed;
+import com.service.TransactionHistoryService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.Date;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertSame;
@@ -18,32 +21,52 @@ import static org.mockito.Mockito.*;
 class TransactionControllerTest {
 
     @Mock
-    private TransactionRepository repo;
+    private TransactionHistoryService history;
+
+    @Mock
+    private TransactionFeed feed;
 
     @InjectMocks
     private TransactionController controller;
 
     @BeforeEach
     void init() {
-        controller = new TransactionController(repo);
+        controller = new TransactionController(history, feed);
     }
 
     @Test
-    void getTxns_shouldReturnTransactionsFromRepository() {
+    void getTxns_shouldReturnTransactionsFromHistoryService() {
         // arrange
         String accNo = "ACC123";
         Transaction t1 = mock(Transaction.class);
         Transaction t2 = mock(Transaction.class);
         List<Transaction> expected = List.of(t1, t2);
 
-        when(repo.findBySourceAccountOrDestinationAccount(accNo, accNo))
-                .thenReturn(expected);
+        when(history.history(accNo, null, null)).thenReturn(expected);
 
         // act
-        List<Transaction> actual = controller.getTxns(accNo);
+        List<Transaction> actual = controller.getTxns(accNo, null, null);
 
         // assert
         assertSame(expected, actual);
-        verify(repo, times(1)).findBySourceAccountOrDestinationAccount(accNo, accNo);
+        verify(history, times(1)).history(accNo, null, null);
+    }
+
+    @Test
+    void getTxns_withRange_passesRangeThrough() {
+        Date from = new Date(1_000);
+        Date to = new Date(2_000);
+        List<Transaction> expected = List.of(mock(Transaction.class));
+        when(history.history("ACC123", from, to)).thenReturn(expected);
+
+        assertSame(expected, controller.getTxns("ACC123", from, to));
+    }
+
+    @Test
+    void streamTxns_subscribesWithLastEventId() {
+        SseEmitter emitter = new SseEmitter();
+        when(feed.subscribe("ACC123", "42")).thenReturn(emitter);
+
+        assertSame(emitter, controller.streamTxns("ACC123", "42"));
     }
 }
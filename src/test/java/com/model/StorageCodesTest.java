@@ -0,0 +1,42 @@
+package com.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StorageCodesTest {
+
+    @Test
+    void namesRoundTripThroughTheirCodes() {
+        for (String type : List.of("DEPOSIT", "WITHDRAW", "TRANSFER", "INTEREST")) {
+            Object stored = StorageCodes.TRANSACTION_TYPE.toStored(type);
+            assertInstanceOf(Integer.class, stored);
+            assertEquals(type, StorageCodes.TRANSACTION_TYPE.fromStored(stored));
+        }
+    }
+
+    // codes are persisted, so reordering the names would silently change the meaning of stored rows
+    @Test
+    void codesAreStable() {
+        assertEquals(List.of(1, 2, 3, 4),
+                StorageCodes.TRANSACTION_TYPE.codes(List.of("DEPOSIT", "WITHDRAW", "TRANSFER", "INTEREST")));
+        assertEquals(1, StorageCodes.TRANSACTION_STATUS.code("SUCCESS"));
+        assertEquals(1, StorageCodes.ACCOUNT_STATUS.code("ACTIVE"));
+        assertEquals(2, StorageCodes.ACCOUNT_STATUS.code("DELETED"));
+    }
+
+    @Test
+    void unknownNamesAndLegacyStringsPassThrough() {
+        assertEquals("REVERSAL", StorageCodes.TRANSACTION_TYPE.toStored("REVERSAL"));
+        assertEquals("WITHDRAW", StorageCodes.TRANSACTION_TYPE.fromStored("WITHDRAW"));
+        assertEquals(2, StorageCodes.TRANSACTION_TYPE.toStored(2));
+        assertEquals("99", StorageCodes.TRANSACTION_TYPE.fromStored(99));
+    }
+
+    @Test
+    void codeOfUnknownNameFails() {
+        assertThrows(IllegalArgumentException.class, () -> StorageCodes.ACCOUNT_STATUS.code("FROZEN"));
+    }
+}
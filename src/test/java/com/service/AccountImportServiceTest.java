@@ -0,0 +1,184 @@
+package com.service;
+
+import com.dto.ImportReport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.model.Account;
+import com.model.Transaction;
+import com.mongodb.bulk.BulkWriteError;
+import com.repository.AccountRepository;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountImportServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private AccountRepository accountRepo;
+
+    @Mock
+    private BulkOperations accountOps;
+
+    @Mock
+    private BulkOperations txnOps;
+
+    @Mock
+    private ApplicationEventPublisher events;
+
+    private AccountImportService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new AccountImportService(mongoTemplate, accountRepo, new ObjectMapper(), events, 2, 10);
+    }
+
+    private static InputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importCsv_insertsRowsInBatches_andJournalsOpeningBalances() throws Exception {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Account.class)).thenReturn(accountOps);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Transaction.class)).thenReturn(txnOps);
+        when(txnOps.insert(anyList())).thenReturn(txnOps);
+        when(accountRepo.findAccountNumbersIn(anyCollection())).thenReturn(List.of());
+
+        ImportReport report = service.importAccounts(
+                body("holderName,balance\nAlice,100\n\"Bob, Jr\",0\nCarol,25.5\n"),
+                AccountImportService.Format.CSV);
+
+        assertEquals(3, report.getTotalRows());
+        assertEquals(3, report.getImported());
+        assertEquals(0, report.getFailed());
+
+        // batch size 2 → two account batches
+        ArgumentCaptor<List<Account>> accounts = ArgumentCaptor.forClass(List.class);
+        verify(accountOps, times(2)).insert(accounts.capture());
+        verify(accountOps, times(2)).execute();
+        List<Account> first = accounts.getAllValues().get(0);
+        assertEquals("Alice", first.get(0).getHolderName());
+        assertTrue(first.get(0).getAccountNumber().startsWith("ALI"));
+        assertEquals(7, first.get(0).getAccountNumber().length());
+        assertEquals("Bob, Jr", first.get(1).getHolderName());
+
+        // only the non-zero opening balances are journaled
+        ArgumentCaptor<List<Transaction>> deposits = ArgumentCaptor.forClass(List.class);
+        verify(txnOps, times(2)).insert(deposits.capture());
+        assertEquals(1, deposits.getAllValues().get(0).size());
+        assertEquals("DEPOSIT", deposits.getAllValues().get(0).get(0).getType());
+        assertEquals(25.5, deposits.getAllValues().get(1).get(0).getAmount());
+    }
+
+    @Test
+    void importNdjson_reportsInvalidRowsWithLineNumbers() throws Exception {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Account.class)).thenReturn(accountOps);
+        when(accountRepo.findAccountNumbersIn(anyCollection())).thenReturn(List.of());
+
+        ImportReport report = service.importAccounts(
+                body("{\"holderName\":\"Dave\"}\n{\"holderName\":\"  \"}\n{not json\n"
+                        + "{\"holderName\":\"Al\"}\n{\"holderName\":\"Erin\",\"balance\":-5}\n"),
+                AccountImportService.Format.NDJSON);
+
+        assertEquals(5, report.getTotalRows());
+        assertEquals(1, report.getImported());
+        assertEquals(4, report.getFailed());
+        assertEquals(List.of(2L, 3L, 4L, 5L),
+                report.getErrors().stream().map(ImportReport.RowError::getLine).toList());
+        verifyNoInteractions(txnOps);
+    }
+
+    @Test
+    void importCsv_bulkWriteErrorsAreReportedPerRow() throws Exception {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Account.class)).thenReturn(accountOps);
+        when(accountRepo.findAccountNumbersIn(anyCollection())).thenReturn(List.of());
+        BulkOperationException duplicate = mock(BulkOperationException.class);
+        when(duplicate.getErrors()).thenReturn(List.of(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1)));
+        when(accountOps.execute()).thenThrow(duplicate);
+
+        ImportReport report = service.importAccounts(body("Frank\nGrace\n"), AccountImportService.Format.CSV);
+
+        assertEquals(1, report.getImported());
+        assertEquals(1, report.getFailed());
+        assertEquals(2L, report.getErrors().get(0).getLine());
+        assertEquals("duplicate key", report.getErrors().get(0).getMessage());
+    }
+
+    @Test
+    void importCsv_retriesAccountNumbersThatAlreadyExist() throws Exception {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Account.class)).thenReturn(accountOps);
+        // first round: every candidate is taken; second round: all free
+        when(accountRepo.findAccountNumbersIn(anyCollection()))
+                .thenAnswer(inv -> {
+                    List<Account> existing = new java.util.ArrayList<>();
+                    for (Object number : (java.util.Collection<?>) inv.getArgument(0)) {
+                        Account a = new Account();
+                        a.setAccountNumber((String) number);
+                        existing.add(a);
+                    }
+                    return existing;
+                })
+                .thenReturn(List.of());
+
+        ImportReport report = service.importAccounts(body("Heidi\n"), AccountImportService.Format.CSV);
+
+        assertEquals(1, report.getImported());
+        verify(accountRepo, times(2)).findAccountNumbersIn(anyCollection());
+    }
+
+    @Test
+    void importCsv_fallsBackToSixDigits_whenThePrefixIsFull() throws Exception {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Account.class)).thenReturn(accountOps);
+        // every 4-digit HEI number is taken
+        when(accountRepo.findAccountNumbersIn(anyCollection())).thenAnswer(inv -> {
+            List<Account> existing = new java.util.ArrayList<>();
+            for (Object number : (java.util.Collection<?>) inv.getArgument(0)) {
+                if (((String) number).length() == 7) {
+                    Account a = new Account();
+                    a.setAccountNumber((String) number);
+                    existing.add(a);
+                }
+            }
+            return existing;
+        });
+
+        ImportReport report = service.importAccounts(body("Heidi\n"), AccountImportService.Format.CSV);
+
+        assertEquals(1, report.getImported());
+        ArgumentCaptor<List<Account>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(accountOps).insert(inserted.capture());
+        assertTrue(inserted.getValue().get(0).getAccountNumber().matches("HEI[1-9][0-9]{5}"));
+    }
+
+    @Test
+    void splitCsv_handlesQuotesAndEscapedQuotes() {
+        assertEquals(List.of("a", "b,c", "say \"hi\""), AccountImportService.splitCsv("a,\"b,c\",\"say \"\"hi\"\"\""));
+        assertThrows(IllegalArgumentException.class, () -> AccountImportService.splitCsv("\"open"));
+    }
+
+    @Test
+    void formatFromContentType() {
+        assertEquals(AccountImportService.Format.CSV, AccountImportService.Format.fromContentType("text/csv; charset=UTF-8"));
+        assertEquals(AccountImportService.Format.NDJSON, AccountImportService.Format.fromContentType("application/x-ndjson"));
+    }
+}
@@ -0,0 +1,144 @@
+package com.service;
+
+import com.config.MongoBulkheads;
+import com.model.Account;
+import com.model.BalanceCheckpoint;
+import com.model.Transaction;
+import com.mongodb.client.result.DeleteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountPurgeServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private TransactionArchiveService archiveService;
+
+    private final MongoBulkheads bulkheads = new MongoBulkheads(new SimpleMeterRegistry(), 8, 1, 8, 1_000, 8, 1, 8, 1_000);
+
+    private AccountPurgeService service(boolean archive) {
+        return new AccountPurgeService(mongoTemplate, bulkheads, archiveService,
+                true, archive, 0, 100, 2, 0, 100, 0.5, 1_000);
+    }
+
+    private static Account deleted(String number) {
+        Account a = new Account();
+        a.setAccountNumber(number);
+        a.setStatus(Account.DELETED);
+        return a;
+    }
+
+    private static Transaction txn(String id) {
+        Transaction t = new Transaction();
+        t.setId(id);
+        return t;
+    }
+
+    private void stubTransactions() {
+        when(mongoTemplate.find(any(Query.class), eq(Account.class))).thenReturn(List.of(deleted("ACC1")));
+        when(mongoTemplate.find(any(Query.class), eq(Transaction.class)))
+                .thenReturn(List.of(txn("1"), txn("2")))
+                .thenReturn(List.of(txn("3")));
+        when(mongoTemplate.remove(any(Query.class), eq(Transaction.class)))
+                .thenReturn(DeleteResult.acknowledged(2))
+                .thenReturn(DeleteResult.acknowledged(1));
+        when(mongoTemplate.remove(any(Query.class), eq(Account.class))).thenReturn(DeleteResult.acknowledged(1));
+        when(mongoTemplate.remove(any(Query.class), eq(BalanceCheckpoint.class))).thenReturn(DeleteResult.acknowledged(0));
+    }
+
+    @Test
+    void purge_deletesTransactionsInBatchesThenTheAccount() {
+        stubTransactions();
+        when(mongoTemplate.collectionExists(TransactionArchiveService.ARCHIVE_COLLECTION)).thenReturn(true);
+        when(mongoTemplate.remove(any(Query.class), eq(Transaction.class), eq(TransactionArchiveService.ARCHIVE_COLLECTION)))
+                .thenReturn(DeleteResult.acknowledged(0));
+
+        Map<String, Object> result = service(false).purgeDue();
+
+        assertEquals(1L, result.get("accounts"));
+        assertEquals(3L, result.get("transactions"));
+        InOrder order = inOrder(mongoTemplate);
+        order.verify(mongoTemplate, times(2)).remove(any(Query.class), eq(Transaction.class));
+        order.verify(mongoTemplate).remove(any(Query.class), eq(Transaction.class),
+                eq(TransactionArchiveService.ARCHIVE_COLLECTION));
+        order.verify(mongoTemplate).remove(argThat((Query q) ->
+                "ACC1".equals(q.getQueryObject().get("accountNumber"))
+                        && Integer.valueOf(2).equals(q.getQueryObject().get("status"))), eq(Account.class));
+        verifyNoInteractions(archiveService);
+    }
+
+    @Test
+    void purge_inArchiveMode_copiesEachBatchBeforeDeletingIt() {
+        stubTransactions();
+
+        service(true).purgeDue();
+
+        InOrder order = inOrder(archiveService, mongoTemplate);
+        order.verify(archiveService).copyToArchive(argThat(batch -> batch.size() == 2));
+        order.verify(mongoTemplate).remove(any(Query.class), eq(Transaction.class));
+        order.verify(archiveService).copyToArchive(argThat(batch -> batch.size() == 1));
+        order.verify(mongoTemplate).remove(any(Query.class), eq(Transaction.class));
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(Transaction.class), anyString());
+    }
+
+    @Test
+    void purge_keepsTransferRowsWhereTheAccountIsOnlyTheDestination() {
+        when(mongoTemplate.find(any(Query.class), eq(Account.class))).thenReturn(List.of(deleted("ACC1")));
+        when(mongoTemplate.find(any(Query.class), eq(Transaction.class))).thenReturn(List.of());
+
+        service(false).purgeDue();
+
+        verify(mongoTemplate).find(argThat((Query q) -> q.getQueryObject().keySet().equals(Set.of("sourceAccount"))),
+                eq(Transaction.class));
+    }
+
+    @Test
+    void purge_pausesAfterAnAccountSmallerThanOneBatch() {
+        when(mongoTemplate.find(any(Query.class), eq(Account.class))).thenReturn(List.of(deleted("ACC1"), deleted("ACC2")));
+        when(mongoTemplate.find(any(Query.class), eq(Transaction.class))).thenReturn(List.of(txn("1")));
+        when(mongoTemplate.remove(any(Query.class), eq(Transaction.class))).thenReturn(DeleteResult.acknowledged(1));
+        AccountPurgeService paced = new AccountPurgeService(mongoTemplate, bulkheads, archiveService,
+                true, true, 0, 100, 500, 50, 100, 0.5, 1_000);
+
+        // an interrupted pause stops the run, so reaching it shows the small account was paced
+        Thread.currentThread().interrupt();
+        Map<String, Object> result;
+        try {
+            result = paced.purgeDue();
+        } finally {
+            Thread.interrupted();
+        }
+
+        assertEquals(0L, result.get("accounts"));
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(Account.class));
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(Transaction.class));
+    }
+
+    @Test
+    void pause_holdsTheDutyCycleAndBacksOffWhileWritesAreBusy() {
+        AccountPurgeService quarter = new AccountPurgeService(mongoTemplate, bulkheads, archiveService,
+                true, false, 0, 100, 500, 20, 25, 0.5, 1_000);
+
+        assertEquals(20, quarter.pauseAfter(1_000_000, 0));      // 1 ms batch: the floor applies
+        assertEquals(300, quarter.pauseAfter(100_000_000, 0));   // 100 ms batch at 25%: 300 ms idle
+        assertEquals(600, quarter.pauseAfter(100_000_000, 1));
+        assertEquals(1_000, quarter.pauseAfter(100_000_000, 5)); // capped at max-pause-ms
+    }
+}
@@ -0,0 +1,88 @@
+package com.service;
+
+import com.config.MongoBulkheads;
+import com.config.ReadRouting;
+import com.exception.InvalidRequestException;
+import com.model.Account;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountSearchServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private final MongoBulkheads bulkheads = new MongoBulkheads(new SimpleMeterRegistry(), 8, 1, 8, 1_000, 8, 1, 8, 1_000);
+
+    private AccountSearchService service(boolean trie) {
+        return new AccountSearchService(mongoTemplate, bulkheads, new ReadRouting(true, 90), trie, 20, 100, 2);
+    }
+
+    private static Account account(String number, String name) {
+        Account a = new Account();
+        a.setAccountNumber(number);
+        a.setHolderName(name);
+        return a;
+    }
+
+    @Test
+    void search_tooShortPrefix_isRejected() {
+        assertThrows(InvalidRequestException.class, () -> service(false).search(" A ", null));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void search_usesNormalizedRangeOnIndex_withClampedLimit() {
+        List<Account> expected = List.of(account("ALI1234", "Alice"));
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        when(mongoTemplate.find(query.capture(), eq(Account.class))).thenReturn(expected);
+
+        assertSame(expected, service(false).search("ÁLI", 500));
+
+        Document range = (Document) query.getValue().getQueryObject().get("holderNameNormalized");
+        assertEquals("ali", range.get("$gte"));
+        assertEquals("alj", range.get("$lt"));
+        assertEquals(100, query.getValue().getLimit());
+    }
+
+    @Test
+    void search_withTrie_followsAccountEvents() {
+        when(mongoTemplate.stream(any(Query.class), eq(Account.class))).thenAnswer(i -> Stream.empty());
+        AccountSearchService service = service(true);
+        service.initialize();
+
+        Account alice = account("ALI1000", "Alice");
+        Account alina = account("ALI2000", "Alina");
+        service.onAccountEvent(AccountEvent.created(alice));
+        service.onAccountEvent(AccountEvent.created(alina));
+        alice.setHolderName("Bob");
+        service.onAccountEvent(AccountEvent.renamed(alice, "Alice"));
+        assertEquals(2, service.trieSize());
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        when(mongoTemplate.find(query.capture(), eq(Account.class))).thenReturn(List.of(alina));
+
+        assertEquals(List.of(alina), service.search("ali", null));
+        assertEquals(List.of("ALI2000"),
+                ((Document) query.getValue().getQueryObject().get("accountNumber")).get("$in"));
+
+        service.onAccountEvent(AccountEvent.deleted(alina));
+        assertTrue(service.search("ali", null).isEmpty());
+    }
+}
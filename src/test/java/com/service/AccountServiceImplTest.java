@@ -1,5 +1,6 @@
 package com.service;
 
+import com.config.ReadRouting;
 import com.exception.AccountNotFoundException;
 import com.exception.InsufficientBalanceException;
 import com.exception.InvalidAmountException;
@@ -7,12 +8,21 @@ import com.model.Account;
 import com.model.Transaction;
 import com.repository.AccountRepository;
 import com.repository.TransactionRepository;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
-
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -26,6 +36,15 @@ class AccountServiceImplTest {
     @Mock
     private TransactionRepository txnRepo;
 
+    @Mock
+    private ApplicationEventPublisher events;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Spy
+    private ReadRouting routing = new ReadRouting(true, 90);
+
     @InjectMocks
     private AccountServiceImpl service;
 
@@ -35,6 +54,32 @@ class AccountServiceImplTest {
     @Captor
     private ArgumentCaptor<Transaction> txnCaptor;
 
+    private static Account account(String accNo, double balance) {
+        Account a = new Account();
+        a.setAccountNumber(accNo);
+        a.setBalance(balance);
+        return a;
+    }
+
+    private void modifyReturns(Account... results) {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Account.class))).thenReturn(results[0], Arrays.copyOfRange(results, 1, results.length));
+    }
+
+    private Update capturedUpdate() {
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, atLeastOnce()).findAndModify(any(Query.class), update.capture(),
+                any(FindAndModifyOptions.class), eq(Account.class));
+        return update.getValue();
+    }
+
+    private Query capturedQuery() {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, atLeastOnce()).findAndModify(query.capture(), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Account.class));
+        return query.getValue();
+    }
+
     @BeforeEach
     void setup() {
         // Mockito will inject mocks into service via @InjectMocks
@@ -68,6 +113,35 @@ class AccountServiceImplTest {
         assertEquals(accNo, passed.getAccountNumber());
     }
 
+    @Test
+    void createAccount_drawsAnotherNumber_whenTheFirstIsTaken() {
+        when(accountRepo.save(any(Account.class)))
+                .thenThrow(new DuplicateKeyException("E11000"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        Account saved = service.createAccount("sachin");
+
+        verify(accountRepo, times(2)).save(any(Account.class));
+        assertTrue(saved.getAccountNumber().startsWith("SAC"));
+        verify(events).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void createAccount_widensTheSuffix_thenGivesUp_whenEveryNumberIsTaken() {
+        List<String> tried = new java.util.ArrayList<>();
+        when(accountRepo.save(any(Account.class))).thenAnswer(invocation -> {
+            tried.add(invocation.<Account>getArgument(0).getAccountNumber());
+            throw new DuplicateKeyException("E11000");
+        });
+
+        assertThrows(DuplicateKeyException.class, () -> service.createAccount("sachin"));
+
+        assertEquals(6, tried.size());
+        assertEquals(7, tried.get(0).length());
+        assertEquals(9, tried.get(tried.size() - 1).length());
+        verifyNoInteractions(events);
+    }
+
     @Test
     void getAccount_whenExists_returnsAccount() {
         // arrange
@@ -104,23 +178,18 @@ class AccountServiceImplTest {
     @Test
     void deposit_success_updatesBalance_andCreatesTransaction() {
         // arrange
-        Account a = new Account();
-        a.setAccountNumber("A1");
-        a.setHolderName("Alice");
-        a.setBalance(100.0);
-
-        when(accountRepo.findByAccountNumber("A1")).thenReturn(a);
-        when(accountRepo.save(any(Account.class))).thenAnswer(i -> i.getArgument(0));
+        modifyReturns(account("A1", 150.0));
         when(txnRepo.save(any(Transaction.class))).thenAnswer(i -> i.getArgument(0));
 
         // act
         Account updated = service.deposit("A1", 50.0);
 
-        // assert
+        // assert: an $inc on the live account, never a save of the whole document
         assertEquals(150.0, updated.getBalance());
-        verify(accountRepo).save(accountCaptor.capture());
-        Account saved = accountCaptor.getValue();
-        assertEquals(150.0, saved.getBalance());
+        Document inc = (Document) capturedUpdate().getUpdateObject().get("$inc");
+        assertEquals(50.0, inc.get("balance"));
+        assertEquals(new Document("$ne", 2), capturedQuery().getQueryObject().get("status"));
+        verify(accountRepo, never()).save(any());
 
         verify(txnRepo, times(1)).save(txnCaptor.capture());
         Transaction t = txnCaptor.getValue();
@@ -141,15 +210,14 @@ class AccountServiceImplTest {
 
     @Test
     void withdraw_withInsufficientBalance_throwsInsufficientBalanceException() {
-        Account a = new Account();
-        a.setAccountNumber("B1");
-        a.setBalance(30.0);
-        when(accountRepo.findByAccountNumber("B1")).thenReturn(a);
+        // the conditional update matches nothing, and the account does exist
+        modifyReturns((Account) null);
+        when(accountRepo.findByAccountNumber("B1")).thenReturn(account("B1", 30.0));
 
         InsufficientBalanceException ex = assertThrows(InsufficientBalanceException.class,
                 () -> service.withdraw("B1", 50.0));
         assertTrue(ex.getMessage().toLowerCase().contains("low balance"));
-        // withdraw should call getAccount but should not save when failing
+        assertEquals(new Document("$gte", 50.0), capturedQuery().getQueryObject().get("balance"));
         verify(accountRepo).findByAccountNumber("B1");
         verify(accountRepo, never()).save(any());
         verify(txnRepo, never()).save(any());
@@ -157,19 +225,15 @@ class AccountServiceImplTest {
 
     @Test
     void withdraw_success_updatesBalance_andCreatesTransaction() {
-        Account a = new Account();
-        a.setAccountNumber("B2");
-        a.setBalance(200.0);
-
-        when(accountRepo.findByAccountNumber("B2")).thenReturn(a);
-        when(accountRepo.save(any(Account.class))).thenAnswer(i -> i.getArgument(0));
+        modifyReturns(account("B2", 124.5));
         when(txnRepo.save(any(Transaction.class))).thenAnswer(i -> i.getArgument(0));
 
         Account after = service.withdraw("B2", 75.5);
         assertEquals(124.5, after.getBalance(), 1e-9);
 
-        verify(accountRepo).save(accountCaptor.capture());
-        assertEquals(124.5, accountCaptor.getValue().getBalance(), 1e-9);
+        Document inc = (Document) capturedUpdate().getUpdateObject().get("$inc");
+        assertEquals(-75.5, inc.get("balance"));
+        verify(accountRepo, never()).save(any());
 
         verify(txnRepo, times(1)).save(txnCaptor.capture());
         assertEquals("WITHDRAW", txnCaptor.getValue().getType());
@@ -187,32 +251,16 @@ class AccountServiceImplTest {
 
     @Test
     void transfer_success_movesMoney_andCreatesThreeTransactions() {
-        // arrange accounts
-        Account from = new Account();
-        from.setAccountNumber("F1");
-        from.setBalance(500.0);
-
-        Account to = new Account();
-        to.setAccountNumber("T1");
-        to.setBalance(100.0);
-
-        // findByAccountNumber used by getAccount inside withdraw/deposit
-        when(accountRepo.findByAccountNumber("F1")).thenReturn(from);
-        when(accountRepo.findByAccountNumber("T1")).thenReturn(to);
-
-        // save should echo the account
-        when(accountRepo.save(any(Account.class))).thenAnswer(i -> i.getArgument(0));
+        // the withdraw and the deposit each return the account after its update
+        modifyReturns(account("F1", 300.0), account("T1", 300.0));
         when(txnRepo.save(any(Transaction.class))).thenAnswer(i -> i.getArgument(0));
 
         // act
         service.transfer("F1", "T1", 200.0);
 
-        // assert balances updated
-        assertEquals(300.0, from.getBalance());
-        assertEquals(300.0, to.getBalance());
-
-        // verify account saves happened for withdraw and deposit (at least twice)
-        verify(accountRepo, atLeast(2)).save(any(Account.class));
+        // verify both balances moved with a conditional update
+        verify(mongoTemplate, times(2)).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Account.class));
 
         // verify transactions: withdraw, deposit and transfer => 3 saves
         verify(txnRepo, times(3)).save(txnCaptor.capture());
@@ -226,36 +274,66 @@ class AccountServiceImplTest {
     }
 
     @Test
-    void getAllAccounts_delegatesToRepository() {
+    void getAllAccounts_readsFromASecondary_withoutDeletedAccounts() {
         Account a1 = new Account();
         Account a2 = new Account();
-        when(accountRepo.findAll()).thenReturn(List.of(a1, a2));
+        when(mongoTemplate.find(any(Query.class), eq(Account.class))).thenReturn(List.of(a1, a2));
 
         List<Account> all = service.getAllAccounts();
         assertEquals(2, all.size());
-        verify(accountRepo).findAll();
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Account.class));
+        assertEquals(new Document("$ne", 2), query.getValue().getQueryObject().get("status"));
+        assertTrue(query.getValue().getReadPreference().isSecondaryOk());
+        verify(accountRepo, never()).findAll();
     }
 
     @Test
-    void deleteAccount_existingAccount_deletesAndDoesNotThrow() {
+    void deleteAccount_existingAccount_marksItDeleted_withoutRemovingIt() {
         // arrange
         String acctNum = "ACC123";
-        Account account = new Account();
-        account.setAccountNumber(acctNum);
-        when(accountRepo.findByAccountNumber(acctNum)).thenReturn(account);
+        Account deleted = account(acctNum, 0);
+        deleted.setStatus("DELETED");
+        modifyReturns(deleted);
 
         // act & assert (no exception)
         assertDoesNotThrow(() -> service.deleteAccount(acctNum));
 
-        // verify deletion called
-        verify(accountRepo, times(1)).delete(account);
+        // soft delete: only status and deletedAt are set, and only while the account is live
+        Document set = (Document) capturedUpdate().getUpdateObject().get("$set");
+        assertEquals(Set.of("status", "deletedAt"), set.keySet());
+        assertEquals("DELETED", set.get("status"));
+        assertEquals(new Document("$ne", 2), capturedQuery().getQueryObject().get("status"));
+        verify(accountRepo, never()).save(any());
+        verify(accountRepo, never()).delete(any());
+    }
+
+    @Test
+    void deletedAccount_isHiddenFromReads_andRejectsMutations() {
+        String acctNum = "ACC123";
+        Account account = new Account();
+        account.setAccountNumber(acctNum);
+        account.setBalance(500.0);
+        account.setStatus("DELETED");
+        when(accountRepo.findByAccountNumber(acctNum)).thenReturn(account);
+        // the writes are conditional on status != DELETED, so they match nothing
+        lenient().when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Account.class))).thenReturn(null);
+
+        assertThrows(AccountNotFoundException.class, () -> service.getAccount(acctNum));
+        assertThrows(AccountNotFoundException.class, () -> service.deposit(acctNum, 10.0));
+        assertThrows(AccountNotFoundException.class, () -> service.withdraw(acctNum, 10.0));
+        assertThrows(AccountNotFoundException.class, () -> service.updateHolderName(acctNum, "New Name"));
+        assertThrows(AccountNotFoundException.class, () -> service.deleteAccount(acctNum));
+        verify(accountRepo, never()).save(any());
+        verifyNoInteractions(txnRepo);
     }
 
     @Test
     void deleteAccount_nonExistingAccount_throwsAccountNotFoundException() {
         // arrange
         String acctNum = "NOT_FOUND";
-        when(accountRepo.findByAccountNumber(acctNum)).thenReturn(null);
+        modifyReturns((Account) null);
 
         // act & assert
         AccountNotFoundException ex = assertThrows(AccountNotFoundException.class,
@@ -281,7 +359,7 @@ class AccountServiceImplTest {
         saved.setHolderName(newName.trim());
 
         when(accountRepo.findByAccountNumber(acctNum)).thenReturn(existing);
-        when(accountRepo.save(any(Account.class))).thenReturn(saved);
+        modifyReturns(saved);
 
         // act
         Account result = service.updateHolderName(acctNum, newName);
@@ -290,10 +368,11 @@ class AccountServiceImplTest {
         assertNotNull(result);
         assertEquals(newName.trim(), result.getHolderName());
 
-        // capture the saved entity to ensure setHolderName was called with trimmed value
-        ArgumentCaptor<Account> captor = ArgumentCaptor.forClass(Account.class);
-        verify(accountRepo).save(captor.capture());
-        assertEquals(newName.trim(), captor.getValue().getHolderName());
+        // only the name fields are set, with the trimmed value
+        Document set = (Document) capturedUpdate().getUpdateObject().get("$set");
+        assertEquals(newName.trim(), set.get("holderName"));
+        assertEquals("alice smith", set.get("holderNameNormalized"));
+        verify(accountRepo, never()).save(any());
     }
 
     @Test
@@ -326,4 +405,24 @@ class AccountServiceImplTest {
         verify(accountRepo).findByAccountNumber(acctNum);
         verify(accountRepo, never()).save(any());
     }
+
+    @Test
+    void updateHolderName_publishesRenameWithPreviousName() {
+        Account existing = new Account();
+        existing.setAccountNumber("ACC456");
+        existing.setHolderName("Old Name");
+        when(accountRepo.findByAccountNumber("ACC456")).thenReturn(existing);
+        Account renamed = account("ACC456", 0);
+        renamed.setHolderName("New Name");
+        modifyReturns(renamed);
+
+        service.updateHolderName("ACC456", "New Name");
+
+        ArgumentCaptor<AccountEvent> captor = ArgumentCaptor.forClass(AccountEvent.class);
+        verify(events).publishEvent(captor.capture());
+        assertEquals(AccountEvent.Kind.RENAMED, captor.getValue().getKind());
+        assertEquals("Old Name", captor.getValue().getPreviousHolderName());
+        assertEquals("New Name", captor.getValue().getHolderName());
+        assertEquals("new name", renamed.getHolderNameNormalized());
+    }
 }
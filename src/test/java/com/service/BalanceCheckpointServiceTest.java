@@ -0,0 +1,231 @@
+package com.service;
+
+import com.config.MongoBulkheads;
+import com.config.ReadRouting;
+import com.dto.BalanceAsOf;
+import com.exception.AccountNotFoundException;
+import com.exception.InvalidRequestException;
+import com.model.Account;
+import com.model.BalanceCheckpoint;
+import com.model.Transaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceCheckpointServiceTest {
+
+    private static final Date MAR_1 = Date.from(Instant.parse("2026-03-01T00:00:00Z"));
+    private static final Date MAR_2 = Date.from(Instant.parse("2026-03-02T00:00:00Z"));
+    private static final Date MAR_3 = Date.from(Instant.parse("2026-03-03T00:00:00Z"));
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private AccountService accountService;
+
+    @Mock
+    private TransactionArchiveService archive;
+
+    @Mock
+    private BulkOperations upserts;
+
+    private final MongoBulkheads bulkheads = new MongoBulkheads(new SimpleMeterRegistry(), 8, 1, 8, 1_000, 8, 1, 8, 1_000);
+
+    private BalanceCheckpointService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new BalanceCheckpointService(mongoTemplate, accountService, archive, bulkheads,
+                new ReadRouting(true, 90), true, 90, 100);
+    }
+
+    private static Transaction txn(String id, String type, double amount) {
+        Transaction t = new Transaction();
+        t.setId(id);
+        t.setType(type);
+        t.setAmount(amount);
+        return t;
+    }
+
+    private static AggregationResults<Document> rows(Document... rows) {
+        return new AggregationResults<>(List.of(rows), new Document());
+    }
+
+    private static Document day(String accNo, String day, double net) {
+        return new Document("_id", new Document(Transaction.Fields.SOURCE_ACCOUNT, accNo).append("day", day))
+                .append("net", net);
+    }
+
+    @Test
+    void balanceAt_appliesOnlyTheRowsAfterTheNearestCheckpoint() {
+        when(accountService.getAccount("ACC1")).thenReturn(new Account());
+        BalanceCheckpoint checkpoint = new BalanceCheckpoint();
+        checkpoint.setClosedAt(MAR_2);
+        checkpoint.setBalance(100);
+        when(mongoTemplate.findOne(any(Query.class), eq(BalanceCheckpoint.class))).thenReturn(checkpoint);
+        when(mongoTemplate.find(any(Query.class), eq(Transaction.class)))
+                .thenReturn(List.of(txn("1", "DEPOSIT", 50), txn("2", "WITHDRAW", 20), txn("3", "INTEREST", 1.5)));
+        Date asOf = Date.from(Instant.parse("2026-03-02T12:00:00Z"));
+
+        BalanceAsOf result = service.balanceAt("ACC1", asOf);
+
+        assertEquals(131.5, result.getBalance());
+        assertEquals(MAR_2, result.getCheckpointAt());
+        assertEquals(3, result.getTransactionsApplied());
+        ArgumentCaptor<Query> rows = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(rows.capture(), eq(Transaction.class));
+        Document range = (Document) rows.getValue().getQueryObject().get("timestamp");
+        assertEquals(MAR_2, range.get("$gte"));
+        assertEquals(asOf, range.get("$lte"));
+        assertTrue(rows.getValue().getReadPreference().isSecondaryOk());
+    }
+
+    @Test
+    void balanceAt_withoutCheckpoint_replaysFromTheBeginningAcrossBothTiers() {
+        when(accountService.getAccount("ACC1")).thenReturn(new Account());
+        when(archive.isEnabled()).thenReturn(true);
+        when(mongoTemplate.find(any(Query.class), eq(Transaction.class))).thenReturn(List.of(txn("1", "DEPOSIT", 50)));
+        when(mongoTemplate.find(any(Query.class), eq(Transaction.class), eq(TransactionArchiveService.ARCHIVE_COLLECTION)))
+                .thenReturn(List.of(txn("0", "DEPOSIT", 10), txn("1", "DEPOSIT", 50)));
+
+        BalanceAsOf result = service.balanceAt("ACC1", MAR_3);
+
+        assertEquals(60.0, result.getBalance());
+        assertNull(result.getCheckpointAt());
+        assertEquals(2, result.getTransactionsApplied());
+    }
+
+    @Test
+    void balanceAt_withoutAsOf_isTheCurrentBalance() {
+        Account account = new Account();
+        account.setBalance(42);
+        when(accountService.getAccount("ACC1")).thenReturn(account);
+
+        assertEquals(42.0, service.balanceAt("ACC1", null).getBalance());
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void balanceAt_rejectsFutureInstantsAndUnknownAccounts() {
+        when(accountService.getAccount("ACC1")).thenReturn(new Account());
+        when(accountService.getAccount("NOP0000")).thenThrow(new AccountNotFoundException("Account does not exist"));
+
+        assertThrows(InvalidRequestException.class,
+                () -> service.balanceAt("ACC1", new Date(System.currentTimeMillis() + 60_000)));
+        assertThrows(AccountNotFoundException.class, () -> service.balanceAt("NOP0000", MAR_1));
+    }
+
+    @Test
+    void writeCheckpoints_closesEachActiveDayFromTheOpeningBalance() {
+        when(mongoTemplate.findById("daily", Document.class, BalanceCheckpointService.RUN_COLLECTION))
+                .thenReturn(new Document("through", MAR_1));
+        when(mongoTemplate.getCollectionName(Transaction.class)).thenReturn("transactions");
+        when(mongoTemplate.aggregateStream(any(Aggregation.class), eq("transactions"), eq(Document.class)))
+                .thenReturn(Stream.of(new Document("_id", "A2"), new Document("_id", "A1")));
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq("transactions"), eq(Document.class)))
+                .thenReturn(rows(day("A1", "2026-03-01", 50), day("A1", "2026-03-02", -20), day("A2", "2026-03-02", 10)))
+                // A2 has no checkpoint yet: its opening balance is its ledger net before the first day
+                .thenReturn(rows(new Document("_id", "A2").append("net", 5.0)));
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(BalanceCheckpoint.class), eq(Document.class)))
+                .thenReturn(rows(new Document("_id", "A1").append("balance", 100.0)));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, BalanceCheckpoint.class)).thenReturn(upserts);
+
+        Map<String, Object> result = service.writeCheckpoints(MAR_3);
+
+        assertEquals(3L, result.get("checkpoints"));
+        ArgumentCaptor<Query> ids = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(upserts, times(3)).upsert(ids.capture(), updates.capture());
+        Map<Object, Object> balances = new HashMap<>();
+        Map<Object, Object> closedAt = new HashMap<>();
+        for (int i = 0; i < 3; i++) {
+            Object id = ids.getAllValues().get(i).getQueryObject().get("_id");
+            Document set = (Document) updates.getAllValues().get(i).getUpdateObject().get("$set");
+            balances.put(id, set.get("balance"));
+            closedAt.put(id, set.get("closedAt"));
+        }
+        assertEquals(Map.of("A1:2026-03-01", 150.0, "A1:2026-03-02", 130.0, "A2:2026-03-02", 15.0), balances);
+        assertEquals(MAR_2, closedAt.get("A1:2026-03-01"));
+        assertEquals(MAR_3, closedAt.get("A1:2026-03-02"));
+        verify(upserts).execute();
+        verify(mongoTemplate).upsert(any(Query.class), any(Update.class), eq(BalanceCheckpointService.RUN_COLLECTION));
+    }
+
+    @Test
+    void writeCheckpoints_firstRun_opensEveryLiveAccountAtTheStartOfTheBackfill() {
+        service = new BalanceCheckpointService(mongoTemplate, accountService, archive, bulkheads,
+                new ReadRouting(true, 90), true, 1, 100);
+        Account quiet = new Account();
+        quiet.setAccountNumber("Q1");
+        Account active = new Account();
+        active.setAccountNumber("A1");
+        when(mongoTemplate.stream(any(Query.class), eq(Account.class))).thenReturn(Stream.of(quiet, active));
+        when(mongoTemplate.getCollectionName(Transaction.class)).thenReturn("transactions");
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq("transactions"), eq(Document.class)))
+                .thenReturn(rows(new Document("_id", "Q1").append("net", 40.0)));
+        when(mongoTemplate.aggregateStream(any(Aggregation.class), eq("transactions"), eq(Document.class)))
+                .thenReturn(Stream.empty());
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, BalanceCheckpoint.class)).thenReturn(upserts);
+
+        Map<String, Object> result = service.writeCheckpoints(MAR_3);
+
+        assertEquals(MAR_2, result.get("from"));
+        assertEquals(2L, result.get("checkpoints"));
+        ArgumentCaptor<Query> ids = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(upserts, times(2)).upsert(ids.capture(), updates.capture());
+        assertEquals("Q1:2026-03-01", ids.getAllValues().get(0).getQueryObject().get("_id"));
+        Document opening = (Document) updates.getAllValues().get(0).getUpdateObject().get("$set");
+        assertEquals(40.0, opening.get("balance"));
+        assertEquals(MAR_2, opening.get("closedAt"));
+        assertEquals(0.0, ((Document) updates.getAllValues().get(1).getUpdateObject().get("$set")).get("balance"));
+    }
+
+    @Test
+    void writeCheckpoints_skipsDaysAlreadyClosed() {
+        when(mongoTemplate.findById("daily", Document.class, BalanceCheckpointService.RUN_COLLECTION))
+                .thenReturn(new Document("through", MAR_3));
+
+        assertEquals(0L, service.writeCheckpoints(MAR_3).get("checkpoints"));
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(BalanceCheckpoint.class));
+    }
+
+    @Test
+    void dailyNets_groupsLedgerRowsByAccountAndUtcDay() {
+        List<Document> pipeline = BalanceCheckpointService.dailyNets(List.of("A1"), MAR_1, MAR_3)
+                .toPipeline(Aggregation.DEFAULT_CONTEXT);
+
+        Document match = (Document) pipeline.get(0).get("$match");
+        Document range = (Document) match.get(Transaction.Fields.TIMESTAMP);
+        assertEquals(MAR_1, range.get("$gte"));
+        assertEquals(MAR_3, range.get("$lt"));
+        assertTrue(pipeline.get(1).toJson().contains("%Y-%m-%d"));
+        Document groupId = (Document) ((Document) pipeline.get(2).get("$group")).get("_id");
+        assertEquals(List.of(Transaction.Fields.SOURCE_ACCOUNT, "day"), List.copyOf(groupId.keySet()));
+    }
+}
@@ -0,0 +1,121 @@
+package com.service;
+
+import com.config.MongoIndexInitializer;
+import com.config.TransactionTimeSeriesConfig;
+import com.model.Account;
+import com.model.StorageCodes;
+import com.model.Transaction;
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.ListCollectionsIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+class CompactSchemaMigrationTest {
+
+    private static final Map<String, StorageCodes> TRANSACTION_CODES = Map.of(
+            Transaction.Fields.TYPE, StorageCodes.TRANSACTION_TYPE,
+            Transaction.Fields.STATUS, StorageCodes.TRANSACTION_STATUS);
+
+    @Test
+    void legacyTransactionGetsShortNamesAndCodes_withoutClassHint() {
+        Date when = new Date();
+        Document legacy = new Document("_id", "t1")
+                .append("transactionId", "TXN-1")
+                .append("type", "WITHDRAW")
+                .append("amount", 12.5)
+                .append("timestamp", when)
+                .append("status", "SUCCESS")
+                .append("sourceAccount", "ACC1")
+                .append("_class", "com.model.Transaction");
+
+        Document compact = CompactSchemaMigration.compact(legacy, CompactSchemaMigration.TRANSACTION_FIELDS,
+                TRANSACTION_CODES);
+
+        assertEquals(new Document("_id", "t1")
+                .append(Transaction.Fields.TRANSACTION_ID, "TXN-1")
+                .append(Transaction.Fields.TYPE, 2)
+                .append(Transaction.Fields.AMOUNT, 12.5)
+                .append(Transaction.Fields.TIMESTAMP, when)
+                .append(Transaction.Fields.STATUS, 1)
+                .append(Transaction.Fields.SOURCE_ACCOUNT, "ACC1"), compact);
+    }
+
+    @Test
+    void compactDocumentIsCopiedUnchanged() {
+        Document compact = new Document("_id", "a1")
+                .append(Account.Fields.ACCOUNT_NUMBER, "ACC1")
+                .append(Account.Fields.STATUS, 1)
+                .append(Account.Fields.BALANCE, 10.0);
+
+        assertEquals(compact, CompactSchemaMigration.compact(compact, CompactSchemaMigration.ACCOUNT_FIELDS,
+                Map.of(Account.Fields.STATUS, StorageCodes.ACCOUNT_STATUS)));
+    }
+
+    @Test
+    void timeSeriesCollectionIsCopiedAsideAndRecreated_neverRenamed() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        MongoDatabase db = mock(MongoDatabase.class);
+        @SuppressWarnings("unchecked")
+        ListCollectionsIterable<Document> listing = mock(ListCollectionsIterable.class);
+        @SuppressWarnings("unchecked")
+        MongoCollection<Document> transactions = mock(MongoCollection.class);
+        @SuppressWarnings("unchecked")
+        MongoCollection<Document> legacy = mock(MongoCollection.class);
+        @SuppressWarnings("unchecked")
+        FindIterable<Document> found = mock(FindIterable.class);
+        @SuppressWarnings("unchecked")
+        MongoCursor<Document> cursor = mock(MongoCursor.class);
+        when(mongoTemplate.getCollectionName(Account.class)).thenReturn("accounts");
+        when(mongoTemplate.getCollectionName(Transaction.class)).thenReturn("transactions");
+        when(mongoTemplate.collectionExists("transactions")).thenReturn(true);
+        when(mongoTemplate.getDb()).thenReturn(db);
+        when(db.getName()).thenReturn("bankdb");
+        when(db.listCollections()).thenReturn(listing);
+        when(listing.filter(any(Bson.class))).thenReturn(listing);
+        when(listing.first()).thenReturn(new Document("type", "timeseries"));
+        when(mongoTemplate.getCollection("transactions")).thenReturn(transactions);
+        when(mongoTemplate.getCollection(startsWith("transactions_legacy_"))).thenReturn(legacy);
+        when(transactions.find()).thenReturn(found);
+        when(legacy.find()).thenReturn(found);
+        when(found.sort(any(Bson.class))).thenReturn(found);
+        when(found.batchSize(anyInt())).thenReturn(found);
+        when(found.iterator()).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, false, true, false);
+        when(cursor.next()).thenReturn(new Document("_id", "t1").append("type", "DEPOSIT"));
+        when(transactions.countDocuments()).thenReturn(1L);
+        when(legacy.countDocuments()).thenReturn(1L);
+        CompactSchemaMigration migration = new CompactSchemaMigration(mongoTemplate,
+                new TransactionTimeSeriesConfig(true, Granularity.SECONDS), mock(MongoIndexInitializer.class), 100);
+
+        migration.migrate();
+
+        InOrder order = inOrder(mongoTemplate, legacy, transactions);
+        order.verify(mongoTemplate).createCollection(startsWith("transactions_legacy_"));
+        order.verify(legacy).insertMany(eq(List.of(new Document("_id", "t1").append("type", "DEPOSIT"))), any());
+        order.verify(mongoTemplate).dropCollection("transactions");
+        order.verify(mongoTemplate).createCollection(eq("transactions"), any(CollectionOptions.class));
+        order.verify(transactions).insertMany(eq(List.of(new Document("_id", "t1")
+                .append(Transaction.Fields.TYPE, StorageCodes.TRANSACTION_TYPE.toStored("DEPOSIT")))), any());
+        verify(transactions, never()).renameCollection(any(MongoNamespace.class));
+    }
+}
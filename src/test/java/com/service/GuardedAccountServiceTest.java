@@ -0,0 +1,177 @@
+package com.service;
+
+import com.config.MongoBulkheads;
+import com.exception.AccountNotFoundException;
+import com.exception.InsufficientBalanceException;
+import com.exception.ServiceOverloadedException;
+import com.exception.VelocityLimitExceededException;
+import com.model.Account;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GuardedAccountServiceTest {
+
+    @Mock
+    private AccountServiceImpl delegate;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private SimpleMeterRegistry registry;
+    private AccountNumberFilter accountNumbers;
+    private VelocityLimits velocityLimits;
+    private GuardedAccountService service;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        // one permit per pool so saturation is easy to provoke
+        MongoBulkheads bulkheads = new MongoBulkheads(registry, 1, 1, 1, 1_000, 1, 1, 1, 1_000);
+        accountNumbers = new AccountNumberFilter(mongoTemplate, registry, true, 1_000, 0.01);
+        // at most two debits per minute
+        velocityLimits = new VelocityLimits(registry, true, 12, 1_000, 60_000, 2, 0, 86_400_000, 0, 0);
+        service = new GuardedAccountService(delegate, bulkheads, accountNumbers, velocityLimits);
+    }
+
+    @Test
+    void delegatesEveryOperation() {
+        Account account = new Account();
+        when(delegate.getAccount("A1")).thenReturn(account);
+        when(delegate.deposit("A1", 10.0)).thenReturn(account);
+        when(delegate.getAllAccounts()).thenReturn(List.of(account));
+
+        assertSame(account, service.getAccount("A1"));
+        assertSame(account, service.deposit("A1", 10.0));
+        assertEquals(1, service.getAllAccounts().size());
+        service.transfer("A1", "B1", 5.0);
+        service.deleteAccount("A1");
+
+        verify(delegate).transfer("A1", "B1", 5.0);
+        verify(delegate).deleteAccount("A1");
+    }
+
+    @Test
+    void saturatedReadPoolFailsFast_whileWritesKeepFlowing() throws Exception {
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.getAllAccounts()).thenAnswer(inv -> {
+            inside.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        Account account = new Account();
+        when(delegate.deposit("A1", 10.0)).thenReturn(account);
+
+        Thread scan = new Thread(service::getAllAccounts);
+        scan.start();
+        assertTrue(inside.await(5, TimeUnit.SECONDS));
+
+        assertThrows(ServiceOverloadedException.class, () -> service.getAccount("A1"));
+        assertSame(account, service.deposit("A1", 10.0));
+
+        release.countDown();
+        scan.join();
+        assertEquals(1.0, registry.get("bank.bulkhead.rejected").tag("pool", "read").counter().count());
+        verify(delegate, never()).getAccount("A1");
+    }
+
+    @Test
+    void timeoutsPropagateAndReleaseThePermit() {
+        when(delegate.getAccount("A1")).thenThrow(new QueryTimeoutException("slow"));
+        Account account = new Account();
+        when(delegate.getAccount("B1")).thenReturn(account);
+
+        assertThrows(QueryTimeoutException.class, () -> service.getAccount("A1"));
+        assertSame(account, service.getAccount("B1"));
+    }
+
+    @Test
+    void numbersRuledOutByTheFilter_failWithoutTouchingTheDelegate() {
+        Account existing = new Account();
+        existing.setAccountNumber("ALI1234");
+        when(mongoTemplate.stream(any(Query.class), eq(Account.class))).thenReturn(Stream.of(existing));
+        accountNumbers.build();
+        when(delegate.getAccount("ALI1234")).thenReturn(existing);
+
+        assertSame(existing, service.getAccount("ALI1234"));
+        assertThrows(AccountNotFoundException.class, () -> service.getAccount("XYZ0000"));
+        assertThrows(AccountNotFoundException.class, () -> service.transfer("ALI1234", "XYZ0000", 5.0));
+        verify(delegate, never()).getAccount("XYZ0000");
+        verify(delegate, never()).transfer(any(), any(), anyDouble());
+        assertEquals(2.0, registry.get("bank.bloom.negative").counter().count());
+    }
+
+    @Test
+    void createdAccounts_becomeVisible_andDeletedOnesAreRuledOut() {
+        when(mongoTemplate.stream(any(Query.class), eq(Account.class))).thenReturn(Stream.empty());
+        accountNumbers.build();
+        Account created = new Account();
+        created.setAccountNumber("NEW1234");
+        when(delegate.getAccount("NEW1234")).thenReturn(created);
+
+        accountNumbers.onAccountEvent(AccountEvent.created(created));
+        assertSame(created, service.getAccount("NEW1234"));
+
+        accountNumbers.onAccountEvent(AccountEvent.deleted(created));
+        assertThrows(AccountNotFoundException.class, () -> service.getAccount("NEW1234"));
+    }
+
+    @Test
+    void debitsOverTheVelocityLimit_areRejectedBeforeTheDelegate() {
+        Account account = new Account();
+        when(delegate.withdraw("A1", 10.0)).thenReturn(account);
+
+        service.withdraw("A1", 10.0);
+        service.transfer("A1", "B1", 10.0);
+
+        assertThrows(VelocityLimitExceededException.class, () -> service.withdraw("A1", 10.0));
+        verify(delegate, times(1)).withdraw("A1", 10.0);
+        // deposits are not limited, and neither are other accounts
+        service.deposit("A1", 10.0);
+        service.withdraw("B1", 10.0);
+        verify(delegate).withdraw("B1", 10.0);
+    }
+
+    @Test
+    void debitsThatMoveNoMoney_doNotCountTowardsTheLimit() {
+        when(delegate.withdraw("A1", 10.0)).thenThrow(new InsufficientBalanceException("Low balance!"));
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(InsufficientBalanceException.class, () -> service.withdraw("A1", 10.0));
+        }
+        verify(delegate, times(3)).withdraw("A1", 10.0);
+    }
+
+    @Test
+    void transfersFromAMissingSource_areRejectedBeforeAnythingIsReserved() {
+        when(delegate.getAccount("A1")).thenThrow(new AccountNotFoundException("Account does not exist"));
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(AccountNotFoundException.class, () -> service.transfer("A1", "B1", 10.0));
+        }
+        verify(delegate, never()).transfer(any(), any(), anyDouble());
+        // the limit of two debits is still untouched
+        service.withdraw("A1", 10.0);
+        service.withdraw("A1", 10.0);
+        verify(delegate, times(2)).withdraw("A1", 10.0);
+    }
+}
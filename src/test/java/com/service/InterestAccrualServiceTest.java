@@ -0,0 +1,120 @@
+package com.service;
+
+import com.dto.InterestRunRequest;
+import com.exception.InvalidRequestException;
+import com.model.Account;
+import com.model.Transaction;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InterestAccrualServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ApplicationEventPublisher events;
+
+    @Mock
+    private BulkOperations ops;
+
+    private InterestAccrualService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new InterestAccrualService(mongoTemplate, events, 4, 1, 100);
+    }
+
+    private static Account account(String number, double balance) {
+        Account a = new Account();
+        a.setId(new ObjectId().toHexString());
+        a.setAccountNumber(number);
+        a.setBalance(balance);
+        return a;
+    }
+
+    @Test
+    void interestOn_usesExactDecimalsRoundedHalfEvenToCents() {
+        assertEquals(new BigDecimal("6.17"), InterestAccrualService.interestOn(1234.56, new BigDecimal("0.5")));
+        assertEquals(new BigDecimal("0.10"), InterestAccrualService.interestOn(0.1, new BigDecimal("100")));
+        assertEquals(new BigDecimal("0.00"), InterestAccrualService.interestOn(1.0, new BigDecimal("0.25")));
+        assertEquals(new BigDecimal("0.02"), InterestAccrualService.interestOn(3.0, new BigDecimal("0.5")));
+        assertEquals(0, InterestAccrualService.interestOn(-50, BigDecimal.ONE).signum());
+    }
+
+    @Test
+    void start_rejectsInvalidRunIdAndRate() {
+        InterestRunRequest badId = new InterestRunRequest();
+        badId.setRunId("2026/10");
+        badId.setRatePercent(BigDecimal.ONE);
+        assertThrows(InvalidRequestException.class, () -> service.start(badId));
+
+        InterestRunRequest badRate = new InterestRunRequest();
+        badRate.setRunId("2026-10");
+        badRate.setRatePercent(BigDecimal.ZERO);
+        assertThrows(InvalidRequestException.class, () -> service.start(badRate));
+    }
+
+    @Test
+    void processChunk_journalsOnce_andCreditsWithBulkInc() {
+        Account a1 = account("A1", 1000);
+        Account a2 = account("A2", 200);
+        Account empty = account("A3", 0);
+        when(mongoTemplate.find(any(Query.class), eq(Account.class))).thenReturn(List.of(a1, a2, empty));
+
+        // A1 was journaled by an interrupted attempt, with the balance it had then
+        Transaction previous = new Transaction();
+        previous.setTransactionId(InterestAccrualService.transactionId("2026-10", "A1"));
+        previous.setSourceAccount("A1");
+        previous.setAmount(4.5);
+        when(mongoTemplate.find(any(Query.class), eq(Transaction.class))).thenReturn(List.of(previous));
+
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Account.class)).thenReturn(ops);
+        BulkWriteResult result = mock(BulkWriteResult.class);
+        when(result.getModifiedCount()).thenReturn(2);
+        when(ops.execute()).thenReturn(result);
+
+        InterestAccrualService.Chunk chunk = new InterestAccrualService.Chunk(0, new ObjectId(), new ObjectId(),
+                true, false, 0, BigDecimal.ZERO);
+        InterestAccrualService.ChunkResult outcome = service.processChunk("2026-10", new BigDecimal("0.5"), chunk);
+
+        assertEquals(2, outcome.credited);
+        assertEquals(new BigDecimal("5.50"), outcome.interest);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Transaction>> journal = ArgumentCaptor.forClass(List.class);
+        verify(mongoTemplate).insert(journal.capture(), eq(Transaction.class));
+        assertEquals(1, journal.getValue().size());
+        Transaction inserted = journal.getValue().get(0);
+        assertEquals("INT-2026-10-A2", inserted.getTransactionId());
+        assertEquals("INTEREST", inserted.getType());
+        assertEquals(1.0, inserted.getAmount());
+
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(ops, times(2)).updateOne(any(Query.class), updates.capture());
+        Document firstInc = (Document) updates.getAllValues().get(0).getUpdateObject().get("$inc");
+        assertEquals(4.5, firstInc.get("balance"));
+        verify(events, times(2)).publishEvent(any(AccountEvent.class));
+    }
+}
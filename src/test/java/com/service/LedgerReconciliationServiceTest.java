@@ -0,0 +1,111 @@
+package com.service;
+
+import com.dto.ReconciliationStatus;
+import com.model.Account;
+import com.model.StorageCodes;
+import com.model.Transaction;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerReconciliationServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private LedgerReconciliationService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new LedgerReconciliationService(mongoTemplate, 100, 1, 0, 60_000);
+    }
+
+    private static AggregationResults<Document> nets(Document... rows) {
+        return new AggregationResults<>(List.of(rows), new Document());
+    }
+
+    @Test
+    void check_reportsAccountsWhoseBalanceDiffersFromLedgerNet() {
+        when(mongoTemplate.getCollectionName(Transaction.class)).thenReturn("transactions");
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq("transactions"), eq(Document.class)))
+                .thenReturn(nets(new Document("_id", "A1").append("net", 150.0),
+                        new Document("_id", "A2").append("net", 99.0)));
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(TransactionArchiveService.ARCHIVE_COLLECTION), eq(Document.class)))
+                .thenReturn(nets(new Document("_id", "A2").append("net", 1.0)));
+
+        List<LedgerReconciliationService.Mismatch> mismatches =
+                service.check(Map.of("A1", 150.001, "A2", 100.0, "A3", 0.0, "A4", 25.0), true);
+
+        assertEquals(1, mismatches.size());
+        assertEquals("A4", mismatches.get(0).accountNumber);
+        assertEquals(0.0, mismatches.get(0).ledgerNet);
+    }
+
+    @Test
+    void netPerAccount_subtractsWithdrawalsAndIgnoresTransferRows() {
+        List<Document> pipeline = LedgerReconciliationService.netPerAccount(List.of("A1"))
+                .toPipeline(Aggregation.DEFAULT_CONTEXT);
+
+        Document match = (Document) pipeline.get(0).get("$match");
+        List<Integer> ledgerTypes = StorageCodes.TRANSACTION_TYPE.codes(List.of("DEPOSIT", "WITHDRAW", "INTEREST"));
+        assertEquals(ledgerTypes, ((Document) match.get(Transaction.Fields.TYPE)).get("$in"));
+        assertFalse(ledgerTypes.contains(StorageCodes.TRANSACTION_TYPE.code("TRANSFER")));
+        assertTrue(pipeline.get(1).toJson().contains("$cond"));
+    }
+
+    @Test
+    void fullRun_skipsDeletedAccounts_whoseRowsMayAlreadyBePurged() {
+        when(mongoTemplate.stream(any(Query.class), eq(Account.class))).thenReturn(Stream.empty());
+        ReconciliationStatus status = new ReconciliationStatus("recon-1", ReconciliationStatus.Mode.FULL, null);
+
+        service.run(status, null, new Date());
+
+        ArgumentCaptor<Query> accounts = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).stream(accounts.capture(), eq(Account.class));
+        assertEquals(new Document("$ne", StorageCodes.ACCOUNT_STATUS.code(Account.DELETED)),
+                accounts.getValue().getQueryObject().get("status"));
+        assertEquals(ReconciliationStatus.State.COMPLETED, status.getState());
+    }
+
+    @Test
+    void nextSince_isLastRunStartMinusOverlap_orFullRunWithoutCheckpoint() {
+        when(mongoTemplate.findById("ledger", Document.class, LedgerReconciliationService.CHECKPOINT_COLLECTION))
+                .thenReturn(null)
+                .thenReturn(new Document("startedAt", new Date(1_000_000)));
+
+        assertNull(service.nextSince());
+        assertEquals(new Date(940_000), service.nextSince());
+    }
+
+    @Test
+    void touchedSince_combinesNewTransactionsAndBalanceChanges() {
+        when(mongoTemplate.getCollectionName(Transaction.class)).thenReturn("transactions");
+        when(mongoTemplate.aggregateStream(any(Aggregation.class), eq("transactions"), eq(Document.class)))
+                .thenReturn(Stream.of(new Document("_id", "B2"), new Document("_id", null), new Document("_id", "A1")));
+        Account changed = new Account();
+        changed.setAccountNumber("C3");
+        when(mongoTemplate.stream(any(Query.class), eq(Account.class))).thenReturn(Stream.of(changed));
+
+        assertEquals(List.of("A1", "B2", "C3"), List.copyOf(service.touchedSince(new Date(0))));
+        verify(mongoTemplate, never()).findDistinct(any(Query.class), anyString(), eq(Transaction.class), eq(String.class));
+    }
+}
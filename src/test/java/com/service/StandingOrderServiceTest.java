@@ -0,0 +1,161 @@
+package com.service;
+
+import com.dto.StandingOrderRequest;
+import com.exception.InsufficientBalanceException;
+import com.exception.InvalidRequestException;
+import com.exception.ServiceOverloadedException;
+import com.model.StandingOrder;
+import com.model.StandingOrder.Frequency;
+import com.model.StandingOrder.Status;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StandingOrderServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private AccountService accountService;
+
+    @Mock
+    private BulkOperations bulkOps;
+
+    private StandingOrderService service() {
+        return new StandingOrderService(mongoTemplate, accountService, 1_000, 64, 300_000, 100, 1, 1_000, 300_000, 5_000);
+    }
+
+    private static StandingOrder order(String id, Frequency frequency, String firstRunAt) {
+        StandingOrder order = new StandingOrder();
+        order.setId(id);
+        order.setFromAccount("SRC1");
+        order.setToAccount("DST1");
+        order.setAmount(25);
+        order.setFrequency(frequency);
+        order.setFirstRunAt(Date.from(Instant.parse(firstRunAt)));
+        order.setNextRunAt(order.getFirstRunAt());
+        return order;
+    }
+
+    private static StandingOrderRequest request(String from, String to, String frequency, Instant firstRunAt) {
+        StandingOrderRequest request = new StandingOrderRequest();
+        request.setFromAccount(from);
+        request.setToAccount(to);
+        request.setAmount(25);
+        request.setFrequency(frequency);
+        request.setFirstRunAt(firstRunAt);
+        return request;
+    }
+
+    @Test
+    void create_rejectsInvalidOrders() {
+        StandingOrderService service = service();
+
+        assertThrows(InvalidRequestException.class, () -> service.create(request("A1", "A1", "DAILY", null)));
+        assertThrows(InvalidRequestException.class, () -> service.create(request("A1", "A2", "HOURLY", null)));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void create_putsAnOrderDueSoonInTheWheel() {
+        when(mongoTemplate.insert(any(StandingOrder.class))).thenAnswer(inv -> {
+            StandingOrder order = inv.getArgument(0);
+            order.setId("SO" + order.getFirstRunAt().getTime());
+            return order;
+        });
+        StandingOrderService service = service();
+
+        StandingOrder soon = service.create(request("A1", "A2", "weekly", Instant.now().plusSeconds(60)));
+        service.create(request("A1", "A2", "ONCE", Instant.now().plusSeconds(86_400)));
+
+        assertEquals(Frequency.WEEKLY, soon.getFrequency());
+        assertEquals(soon.getFirstRunAt(), soon.getNextRunAt());
+        assertEquals(Status.ACTIVE, soon.getStatus());
+        verify(accountService, times(2)).getAccount("A1");
+        // the next day's order waits for a load
+        assertEquals(1, service.scheduledCount());
+    }
+
+    @Test
+    void monthlyOccurrences_areCountedFromTheFirstRun() {
+        StandingOrder order = order("SO1", Frequency.MONTHLY, "2026-01-31T09:00:00Z");
+        order.setEndsAt(Date.from(Instant.parse("2026-03-31T09:00:00Z")));
+
+        StandingOrderService.complete(order, new Update(), null, 0);
+        assertEquals(Instant.parse("2026-02-28T09:00:00Z"), order.getNextRunAt().toInstant());
+
+        StandingOrderService.complete(order, new Update(), null, 0);
+        assertEquals(Instant.parse("2026-03-31T09:00:00Z"), order.getNextRunAt().toInstant());
+        assertEquals(Status.ACTIVE, order.getStatus());
+
+        StandingOrderService.complete(order, new Update(), null, 0);
+        assertEquals(Status.COMPLETED, order.getStatus());
+        assertNull(order.getNextRunAt());
+        assertEquals(3, order.getOccurrences());
+    }
+
+    @Test
+    void execute_runsTheClaimedOrders_andRecordsEachOutcomeInOneBulk() {
+        Instant due = Instant.now().minusSeconds(1).truncatedTo(ChronoUnit.MILLIS);
+        StandingOrder daily = order("SO1", Frequency.DAILY, due.toString());
+        StandingOrder once = order("SO2", Frequency.ONCE, due.toString());
+        StandingOrder overloaded = order("SO3", Frequency.ONCE, due.toString());
+        overloaded.setFromAccount("BUSY");
+        when(mongoTemplate.find(any(Query.class), eq(StandingOrder.class))).thenReturn(List.of(daily, once, overloaded));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StandingOrder.class)).thenReturn(bulkOps);
+        doNothing().doThrow(new InsufficientBalanceException("Insufficient balance"))
+                .when(accountService).transfer("SRC1", "DST1", 25);
+        doThrow(new ServiceOverloadedException("busy")).when(accountService).transfer("BUSY", "DST1", 25);
+        StandingOrderService service = service();
+        long now = System.currentTimeMillis();
+
+        service.execute(List.of(new StandingOrderService.Slot("SO1", now), new StandingOrderService.Slot("SO2", now),
+                new StandingOrderService.Slot("SO3", now)), now);
+
+        verify(mongoTemplate).updateMulti(any(Query.class), any(Update.class), eq(StandingOrder.class));
+        assertEquals(due.plusSeconds(86_400), daily.getNextRunAt().toInstant());
+        assertNull(daily.getLastError());
+        assertEquals(Status.FAILED, once.getStatus());
+        assertEquals("Insufficient balance", once.getLastError());
+        // released without using up the occurrence, and back in the wheel for a retry
+        assertEquals(Status.ACTIVE, overloaded.getStatus());
+        assertEquals(0, overloaded.getOccurrences());
+        verify(bulkOps, times(3)).updateOne(any(Query.class), any(Update.class));
+        verify(bulkOps).execute();
+        assertEquals(1, service.scheduledCount());
+    }
+
+    @Test
+    void ordersLeftInFlight_skipTheInterruptedOccurrence_withoutTransferring() {
+        StandingOrder stale = order("SO1", Frequency.WEEKLY, "2026-10-12T08:00:00Z");
+        stale.setInFlightSince(Date.from(Instant.parse("2026-10-12T08:00:00Z")));
+        stale.setClaim("claim-1");
+        when(mongoTemplate.find(any(Query.class), eq(StandingOrder.class))).thenReturn(List.of(stale));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StandingOrder.class)).thenReturn(bulkOps);
+
+        service().recoverInterrupted(Instant.parse("2026-10-19T08:00:00Z").toEpochMilli());
+
+        assertEquals(StandingOrderService.INTERRUPTED, stale.getLastError());
+        assertEquals(Instant.parse("2026-10-19T08:00:00Z"), stale.getNextRunAt().toInstant());
+        verify(bulkOps).updateOne(any(Query.class), any(Update.class));
+        verify(bulkOps).execute();
+        verifyNoInteractions(accountService);
+    }
+}
@@ -0,0 +1,96 @@
+package com.service;
+
+import com.config.MongoBulkheads;
+import com.dto.TopAccount;
+import com.exception.InvalidRequestException;
+import com.model.Account;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TopAccountsServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private final MongoBulkheads bulkheads = new MongoBulkheads(new SimpleMeterRegistry(), 8, 1, 8, 1_000, 8, 1, 8, 1_000);
+
+    private TopAccountsService service(int capacity) {
+        return new TopAccountsService(mongoTemplate, bulkheads, 10, 2, capacity);
+    }
+
+    private static Account account(String number, double balance, long activity) {
+        Account a = new Account();
+        a.setAccountNumber(number);
+        a.setBalance(balance);
+        a.setActivity(activity);
+        return a;
+    }
+
+    private static List<String> numbers(List<TopAccount> rows) {
+        return rows.stream().map(TopAccount::getAccountNumber).toList();
+    }
+
+    @Test
+    void unknownRanking_isRejected() {
+        assertThrows(InvalidRequestException.class, () -> service(2).top("name", 2));
+    }
+
+    @Test
+    void beforeLoading_readsTheIndex() {
+        when(mongoTemplate.find(any(Query.class), eq(Account.class)))
+                .thenReturn(List.of(account("A1", 50, 0), account("A2", 40, 0)));
+
+        List<TopAccount> top = service(2).top("balance", 5);
+
+        assertEquals(List.of("A1", "A2"), numbers(top));
+        assertEquals(1, top.get(0).getRank());
+        assertEquals(50.0, top.get(0).getValue());
+    }
+
+    @Test
+    void afterLoading_eventsKeepTheRankingCurrent_withoutQueries() {
+        when(mongoTemplate.find(any(Query.class), eq(Account.class)))
+                .thenReturn(List.of(account("A1", 50, 3), account("A2", 40, 9)));
+        TopAccountsService service = service(2);
+        service.rebuild(TopAccountsService.Ranking.BALANCE);
+        service.rebuild(TopAccountsService.Ranking.ACTIVITY);
+        clearInvocations(mongoTemplate);
+
+        service.onAccountEvent(AccountEvent.balanceChanged(account("A3", 70, 1)));
+        service.onAccountEvent(AccountEvent.deleted(account("A2", 40, 9)));
+
+        assertEquals(List.of("A3", "A1"), numbers(service.top("balance", 2)));
+        // A3's single transaction is below the activity board's floor, so it is not tracked there
+        assertEquals(List.of("A1"), numbers(service.top("ACTIVITY", 1)));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void droppedLeader_withAccountsLeftOut_triggersReload() throws Exception {
+        // capacity 2 but three accounts: A3 is left out with 30
+        when(mongoTemplate.find(any(Query.class), eq(Account.class)))
+                .thenReturn(List.of(account("A1", 50, 0), account("A2", 40, 0), account("A3", 30, 0)));
+        TopAccountsService service = service(2);
+        service.rebuild(TopAccountsService.Ranking.BALANCE);
+        clearInvocations(mongoTemplate);
+
+        service.onAccountEvent(AccountEvent.balanceChanged(account("A2", 10, 1)));
+        service.top("balance", 2);
+
+        verify(mongoTemplate, timeout(1_000)).find(any(Query.class), eq(Account.class));
+        service.shutdown();
+    }
+}
@@ -0,0 +1,88 @@
+package com.service;
+
+import com.model.Transaction;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionArchiveServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations archiveOps;
+
+    private TransactionArchiveService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new TransactionArchiveService(mongoTemplate, true, 365, 2, 0);
+    }
+
+    private static Transaction txn(String id) {
+        Transaction t = new Transaction();
+        t.setId(id);
+        return t;
+    }
+
+    @Test
+    void archive_copiesThenDeletesInBoundedBatches() {
+        when(mongoTemplate.find(any(Query.class), eq(Transaction.class)))
+                .thenReturn(List.of(txn("1"), txn("2")))
+                .thenReturn(List.of(txn("3")));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Transaction.class,
+                TransactionArchiveService.ARCHIVE_COLLECTION)).thenReturn(archiveOps);
+        when(archiveOps.insert(anyList())).thenReturn(archiveOps);
+
+        long moved = service.archiveOlderThan(new Date());
+
+        assertEquals(3, moved);
+        verify(archiveOps, times(2)).execute();
+        verify(mongoTemplate, times(2)).remove(any(Query.class), eq(Transaction.class));
+    }
+
+    @Test
+    void archive_toleratesRowsAlreadyCopiedByAnEarlierRun() {
+        when(mongoTemplate.find(any(Query.class), eq(Transaction.class))).thenReturn(List.of(txn("1")));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Transaction.class,
+                TransactionArchiveService.ARCHIVE_COLLECTION)).thenReturn(archiveOps);
+        when(archiveOps.insert(anyList())).thenReturn(archiveOps);
+        BulkOperationException duplicate = mock(BulkOperationException.class);
+        when(duplicate.getErrors()).thenReturn(List.of(new BulkWriteError(11000, "dup", new BsonDocument(), 0)));
+        when(archiveOps.execute()).thenThrow(duplicate);
+
+        assertEquals(1, service.archiveOlderThan(new Date()));
+        verify(mongoTemplate).remove(any(Query.class), eq(Transaction.class));
+    }
+
+    @Test
+    void archive_otherWriteErrorsAbortBeforeDeleting() {
+        when(mongoTemplate.find(any(Query.class), eq(Transaction.class))).thenReturn(List.of(txn("1")));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Transaction.class,
+                TransactionArchiveService.ARCHIVE_COLLECTION)).thenReturn(archiveOps);
+        when(archiveOps.insert(anyList())).thenReturn(archiveOps);
+        BulkOperationException failure = mock(BulkOperationException.class);
+        when(failure.getErrors()).thenReturn(List.of(new BulkWriteError(121, "validation", new BsonDocument(), 0)));
+        when(archiveOps.execute()).thenThrow(failure);
+
+        assertThrows(BulkOperationException.class, () -> service.archiveOlderThan(new Date()));
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(Transaction.class));
+    }
+}
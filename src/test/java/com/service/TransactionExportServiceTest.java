@@ -0,0 +1,168 @@
+package com.service;
+
+import com.dto.ExportRequest;
+import com.dto.ExportStatus;
+import com.exception.InvalidRequestException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.model.Transaction;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionExportServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private TransactionArchiveService archive;
+
+    @TempDir
+    Path exportDir;
+
+    private TransactionExportService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new TransactionExportService(mongoTemplate, archive, new ObjectMapper(), exportDir.toString(), 2, Runnable::run);
+    }
+
+    private static Transaction txn(String type, long millis) {
+        Transaction t = new Transaction();
+        t.setId(new ObjectId().toHexString());
+        t.setTransactionId("TXN-" + millis);
+        t.setType(type);
+        t.setAmount(10);
+        t.setStatus("SUCCESS");
+        t.setSourceAccount("ACC1234");
+        t.setTimestamp(new Date(millis));
+        return t;
+    }
+
+    private static ExportRequest request(String jobId, String format) {
+        ExportRequest request = new ExportRequest();
+        request.setJobId(jobId);
+        request.setFrom(Instant.ofEpochMilli(0));
+        request.setTo(Instant.ofEpochMilli(10_000));
+        request.setFormat(format);
+        return request;
+    }
+
+    // jobs run on the test thread, so start() returns once the export is over
+    private ExportStatus finished(String jobId) {
+        ExportStatus status = service.status(jobId);
+        assertNotEquals(ExportStatus.State.RUNNING, status.getState());
+        return status;
+    }
+
+    private static List<String> readGzipLines(Path file) throws Exception {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            return reader.lines().toList();
+        }
+    }
+
+    @Test
+    void export_writesCompressedPartsAndCompletesCheckpoint() throws Exception {
+        when(mongoTemplate.stream(any(Query.class), eq(Transaction.class)))
+                .thenReturn(Stream.of(txn("DEPOSIT", 1000), txn("WITHDRAW", 2000), txn("DEPOSIT", 3000)));
+
+        service.start(request("audit-1", "csv"));
+        ExportStatus status = finished("audit-1");
+
+        assertEquals(ExportStatus.State.COMPLETED, status.getState());
+        assertEquals(3, status.getRowsWritten());
+        assertEquals(2, status.getPartsWritten());
+
+        List<String> first = readGzipLines(exportDir.resolve("audit-1/part-00000.csv.gz"));
+        assertEquals(3, first.size());
+        assertTrue(first.get(0).startsWith("id,transactionId"));
+        assertTrue(first.get(1).contains(",DEPOSIT,10.0,1970-01-01T00:00:01Z,SUCCESS,ACC1234,"));
+        assertEquals(2, readGzipLines(exportDir.resolve("audit-1/part-00001.csv.gz")).size());
+    }
+
+    @Test
+    void export_resumesAfterLastCheckpointAndDropsPartialPart() throws Exception {
+        Transaction done = txn("DEPOSIT", 1000);
+        Path jobDir = exportDir.resolve("audit-2");
+        Files.createDirectories(jobDir);
+        TransactionExportService.ExportCheckpoint checkpoint =
+                TransactionExportService.ExportCheckpoint.from(request("audit-2", "ndjson"));
+        checkpoint.advance(done);
+        checkpoint.advance(done);
+        checkpoint.nextPart = 1;
+        checkpoint.store(jobDir);
+        Files.write(jobDir.resolve("part-00001.ndjson.gz"), new byte[]{1, 2, 3});
+
+        when(mongoTemplate.stream(any(Query.class), eq(Transaction.class)))
+                .thenReturn(Stream.of(txn("DEPOSIT", 4000)));
+
+        service.start(request("audit-2", "ndjson"));
+        ExportStatus status = finished("audit-2");
+
+        assertEquals(ExportStatus.State.COMPLETED, status.getState());
+        assertEquals(3, status.getRowsWritten());
+        List<String> lines = readGzipLines(jobDir.resolve("part-00001.ndjson.gz"));
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains("\"timestamp\":4000"));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).stream(query.capture(), eq(Transaction.class));
+        assertTrue(query.getValue().getQueryObject().toJson().contains(done.getId()));
+    }
+
+    @Test
+    void export_pastTheArchiveHorizon_mergesBothTiersInOrderWithoutDuplicates() throws Exception {
+        Transaction moving = txn("WITHDRAW", 3000);
+        when(archive.isEnabled()).thenReturn(true);
+        when(archive.horizon()).thenReturn(new Date(5_000));
+        when(mongoTemplate.stream(any(Query.class), eq(Transaction.class)))
+                .thenReturn(Stream.of(moving, txn("DEPOSIT", 6000)));
+        when(mongoTemplate.stream(any(Query.class), eq(Transaction.class), eq(TransactionArchiveService.ARCHIVE_COLLECTION)))
+                .thenReturn(Stream.of(txn("DEPOSIT", 1000), moving));
+
+        service.start(request("audit-4", "ndjson"));
+        ExportStatus status = finished("audit-4");
+
+        assertEquals(ExportStatus.State.COMPLETED, status.getState());
+        assertEquals(3, status.getRowsWritten());
+        List<String> lines = readGzipLines(exportDir.resolve("audit-4/part-00000.ndjson.gz"));
+        assertTrue(lines.get(0).contains("\"timestamp\":1000"));
+        assertTrue(lines.get(1).contains(moving.getId()));
+        assertTrue(readGzipLines(exportDir.resolve("audit-4/part-00001.ndjson.gz")).get(0).contains("\"timestamp\":6000"));
+    }
+
+    @Test
+    void start_rejectsUnsafeJobIdsAndBadRanges() {
+        assertThrows(InvalidRequestException.class, () -> service.start(request("../etc", "csv")));
+
+        ExportRequest backwards = request("audit-3", "csv");
+        backwards.setTo(Instant.ofEpochMilli(0));
+        assertThrows(InvalidRequestException.class, () -> service.start(backwards));
+        verifyNoInteractions(mongoTemplate);
+    }
+}
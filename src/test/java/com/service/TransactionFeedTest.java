@@ -0,0 +1,106 @@
+package com.service;
+
+import com.config.TransactionTimeSeriesConfig;
+import com.exception.ServiceOverloadedException;
+import com.model.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TransactionFeedTest {
+
+    private MongoTemplate mongoTemplate;
+    private TransactionFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        feed = new TransactionFeed(mongoTemplate, new TransactionTimeSeriesConfig(false, Granularity.SECONDS),
+                true, 4, 8, 2, 1, 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        feed.shutdown();
+    }
+
+    private static Transaction txn(String id, String from, String to) {
+        Transaction t = new Transaction();
+        t.setId(id);
+        t.setSourceAccount(from);
+        t.setDestinationAccount(to);
+        return t;
+    }
+
+    @Test
+    void publish_skipsDuplicates() {
+        assertTrue(feed.publish(txn("t1", "A1", "A1")));
+        assertTrue(feed.publish(txn("t2", "A1", "A2")));
+        assertFalse(feed.publish(txn("t1", "A1", "A1")));
+    }
+
+    @Test
+    void eventId_isTheTransactionsPosition_andParsesBack() {
+        Transaction t = txn("65f1c0ffee0000000000abcd", "A1", "A2");
+        t.setTimestamp(new Date(1_700_000_000_123L));
+
+        String id = TransactionFeed.eventId(t);
+
+        assertEquals("1700000000123-65f1c0ffee0000000000abcd", id);
+        assertEquals(new TransactionFeed.Position(1_700_000_000_123L, "65f1c0ffee0000000000abcd"),
+                TransactionFeed.Position.parse(id));
+    }
+
+    @Test
+    void position_ignoresIdsItDidNotIssue() {
+        assertNull(TransactionFeed.Position.parse(null));
+        assertNull(TransactionFeed.Position.parse("42"));
+        assertNull(TransactionFeed.Position.parse("not-a-number"));
+        assertNull(TransactionFeed.Position.parse("17-"));
+    }
+
+    @Test
+    void subscribe_withLastEventId_replaysFromTheCollectionAfterThatPosition() {
+        when(mongoTemplate.find(any(Query.class), eq(Transaction.class))).thenReturn(List.of());
+
+        feed.subscribe("A1", "1700000000123-65f1c0ffee0000000000abcd");
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Transaction.class));
+        String filter = query.getValue().getQueryObject().toJson();
+        assertTrue(filter.contains("A1"));
+        assertTrue(filter.contains("65f1c0ffee0000000000abcd"));
+        assertEquals(4, query.getValue().getLimit());
+        assertEquals(new Document("timestamp", 1).append("_id", 1), query.getValue().getSortObject());
+    }
+
+    @Test
+    void subscribe_withoutUsableLastEventId_doesNotQuery() {
+        feed.subscribe("A1", null);
+        feed.subscribe("A2", "42");
+
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Transaction.class));
+    }
+
+    @Test
+    void subscribe_beyondLimit_isRejected() {
+        feed.subscribe("A1", null);
+        feed.subscribe("A2", "not-a-number");
+
+        assertThrows(ServiceOverloadedException.class, () -> feed.subscribe("A3", null));
+        assertEquals(2, feed.subscriberCount());
+    }
+}
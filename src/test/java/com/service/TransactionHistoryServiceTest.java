@@ -0,0 +1,136 @@
+package com.service;
+
+import com.config.MongoBulkheads;
+import com.config.ReadRouting;
+import com.model.Account;
+import com.model.Transaction;
+import com.mongodb.ReadPreference;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionHistoryServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private TransactionArchiveService archive;
+
+    private AccountNumberFilter accountNumbers;
+    private TransactionHistoryService service;
+
+    private final Date horizon = new Date(10_000);
+
+    @BeforeEach
+    void setUp() {
+        MongoBulkheads bulkheads = new MongoBulkheads(new SimpleMeterRegistry(), 8, 1, 8, 1_000, 8, 1, 8, 1_000);
+        // not built yet, so every number might exist
+        accountNumbers = new AccountNumberFilter(mock(MongoTemplate.class), new SimpleMeterRegistry(), true, 1_000, 0.01);
+        service = new TransactionHistoryService(mongoTemplate, archive, bulkheads, accountNumbers,
+                new ReadRouting(true, 90));
+    }
+
+    private static Transaction txn(String id, long millis) {
+        Transaction t = new Transaction();
+        t.setId(id);
+        t.setTimestamp(new Date(millis));
+        return t;
+    }
+
+    @Test
+    void recentRange_onlyQueriesHotTier() {
+        Date from = new Date(20_000);
+        Date to = new Date(30_000);
+        List<Transaction> hot = List.of(txn("h1", 25_000));
+        when(archive.isEnabled()).thenReturn(true);
+        when(archive.horizon()).thenReturn(horizon);
+        when(mongoTemplate.find(any(Query.class), eq(Transaction.class))).thenReturn(hot);
+
+        assertSame(hot, service.history("A1", from, to));
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Transaction.class), anyString());
+    }
+
+    @Test
+    void olderRange_fallsBackToArchive_andMergesWithoutDuplicates() {
+        Date from = new Date(1_000);
+        Date to = new Date(30_000);
+        when(archive.isEnabled()).thenReturn(true);
+        when(archive.horizon()).thenReturn(horizon);
+        when(mongoTemplate.find(any(Query.class), eq(Transaction.class)))
+                .thenReturn(List.of(txn("h1", 25_000), txn("both", 9_000)));
+        when(mongoTemplate.find(any(Query.class), eq(Transaction.class), eq(TransactionArchiveService.ARCHIVE_COLLECTION)))
+                .thenReturn(List.of(txn("a1", 2_000), txn("both", 9_000)));
+
+        List<Transaction> result = service.history("A1", from, to);
+
+        assertEquals(List.of("a1", "both", "h1"), result.stream().map(Transaction::getId).toList());
+    }
+
+    @Test
+    void unboundedHistory_keepsExistingQuery_whenArchiveIsEmpty() {
+        List<Transaction> hot = List.of(txn("h1", 25_000));
+        when(archive.isEnabled()).thenReturn(true);
+        when(archive.horizon()).thenReturn(horizon);
+        when(mongoTemplate.find(any(Query.class), eq(Transaction.class))).thenReturn(hot);
+        when(mongoTemplate.find(any(Query.class), eq(Transaction.class), eq(TransactionArchiveService.ARCHIVE_COLLECTION)))
+                .thenReturn(List.of());
+
+        assertSame(hot, service.history("A1", null, null));
+    }
+
+    @Test
+    void archiveDisabled_neverTouchesArchive() {
+        List<Transaction> hot = List.of(txn("h1", 25_000));
+        when(archive.isEnabled()).thenReturn(false);
+        when(mongoTemplate.find(any(Query.class), eq(Transaction.class))).thenReturn(hot);
+
+        assertSame(hot, service.history("A1", null, null));
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Transaction.class), anyString());
+    }
+
+    @Test
+    void historyIsReadFromASecondary_boundedByMaxStaleness() {
+        when(archive.isEnabled()).thenReturn(false);
+
+        service.history("A1", new Date(20_000), new Date(30_000));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Transaction.class));
+        assertEquals(ReadPreference.secondaryPreferred(90, TimeUnit.SECONDS),
+                query.getValue().getReadPreference());
+        assertTrue(query.getValue().getQueryObject().containsKey("timestamp"));
+    }
+
+    @Test
+    void unknownAccount_isAnsweredWithoutQueries() {
+        MongoTemplate accounts = mock(MongoTemplate.class);
+        when(accounts.stream(any(Query.class), eq(Account.class))).thenReturn(Stream.empty());
+        AccountNumberFilter built = new AccountNumberFilter(accounts, new SimpleMeterRegistry(), true, 1_000, 0.01);
+        built.build();
+        service = new TransactionHistoryService(mongoTemplate, archive,
+                new MongoBulkheads(new SimpleMeterRegistry(), 8, 1, 8, 1_000, 8, 1, 8, 1_000), built,
+                new ReadRouting(true, 90));
+
+        assertTrue(service.history("NOPE123", null, null).isEmpty());
+        verifyNoInteractions(mongoTemplate, archive);
+    }
+}
@@ -0,0 +1,130 @@
+package com.service;
+
+import com.config.MongoIndexInitializer;
+import com.config.TransactionTimeSeriesConfig;
+import com.exception.InvalidRequestException;
+import com.model.Transaction;
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.ListCollectionsIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionTimeSeriesMigrationTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private MongoIndexInitializer indexes;
+
+    @Mock
+    private MongoDatabase db;
+
+    @Mock
+    private ListCollectionsIterable<Document> listing;
+
+    @Mock
+    private MongoCollection<Document> original;
+
+    @Mock
+    private MongoCollection<Document> legacy;
+
+    @Mock
+    private MongoCollection<Document> timeSeries;
+
+    @Mock
+    private FindIterable<Document> found;
+
+    @Mock
+    private MongoCursor<Document> cursor;
+
+    private TransactionTimeSeriesMigration migration;
+
+    @BeforeEach
+    void setUp() {
+        migration = new TransactionTimeSeriesMigration(mongoTemplate,
+                new TransactionTimeSeriesConfig(true, Granularity.SECONDS), indexes, 100);
+    }
+
+    private void stubCollections() {
+        when(mongoTemplate.getCollectionName(Transaction.class)).thenReturn("transactions");
+        when(mongoTemplate.getDb()).thenReturn(db);
+        when(db.listCollections()).thenReturn(listing);
+        when(listing.filter(any(Bson.class))).thenReturn(listing);
+        when(db.getName()).thenReturn("bankdb");
+        when(mongoTemplate.getCollection("transactions")).thenReturn(original).thenReturn(timeSeries);
+        when(mongoTemplate.getCollection(startsWith("transactions_legacy_"))).thenReturn(legacy);
+        when(legacy.find()).thenReturn(found);
+        when(found.sort(any(Bson.class))).thenReturn(found);
+        when(found.batchSize(anyInt())).thenReturn(found);
+        when(found.iterator()).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, false);
+        when(cursor.next()).thenReturn(new Document("_id", new ObjectId()));
+    }
+
+    @Test
+    void movesTheOriginalAsideThenCopiesIntoATimeSeriesCollectionUnderTheFinalName() {
+        stubCollections();
+        when(legacy.countDocuments()).thenReturn(1L);
+
+        Map<String, Object> result = migration.migrate();
+
+        assertEquals(1L, result.get("migrated"));
+        InOrder order = inOrder(original, mongoTemplate, timeSeries, indexes);
+        order.verify(original).renameCollection(argThat((MongoNamespace ns) ->
+                ns.getCollectionName().startsWith("transactions_legacy_")));
+        order.verify(mongoTemplate).createCollection(eq("transactions"), any(CollectionOptions.class));
+        order.verify(timeSeries).insertMany(anyList(), any());
+        order.verify(indexes).ensureIndexes();
+        // nothing renames a time-series collection
+        verify(timeSeries, never()).renameCollection(any(MongoNamespace.class));
+    }
+
+    @Test
+    void aFailedCopyPutsTheOriginalBack() {
+        stubCollections();
+        when(legacy.countDocuments()).thenReturn(2L);
+
+        assertThrows(IllegalStateException.class, () -> migration.migrate());
+
+        verify(mongoTemplate).dropCollection("transactions");
+        verify(legacy).renameCollection(new MongoNamespace("bankdb", "transactions"));
+        verifyNoInteractions(indexes);
+    }
+
+    @Test
+    void refusesWhileTimeSeriesModeIsOff() {
+        migration = new TransactionTimeSeriesMigration(mongoTemplate,
+                new TransactionTimeSeriesConfig(false, Granularity.SECONDS), indexes, 100);
+
+        assertThrows(InvalidRequestException.class, () -> migration.migrate());
+
+        verifyNoInteractions(mongoTemplate, indexes);
+    }
+}
@@ -0,0 +1,69 @@
+package com.service;
+
+import com.exception.VelocityLimitExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VelocityLimitsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    // short: 3 debits per minute; daily: 1000.00 per day
+    private VelocityLimits limits(int maxTracked) {
+        return new VelocityLimits(registry, true, 12, maxTracked, 60_000, 3, 0, 86_400_000, 0, 1_000);
+    }
+
+    @Test
+    void rejectsTheDebitThatWouldExceedTheCount_untilTheWindowMoves() {
+        VelocityLimits limits = limits(10);
+        for (int i = 0; i < 3; i++) {
+            limits.admit("A1", 1, 1_000);
+        }
+
+        VelocityLimitExceededException ex = assertThrows(VelocityLimitExceededException.class,
+                () -> limits.admit("A1", 1, 2_000));
+        assertTrue(ex.getMessage().contains("short"));
+        assertEquals(58, ex.getRetryAfterSeconds());
+        assertEquals(1.0, registry.get("bank.velocity.rejected").tag("rule", "short").counter().count());
+
+        assertNotNull(limits.admit("A1", 1, 61_000));
+    }
+
+    @Test
+    void rejectsTheDebitThatWouldExceedTheAmount() {
+        VelocityLimits limits = limits(10);
+        limits.admit("A1", 600, 1_000);
+
+        assertThrows(VelocityLimitExceededException.class, () -> limits.admit("A1", 400.01, 2_000));
+        assertNotNull(limits.admit("A1", 400, 2_000));
+    }
+
+    @Test
+    void refundedDebits_freeTheirShare() {
+        VelocityLimits limits = limits(10);
+        VelocityLimits.Reservation debit = limits.admit("A1", 900, 1_000);
+        limits.refund(debit);
+
+        assertNotNull(limits.admit("A1", 900, 2_000));
+        limits.refund(null);
+    }
+
+    @Test
+    void memoryIsBounded_idleAccountsAreEvicted_andOverflowIsNotChecked() {
+        VelocityLimits limits = limits(2);
+        limits.admit("A1", 1, 1_000);
+        limits.admit("A2", 1, 1_000);
+
+        // a third account is not tracked, so nothing limits it
+        for (int i = 0; i < 5; i++) {
+            assertNull(limits.admit("A3", 1, 1_000));
+        }
+        assertEquals(2, limits.trackedAccounts());
+        assertEquals(5.0, registry.get("bank.velocity.untracked").counter().count());
+
+        limits.evictIdle(90_000_000);
+        assertEquals(0, limits.trackedAccounts());
+    }
+}
@@ -0,0 +1,238 @@
+package com.stress;
+
+import com.config.ReadRouting;
+import com.exception.InsufficientBalanceException;
+import com.model.Account;
+import com.model.Transaction;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.repository.AccountRepository;
+import com.repository.TransactionRepository;
+import com.service.AccountServiceImpl;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Many threads of random deposits, withdrawals and transfers against {@link AccountServiceImpl},
+ * checking afterwards that no money was created or lost, that no balance went negative and that
+ * every account holds what its successful operations add up to. Amounts are whole numbers so the
+ * double sums are exact.
+ * <p>
+ * By default the repositories are in-memory stand-ins that hand out copies, like a database does,
+ * and wait {@code stress.latency-us} per call to give the races a realistic width. With
+ * {@code -Dstress.mongo.uri} the real repositories run against that server instead.
+ * {@code -Dstress.assert=false} only reports.
+ *
+ * mvn test -Pstress [-Dstress.threads=16] [-Dstress.ops=200000] [-Dstress.mongo.uri=mongodb://localhost:27017]
+ */
+@Tag("stress")
+class BalanceOperationsStressTest {
+
+    private static final String DATABASE = "stress_balance_operations";
+    private static final double INITIAL_BALANCE = 1_000;
+
+    @Test
+    void concurrentBalanceOperationsKeepTheBooksStraight() throws Exception {
+        int threads = Integer.getInteger("stress.threads", 16);
+        int ops = Integer.getInteger("stress.ops", 200_000);
+        int accounts = Integer.getInteger("stress.accounts", 50);
+        long latencyNanos = Integer.getInteger("stress.latency-us", 100) * 1_000L;
+        boolean strict = Boolean.parseBoolean(System.getProperty("stress.assert", "true"));
+        String mongoUri = System.getProperty("stress.mongo.uri");
+
+        MongoClient client = mongoUri == null || mongoUri.isBlank() ? null : MongoClients.create(mongoUri);
+        try {
+            AccountRepository accountRepo;
+            TransactionRepository txnRepo;
+            MongoTemplate template;
+            if (client == null) {
+                Map<String, Account> store = new ConcurrentHashMap<>();
+                accountRepo = inMemoryAccounts(store, latencyNanos);
+                txnRepo = inMemoryTransactions(latencyNanos);
+                // only the account listing goes through the template, and the harness never lists
+                template = mock(MongoTemplate.class, withSettings().stubOnly());
+            } else {
+                template = new MongoTemplate(client, DATABASE);
+                template.getDb().drop();
+                MongoRepositoryFactory factory = new MongoRepositoryFactory(template);
+                accountRepo = factory.getRepository(AccountRepository.class);
+                txnRepo = factory.getRepository(TransactionRepository.class);
+            }
+            AccountServiceImpl service = new AccountServiceImpl(accountRepo, txnRepo, event -> { },
+                    template, new ReadRouting(false, 90));
+            run(service, accountRepo, txnRepo, threads, ops, accounts, strict, client == null ? "in-memory" : mongoUri);
+        } finally {
+            if (client != null) {
+                client.getDatabase(DATABASE).drop();
+                client.close();
+            }
+        }
+    }
+
+    private static void run(AccountServiceImpl service, AccountRepository accountRepo, TransactionRepository txnRepo,
+                            int threads, int ops, int accounts, boolean strict, String target) throws Exception {
+        String[] numbers = new String[accounts];
+        for (int i = 0; i < accounts; i++) {
+            Account account = new Account();
+            account.setAccountNumber(String.format("STR%04d", i));
+            account.setHolderName("Stress " + i);
+            account.setBalance(INITIAL_BALANCE);
+            accountRepo.save(account);
+            numbers[i] = account.getAccountNumber();
+        }
+        long transactionsBefore = txnRepo.count();
+
+        // what each account should hold, from the operations the service reported as done
+        AtomicLongArray expected = new AtomicLongArray(accounts);
+        AtomicLong succeeded = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        AtomicLong journalRows = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            Random random = new Random(t);
+            int share = ops / threads;
+            workers[t] = new Thread(() -> {
+                awaitQuietly(start);
+                for (int i = 0; i < share; i++) {
+                    int a = random.nextInt(accounts);
+                    int b = (a + 1 + random.nextInt(accounts - 1)) % accounts;
+                    int amount = 1 + random.nextInt(200);
+                    int kind = random.nextInt(10);
+                    try {
+                        if (kind < 4) {
+                            service.deposit(numbers[a], amount);
+                            expected.addAndGet(a, amount);
+                            journalRows.incrementAndGet();
+                        } else if (kind < 7) {
+                            service.withdraw(numbers[a], amount);
+                            expected.addAndGet(a, -amount);
+                            journalRows.incrementAndGet();
+                        } else {
+                            service.transfer(numbers[a], numbers[b], amount);
+                            expected.addAndGet(a, -amount);
+                            expected.addAndGet(b, amount);
+                            journalRows.addAndGet(3);
+                        }
+                        succeeded.incrementAndGet();
+                    } catch (InsufficientBalanceException ex) {
+                        rejected.incrementAndGet();
+                    }
+                }
+            }, "stress-" + t);
+            workers[t].start();
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double seconds = (System.nanoTime() - began) / 1e9;
+
+        double expectedTotal = 0;
+        double actualTotal = 0;
+        int negative = 0;
+        int lostUpdates = 0;
+        double drift = 0;
+        for (int i = 0; i < accounts; i++) {
+            double should = INITIAL_BALANCE + expected.get(i);
+            double is = accountRepo.findByAccountNumber(numbers[i]).getBalance();
+            expectedTotal += should;
+            actualTotal += is;
+            if (is < 0) {
+                negative++;
+            }
+            if (is != should) {
+                lostUpdates++;
+                drift += Math.abs(is - should);
+            }
+        }
+        long rows = txnRepo.count() - transactionsBefore;
+
+        System.out.printf("target %s, %d threads, %d accounts%n", target, threads, accounts);
+        System.out.printf("%12s %12s %12s %14s%n", "ops/s", "succeeded", "rejected", "journal rows");
+        System.out.printf("%12.0f %12d %12d %14d%n", (succeeded.get() + rejected.get()) / seconds,
+                succeeded.get(), rejected.get(), rows);
+        System.out.printf("total expected %.2f, actual %.2f (%+.2f)%n", expectedTotal, actualTotal, actualTotal - expectedTotal);
+        System.out.printf("accounts with lost updates %d (drift %.2f), negative balances %d%n", lostUpdates, drift, negative);
+
+        if (strict) {
+            assertEquals(0, negative, "accounts with a negative balance");
+            assertEquals(expectedTotal, actualTotal, "money created or destroyed");
+            assertEquals(0, lostUpdates, "accounts whose balance misses operations");
+            assertEquals(journalRows.get(), rows, "journal rows");
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Copies in both directions, so a caller never sees another thread's unsaved changes
+    private static AccountRepository inMemoryAccounts(Map<String, Account> store, long latencyNanos) {
+        AccountRepository repo = mock(AccountRepository.class, withSettings().stubOnly());
+        when(repo.findByAccountNumber(anyString())).thenAnswer(inv -> {
+            pause(latencyNanos);
+            Account stored = store.get(inv.<String>getArgument(0));
+            return stored == null ? null : copy(stored);
+        });
+        when(repo.save(any(Account.class))).thenAnswer(inv -> {
+            pause(latencyNanos);
+            Account account = inv.getArgument(0);
+            store.put(account.getAccountNumber(), copy(account));
+            return account;
+        });
+        return repo;
+    }
+
+    private static TransactionRepository inMemoryTransactions(long latencyNanos) {
+        TransactionRepository repo = mock(TransactionRepository.class, withSettings().stubOnly());
+        AtomicLong rows = new AtomicLong();
+        when(repo.save(any(Transaction.class))).thenAnswer(inv -> {
+            pause(latencyNanos);
+            rows.incrementAndGet();
+            return inv.getArgument(0);
+        });
+        when(repo.count()).thenAnswer(inv -> rows.get());
+        return repo;
+    }
+
+    private static Account copy(Account source) {
+        Account copy = new Account();
+        copy.setId(source.getId());
+        copy.setAccountNumber(source.getAccountNumber());
+        copy.setHolderName(source.getHolderName());
+        copy.setBalance(source.getBalance());
+        copy.setStatus(source.getStatus());
+        copy.setCreatedAt(source.getCreatedAt());
+        copy.setActivity(source.getActivity());
+        return copy;
+    }
+
+    private static void pause(long nanos) {
+        if (nanos > 0) {
+            LockSupport.parkNanos(nanos);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long TARGET = 10_000_000; // 10 ms
+
+    @Test
+    void rejectsImmediatelyOnceTheLimitIsReached() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, TARGET);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(2, limiter.getInFlight());
+
+        limiter.release(1_000, false);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void slowCallsShrinkTheLimitDownToTheMinimum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 3, 50, TARGET);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(TARGET * 5, false);
+        }
+        assertEquals(3, limiter.getLimit());
+    }
+
+    @Test
+    void timeoutsShrinkTheLimitEvenWhenFast() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 1, 50, TARGET);
+
+        limiter.tryAcquire();
+        limiter.release(1, true);
+        assertEquals(18, limiter.getLimit());
+    }
+
+    @Test
+    void fastCallsUnderLoadGrowTheLimitUpToTheMaximum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 6, TARGET);
+
+        for (int round = 0; round < 200; round++) {
+            int acquired = 0;
+            while (limiter.tryAcquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                limiter.release(1_000, false);
+            }
+        }
+        assertEquals(6, limiter.getLimit());
+    }
+
+    @Test
+    void idleTrafficDoesNotGrowTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, TARGET);
+
+        for (int i = 0; i < 1_000; i++) {
+            limiter.tryAcquire();
+            limiter.release(1_000, false);
+        }
+        assertEquals(10, limiter.getLimit());
+    }
+}
@@ -0,0 +1,50 @@
+package com.util;
+
+import org.bson.BsonDocument;
+import org.bson.BsonTimestamp;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CausalTokenTest {
+
+    private static final BsonDocument CLUSTER_TIME = BsonDocument.parse(
+            "{clusterTime: {$timestamp: {t: 1700000000, i: 3}}, signature: {hash: {$binary: {base64: 'AAAAAAAAAAAAAAAAAAAAAAAAAAA=', subType: '00'}}, keyId: {$numberLong: '0'}}}");
+
+    @Test
+    void roundTripsThroughAHeaderSafeString() {
+        CausalToken token = new CausalToken(new BsonTimestamp(1_700_000_000, 3), CLUSTER_TIME);
+
+        String encoded = token.encode();
+        CausalToken decoded = CausalToken.decode(encoded);
+
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"));
+        assertEquals(token.getOperationTime(), decoded.getOperationTime());
+        assertEquals(CLUSTER_TIME, decoded.getClusterTime());
+    }
+
+    @Test
+    void clusterTimeIsOptional() {
+        CausalToken decoded = CausalToken.decode(new CausalToken(new BsonTimestamp(5, 1), null).encode());
+
+        assertEquals(new BsonTimestamp(5, 1), decoded.getOperationTime());
+        assertNull(decoded.getClusterTime());
+    }
+
+    @Test
+    void garbageIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> CausalToken.decode("not a token"));
+        assertThrows(IllegalArgumentException.class, () -> CausalToken.decode("AAAA"));
+        assertThrows(IllegalArgumentException.class, () -> CausalToken.decode("A".repeat(2_000)));
+    }
+
+    @Test
+    void laterPicksTheNewerOperationTime() {
+        CausalToken older = new CausalToken(new BsonTimestamp(10, 1), null);
+        CausalToken newer = new CausalToken(new BsonTimestamp(10, 2), null);
+
+        assertSame(newer, CausalToken.later(older, newer));
+        assertSame(newer, CausalToken.later(newer, older));
+        assertSame(older, CausalToken.later(null, older));
+    }
+}
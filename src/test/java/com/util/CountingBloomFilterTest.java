@@ -0,0 +1,61 @@
+package com.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CountingBloomFilterTest {
+
+    @Test
+    void addedKeysAreAlwaysFound_andFalsePositiveRateIsNearTarget() {
+        CountingBloomFilter filter = new CountingBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("ACC" + i);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("ACC" + i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("MISS" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void removeUndoesAdd_withoutHidingOtherKeys() {
+        CountingBloomFilter filter = new CountingBloomFilter(1_000, 0.01);
+        for (int i = 0; i < 1_000; i++) {
+            filter.add("ACC" + i);
+        }
+        for (int i = 0; i < 1_000; i += 2) {
+            filter.remove("ACC" + i);
+        }
+
+        for (int i = 1; i < 1_000; i += 2) {
+            assertTrue(filter.mightContain("ACC" + i));
+        }
+        int stillFound = 0;
+        for (int i = 0; i < 1_000; i += 2) {
+            if (filter.mightContain("ACC" + i)) {
+                stillFound++;
+            }
+        }
+        assertTrue(stillFound < 50, "removed keys still found: " + stillFound);
+    }
+
+    @Test
+    void keyAddedTwice_needsTwoRemoves() {
+        CountingBloomFilter filter = new CountingBloomFilter(100, 0.01);
+        filter.add("ACC1");
+        filter.add("ACC1");
+
+        filter.remove("ACC1");
+        assertTrue(filter.mightContain("ACC1"));
+        filter.remove("ACC1");
+        assertFalse(filter.mightContain("ACC1"));
+    }
+}
@@ -0,0 +1,21 @@
+package com.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HolderNamesTest {
+
+    @Test
+    void normalize_foldsCaseAccentsAndWhitespace() {
+        assertEquals("jose alvarez", HolderNames.normalize("  José   ÁLVAREZ "));
+        assertNull(HolderNames.normalize(null));
+    }
+
+    @Test
+    void prefixUpperBound_isNextStringAfterAllExtensions() {
+        assertEquals("alj", HolderNames.prefixUpperBound("ali"));
+        assertEquals("b", HolderNames.prefixUpperBound("a" + Character.MAX_VALUE));
+        assertNull(HolderNames.prefixUpperBound(String.valueOf(Character.MAX_VALUE)));
+    }
+}
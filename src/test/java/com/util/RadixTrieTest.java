@@ -0,0 +1,112 @@
+package com.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RadixTrieTest {
+
+    @Test
+    void prefixLookup_returnsValuesInKeyOrder() {
+        RadixTrie trie = new RadixTrie();
+        trie.add("alice smith", "A2");
+        trie.add("alan turing", "A1");
+        trie.add("bob", "B1");
+        trie.add("alice", "A3");
+
+        assertEquals(List.of("A1", "A3", "A2"), trie.valuesWithPrefix("al", 10));
+        assertEquals(List.of("A3", "A2"), trie.valuesWithPrefix("alic", 10));
+        assertEquals(List.of("A3", "A2"), trie.valuesWithPrefix("alice", 10));
+        assertEquals(List.of("A2"), trie.valuesWithPrefix("alice ", 10));
+        assertTrue(trie.valuesWithPrefix("alx", 10).isEmpty());
+        assertTrue(trie.valuesWithPrefix("alice smithers", 10).isEmpty());
+    }
+
+    @Test
+    void prefixLookup_stopsAtLimit() {
+        RadixTrie trie = new RadixTrie();
+        for (int i = 0; i < 50; i++) {
+            trie.add("name" + i, "N" + i);
+        }
+
+        assertEquals(5, trie.valuesWithPrefix("name", 5).size());
+    }
+
+    @Test
+    void sharedKey_holdsSeveralValues_andRemoveTakesOneAtATime() {
+        RadixTrie trie = new RadixTrie();
+        trie.add("alice", "A1");
+        trie.add("alice", "A2");
+        trie.add("alice", "A2");
+
+        assertEquals(2, trie.size());
+        assertTrue(trie.remove("alice", "A1"));
+        assertFalse(trie.remove("alice", "A1"));
+        assertEquals(List.of("A2"), trie.valuesWithPrefix("ali", 10));
+        assertFalse(trie.remove("ali", "A2"));
+    }
+
+    @Test
+    void remove_mergesNodesWithoutLosingOtherKeys() {
+        RadixTrie trie = new RadixTrie();
+        trie.add("ab", "1");
+        trie.add("abc", "2");
+        trie.add("abd", "3");
+
+        assertTrue(trie.remove("abc", "2"));
+        assertTrue(trie.remove("ab", "1"));
+
+        assertEquals(List.of("3"), trie.valuesWithPrefix("a", 10));
+        assertEquals(List.of("3"), trie.valuesWithPrefix("abd", 10));
+        assertEquals(1, trie.size());
+    }
+
+    @Test
+    void randomOperations_matchSortedMapModel() {
+        Random random = new Random(42);
+        RadixTrie trie = new RadixTrie();
+        TreeMap<String, TreeSet<String>> model = new TreeMap<>();
+
+        for (int op = 0; op < 5_000; op++) {
+            String key = randomKey(random);
+            String value = "V" + random.nextInt(5);
+            if (random.nextInt(3) == 0) {
+                TreeSet<String> values = model.get(key);
+                boolean expected = values != null && values.remove(value);
+                if (values != null && values.isEmpty()) {
+                    model.remove(key);
+                }
+                assertEquals(expected, trie.remove(key, value));
+            } else {
+                model.computeIfAbsent(key, k -> new TreeSet<>()).add(value);
+                trie.add(key, value);
+            }
+        }
+
+        for (String prefix : List.of("", "a", "ab", "ba", "abc", "c")) {
+            List<String> expected = new ArrayList<>();
+            model.forEach((key, values) -> {
+                if (key.startsWith(prefix)) {
+                    expected.addAll(values);
+                }
+            });
+            assertEquals(expected, trie.valuesWithPrefix(prefix, Integer.MAX_VALUE), "prefix " + prefix);
+        }
+        assertEquals(model.values().stream().mapToInt(TreeSet::size).sum(), trie.size());
+    }
+
+    private static String randomKey(Random random) {
+        int length = 1 + random.nextInt(5);
+        StringBuilder key = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            key.append((char) ('a' + random.nextInt(3)));
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,71 @@
+package com.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestTimingTest {
+
+    @AfterEach
+    void clear() {
+        RequestTiming.end();
+    }
+
+    @Test
+    void headerSplitsServiceAndDatabaseTime() {
+        RequestTiming timing = new RequestTiming(0, false, 10);
+
+        timing.enterService(1_000_000);
+        timing.dbCommand(3_000_000);
+        timing.exitService(5_000_000);
+
+        assertEquals("db;dur=3.000;desc=\"1 cmd\", svc;dur=1.000, read;dur=0.000, valid;dur=0.000, "
+                + "app;dur=6.000, total;dur=10.000", timing.headerValue(10_000_000));
+    }
+
+    @Test
+    void nestedServiceCallsAreCountedOnce() {
+        RequestTiming timing = new RequestTiming(0, false, 10);
+
+        timing.enterService(1_000_000);
+        timing.enterService(2_000_000);
+        timing.exitService(3_000_000);
+        timing.exitService(4_500_000);
+
+        assertTrue(timing.headerValue(5_000_000).contains("svc;dur=3.500"));
+    }
+
+    @Test
+    void queryShapesAreOnlyKeptForSampledRequests_upToTheLimit() {
+        RequestTiming unsampled = new RequestTiming(0, false, 2);
+        unsampled.queryShape("find accounts {accountNumber: ?}");
+        assertTrue(unsampled.getQueryShapes().isEmpty());
+
+        RequestTiming sampled = new RequestTiming(0, true, 2);
+        sampled.queryShape("a");
+        sampled.queryShape("b");
+        sampled.queryShape("c");
+        assertEquals(2, sampled.getQueryShapes().size());
+    }
+
+    @Test
+    void describeAddsSerializationAfterTheHeaderWasWritten() {
+        RequestTiming timing = new RequestTiming(0, true, 10);
+        timing.responseStarted(2_000_000);
+
+        String summary = timing.describe(2_250_000);
+
+        assertTrue(summary.contains("total;dur=2.000"));
+        assertTrue(summary.endsWith("ser;dur=0.250"));
+    }
+
+    @Test
+    void currentIsBoundToTheThreadUntilEnd() {
+        RequestTiming timing = RequestTiming.begin(false, 10);
+        assertSame(timing, RequestTiming.current());
+
+        RequestTiming.end();
+        assertNull(RequestTiming.current());
+    }
+}
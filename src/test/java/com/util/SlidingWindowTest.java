@@ -0,0 +1,60 @@
+package com.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidingWindowTest {
+
+    @Test
+    void sumsTheEventsStillInTheWindow() {
+        SlidingWindow window = new SlidingWindow(60_000, 6); // 10 s buckets
+        window.add(1_000, 1, 500);
+        window.add(15_000, 1, 250);
+        window.add(15_500, 2, 100);
+
+        assertEquals(4, window.count(20_000));
+        assertEquals(850, window.amount(20_000));
+        // the first bucket [0, 10 s) leaves the window at 60 s
+        assertEquals(4, window.count(59_999));
+        assertEquals(3, window.count(60_000));
+        assertEquals(350, window.amount(60_000));
+        assertEquals(0, window.count(70_000));
+        assertTrue(window.isEmpty(70_000));
+    }
+
+    @Test
+    void reusedSlotsStartFromZero() {
+        SlidingWindow window = new SlidingWindow(60_000, 6);
+        window.add(5_000, 3, 300);
+        window.add(65_000, 1, 10); // same slot, one turn later
+
+        assertEquals(1, window.count(65_000));
+        assertEquals(10, window.amount(65_000));
+    }
+
+    @Test
+    void takingBackEvents_onlyWorksWhileTheyAreInTheWindow() {
+        SlidingWindow window = new SlidingWindow(60_000, 6);
+        window.add(5_000, 1, 300);
+        window.add(5_000, -1, -300);
+        assertTrue(window.isEmpty(5_000));
+
+        window.add(5_000, 1, 300);
+        window.add(65_000, 1, 10);
+        window.add(5_000, -1, -300); // its slot now holds a later bucket
+        assertEquals(1, window.count(65_000));
+        assertEquals(10, window.amount(65_000));
+    }
+
+    @Test
+    void reportsWhenTheOldestEventsExpire() {
+        SlidingWindow window = new SlidingWindow(60_000, 6);
+        assertEquals(0, window.millisUntilOldestExpires(1_000));
+
+        window.add(12_000, 1, 1);
+        window.add(31_000, 1, 1);
+
+        assertEquals(30_000, window.millisUntilOldestExpires(40_000));
+    }
+}
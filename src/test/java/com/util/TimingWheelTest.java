@@ -0,0 +1,68 @@
+package com.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    private static List<String> advance(TimingWheel<String> wheel, long now) {
+        List<String> expired = new ArrayList<>();
+        wheel.advance(now, expired::add);
+        return expired;
+    }
+
+    @Test
+    void itemsExpireWhenTheClockReachesTheirTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 1_000);
+        assertTrue(wheel.add("a", 1_035));
+        assertTrue(wheel.add("b", 1_012));
+
+        assertEquals(List.of(), advance(wheel, 1_009));
+        assertEquals(List.of("b"), advance(wheel, 1_010));
+        assertEquals(List.of(), advance(wheel, 1_029));
+        assertEquals(List.of("a"), advance(wheel, 1_030));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void itemsBeyondTheRing_comeDownFromTheOverflowLevels() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 4, 0);
+        assertTrue(wheel.add("near", 25));
+        assertTrue(wheel.add("far", 1_234));
+        assertTrue(wheel.add("farther", 98_765));
+        assertEquals(3, wheel.size());
+
+        assertEquals(List.of("near"), advance(wheel, 20));
+        assertEquals(List.of(), advance(wheel, 1_229));
+        assertEquals(List.of("far"), advance(wheel, 1_230));
+        assertEquals(List.of(), advance(wheel, 98_759));
+        assertEquals(List.of("farther"), advance(wheel, 98_760));
+    }
+
+    @Test
+    void aJumpPastSeveralTurns_expiresEverythingDueOnce() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 4, 0);
+        for (int i = 1; i <= 20; i++) {
+            wheel.add("item" + i, i * 15L);
+        }
+
+        List<String> expired = advance(wheel, 10_000);
+
+        assertEquals(20, expired.size());
+        assertEquals(20, expired.stream().distinct().count());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void itemsAlreadyDue_areNotKept() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 1_000);
+
+        assertFalse(wheel.add("past", 990));
+        assertFalse(wheel.add("current tick", 1_005));
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,77 @@
+package com.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void allowsBurstThenRejectsWithWaitTime() {
+        TokenBucket bucket = new TokenBucket(10, 3, 0);
+
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(0, bucket.tryAcquire(0));
+        long wait = bucket.tryAcquire(0);
+        assertEquals(SECOND / 10, wait);
+    }
+
+    @Test
+    void refillsAtConfiguredRate() {
+        TokenBucket bucket = new TokenBucket(10, 1, 0);
+
+        assertEquals(0, bucket.tryAcquire(0));
+        assertTrue(bucket.tryAcquire(SECOND / 20) > 0);
+        assertEquals(0, bucket.tryAcquire(SECOND / 10));
+    }
+
+    @Test
+    void releaseGivesThePermitBack_withoutExceedingTheBurst() {
+        TokenBucket bucket = new TokenBucket(10, 1, 0);
+
+        assertEquals(0, bucket.tryAcquire(0));
+        bucket.release();
+        assertEquals(0, bucket.tryAcquire(0));
+        assertTrue(bucket.tryAcquire(0) > 0);
+
+        // releasing into a full bucket adds no extra permit
+        TokenBucket idle = new TokenBucket(10, 1, 0);
+        idle.release();
+        assertEquals(0, idle.tryAcquire(0));
+        assertTrue(idle.tryAcquire(0) > 0);
+    }
+
+    @Test
+    void isFullOnlyOnceTheDebtIsRepaid() {
+        TokenBucket bucket = new TokenBucket(1, 5, 0);
+        bucket.tryAcquire(0);
+
+        assertFalse(bucket.isFull(SECOND / 2));
+        assertTrue(bucket.isFull(SECOND));
+    }
+
+    @Test
+    void concurrentCallersNeverExceedTheBurst() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(0.001, 100, 0);
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1_000; i++) {
+            pool.submit(() -> {
+                if (bucket.tryAcquire(0) == 0) {
+                    granted.incrementAndGet();
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(100, granted.get());
+    }
+}
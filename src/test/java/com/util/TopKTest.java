@@ -0,0 +1,76 @@
+package com.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopKTest {
+
+    private static List<String> keys(List<TopK.Entry> entries) {
+        return entries.stream().map(TopK.Entry::key).toList();
+    }
+
+    @Test
+    void keepsTheHighestScoresInOrder() {
+        TopK top = new TopK(3, Double.NEGATIVE_INFINITY);
+        top.update("a", 10);
+        top.update("b", 30);
+        top.update("c", 20);
+        top.update("d", 5);
+        top.update("e", 25);
+
+        assertEquals(List.of("b", "e", "c"), keys(top.top(5)));
+        assertEquals(3, top.size());
+        assertEquals(List.of("b", "e"), keys(top.top(2)));
+    }
+
+    @Test
+    void updatingATrackedKeyMovesIt() {
+        TopK top = new TopK(3, Double.NEGATIVE_INFINITY);
+        top.update("a", 10);
+        top.update("b", 20);
+        top.update("a", 40);
+
+        assertEquals(List.of("a", "b"), keys(top.top(3)));
+        assertEquals(40, top.top(1).get(0).score());
+    }
+
+    @Test
+    void isExactUntilATrackedScoreDropsBelowOneThatWasLeftOut() {
+        TopK top = new TopK(2, Double.NEGATIVE_INFINITY);
+        top.update("a", 30);
+        top.update("b", 20);
+        top.update("c", 10); // left out
+
+        assertTrue(top.isExact(2));
+
+        top.update("b", 5); // c may now be ahead of b
+        assertTrue(top.isExact(1));
+        assertFalse(top.isExact(2));
+    }
+
+    @Test
+    void loadedWithALeftOutCeiling_isOnlyExactAboveIt() {
+        TopK top = new TopK(2, 15);
+        top.update("a", 30);
+        top.update("b", 20);
+
+        assertTrue(top.isExact(2));
+        top.remove("b");
+        assertFalse(top.isExact(2));
+        assertTrue(top.isExact(1));
+    }
+
+    @Test
+    void removeForgetsTheKey() {
+        TopK top = new TopK(2, Double.NEGATIVE_INFINITY);
+        top.update("a", 1);
+        top.remove("a");
+        top.remove("missing");
+
+        assertEquals(0, top.size());
+        assertTrue(top.top(2).isEmpty());
+    }
+}